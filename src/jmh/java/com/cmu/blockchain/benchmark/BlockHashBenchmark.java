@@ -0,0 +1,71 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.benchmark;
+
+import com.cmu.blockchain.model.Block;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Block#calculateHash()}, which every mining attempt and every validation step pays for,
+ * across transaction payload sizes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BlockHashBenchmark {
+
+    @Param({"16", "256", "4096"})
+    public int payloadSize;
+
+    private Block block;
+    private String payload;
+    private MessageDigest digest;
+    private byte[] startupInput;
+
+    @Setup
+    public void setUp() throws NoSuchAlgorithmException {
+        digest = MessageDigest.getInstance("SHA-256");
+        startupInput = "00000000".getBytes(StandardCharsets.UTF_8);
+        payload = "x".repeat(payloadSize);
+        block = new Block(42, new Timestamp(1_700_000_000_000L), payload,
+                "000a5c8e0f5f0e0a7d5f0c9d4ad0cba54e1c1d1f3a8b8b1a7e2c0c9d2f1e0a3b", BigInteger.ZERO, 3);
+    }
+
+    /**
+     * Hashes a new block, including the hash of its data. Blocks cache their hash, so every invocation hashes a
+     * fresh copy.
+     */
+    @Benchmark
+    public String calculateHash() {
+        return block.withData(payload).calculateHash();
+    }
+
+    /**
+     * Hashes a copy with another nonce, which reuses the data hash like a mining attempt does.
+     */
+    @Benchmark
+    public String calculateHashWithNewNonce() {
+        return block.withNonce(BigInteger.ONE).calculateHash();
+    }
+
+    /**
+     * Hashes the fixed input that {@code BlockChain} measures its startup hash rate with. The digest goes to the
+     * blackhole, so the JIT cannot drop it.
+     */
+    @Benchmark
+    public void startupHashRate(Blackhole blackhole) {
+        blackhole.consume(digest.digest(startupInput));
+    }
+}
@@ -0,0 +1,51 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.benchmark;
+
+import com.cmu.blockchain.core.BlockChain;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the operations that walk the whole chain: {@link BlockChain#isChainValid()}, which hashes every block
+ * twice, and {@link BlockChain#toString()}, which renders the {@code viewBlockchain} response.
+ * The chains are mined at difficulty 0 so that setting up 100,000 blocks stays quick; validation costs the same
+ * hashes at any difficulty.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChainBenchmark {
+
+    @Param({"1000", "100000"})
+    public int chainSize;
+
+    private BlockChain blockchain;
+
+    @Setup
+    public void setUp() {
+        blockchain = new BlockChain();
+        List<String> transactions = new ArrayList<>(chainSize - 1);
+        for (int i = 1; i < chainSize; i++) {
+            transactions.add("Transaction " + i);
+        }
+        blockchain.addTransactions(transactions, 0);
+    }
+
+    @Benchmark
+    public boolean isChainValid() {
+        return blockchain.isChainValid();
+    }
+
+    @Benchmark
+    public String renderChain() {
+        return blockchain.toString();
+    }
+}
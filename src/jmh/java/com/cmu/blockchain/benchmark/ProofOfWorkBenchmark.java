@@ -0,0 +1,38 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.benchmark;
+
+import com.cmu.blockchain.model.Block;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Block#proofOfWork()} per difficulty level. Every invocation mines a block with different data,
+ * so the average covers the spread of nonces a real block needs; expect roughly 16 times the cost per level.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProofOfWorkBenchmark {
+
+    private static final String PREVIOUS_HASH = "000a5c8e0f5f0e0a7d5f0c9d4ad0cba54e1c1d1f3a8b8b1a7e2c0c9d2f1e0a3b";
+    private static final Timestamp TIMESTAMP = new Timestamp(1_700_000_000_000L);
+
+    @Param({"1", "2", "3", "4"})
+    public int difficulty;
+
+    private long transaction; // Varies the data so every invocation searches for a different nonce.
+
+    @Benchmark
+    public BigInteger proofOfWork() {
+        Block block = new Block(42, TIMESTAMP, "Transaction " + transaction++, PREVIOUS_HASH, BigInteger.ZERO, difficulty);
+        return block.proofOfWork().getNonce();
+    }
+}
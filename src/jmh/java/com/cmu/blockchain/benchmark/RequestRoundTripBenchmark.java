@@ -0,0 +1,76 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.benchmark;
+
+import com.cmu.blockchain.core.BlockChain;
+import com.cmu.blockchain.message.MessageCodec;
+import com.cmu.blockchain.message.RequestMessage;
+import com.cmu.blockchain.message.ResponseMessage;
+import com.cmu.blockchain.network.RequestHandler;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the request/response round trip of the server: decoding a request line, running it and encoding the
+ * response, as {@link RequestHandler#processRequest(String)} does for every connection. The codec benchmarks
+ * isolate the serialization, comparing the precompiled {@link MessageCodec} with reflective Gson.
+ * Add {@code -prof gc} to the JMH arguments to see the bytes allocated per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestRoundTripBenchmark {
+
+    private static final String STATUS_REQUEST = "{\"action\":\"viewBlockchainStatus\",\"data\":\"\",\"difficulty\":0,\"requestId\":17}";
+    private static final String VERIFY_REQUEST = "{\"action\":\"verifyBlockchain\",\"data\":\"\",\"difficulty\":0,\"requestId\":18}";
+
+    private final Gson reflectiveGson = new Gson();
+    private RequestHandler handler;
+    private ResponseMessage response;
+
+    @Setup
+    public void setUp() {
+        BlockChain blockchain = new BlockChain();
+        for (int i = 1; i < 100; i++) {
+            blockchain.addTransaction("Transaction " + i, 0);
+        }
+        handler = new RequestHandler(blockchain);
+        response = new ResponseMessage(true, "Blockchain status viewed successfully.", "viewBlockchainStatus", null);
+        response.setChainSize(1000);
+        response.setLatestBlockDifficulty(3);
+        response.setTotalDifficulty(3000);
+        response.setHashesPerSecond(2_000_000);
+        response.setTotalExpectedHashes(8000.0);
+        response.setLatestBlockNonce("40412");
+        response.setChainHash("000a5c8e0f5f0e0a7d5f0c9d4ad0cba54e1c1d1f3a8b8b1a7e2c0c9d2f1e0a3b");
+        response.setRequestId(17L);
+    }
+
+    @Benchmark
+    public String processStatusRequest() {
+        return handler.processRequest(STATUS_REQUEST);
+    }
+
+    @Benchmark
+    public String processVerifyRequest() {
+        return handler.processRequest(VERIFY_REQUEST);
+    }
+
+    @Benchmark
+    public int precompiledCodec() {
+        RequestMessage request = MessageCodec.parseRequest(STATUS_REQUEST);
+        return MessageCodec.toJson(response).length() + request.difficulty();
+    }
+
+    @Benchmark
+    public int reflectiveGson() {
+        RequestMessage request = reflectiveGson.fromJson(STATUS_REQUEST, RequestMessage.class);
+        return reflectiveGson.toJson(response).length() + request.difficulty();
+    }
+}
@@ -0,0 +1,89 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.benchmark;
+
+import com.cmu.blockchain.core.BlockChain;
+import com.cmu.blockchain.message.ResponseMessage;
+import com.cmu.blockchain.network.BlockChainClient;
+import com.cmu.blockchain.network.NioServerTCP;
+import com.cmu.blockchain.network.RequestHandler;
+import com.cmu.blockchain.network.RequestScheduler;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the transports a client on the server's host can use: TCP over the loopback interface and a Unix domain
+ * socket. Both serve {@code viewBlockchainStatus} through the same {@link NioServerTCP} and {@link BlockChainClient}
+ * over a single connection, so the difference is the cost of the socket. {@code statusLatency} waits for each
+ * response before sending the next request; {@code pipelinedThroughput} keeps {@value #PIPELINE_DEPTH} requests
+ * in flight.
+ */
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransportBenchmark {
+
+    private static final int PIPELINE_DEPTH = 64;
+
+    @Param({"tcp", "unix"})
+    public String transport;
+
+    private Path directory;
+    private RequestScheduler scheduler;
+    private NioServerTCP server;
+    private BlockChainClient client;
+
+    @Setup
+    public void setUp() throws IOException {
+        BlockChain blockchain = new BlockChain();
+        RequestHandler handler = new RequestHandler(blockchain);
+        scheduler = RequestScheduler.fromSystemProperties(handler);
+        directory = Files.createTempDirectory("transport");
+        SocketAddress address = "unix".equals(transport)
+                ? UnixDomainSocketAddress.of(directory.resolve("blockchain.sock"))
+                : new InetSocketAddress("localhost", 0);
+        server = new NioServerTCP(address, handler, 1, scheduler);
+        server.start();
+        client = new BlockChainClient(server.getLocalAddress(), 1, Duration.ofSeconds(5), Duration.ofSeconds(30));
+        client.viewBlockchainStatus().join(); // Connect before measuring
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        client.close();
+        server.close();
+        scheduler.close();
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public ResponseMessage statusLatency() {
+        return client.viewBlockchainStatus().join();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(PIPELINE_DEPTH)
+    public int pipelinedThroughput() {
+        CompletableFuture<?>[] responses = new CompletableFuture[PIPELINE_DEPTH];
+        for (int i = 0; i < PIPELINE_DEPTH; i++) {
+            responses[i] = client.viewBlockchainStatus();
+        }
+        CompletableFuture.allOf(responses).join();
+        return responses.length;
+    }
+}
@@ -3,14 +3,27 @@
 
 package com.cmu.blockchain.core;
 
+import com.cmu.blockchain.metrics.ChainCheckEvent;
+import com.cmu.blockchain.metrics.ChainSerializationEvent;
+import com.cmu.blockchain.metrics.MiningSample;
+import com.cmu.blockchain.metrics.MiningTelemetry;
 import com.cmu.blockchain.model.Block;
+import com.cmu.blockchain.model.ChainSegment;
+import com.cmu.blockchain.model.InclusionProof;
+import com.cmu.blockchain.model.MerkleMountainRange;
 import com.cmu.blockchain.util.LoggerUtil;
 import org.slf4j.Logger;
 
+import java.math.BigInteger;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Represents a simple blockchain.
@@ -23,14 +36,40 @@ import java.util.ArrayList;
  * The blockchain includes a genesis block as the first block in the chain.
  * The blockchain also computes the number of hashes the system can try per second to demonstrate proof-of-work difficulty.
  * The blockchain is part of a decentralized system that ensures data integrity and security.
+ * The blockchain is safe for concurrent use: writers (mining, repair, corruption) are serialized, while readers
+ * only wait for the short moment a mined or repaired block is published, never for the proof-of-work itself.
+ * Published blocks are never modified in place; changes replace them, and registered {@link ChainListener}s are
+ * told from which index the chain changed. A replica created with {@link #createReplica()} is filled with blocks
+ * mined elsewhere through {@link #replaceFrom(int, List)}, which verifies them before accepting them.
+ * The block hashes are also committed to by a {@link MerkleMountainRange}, from which
+ * {@link #getInclusionProof(int)} proves to light clients that a block belongs to the chain, and block data is
+ * indexed by a {@link TransactionIndex} for {@link #searchTransactions(String)}. Block times are kept in a
+ * primitive array in chain order, so {@link #getBlocksBetween(long, long)} finds a time window by binary search.
+ * Every block mined for the chain, whether added or repaired, is recorded in its {@link MiningTelemetry}.
+ * Verifications and repairs are recorded as {@link ChainCheckEvent}s and JSON views of the chain as
+ * {@link ChainSerializationEvent}s for Java Flight Recorder.
  */
 public class BlockChain {
 
     private final static Logger LOGGER = LoggerUtil.getLogger(BlockChain.class);
+    private static final int DENSE_LOCATOR_ENTRIES = 10; // Newest blocks listed one by one in a block locator.
+    private static final long MAX_CLOCK_SKEW_MILLIS = 120_000; // How far ahead a submitted block's time may be.
+    private static final int MINING_SAMPLES = Integer.getInteger("blockchain.mining.samples",
+            MiningTelemetry.DEFAULT_CAPACITY); // Recently mined blocks kept in the telemetry.
     private final ArrayList<Block> chain; // Holds the blocks in the chain.
     private String chainHash; // Hash of the most recently added block.
+    private final MerkleMountainRange merkle = new MerkleMountainRange(); // Commits to the block hashes, guarded like chain.
+    private final TransactionIndex transactionIndex = new TransactionIndex(); // Indexes the block data, guarded like chain.
+    private long[] timeIndex = new long[64]; // Running maximum of the block times in epoch millis, guarded like chain.
 
-    private int hashesPerSecond;
+    private volatile int hashesPerSecond; // Measured locally, or reported by the chain this one replicates.
+    private byte[] lastMeasuredHash; // Keeps the hash rate measurement's result alive, so its loop is not optimized away.
+
+    private final ReentrantReadWriteLock stateLock = new ReentrantReadWriteLock(); // Guards chain and chainHash.
+    private final ReentrantLock writerLock = new ReentrantLock(); // Serializes writers so mining happens outside stateLock.
+    private final List<ChainListener> listeners = new CopyOnWriteArrayList<>(); // Notified after every change.
+    private volatile Miner miner = Block::proofOfWork; // Finds proof-of-work nonces, by default on the calling thread.
+    private final MiningTelemetry miningTelemetry = new MiningTelemetry(MINING_SAMPLES); // Cost of the blocks mined here.
 
     /**
      * Constructor for creating a new blockchain.
@@ -43,72 +82,618 @@ public class BlockChain {
         addGenesisBlock(); // Add the initial block (genesis block) to the blockchain
     }
 
+    /**
+     * Constructor for creating an empty replica, which neither measures the hash rate nor mines a genesis block.
+     *
+     * @param hashesPerSecond The hash rate to report until the owner of the chain reports its own.
+     */
+    private BlockChain(int hashesPerSecond) {
+        this.chain = new ArrayList<>();
+        this.chainHash = "";
+        this.hashesPerSecond = hashesPerSecond;
+    }
+
+    /**
+     * Creates an empty blockchain that holds a copy of a chain mined elsewhere.
+     * Its blocks, including the genesis block, are supplied through {@link #replaceFrom(int, List)}.
+     *
+     * @return The empty replica.
+     */
+    public static BlockChain createReplica() {
+        return new BlockChain(0);
+    }
+
+    /**
+     * Creates a blockchain with a new genesis block that reports a hash rate measured by another chain in the same
+     * process, instead of spending time on measuring it again.
+     *
+     * @param hashesPerSecond The hash rate to report.
+     * @return The new blockchain.
+     */
+    public static BlockChain create(int hashesPerSecond) {
+        BlockChain blockchain = new BlockChain(hashesPerSecond);
+        blockchain.addGenesisBlock();
+        return blockchain;
+    }
+
+    /**
+     * Recreates a blockchain from blocks it held before, such as a chain stored to disk by its server.
+     * Unlike {@link #replaceFrom(int, List)} the blocks are trusted, so a chain that was corrupted on purpose is
+     * restored as it was and can still be repaired.
+     *
+     * @param blocks          The blocks of the chain, starting with its genesis block.
+     * @param chainHash       The chain hash the chain had, which differs from the hash of its last block while that
+     *                        block is corrupted.
+     * @param hashesPerSecond The hash rate to report.
+     * @return The restored blockchain.
+     * @throws IllegalArgumentException If there are no blocks or they are not numbered in order.
+     */
+    public static BlockChain restore(List<Block> blocks, String chainHash, int hashesPerSecond) {
+        for (int i = 0; i < blocks.size(); i++) {
+            if (blocks.get(i).getIndex() != i) {
+                throw new IllegalArgumentException("Expected block " + i + " but got block " + blocks.get(i).getIndex());
+            }
+        }
+        if (blocks.isEmpty()) {
+            throw new IllegalArgumentException("A chain needs at least a genesis block");
+        }
+        BlockChain blockchain = new BlockChain(hashesPerSecond);
+        blockchain.writerLock.lock();
+        try {
+            blockchain.swapFrom(0, blocks, chainHash);
+        } finally {
+            blockchain.writerLock.unlock();
+        }
+        return blockchain;
+    }
+
     /**
      * Adds the genesis block to the blockchain.
      */
     private void addGenesisBlock() {
         Timestamp timestamp = new Timestamp(System.currentTimeMillis());
-        Block genesisBlock = new Block(0, timestamp, "Genesis", 2); // Create the genesis block with initial data and difficulty level
-        genesisBlock.setPreviousHash("0"); // Set previous hash for the genesis block
-        genesisBlock.setDifficulty(2); // Set the initial difficulty level
-        genesisBlock.proofOfWork(); // Compute the proof of work for the genesis block
+        Block genesisBlock = new Block(0, timestamp, "Genesis", Block.GENESIS_PREVIOUS_HASH, BigInteger.ZERO, 2) // Create the genesis block with initial data and difficulty level
+                .proofOfWork(); // Compute the proof of work for the genesis block
         chain.add(genesisBlock); // Add the genesis block to the chain
         chainHash = genesisBlock.calculateHash(); // Update the chain hash with the hash of the genesis block
+        merkle.append(chainHash);
+        transactionIndex.add(0, genesisBlock.getData());
+        indexTimesFrom(0);
     }
 
     /**
      * Adds a new block to the blockchain.
+     * The proof-of-work runs while holding only the writer lock, so readers are not blocked while mining.
+     *
+     * The block itself is not changed; the chain holds a copy linked to the most recent block and mined.
      *
      * @param newBlock The new block to be added.
+     * @return The linked and mined block that was added, or null if the chain has no genesis block.
      */
-    public void addBlock(Block newBlock) {
-        if (chain.isEmpty()) {
-            LOGGER.info("The blockchain is empty. Add a genesis block first.");
-            return;
+    public Block addBlock(Block newBlock) {
+        writerLock.lock();
+        try {
+            if (chain.isEmpty()) {
+                LOGGER.info("The blockchain is empty. Add a genesis block first.");
+                return null;
+            }
+            Block minedBlock = mine(newBlock.withPreviousHash(chainHash)); // Link to the most recent block and compute the proof of work
+            append(minedBlock);
+            return minedBlock;
+        } finally {
+            writerLock.unlock();
         }
-        newBlock.setPreviousHash(chainHash); // Set the previous hash to the most recent chain hash
-        newBlock.proofOfWork(); // Compute the proof of work for the new block
-        chain.add(newBlock); // Add the new block to the blockchain
-        chainHash = newBlock.calculateHash(); // Update the chain hash
     }
 
     /**
-     * Validates the integrity of the blockchain.
+     * Creates, mines and adds a block holding the given transaction data.
+     * The index and timestamp are assigned while holding the writer lock, so concurrent submissions
+     * never produce duplicate indexes or out-of-order timestamps.
      *
-     * @return True if the blockchain is valid, otherwise false.
+     * @param data       The transaction data to store in the block.
+     * @param difficulty The difficulty level for mining the block.
+     * @return The mined block that was added to the chain.
      */
-    public boolean isChainValid() {
-        for (int i = 1; i < chain.size(); i++) {
-            Block currentBlock = chain.get(i);
-            Block previousBlock = chain.get(i - 1);
+    public Block addTransaction(String data, int difficulty) {
+        writerLock.lock();
+        try {
+            long now = System.currentTimeMillis();
+            if (!chain.isEmpty()) {
+                now = Math.max(now, timeIndex[chain.size() - 1]); // Keep block times ordered if the clock steps back
+            }
+            Block newBlock = new Block(chain.size(), new Timestamp(now), data, difficulty);
+            return addBlock(newBlock);
+        } finally {
+            writerLock.unlock();
+        }
+    }
+
+    /**
+     * Creates an unmined block for the given transaction that extends the current head of the chain, for a client
+     * to mine itself and hand back to {@link #submitBlock(Block)}. This does not wait for mining in progress.
+     *
+     * @param data       The transaction data to store in the block.
+     * @param difficulty The difficulty level the block must be mined at.
+     * @return The block to mine, or null if the chain has no genesis block.
+     */
+    public Block getMiningTemplate(String data, int difficulty) {
+        stateLock.readLock().lock();
+        try {
+            if (chain.isEmpty()) {
+                return null;
+            }
+            long now = Math.max(System.currentTimeMillis(), timeIndex[chain.size() - 1]);
+            return new Block(chain.size(), new Timestamp(now), data, chainHash, BigInteger.ZERO, difficulty);
+        } finally {
+            stateLock.readLock().unlock();
+        }
+    }
 
-            // Check current block's previous hash matches the previous block's hash
-            if (!currentBlock.getPreviousHash().equals(previousBlock.calculateHash())) {
-                LOGGER.info("Previous Hashes not equal");
+    /**
+     * Appends a block mined elsewhere, typically by a client from a {@link #getMiningTemplate(String, int)}.
+     * Only the block's own hash is checked, so this costs the same whatever the difficulty.
+     *
+     * @param block The mined block.
+     * @return True if the block was appended, false if it is stale because the head of the chain moved on.
+     * @throws IllegalArgumentException If the block hasn't been mined or is stamped too far in the future.
+     */
+    public boolean submitBlock(Block block) {
+        if (block.getTimestampMillis() > System.currentTimeMillis() + MAX_CLOCK_SKEW_MILLIS) {
+            throw new IllegalArgumentException("Block " + block.getIndex() + " is stamped in the future");
+        }
+        if (!isMined(block)) {
+            throw new IllegalArgumentException("Block " + block.getIndex() + " hasn't been mined");
+        }
+        writerLock.lock();
+        try {
+            if (chain.isEmpty() || block.getIndex() != chain.size() || !block.getPreviousHash().equals(chainHash)) {
                 return false;
             }
+            append(block);
+            return true;
+        } finally {
+            writerLock.unlock();
+        }
+    }
+
+    /**
+     * Mines and adds one block per transaction, in order, without letting other writers in between.
+     * Each block becomes visible to readers as soon as it is mined, so a long batch does not hide its progress.
+     *
+     * @param transactions The transaction data, one block each.
+     * @param difficulty   The difficulty level for mining every block.
+     * @return The mined blocks, in the order of the transactions.
+     */
+    public List<Block> addTransactions(List<String> transactions, int difficulty) {
+        writerLock.lock();
+        try {
+            List<Block> added = new ArrayList<>(transactions.size());
+            for (String data : transactions) {
+                added.add(addTransaction(data, difficulty));
+            }
+            return added;
+        } finally {
+            writerLock.unlock();
+        }
+    }
+
+    /**
+     * Replaces the data of an existing block without re-mining it, leaving the chain invalid until repaired.
+     *
+     * @param index The index of the block to corrupt.
+     * @param data  The new data for the block.
+     * @return True if the block exists and was changed, otherwise false.
+     */
+    public boolean corruptBlock(int index, String data) {
+        writerLock.lock();
+        try {
+            stateLock.writeLock().lock();
+            try {
+                if (index < 0 || index >= chain.size()) {
+                    return false;
+                }
+                Block block = chain.get(index);
+                chain.set(index, block.withData(data));
+                recommitFrom(index);
+                transactionIndex.replace(index, block.getData(), data);
+            } finally {
+                stateLock.writeLock().unlock();
+            }
+            notifyListeners(index, ChainListener.Change.CORRUPTED);
+            return true;
+        } finally {
+            writerLock.unlock();
+        }
+    }
+
+    /**
+     * Appends an already mined block and publishes it as the new chain head.
+     *
+     * @param block The mined block to append.
+     */
+    private void append(Block block) {
+        String hash = block.calculateHash();
+        stateLock.writeLock().lock();
+        try {
+            chain.add(block); // Add the new block to the blockchain
+            chainHash = hash; // Update the chain hash
+            merkle.append(hash);
+            transactionIndex.add(block.getIndex(), block.getData());
+            indexTimesFrom(chain.size() - 1);
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+        notifyListeners(block.getIndex(), ChainListener.Change.APPENDED);
+    }
 
-            // Check current block's hash is valid with its difficulty
-            String hashTarget = new String(new char[currentBlock.getDifficulty()]).replace('\0', '0');
-            if (!currentBlock.calculateHash().substring(0, currentBlock.getDifficulty()).equals(hashTarget)) {
-                LOGGER.info("This block hasn't been mined");
+    /**
+     * Replaces the blocks from an index onwards with blocks mined elsewhere, typically by the leader this
+     * chain replicates. The blocks are verified first: each must have the expected index, link to its
+     * predecessor and satisfy its own difficulty. Only the new blocks are checked, since the blocks kept
+     * were verified when they were accepted.
+     *
+     * @param fromIndex The index of the first block to replace, at most the current size of the chain.
+     * @param blocks    The blocks to store from that index on; the chain is truncated after the last of them.
+     * @throws IllegalArgumentException If the blocks do not form a valid continuation of the chain.
+     */
+    public void replaceFrom(int fromIndex, List<Block> blocks) {
+        writerLock.lock();
+        try {
+            String hash = verifyBranch(fromIndex, blocks);
+            swapFrom(fromIndex, blocks, hash);
+        } finally {
+            writerLock.unlock();
+        }
+    }
+
+    /**
+     * Replaces the blocks from an index onwards with a competing branch, such as one mined by a peer, if the
+     * resulting chain carries more cumulative work. The work of a block is its expected number of hashes, as
+     * summed by {@link #getTotalExpectedHashes()}. When both carry the same work, the branch whose head has the
+     * lower hash wins, so every node settles on the same chain. The branch is verified like in
+     * {@link #replaceFrom(int, List)}; blocks mined locally on the losing side are dropped.
+     *
+     * @param fromIndex The index of the first block of the branch, at most the current size of the chain.
+     * @param blocks    The blocks of the branch.
+     * @return True if the branch was adopted, false if the current chain carries at least as much work.
+     * @throws IllegalArgumentException If the blocks do not form a valid continuation of the chain.
+     */
+    public boolean adoptFork(int fromIndex, List<Block> blocks) {
+        writerLock.lock();
+        try {
+            if (blocks.isEmpty() || fromIndex < 0 || fromIndex > chain.size()) {
+                return false;
+            }
+            double currentWork = 0;
+            for (int i = fromIndex; i < chain.size(); i++) {
+                currentWork += Math.pow(2, chain.get(i).getDifficulty());
+            }
+            double branchWork = blocks.stream().mapToDouble(block -> Math.pow(2, block.getDifficulty())).sum();
+            if (branchWork < currentWork) {
                 return false;
             }
+            String hash = verifyBranch(fromIndex, blocks);
+            if (branchWork == currentWork && hash.compareTo(chainHash) >= 0) {
+                return false; // Same work: keep the head with the lower hash, which includes an identical branch
+            }
+            swapFrom(fromIndex, blocks, hash);
+            return true;
+        } finally {
+            writerLock.unlock();
+        }
+    }
+
+    /**
+     * Verifies that blocks form a valid continuation of the chain from an index on. The caller must hold the
+     * writer lock.
+     *
+     * @param fromIndex The index of the first block, at most the current size of the chain.
+     * @param blocks    The blocks to verify.
+     * @return The hash of the block that would become the head of the chain.
+     * @throws IllegalArgumentException If the blocks do not form a valid continuation of the chain, including a
+     *                                  missing block or a block after the first without a previous hash.
+     */
+    private String verifyBranch(int fromIndex, List<Block> blocks) {
+        if (fromIndex < 0 || fromIndex > chain.size()) {
+            throw new IllegalArgumentException("Cannot replace from index " + fromIndex + " in a chain of " + chain.size() + " blocks");
+        }
+        if (fromIndex + blocks.size() == 0) {
+            throw new IllegalArgumentException("A chain needs at least a genesis block");
+        }
+        Block previousBlock = fromIndex == 0 ? null : chain.get(fromIndex - 1);
+        for (int i = 0; i < blocks.size(); i++) {
+            Block block = blocks.get(i);
+            if (block == null) {
+                throw new IllegalArgumentException("Block " + (fromIndex + i) + " is missing");
+            }
+            if (previousBlock != null && block.getPreviousHash() == null) {
+                throw new IllegalArgumentException("Block " + block.getIndex() + " has no previous hash");
+            }
+            if (block.getIndex() != fromIndex + i) {
+                throw new IllegalArgumentException("Expected block " + (fromIndex + i) + " but got block " + block.getIndex());
+            }
+            if (previousBlock != null && !isValidSuccessor(previousBlock, block)) {
+                throw new IllegalArgumentException("Block " + block.getIndex() + " does not extend the chain");
+            }
+            if (previousBlock == null && !isMined(block)) {
+                throw new IllegalArgumentException("Genesis block hasn't been mined");
+            }
+            previousBlock = block;
+        }
+        return previousBlock.calculateHash();
+    }
+
+    /**
+     * Publishes verified blocks in place of the blocks from an index on and notifies the listeners.
+     * The caller must hold the writer lock.
+     *
+     * @param fromIndex The index of the first block to replace.
+     * @param blocks    The verified blocks; the chain is truncated after the last of them.
+     * @param hash      The hash of the new head of the chain.
+     */
+    private void swapFrom(int fromIndex, List<Block> blocks, String hash) {
+        stateLock.writeLock().lock();
+        try {
+            chain.subList(fromIndex, chain.size()).clear();
+            chain.addAll(blocks);
+            chainHash = hash;
+            recommitFrom(fromIndex);
+            transactionIndex.truncate(fromIndex);
+            for (Block block : blocks) {
+                transactionIndex.add(block.getIndex(), block.getData());
+            }
+            indexTimesFrom(fromIndex);
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+        notifyListeners(fromIndex, ChainListener.Change.REPLACED);
+    }
+
+    /**
+     * Commits the Merkle mountain range to the blocks from an index on again, after they were replaced.
+     * The caller must hold the state write lock.
+     *
+     * @param fromIndex The index of the first replaced block.
+     */
+    private void recommitFrom(int fromIndex) {
+        merkle.truncate(fromIndex);
+        for (int i = fromIndex; i < chain.size(); i++) {
+            merkle.append(chain.get(i).calculateHash());
+        }
+    }
+
+    /**
+     * Records the times of the blocks from an index on in the time index. A block stamped before its predecessor,
+     * which only a peer with a skewed clock can produce, is indexed at its predecessor's time, so the index stays
+     * sorted. The caller must hold the state write lock.
+     *
+     * @param fromIndex The index of the first added or replaced block.
+     */
+    private void indexTimesFrom(int fromIndex) {
+        if (timeIndex.length < chain.size()) {
+            timeIndex = Arrays.copyOf(timeIndex, Math.max(timeIndex.length * 2, chain.size()));
+        }
+        for (int i = fromIndex; i < chain.size(); i++) {
+            long time = chain.get(i).getTimestampMillis();
+            timeIndex[i] = i == 0 ? time : Math.max(timeIndex[i - 1], time);
+        }
+    }
+
+    /**
+     * Finds the first block indexed at or after a time. The caller must hold the state lock.
+     *
+     * @param millis The time in milliseconds since the epoch.
+     * @return The index of the block, or the size of the chain if every block is older.
+     */
+    private int firstBlockAtOrAfter(long millis) {
+        int low = 0;
+        int high = chain.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (timeIndex[middle] < millis) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Mines a block with the current miner and records what it cost. The caller must hold the writer lock.
+     *
+     * @param block The linked block to mine.
+     * @return A copy of the block holding the winning nonce.
+     */
+    private Block mine(Block block) {
+        Miner current = miner;
+        long start = System.nanoTime();
+        Block minedBlock = current.mine(block);
+        long elapsedNanos = System.nanoTime() - start;
+        long attempts = Math.max(1, minedBlock.getNonce().subtract(block.getNonce()).longValue() + 1); // Searches start at the block's nonce
+        MiningSample sample = miningTelemetry.record(minedBlock.getIndex(), minedBlock.getDifficulty(), elapsedNanos,
+                attempts, current.getThreads());
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Mined block " + sample.blockIndex() + " in " + attempts + " attempts at " + sample.hashesPerSecond() + " hashes per second.");
+        }
+        return minedBlock;
+    }
+
+    /**
+     * Gets the record of the blocks recently mined for this chain.
+     *
+     * @return The mining telemetry.
+     */
+    public MiningTelemetry getMiningTelemetry() {
+        return miningTelemetry;
+    }
+
+    /**
+     * Sets the miner used for new and repaired blocks, such as a pool of remote workers.
+     *
+     * @param miner The miner to use.
+     */
+    public void setMiner(Miner miner) {
+        this.miner = miner;
+    }
+
+    /**
+     * Registers a listener to be told about every change to the chain.
+     * Listeners run on the thread making the change while writers are held off, so they must return quickly.
+     *
+     * @param listener The listener to register.
+     */
+    public void addListener(ChainListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a previously registered listener.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeListener(ChainListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Indicates whether anyone listens to the chain, such as a follower or a subscriber.
+     *
+     * @return True if a listener is registered, otherwise false.
+     */
+    public boolean hasListeners() {
+        return !listeners.isEmpty();
+    }
+
+    /**
+     * Tells the listeners that the chain changed. The caller must hold the writer lock but not the state lock.
+     *
+     * @param fromIndex The index of the first block that was added or replaced.
+     * @param change    What changed the chain.
+     */
+    private void notifyListeners(int fromIndex, ChainListener.Change change) {
+        for (ChainListener listener : listeners) {
+            try {
+                listener.onChainChanged(fromIndex, change);
+            } catch (RuntimeException e) {
+                LOGGER.error("Chain listener failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Validates the integrity of the blockchain.
+     *
+     * @return True if the blockchain is valid, otherwise false.
+     */
+    public boolean isChainValid() {
+        stateLock.readLock().lock();
+        try {
+            return isChainValidLocked();
+        } finally {
+            stateLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Validates the integrity of the blockchain. The caller must hold the state lock.
+     *
+     * @return True if the blockchain is valid, otherwise false.
+     */
+    private boolean isChainValidLocked() {
+        ChainCheckEvent event = new ChainCheckEvent();
+        event.begin();
+        int i = 1;
+        while (i < chain.size() && isValidSuccessor(chain.get(i - 1), chain.get(i))) {
+            i++;
+        }
+        boolean valid = i >= chain.size();
+        if (event.shouldCommit()) {
+            event.operation = ChainCheckEvent.VERIFY;
+            event.chainSize = chain.size();
+            event.blocks = valid ? chain.size() : i + 1; // Up to and including the first invalid block
+            event.valid = valid;
+            event.commit();
+        }
+        return valid;
+    }
+
+    /**
+     * Checks that a block correctly follows its predecessor: it links to the predecessor's hash and its own
+     * hash satisfies its difficulty.
+     *
+     * @param previousBlock The preceding block.
+     * @param currentBlock  The block to check.
+     * @return True if the block is a valid successor, otherwise false.
+     */
+    public static boolean isValidSuccessor(Block previousBlock, Block currentBlock) {
+        // Check current block's previous hash matches the previous block's hash
+        if (!currentBlock.getPreviousHash().equals(previousBlock.calculateHash())) {
+            LOGGER.info("Previous Hashes not equal");
+            return false;
+        }
+
+        // Check current block's hash is valid with its difficulty
+        if (!isMined(currentBlock)) {
+            LOGGER.info("This block hasn't been mined");
+            return false;
         }
         return true;
     }
 
+    /**
+     * Checks that the hash of a block starts with as many zeros as its difficulty requires.
+     *
+     * @param block The block to check.
+     * @return True if the proof of work is valid, otherwise false.
+     */
+    public static boolean isMined(Block block) {
+        String hashTarget = new String(new char[block.getDifficulty()]).replace('\0', '0');
+        return block.calculateHash().startsWith(hashTarget);
+    }
+
     /**
      * Repairs the blockchain by recomputing the hashes.
+     * The blocks are re-mined as copies while only the writer lock is held, and the repaired chain is swapped in
+     * at the end, so readers keep seeing the previous chain instead of waiting for the repair.
      */
     public void repairChain() {
-        for (int i = 1; i < chain.size(); i++) {
-            Block currentBlock = chain.get(i);
-            Block previousBlock = chain.get(i - 1);
-            currentBlock.setPreviousHash(previousBlock.calculateHash());
-            currentBlock.proofOfWork(); // Recompute the proof of work for the current block
+        writerLock.lock();
+        try {
+            ChainCheckEvent event = new ChainCheckEvent();
+            event.begin();
+            ArrayList<Block> repaired = new ArrayList<>(chain.size());
+            repaired.add(chain.getFirst());
+            for (int i = 1; i < chain.size(); i++) {
+                Block currentBlock = chain.get(i);
+                Block previousBlock = repaired.get(i - 1);
+                Block repairedBlock = mine(currentBlock.withPreviousHash(previousBlock.calculateHash())); // Recompute the proof of work for the current block
+                repaired.add(repairedBlock);
+            }
+            String repairedHash = repaired.getLast().calculateHash();
+            stateLock.writeLock().lock();
+            try {
+                for (int i = 1; i < repaired.size(); i++) {
+                    chain.set(i, repaired.get(i));
+                }
+                chainHash = repairedHash; // Update the chain hash
+                recommitFrom(1);
+            } finally {
+                stateLock.writeLock().unlock();
+            }
+            if (event.shouldCommit()) {
+                event.operation = ChainCheckEvent.REPAIR;
+                event.chainSize = repaired.size();
+                event.blocks = repaired.size() - 1;
+                event.valid = true;
+                event.commit();
+            }
+            if (repaired.size() > 1) {
+                notifyListeners(1, ChainListener.Change.REPAIRED);
+            }
+        } finally {
+            writerLock.unlock();
         }
-        chainHash = chain.getLast().calculateHash(); // Update the chain hash
     }
 
     /**
@@ -118,6 +703,22 @@ public class BlockChain {
      */
     @Override
     public String toString() {
+        stateLock.readLock().lock();
+        try {
+            return toJsonLocked();
+        } finally {
+            stateLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Builds the JSON representation of the blockchain. The caller must hold the state lock.
+     *
+     * @return A JSON representation of the blockchain.
+     */
+    private String toJsonLocked() {
+        ChainSerializationEvent event = new ChainSerializationEvent();
+        event.begin();
         StringBuilder json = new StringBuilder();
         json.append("{\n\"ds_chain\": [");
         for (int i = 0; i < chain.size(); i++) {
@@ -131,6 +732,12 @@ public class BlockChain {
         json.append("\n ],");
         json.append(String.format("\n \"chainHash\":\"%s\"", chainHash));
         json.append("\n}");
+        if (event.shouldCommit()) {
+            event.view = ChainSerializationEvent.CHAIN;
+            event.blocks = chain.size();
+            event.length = json.length();
+            event.commit();
+        }
         return json.toString();
     }
 
@@ -145,7 +752,7 @@ public class BlockChain {
         try {
             MessageDigest digest = MessageDigest.getInstance("SHA-256");
             for (int i = 0; i < numberOfHashes; i++) {
-                digest.digest(textToHash.getBytes());
+                lastMeasuredHash = digest.digest(textToHash.getBytes());
             }
         } catch (NoSuchAlgorithmException e) {
             LOGGER.info("Error while computing hash: " + e.getMessage());
@@ -167,7 +774,12 @@ public class BlockChain {
      * @return The total difficulty of the blockchain.
      */
     public int getTotalDifficulty() {
-        return chain.stream().mapToInt(Block::getDifficulty).sum();
+        stateLock.readLock().lock();
+        try {
+            return chain.stream().mapToInt(Block::getDifficulty).sum();
+        } finally {
+            stateLock.readLock().unlock();
+        }
     }
 
     /**
@@ -178,7 +790,12 @@ public class BlockChain {
      */
     public double getTotalExpectedHashes() {
         // Simplified calculation
-        return chain.stream().mapToDouble(block -> Math.pow(2, block.getDifficulty())).sum();
+        stateLock.readLock().lock();
+        try {
+            return chain.stream().mapToDouble(block -> Math.pow(2, block.getDifficulty())).sum();
+        } finally {
+            stateLock.readLock().unlock();
+        }
     }
 
     /**
@@ -190,6 +807,168 @@ public class BlockChain {
         return hashesPerSecond;
     }
 
+    /**
+     * Sets the hash rate to report, as a replica does with the rate measured by the chain it copies.
+     *
+     * @param hashesPerSecond The number of hashes computed per second.
+     */
+    public void setHashesPerSecond(int hashesPerSecond) {
+        this.hashesPerSecond = hashesPerSecond;
+    }
+
+    /**
+     * Retrieves a consecutive run of blocks as one consistent snapshot.
+     *
+     * @param fromIndex The index of the first block to retrieve.
+     * @param maxBlocks The maximum number of blocks to retrieve.
+     * @return The blocks, empty if the chain has no block at the index.
+     */
+    public List<Block> getBlocks(int fromIndex, int maxBlocks) {
+        stateLock.readLock().lock();
+        try {
+            int from = Math.max(0, fromIndex);
+            if (from >= chain.size()) {
+                return List.of();
+            }
+            return List.copyOf(chain.subList(from, from + Math.min(chain.size() - from, maxBlocks)));
+        } finally {
+            stateLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves a consecutive run of blocks together with the chain's size and head hash, all read at once.
+     *
+     * @param fromIndex The index of the first block to retrieve.
+     * @param maxBlocks The maximum number of blocks to retrieve.
+     * @return The blocks and the chain they belong to.
+     */
+    public ChainSegment getSegment(int fromIndex, int maxBlocks) {
+        stateLock.readLock().lock();
+        try {
+            int from = Math.max(0, fromIndex);
+            List<Block> blocks = from >= chain.size() ? List.of()
+                    : List.copyOf(chain.subList(from, from + Math.min(chain.size() - from, maxBlocks)));
+            return new ChainSegment(blocks, chain.size(), chainHash);
+        } finally {
+            stateLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves the blocks created in a time window, found by binary search over the time index.
+     *
+     * @param fromMillis The start of the window in milliseconds since the epoch, inclusive.
+     * @param toMillis   The end of the window in milliseconds since the epoch, exclusive.
+     * @return The blocks, in chain order.
+     */
+    public List<Block> getBlocksBetween(long fromMillis, long toMillis) {
+        return getBlocksBetween(fromMillis, toMillis, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Retrieves one page of the blocks created in a time window, as one consistent snapshot.
+     *
+     * @param fromMillis The start of the window in milliseconds since the epoch, inclusive.
+     * @param toMillis   The end of the window in milliseconds since the epoch, exclusive.
+     * @param fromIndex  The lowest block index to return, to continue after a previous page.
+     * @param maxBlocks  The maximum number of blocks to return.
+     * @return The blocks, in chain order.
+     */
+    public List<Block> getBlocksBetween(long fromMillis, long toMillis, int fromIndex, int maxBlocks) {
+        stateLock.readLock().lock();
+        try {
+            int start = Math.max(Math.max(0, fromIndex), firstBlockAtOrAfter(fromMillis));
+            int end = firstBlockAtOrAfter(toMillis);
+            if (start >= end) {
+                return List.of();
+            }
+            return List.copyOf(chain.subList(start, start + Math.min(end - start, maxBlocks)));
+        } finally {
+            stateLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Describes the chain as a block locator: the head, its predecessor, and then blocks at exponentially
+     * growing distances back to the genesis block, so a server answering a {@code getBlocks} request finds the
+     * newest block it shares with this chain in one request.
+     *
+     * @return The locator as comma-separated {@code <index>:<hash>} entries, newest first; empty for an empty chain.
+     */
+    public String getLocator() {
+        stateLock.readLock().lock();
+        try {
+            StringBuilder locator = new StringBuilder();
+            if (chain.isEmpty()) {
+                return ""; // A replica that holds nothing yet
+            }
+            int step = 1;
+            int entries = 0;
+            for (int index = chain.size() - 1; ; index = Math.max(0, index - step)) {
+                if (entries++ > 0) {
+                    locator.append(',');
+                }
+                locator.append(index).append(':').append(chain.get(index).calculateHash());
+                if (index == 0) {
+                    return locator.toString();
+                }
+                if (entries >= DENSE_LOCATOR_ENTRIES) {
+                    step *= 2;
+                }
+            }
+        } finally {
+            stateLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves the root of the Merkle mountain range over the block hashes.
+     *
+     * @return The hexadecimal root, or null for an empty replica.
+     */
+    public String getMerkleRoot() {
+        stateLock.readLock().lock();
+        try {
+            return merkle.root();
+        } finally {
+            stateLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Proves that a block is committed to by the current Merkle root.
+     *
+     * @param i The index of the block.
+     * @return The proof, carrying the root it leads to.
+     * @throws IndexOutOfBoundsException If the chain has no block at the index.
+     */
+    public InclusionProof getInclusionProof(int i) {
+        stateLock.readLock().lock();
+        try {
+            return merkle.prove(chain.get(i));
+        } finally {
+            stateLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the blocks whose data holds every term of a query, using the transaction index instead of scanning
+     * the chain. Matching ignores case; a term ending in {@code *} matches words starting with it.
+     *
+     * @param query The query, such as {@code "alice pays bo*"}.
+     * @return The indexes of the matching blocks, ascending.
+     * @throws IllegalArgumentException If the query holds no word.
+     */
+    public int[] searchTransactions(String query) {
+        stateLock.readLock().lock();
+        try {
+            return transactionIndex.search(query);
+        } finally {
+            stateLock.readLock().unlock();
+        }
+    }
+
     /**
      * Retrieves the block at the specified index in the blockchain.
      *
@@ -197,7 +976,12 @@ public class BlockChain {
      * @return The block at the specified index.
      */
     public Block getBlock(int i) {
-        return chain.get(i);
+        stateLock.readLock().lock();
+        try {
+            return chain.get(i);
+        } finally {
+            stateLock.readLock().unlock();
+        }
     }
 
     /**
@@ -206,7 +990,12 @@ public class BlockChain {
      * @return The hash of the most recent block.
      */
     public String getChainHash() {
-        return chainHash;
+        stateLock.readLock().lock();
+        try {
+            return chainHash;
+        } finally {
+            stateLock.readLock().unlock();
+        }
     }
 
     /**
@@ -215,7 +1004,12 @@ public class BlockChain {
      * @return The most recent block.
      */
     public Block getLatestBlock() {
-        return chain.getLast();
+        stateLock.readLock().lock();
+        try {
+            return chain.getLast();
+        } finally {
+            stateLock.readLock().unlock();
+        }
     }
 
     /**
@@ -224,7 +1018,12 @@ public class BlockChain {
      * @return The size of the blockchain.
      */
     public int getChainSize() {
-        return chain.size();
+        stateLock.readLock().lock();
+        try {
+            return chain.size();
+        } finally {
+            stateLock.readLock().unlock();
+        }
     }
 
 
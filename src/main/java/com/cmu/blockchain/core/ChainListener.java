@@ -0,0 +1,54 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.core;
+
+/**
+ * ChainListener is notified whenever blocks of a {@link BlockChain} are appended or replaced,
+ * for example to stream the changes to follower servers. Listeners that care about the cause of a change
+ * override {@link #onChainChanged(int, Change)} as well.
+ */
+@FunctionalInterface
+public interface ChainListener {
+
+    /**
+     * Called after the chain changed. All blocks from the given index up to the current head may differ from
+     * what was there before; blocks below the index are unchanged.
+     * This runs on the thread that changed the chain while other writers wait, so it must return quickly.
+     *
+     * @param fromIndex The index of the first block that was added or replaced.
+     */
+    void onChainChanged(int fromIndex);
+
+    /**
+     * Called after the chain changed, together with the cause of the change. By default the cause is ignored.
+     *
+     * @param fromIndex The index of the first block that was added or replaced.
+     * @param change    What changed the chain.
+     */
+    default void onChainChanged(int fromIndex, Change change) {
+        onChainChanged(fromIndex);
+    }
+
+    /**
+     * The causes of a change to the chain.
+     */
+    enum Change {
+        /**
+         * A newly mined block was appended.
+         */
+        APPENDED,
+        /**
+         * The data of a block was replaced without mining it again.
+         */
+        CORRUPTED,
+        /**
+         * The blocks after the genesis block were mined again.
+         */
+        REPAIRED,
+        /**
+         * Blocks mined elsewhere replaced the blocks from an index on.
+         */
+        REPLACED
+    }
+}
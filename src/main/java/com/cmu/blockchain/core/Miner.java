@@ -0,0 +1,33 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.core;
+
+import com.cmu.blockchain.model.Block;
+
+/**
+ * Miner performs the proof-of-work for the blocks of a {@link BlockChain}.
+ * By default blocks are mined on the thread adding them; a miner can spread the work elsewhere,
+ * for example over the remote workers of a mining pool.
+ */
+@FunctionalInterface
+public interface Miner {
+
+    /**
+     * Finds a nonce satisfying the block's difficulty.
+     * The search starts at the block's current nonce, and its previous hash is already set.
+     *
+     * @param block The block to mine.
+     * @return A copy of the block holding the winning nonce.
+     */
+    Block mine(Block block);
+
+    /**
+     * Gets the number of threads searching for nonces, reported in the mining telemetry of the chain.
+     *
+     * @return The number of threads or workers, 1 for mining on the calling thread.
+     */
+    default int getThreads() {
+        return 1;
+    }
+}
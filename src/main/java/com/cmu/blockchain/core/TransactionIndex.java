@@ -0,0 +1,464 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * TransactionIndex is an inverted index from the words of block data to the indexes of the blocks holding them,
+ * kept up to date as blocks are added, corrupted or replaced, so searches do not scan the chain.
+ * Data is split into lowercase tokens of letters and digits. Each token maps to a posting list of ascending block
+ * indexes stored as variable-length deltas, usually one byte per block, with a skip entry wherever the list
+ * enters a new range of {@link #RANGE_SIZE} blocks. Every range also has a Bloom filter of the tokens added in it:
+ * a search only decodes the ranges whose filters may hold every exact term, so terms that never occur together
+ * are answered without touching the posting lists. Filters are never cleared, only dropped with their range, so
+ * stale bits after a corruption merely cost a wasted decode.
+ * The index is not thread-safe; {@link BlockChain} guards it like its chain.
+ */
+public class TransactionIndex {
+
+    /**
+     * The number of consecutive blocks sharing a Bloom filter.
+     */
+    public static final int RANGE_SIZE = 1 << 10;
+
+    private static final int RANGE_SHIFT = 10;
+    private static final int BLOOM_BITS = 1 << 16; // 8 KB per range, about 1% false positives at 5 tokens per block.
+    private static final int BLOOM_HASHES = 3;
+
+    private final TreeMap<String, PostingList> postings = new TreeMap<>(); // Sorted for prefix queries.
+    private final List<long[]> blooms = new ArrayList<>(); // One filter per range of blocks.
+    private int size; // Number of blocks indexed.
+
+    /**
+     * Indexes the next block.
+     *
+     * @param blockIndex The index of the block, which must equal the number of blocks indexed so far.
+     * @param data       The data of the block.
+     */
+    public void add(int blockIndex, String data) {
+        if (blockIndex != size) {
+            throw new IllegalArgumentException("Expected block " + size + " but got block " + blockIndex);
+        }
+        for (String token : tokens(data)) {
+            postings.computeIfAbsent(token, t -> new PostingList()).append(blockIndex);
+            addToBloom(blockIndex >> RANGE_SHIFT, token);
+        }
+        size++;
+    }
+
+    /**
+     * Updates the index after the data of an indexed block changed.
+     *
+     * @param blockIndex The index of the block.
+     * @param oldData    The data the block was indexed with.
+     * @param newData    The new data of the block.
+     */
+    public void replace(int blockIndex, String oldData, String newData) {
+        Set<String> oldTokens = tokens(oldData);
+        Set<String> newTokens = tokens(newData);
+        for (String token : oldTokens) {
+            if (!newTokens.contains(token)) {
+                PostingList list = postings.get(token);
+                int[] ids = list.decodeAll();
+                int[] kept = Arrays.stream(ids).filter(id -> id != blockIndex).toArray();
+                if (kept.length == 0) {
+                    postings.remove(token);
+                } else {
+                    postings.put(token, PostingList.of(kept));
+                }
+            }
+        }
+        for (String token : newTokens) {
+            if (!oldTokens.contains(token)) {
+                PostingList list = postings.get(token);
+                if (list == null || list.last < blockIndex) {
+                    postings.computeIfAbsent(token, t -> new PostingList()).append(blockIndex);
+                } else {
+                    int[] ids = list.decodeAll();
+                    int[] merged = Arrays.copyOf(ids, ids.length + 1);
+                    merged[ids.length] = blockIndex;
+                    Arrays.sort(merged);
+                    postings.put(token, PostingList.of(merged));
+                }
+                addToBloom(blockIndex >> RANGE_SHIFT, token);
+            }
+        }
+    }
+
+    /**
+     * Drops the blocks from an index on, so replacements can be added.
+     *
+     * @param newSize The number of blocks to keep.
+     */
+    public void truncate(int newSize) {
+        if (newSize >= size) {
+            return;
+        }
+        postings.values().removeIf(list -> {
+            if (list.last < newSize) {
+                return false;
+            }
+            int[] kept = Arrays.stream(list.decodeAll()).filter(id -> id < newSize).toArray();
+            list.reset(kept);
+            return kept.length == 0;
+        });
+        int ranges = (newSize + RANGE_SIZE - 1) >> RANGE_SHIFT;
+        blooms.subList(Math.min(ranges, blooms.size()), blooms.size()).clear();
+        size = newSize;
+    }
+
+    /**
+     * Gets the number of blocks indexed.
+     *
+     * @return The number of blocks.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Finds the blocks whose data holds every term of a query. Terms are separated by whitespace and tokenized
+     * like block data; a term ending in {@code *} matches every token starting with it.
+     *
+     * @param query The query, such as {@code "alice pays bo*"}.
+     * @return The indexes of the matching blocks, ascending.
+     * @throws IllegalArgumentException If the query holds no term.
+     */
+    public int[] search(String query) {
+        List<String> exact = new ArrayList<>();
+        List<String> prefixes = new ArrayList<>();
+        for (String term : query.trim().split("\\s+")) {
+            boolean prefix = term.endsWith("*");
+            List<String> tokens = new ArrayList<>(tokens(prefix ? term.substring(0, term.length() - 1) : term));
+            if (prefix && !tokens.isEmpty()) {
+                prefixes.add(tokens.removeLast()); // Only the last token of "bob's*" is a prefix
+            }
+            exact.addAll(tokens);
+        }
+        if (exact.isEmpty() && prefixes.isEmpty()) {
+            throw new IllegalArgumentException("The query holds no searchable term.");
+        }
+
+        List<PostingList> exactLists = new ArrayList<>();
+        for (String token : exact) {
+            PostingList list = postings.get(token);
+            if (list == null) {
+                return new int[0]; // A token no block holds
+            }
+            exactLists.add(list);
+        }
+        exactLists.sort((a, b) -> Integer.compare(a.count, b.count)); // Intersect the rarest first
+        List<Collection<PostingList>> prefixLists = new ArrayList<>();
+        for (String prefix : prefixes) {
+            Collection<PostingList> lists = postings.subMap(prefix, prefix + Character.MAX_VALUE).values();
+            if (lists.isEmpty()) {
+                return new int[0];
+            }
+            prefixLists.add(lists);
+        }
+
+        IntList matches = new IntList();
+        for (int range = 0; range < blooms.size(); range++) {
+            if (!mayHoldAll(range, exact)) {
+                continue; // Fast negative: some exact term never occurs in this range
+            }
+            int[] ids = null;
+            for (PostingList list : exactLists) {
+                ids = ids == null ? list.decodeRange(range) : intersect(ids, list.decodeRange(range));
+                if (ids.length == 0) {
+                    break;
+                }
+            }
+            for (int i = 0; i < prefixLists.size() && (ids == null || ids.length > 0); i++) {
+                int[] union = union(prefixLists.get(i), range);
+                ids = ids == null ? union : intersect(ids, union);
+            }
+            matches.addAll(ids);
+        }
+        return matches.toArray();
+    }
+
+    /**
+     * Splits data into the distinct lowercase tokens of letters and digits it holds.
+     *
+     * @param data The data, possibly null.
+     * @return The tokens, in order of first occurrence.
+     */
+    static Set<String> tokens(String data) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (data == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= data.length(); i++) {
+            boolean wordChar = i < data.length() && Character.isLetterOrDigit(data.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(data.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Adds a token to the Bloom filter of a range, creating the filter if needed.
+     *
+     * @param range The range of blocks.
+     * @param token The token.
+     */
+    private void addToBloom(int range, String token) {
+        while (blooms.size() <= range) {
+            blooms.add(new long[BLOOM_BITS / Long.SIZE]);
+        }
+        long[] bloom = blooms.get(range);
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            int bit = bloomBit(token, i);
+            bloom[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    /**
+     * Checks whether a range may hold every token.
+     *
+     * @param range  The range of blocks.
+     * @param tokens The tokens.
+     * @return False if some token certainly does not occur in the range, otherwise true.
+     */
+    private boolean mayHoldAll(int range, List<String> tokens) {
+        long[] bloom = blooms.get(range);
+        for (String token : tokens) {
+            for (int i = 0; i < BLOOM_HASHES; i++) {
+                int bit = bloomBit(token, i);
+                if ((bloom[bit >>> 6] & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Picks one of the Bloom filter bits of a token, by double hashing its hash code.
+     *
+     * @param token The token.
+     * @param i     Which of the {@link #BLOOM_HASHES} bits to pick.
+     * @return The bit position.
+     */
+    private static int bloomBit(String token, int i) {
+        int hash = token.hashCode();
+        int step = Integer.rotateRight(hash * 0x9E3779B9, 16) | 1; // Second, odd hash
+        return (hash + i * step) & (BLOOM_BITS - 1);
+    }
+
+    /**
+     * Collects the blocks of a range held by any of several posting lists.
+     *
+     * @param lists The posting lists.
+     * @param range The range of blocks.
+     * @return The block indexes, ascending.
+     */
+    private static int[] union(Collection<PostingList> lists, int range) {
+        IntList ids = new IntList();
+        for (PostingList list : lists) {
+            ids.addAll(list.decodeRange(range));
+        }
+        return Arrays.stream(ids.toArray()).sorted().distinct().toArray();
+    }
+
+    /**
+     * Intersects two ascending arrays.
+     *
+     * @param a The first array.
+     * @param b The second array.
+     * @return The values in both, ascending.
+     */
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int count = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * The ascending block indexes of one token, as variable-length deltas with a skip entry per range.
+     */
+    private static final class PostingList {
+        private byte[] bytes = new byte[4];
+        private int length; // Bytes in use.
+        private int count; // Number of block indexes.
+        private int last = -1; // The highest block index.
+        private int[] skips = new int[3]; // Per range entered: range, byte offset, previous block index.
+        private int skipCount;
+
+        /**
+         * Builds a posting list from ascending block indexes.
+         *
+         * @param ids The block indexes.
+         * @return The posting list.
+         */
+        static PostingList of(int[] ids) {
+            PostingList list = new PostingList();
+            for (int id : ids) {
+                list.append(id);
+            }
+            return list;
+        }
+
+        /**
+         * Replaces the content with ascending block indexes.
+         *
+         * @param ids The block indexes.
+         */
+        void reset(int[] ids) {
+            length = 0;
+            count = 0;
+            last = -1;
+            skipCount = 0;
+            for (int id : ids) {
+                append(id);
+            }
+        }
+
+        /**
+         * Appends a block index higher than every index in the list.
+         *
+         * @param id The block index.
+         */
+        void append(int id) {
+            int range = id >> RANGE_SHIFT;
+            if (count == 0 || last >> RANGE_SHIFT != range) {
+                if (skipCount * 3 == skips.length) {
+                    skips = Arrays.copyOf(skips, skips.length * 2);
+                }
+                skips[skipCount * 3] = range;
+                skips[skipCount * 3 + 1] = length;
+                skips[skipCount * 3 + 2] = last;
+                skipCount++;
+            }
+            if (length + 5 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + 5));
+            }
+            int delta = id - last;
+            while ((delta & ~0x7F) != 0) {
+                bytes[length++] = (byte) ((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            bytes[length++] = (byte) delta;
+            last = id;
+            count++;
+        }
+
+        /**
+         * Decodes every block index.
+         *
+         * @return The block indexes, ascending.
+         */
+        int[] decodeAll() {
+            return decode(0, -1, Integer.MAX_VALUE, count);
+        }
+
+        /**
+         * Decodes the block indexes of one range, starting at its skip entry.
+         *
+         * @param range The range of blocks.
+         * @return The block indexes in the range, ascending.
+         */
+        int[] decodeRange(int range) {
+            int low = 0;
+            int high = skipCount - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int middleRange = skips[middle * 3];
+                if (middleRange < range) {
+                    low = middle + 1;
+                } else if (middleRange > range) {
+                    high = middle - 1;
+                } else {
+                    return decode(skips[middle * 3 + 1], skips[middle * 3 + 2], (range + 1) << RANGE_SHIFT, RANGE_SIZE);
+                }
+            }
+            return new int[0];
+        }
+
+        /**
+         * Decodes block indexes from an offset until an end index.
+         *
+         * @param offset   The byte offset to start at.
+         * @param previous The block index before the offset, or -1 at the start.
+         * @param end      The block index at which to stop.
+         * @param capacity An upper bound on the number of indexes decoded.
+         * @return The block indexes, ascending.
+         */
+        private int[] decode(int offset, int previous, int end, int capacity) {
+            int[] ids = new int[Math.min(capacity, count)];
+            int decoded = 0;
+            int position = offset;
+            int id = previous;
+            while (position < length) {
+                int delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = bytes[position++];
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                id += delta;
+                if (id >= end) {
+                    break;
+                }
+                ids[decoded++] = id;
+            }
+            return decoded == ids.length ? ids : Arrays.copyOf(ids, decoded);
+        }
+    }
+
+    /**
+     * A growable array of ints.
+     */
+    private static final class IntList {
+        private int[] values = new int[16];
+        private int size;
+
+        /**
+         * Appends values.
+         *
+         * @param more The values to append.
+         */
+        void addAll(int[] more) {
+            if (size + more.length > values.length) {
+                values = Arrays.copyOf(values, Math.max(values.length * 2, size + more.length));
+            }
+            System.arraycopy(more, 0, values, size, more.length);
+            size += more.length;
+        }
+
+        /**
+         * @return A copy of the values.
+         */
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
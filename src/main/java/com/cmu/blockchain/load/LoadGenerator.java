@@ -0,0 +1,223 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.load;
+
+import com.cmu.blockchain.message.ResponseMessage;
+import com.cmu.blockchain.network.BlockChainClient;
+import com.cmu.blockchain.util.LoggerUtil;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * LoadGenerator measures how a blockchain server behaves under load.
+ * In open-loop mode requests are sent at a fixed rate, however slowly the server answers; each request's latency
+ * counts from the time it was scheduled, so a stalled server is charged for every request it held up.
+ * In closed-loop mode a fixed number of clients each send their next request once the previous one is answered,
+ * optionally paced to a combined rate. Back-to-back clients send nothing while the server stalls, so their
+ * latencies are corrected for coordinated omission using the mean service time seen during the warm-up as the
+ * expected interval. Requests are drawn at random from a weighted action mix. Requests scheduled during the warm-up
+ * are sent but not reported. The report is printed as JSON, and also written to the file named by
+ * {@code -Dload.output} if set.
+ */
+public class LoadGenerator {
+
+    private static final Logger LOGGER = LoggerUtil.getLogger(LoadGenerator.class);
+
+    private final BlockChainClient client;
+    private final LoadProfile profile;
+    private final String[] actions; // One entry per unit of weight, for picking actions at random.
+    private final AtomicLong transactions = new AtomicLong(); // Numbers the transactions sent.
+    private LoadReport warmup;
+    private LoadReport measured;
+    private long measureStartNanos;
+    private long endNanos;
+
+    /**
+     * Constructs a LoadGenerator.
+     *
+     * @param client  The client sending the requests; its pool should have a connection per closed-loop client.
+     * @param profile The load to generate.
+     */
+    public LoadGenerator(BlockChainClient client, LoadProfile profile) {
+        this.client = client;
+        this.profile = profile;
+        List<String> weighted = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : profile.mix().entrySet()) {
+            for (int i = 0; i < entry.getValue(); i++) {
+                weighted.add(entry.getKey());
+            }
+        }
+        this.actions = weighted.toArray(new String[0]);
+    }
+
+    /**
+     * Main method for running a load test.
+     *
+     * @param args Command-line arguments: {@code [host] [port]}, by default {@code localhost 7777}.
+     *             The load is configured with system properties (see {@link LoadProfile#fromSystemProperties()}).
+     */
+    public static void main(String[] args) {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 7777;
+        LoadProfile profile = LoadProfile.fromSystemProperties();
+        try (BlockChainClient client = new BlockChainClient(host, port, profile.clients(),
+                BlockChainClient.DEFAULT_CONNECT_TIMEOUT, BlockChainClient.DEFAULT_REQUEST_TIMEOUT)) {
+            LOGGER.info("Generating " + profile.mode().name().toLowerCase() + "-loop load on " + host + ":" + port
+                    + " for " + profile.duration().toSeconds() + " seconds after a " + profile.warmup().toSeconds() + " second warm-up");
+            String json = new LoadGenerator(client, profile).run().toJson(profile);
+            System.out.println(json);
+            String output = System.getProperty("load.output");
+            if (output != null) {
+                Files.writeString(Path.of(output), json + System.lineSeparator());
+            }
+        } catch (IOException e) {
+            LOGGER.error("Load generator Exception: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs the warm-up and the measured phase, then waits for the outstanding responses.
+     *
+     * @return The results of the requests scheduled after the warm-up.
+     * @throws InterruptedException If interrupted while generating load.
+     */
+    public LoadReport run() throws InterruptedException {
+        warmup = new LoadReport(profile.mix().keySet());
+        measured = new LoadReport(profile.mix().keySet());
+        long start = System.nanoTime();
+        measureStartNanos = start + profile.warmup().toNanos();
+        endNanos = measureStartNanos + profile.duration().toNanos();
+        if (profile.mode() == LoadProfile.Mode.OPEN) {
+            runOpenLoop(start);
+        } else {
+            runClosedLoop(start);
+        }
+        return measured;
+    }
+
+    /**
+     * Sends requests at the profile's rate from this thread, without waiting for their responses.
+     *
+     * @param start When the run started.
+     */
+    private void runOpenLoop(long start) {
+        double interval = 1_000_000_000.0 / profile.rate();
+        List<CompletableFuture<ResponseMessage>> outstanding = new ArrayList<>();
+        for (long i = 0; ; i++) {
+            long intended = start + (long) (i * interval);
+            if (intended >= endNanos) {
+                break;
+            }
+            waitUntil(intended);
+            outstanding.add(send(intended, 0));
+        }
+        awaitQuietly(CompletableFuture.allOf(outstanding.toArray(new CompletableFuture[0])));
+    }
+
+    /**
+     * Runs the closed-loop clients on their own threads until the end of the run.
+     *
+     * @param start When the run started.
+     * @throws InterruptedException If interrupted while waiting for the clients.
+     */
+    private void runClosedLoop(long start) throws InterruptedException {
+        List<Thread> clients = new ArrayList<>();
+        for (int i = 0; i < profile.clients(); i++) {
+            long offset = profile.rate() <= 0 ? 0 : (long) (1_000_000_000.0 * i / profile.rate()); // Spreads paced clients
+            clients.add(Thread.ofPlatform().name("load-client-" + i).start(() -> runClient(start + offset)));
+        }
+        for (Thread thread : clients) {
+            thread.join();
+        }
+    }
+
+    /**
+     * Sends one request after another until the end of the run.
+     *
+     * @param start When this client sends its first request.
+     */
+    private void runClient(long start) {
+        long interval = profile.rate() <= 0 ? 0 : (long) (1_000_000_000.0 * profile.clients() / profile.rate());
+        long intended = start;
+        while (intended < endNanos) {
+            waitUntil(intended);
+            long sent = System.nanoTime();
+            long expectedInterval = interval == 0 && intended >= measureStartNanos ? warmup.getMeanServiceTimeNanos() : 0;
+            awaitQuietly(send(interval == 0 ? sent : intended, expectedInterval));
+            intended = interval == 0 ? System.nanoTime() : intended + interval; // A paced client catches up after a stall
+        }
+    }
+
+    /**
+     * Sends a request drawn from the action mix and records its outcome in the report of its phase.
+     *
+     * @param intended         When the request was meant to be sent.
+     * @param expectedInterval The expected interval for coordinated omission correction, or 0.
+     * @return The response.
+     */
+    private CompletableFuture<ResponseMessage> send(long intended, long expectedInterval) {
+        String action = actions[ThreadLocalRandom.current().nextInt(actions.length)];
+        LoadReport report = intended < measureStartNanos ? warmup : measured;
+        long sent = System.nanoTime();
+        CompletableFuture<ResponseMessage> response = switch (action) {
+            case "viewBlockchain" -> client.viewBlockchain();
+            case "verifyBlockchain" -> client.verifyBlockchain();
+            case "addTransaction" -> client.addTransaction("Load test transaction " + transactions.incrementAndGet(), profile.difficulty());
+            default -> client.viewBlockchainStatus();
+        };
+        return response.whenComplete((r, e) -> {
+            String error = e != null ? describe(e) : r.isSuccess() ? null : r.getMessage();
+            report.record(action, intended, sent, System.nanoTime(), expectedInterval, error);
+        });
+    }
+
+    /**
+     * Waits for a future, ignoring its failure, which has already been recorded.
+     *
+     * @param future The future to wait for.
+     */
+    private static void awaitQuietly(CompletableFuture<?> future) {
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            // Counted in the report
+        }
+    }
+
+    /**
+     * Describes a failed request by the type of its cause, so that failures group well in the report.
+     *
+     * @param e The failure.
+     * @return The name of the underlying exception type.
+     */
+    private static String describe(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        return cause.getClass().getSimpleName();
+    }
+
+    /**
+     * Sleeps until a point in time.
+     *
+     * @param deadline The time to wait for, from {@link System#nanoTime()}.
+     */
+    private static void waitUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
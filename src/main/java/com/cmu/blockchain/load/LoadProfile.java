@@ -0,0 +1,107 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.load;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * LoadProfile describes the load a {@link LoadGenerator} puts on a server.
+ *
+ * @param mode       How requests are issued.
+ * @param clients    The number of concurrent clients in closed-loop mode, and the connection pool size.
+ * @param rate       The requests per second: the arrival rate in open-loop mode, or the combined rate the clients
+ *                   of a closed loop are paced to; 0 lets closed-loop clients send back to back.
+ * @param warmup     How long to run before measuring.
+ * @param duration   How long to measure.
+ * @param mix        The relative weight of each action.
+ * @param difficulty The difficulty level of the blocks mined by {@code addTransaction} requests.
+ */
+public record LoadProfile(Mode mode, int clients, double rate, Duration warmup, Duration duration,
+                          Map<String, Integer> mix, int difficulty) {
+
+    /**
+     * The actions a load profile may mix.
+     */
+    public static final Set<String> ACTIONS = Set.of("viewBlockchainStatus", "viewBlockchain", "verifyBlockchain", "addTransaction");
+
+    /**
+     * The action mix used when none is configured: mostly reads with some mining.
+     */
+    public static final String DEFAULT_MIX = "viewBlockchainStatus=70,verifyBlockchain=20,addTransaction=10";
+
+    /**
+     * How requests are issued.
+     */
+    public enum Mode {
+        /**
+         * Requests arrive at a fixed rate whether or not earlier ones have been answered, like independent users.
+         */
+        OPEN,
+        /**
+         * A fixed number of clients each wait for a response before sending their next request.
+         */
+        CLOSED
+    }
+
+    /**
+     * Validates the profile.
+     */
+    public LoadProfile {
+        if (clients < 1) {
+            throw new IllegalArgumentException("At least one client is required.");
+        }
+        if (mode == Mode.OPEN && rate <= 0) {
+            throw new IllegalArgumentException("Open-loop mode requires a positive rate.");
+        }
+        if (mix.isEmpty() || mix.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("The action mix must give some action a positive weight.");
+        }
+        mix = Collections.unmodifiableMap(new LinkedHashMap<>(mix));
+    }
+
+    /**
+     * Creates a profile from the system properties {@code load.mode} ({@code open} or {@code closed}),
+     * {@code load.clients}, {@code load.rate}, {@code load.warmupSeconds}, {@code load.durationSeconds},
+     * {@code load.mix} and {@code load.difficulty}.
+     *
+     * @return The profile, by default a closed loop of 4 clients running the default mix for 30 seconds
+     * after a 5 second warm-up.
+     */
+    public static LoadProfile fromSystemProperties() {
+        return new LoadProfile(
+                Mode.valueOf(System.getProperty("load.mode", "closed").toUpperCase()),
+                Integer.getInteger("load.clients", 4),
+                Double.parseDouble(System.getProperty("load.rate", "0")),
+                Duration.ofSeconds(Long.getLong("load.warmupSeconds", 5)),
+                Duration.ofSeconds(Long.getLong("load.durationSeconds", 30)),
+                parseMix(System.getProperty("load.mix", DEFAULT_MIX)),
+                Integer.getInteger("load.difficulty", 1));
+    }
+
+    /**
+     * Parses an action mix such as {@code viewBlockchainStatus=70,addTransaction=30}.
+     *
+     * @param mix Comma-separated {@code <action>=<weight>} entries.
+     * @return The weight of each action, in the order given.
+     */
+    public static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2 || !ACTIONS.contains(parts[0].trim())) {
+                throw new IllegalArgumentException("Invalid action mix entry: " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight for " + parts[0].trim());
+            }
+            weights.put(parts[0].trim(), weight);
+        }
+        return weights;
+    }
+}
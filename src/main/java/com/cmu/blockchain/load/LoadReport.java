@@ -0,0 +1,167 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.load;
+
+import com.cmu.blockchain.metrics.LatencyHistogram;
+import com.google.gson.Gson;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LoadReport collects the outcome of the requests of one phase of a load run.
+ * Two latencies are kept per request. The latency runs from the time the request was meant to be sent, so
+ * requests held back by a slow server are charged for the wait (see {@link LatencyHistogram#recordCorrected}).
+ * The service time runs from the time the request was actually sent, which is what the server alone spent on it.
+ * The results are rendered as JSON for tracking capacity from one release to the next.
+ */
+public class LoadReport {
+
+    private static final Gson gson = new Gson();
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    private static final int MAX_ERROR_MESSAGES = 16; // Server messages can contain data, so the number kept is bounded.
+    private static final String OTHER_ERRORS = "other";
+
+    private final Map<String, ActionStats> actions = new TreeMap<>(); // Fixed after construction.
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LatencyHistogram serviceTime = new LatencyHistogram();
+    private final AtomicLong errors = new AtomicLong();
+    private final ConcurrentHashMap<String, AtomicLong> errorMessages = new ConcurrentHashMap<>();
+
+    /**
+     * Latencies and errors of one action.
+     */
+    private static final class ActionStats {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LatencyHistogram serviceTime = new LatencyHistogram();
+        private final AtomicLong errors = new AtomicLong();
+    }
+
+    /**
+     * Constructs an empty LoadReport.
+     *
+     * @param actions The actions that will be recorded.
+     */
+    public LoadReport(Iterable<String> actions) {
+        for (String action : actions) {
+            this.actions.put(action, new ActionStats());
+        }
+    }
+
+    /**
+     * Records a completed request.
+     *
+     * @param action           The action of the request.
+     * @param intendedNanos    When the request was meant to be sent, from {@link System#nanoTime()}.
+     * @param sentNanos        When the request was sent.
+     * @param finishedNanos    When the response or failure arrived.
+     * @param expectedInterval The expected time between two requests of a client that sends back to back,
+     *                         used to correct for coordinated omission, or 0 if requests follow a schedule.
+     * @param error            Why the request failed, or null if it succeeded.
+     */
+    public void record(String action, long intendedNanos, long sentNanos, long finishedNanos, long expectedInterval, String error) {
+        ActionStats stats = actions.get(action);
+        long requestLatency = finishedNanos - intendedNanos;
+        long requestServiceTime = finishedNanos - sentNanos;
+        latency.recordCorrected(requestLatency, expectedInterval);
+        stats.latency.recordCorrected(requestLatency, expectedInterval);
+        serviceTime.record(requestServiceTime);
+        stats.serviceTime.record(requestServiceTime);
+        if (error != null) {
+            errors.incrementAndGet();
+            stats.errors.incrementAndGet();
+            String key = errorMessages.containsKey(error) || errorMessages.size() < MAX_ERROR_MESSAGES ? error : OTHER_ERRORS;
+            errorMessages.computeIfAbsent(key, k -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    /**
+     * Gets the number of requests recorded.
+     *
+     * @return The number of requests.
+     */
+    public long getRequests() {
+        return serviceTime.getCount();
+    }
+
+    /**
+     * Gets the number of requests that failed.
+     *
+     * @return The number of errors.
+     */
+    public long getErrors() {
+        return errors.get();
+    }
+
+    /**
+     * Gets the mean service time, used as the expected interval of clients sending back to back.
+     *
+     * @return The mean service time in nanoseconds, or 0 if nothing was recorded.
+     */
+    public long getMeanServiceTimeNanos() {
+        return (long) serviceTime.getMean();
+    }
+
+    /**
+     * Renders the report as JSON. Latencies are reported in milliseconds.
+     *
+     * @param profile The profile of the run.
+     * @return A JSON object with the profile, throughput, error rates and latency percentiles overall and per action.
+     */
+    public String toJson(LoadProfile profile) {
+        double seconds = profile.duration().toNanos() / 1_000_000_000.0;
+        long requests = getRequests();
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("mode", profile.mode().name().toLowerCase());
+        report.put("clients", profile.clients());
+        report.put("targetRate", profile.rate());
+        report.put("warmupSeconds", profile.warmup().toMillis() / 1000.0);
+        report.put("durationSeconds", seconds);
+        report.put("difficulty", profile.difficulty());
+        report.put("requests", requests);
+        report.put("errors", errors.get());
+        report.put("errorRate", requests == 0 ? 0.0 : (double) errors.get() / requests);
+        report.put("throughput", (requests - errors.get()) / seconds);
+        report.put("latency", summarize(latency));
+        report.put("serviceTime", summarize(serviceTime));
+        Map<String, Object> perAction = new LinkedHashMap<>();
+        actions.forEach((action, stats) -> {
+            long count = stats.serviceTime.getCount();
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("weight", profile.mix().get(action));
+            entry.put("requests", count);
+            entry.put("errors", stats.errors.get());
+            entry.put("errorRate", count == 0 ? 0.0 : (double) stats.errors.get() / count);
+            entry.put("throughput", (count - stats.errors.get()) / seconds);
+            entry.put("latency", summarize(stats.latency));
+            entry.put("serviceTime", summarize(stats.serviceTime));
+            perAction.put(action, entry);
+        });
+        report.put("actions", perAction);
+        Map<String, Long> messages = new TreeMap<>();
+        errorMessages.forEach((message, count) -> messages.put(message, count.get()));
+        report.put("errorMessages", messages);
+        return gson.toJson(report);
+    }
+
+    /**
+     * Summarizes a histogram of nanosecond values in milliseconds.
+     *
+     * @param histogram The histogram to summarize.
+     * @return The percentiles, mean and maximum.
+     */
+    private static Map<String, Object> summarize(LatencyHistogram histogram) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("p50", histogram.getValueAtPercentile(50) / NANOS_PER_MILLI);
+        summary.put("p90", histogram.getValueAtPercentile(90) / NANOS_PER_MILLI);
+        summary.put("p99", histogram.getValueAtPercentile(99) / NANOS_PER_MILLI);
+        summary.put("p999", histogram.getValueAtPercentile(99.9) / NANOS_PER_MILLI);
+        summary.put("max", histogram.getMax() / NANOS_PER_MILLI);
+        summary.put("mean", histogram.getMean() / NANOS_PER_MILLI);
+        return summary;
+    }
+}
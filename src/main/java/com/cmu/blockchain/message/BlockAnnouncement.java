@@ -0,0 +1,18 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.message;
+
+import com.cmu.blockchain.model.Block;
+
+import java.util.List;
+
+/**
+ * BlockAnnouncement is the data of a {@code gossipBlock} request, with which a node tells its peers about the
+ * newest blocks of its chain.
+ *
+ * @param peer   The address other nodes reach the sender at, as {@code host:port}.
+ * @param blocks The newest blocks of the sender's chain, in order, ending with its head.
+ */
+public record BlockAnnouncement(String peer, List<Block> blocks) {
+}
@@ -0,0 +1,951 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.message;
+
+import com.cmu.blockchain.metrics.ChainSerializationEvent;
+import com.cmu.blockchain.metrics.MiningSample;
+import com.cmu.blockchain.mining.PoolMessage;
+import com.cmu.blockchain.mining.WorkResult;
+import com.cmu.blockchain.mining.WorkUnit;
+import com.cmu.blockchain.model.Block;
+import com.cmu.blockchain.model.InclusionProof;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MessageCodec provides the JSON encoding of {@link RequestMessage} and {@link ResponseMessage}.
+ * Hand-written streaming type adapters replace Gson's reflective ones, so no fields are looked up or set
+ * through reflection on the request path. Encoding skips Gson entirely: messages are appended to a
+ * per-thread reusable builder, so the only allocation is the resulting string. The type adapters write that
+ * same string, so {@link #gson()} and {@code toJson} can never disagree.
+ * The output is identical to Gson's default encoding: fields are written in declaration order, null fields
+ * are omitted, and strings are escaped the same way (including the HTML-safe escapes).
+ * Unknown fields are ignored when reading.
+ * The {@link PoolMessage}s and {@link WorkResult}s exchanged with mining workers are encoded the same way.
+ * Blocks carried by chain updates are encoded as objects whose timestamp is given in milliseconds since the epoch
+ * and whose nonce is given as a decimal string, so they decode to blocks with exactly the same hash.
+ */
+public final class MessageCodec {
+
+    // Gson instance with the precompiled adapters registered
+    private static final Gson gson = new GsonBuilder()
+            .registerTypeAdapter(RequestMessage.class, new RequestMessageAdapter())
+            .registerTypeAdapter(ResponseMessage.class, new ResponseMessageAdapter())
+            .create();
+
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024; // Larger builders are not kept between calls.
+    private static final String[] ESCAPES = new String[128]; // Escape sequences for ASCII characters, or null.
+
+    static {
+        for (int c = 0; c < 0x20; c++) {
+            ESCAPES[c] = String.format("\\u%04x", c);
+        }
+        ESCAPES['"'] = "\\\"";
+        ESCAPES['\\'] = "\\\\";
+        ESCAPES['\t'] = "\\t";
+        ESCAPES['\b'] = "\\b";
+        ESCAPES['\n'] = "\\n";
+        ESCAPES['\r'] = "\\r";
+        ESCAPES['\f'] = "\\f";
+        ESCAPES['<'] = "\\u003c";
+        ESCAPES['>'] = "\\u003e";
+        ESCAPES['&'] = "\\u0026";
+        ESCAPES['='] = "\\u003d";
+        ESCAPES['\''] = "\\u0027";
+    }
+
+    private static final ThreadLocal<StringBuilder> builders = ThreadLocal.withInitial(() -> new StringBuilder(1024));
+
+    private MessageCodec() {
+    }
+
+    /**
+     * Gets the shared Gson instance using the precompiled message adapters.
+     *
+     * @return The Gson instance.
+     */
+    public static Gson gson() {
+        return gson;
+    }
+
+    /**
+     * Encodes a request as a single line of JSON.
+     *
+     * @param request The request to encode.
+     * @return The JSON-formatted request.
+     */
+    public static String toJson(RequestMessage request) {
+        StringBuilder json = builder();
+        json.append('{');
+        appendField(json, "action", request.action(), false);
+        appendField(json, "data", request.data(), true);
+        if (json.length() > 1) {
+            json.append(',');
+        }
+        json.append("\"difficulty\":").append(request.difficulty());
+        if (request.requestId() != null) {
+            json.append(",\"requestId\":").append(request.requestId().longValue());
+        }
+        if (request.transactions() != null) {
+            json.append(",\"transactions\":[");
+            for (int i = 0; i < request.transactions().size(); i++) {
+                String transaction = request.transactions().get(i);
+                if (transaction == null) {
+                    json.append(i > 0 ? ",null" : "null");
+                } else {
+                    appendString(json, transaction, i > 0);
+                }
+            }
+            json.append(']');
+        }
+        appendField(json, "chain", request.chain(), true);
+        appendField(json, "idempotencyKey", request.idempotencyKey(), true);
+        json.append('}');
+        return finish(json);
+    }
+
+    /**
+     * Encodes a response as a single line of JSON.
+     *
+     * @param response The response to encode.
+     * @return The JSON-formatted response.
+     */
+    public static String toJson(ResponseMessage response) {
+        StringBuilder json = builder();
+        json.append("{\"success\":").append(response.isSuccess());
+        appendField(json, "message", response.getMessage(), true);
+        appendField(json, "action", response.getAction(), true);
+        appendField(json, "blockchainData", response.getBlockchainData(), true);
+        json.append(",\"chainSize\":").append(response.getChainSize());
+        json.append(",\"latestBlockDifficulty\":").append(response.getLatestBlockDifficulty());
+        json.append(",\"totalDifficulty\":").append(response.getTotalDifficulty());
+        json.append(",\"hashesPerSecond\":").append(response.getHashesPerSecond());
+        json.append(",\"totalExpectedHashes\":").append(checkFinite(response.getTotalExpectedHashes()));
+        appendField(json, "latestBlockNonce", response.getLatestBlockNonce(), true);
+        appendField(json, "chainHash", response.getChainHash(), true);
+        if (response.getRequestId() != null) {
+            json.append(",\"requestId\":").append(response.getRequestId().longValue());
+        }
+        if (response.getRetryAfterMillis() != null) {
+            json.append(",\"retryAfterMillis\":").append(response.getRetryAfterMillis().longValue());
+        }
+        if (response.getStartIndex() != null) {
+            json.append(",\"startIndex\":").append(response.getStartIndex().intValue());
+        }
+        if (response.getBlocks() != null) {
+            json.append(",\"blocks\":");
+            appendBlocks(json, response.getBlocks());
+        }
+        if (response.getServerTimeMillis() != null) {
+            json.append(",\"serverTimeMillis\":").append(response.getServerTimeMillis().longValue());
+        }
+        if (response.getResults() != null) {
+            json.append(",\"results\":[");
+            for (int i = 0; i < response.getResults().size(); i++) {
+                if (i > 0) {
+                    json.append(',');
+                }
+                TransactionResult result = response.getResults().get(i);
+                json.append('{');
+                if (result.blockIndex() != null) {
+                    json.append("\"blockIndex\":").append(result.blockIndex().intValue());
+                }
+                appendField(json, "error", result.error(), result.blockIndex() != null);
+                json.append('}');
+            }
+            json.append(']');
+        }
+        if (response.getInclusionProof() != null) {
+            json.append(",\"inclusionProof\":");
+            appendProof(json, response.getInclusionProof());
+        }
+        if (response.getMatches() != null) {
+            json.append(",\"matches\":[");
+            for (int i = 0; i < response.getMatches().size(); i++) {
+                if (i > 0) {
+                    json.append(',');
+                }
+                json.append(response.getMatches().get(i).intValue());
+            }
+            json.append(']');
+        }
+        appendField(json, "cursor", response.getCursor(), true);
+        appendField(json, "event", response.getEvent(), true);
+        if (response.getDropped() != null) {
+            json.append(",\"dropped\":").append(response.getDropped().longValue());
+        }
+        if (response.getReplayed() != null) {
+            json.append(",\"replayed\":").append(response.getReplayed().booleanValue());
+        }
+        if (response.getMiningSamples() != null) {
+            json.append(",\"miningSamples\":[");
+            for (int i = 0; i < response.getMiningSamples().size(); i++) {
+                MiningSample sample = response.getMiningSamples().get(i);
+                json.append(i > 0 ? ",{" : "{")
+                        .append("\"blockIndex\":").append(sample.blockIndex())
+                        .append(",\"difficulty\":").append(sample.difficulty())
+                        .append(",\"finishedMillis\":").append(sample.finishedMillis())
+                        .append(",\"elapsedNanos\":").append(sample.elapsedNanos())
+                        .append(",\"attempts\":").append(sample.attempts())
+                        .append(",\"threads\":").append(sample.threads())
+                        .append(",\"hashesPerSecond\":").append(sample.hashesPerSecond())
+                        .append('}');
+            }
+            json.append(']');
+        }
+        if (response.getRollingHashesPerSecond() != null) {
+            json.append(",\"rollingHashesPerSecond\":").append(response.getRollingHashesPerSecond().longValue());
+        }
+        appendField(json, "merkleRoot", response.getMerkleRoot(), true);
+        json.append('}');
+        return finish(json);
+    }
+
+    /**
+     * Encodes a block announcement as a single line of JSON.
+     *
+     * @param announcement The announcement to encode.
+     * @return The JSON-formatted announcement.
+     */
+    public static String toJson(BlockAnnouncement announcement) {
+        StringBuilder json = builder();
+        json.append('{');
+        appendField(json, "peer", announcement.peer(), false);
+        if (json.length() > 1) {
+            json.append(',');
+        }
+        json.append("\"blocks\":");
+        appendBlocks(json, announcement.blocks());
+        json.append('}');
+        return finish(json);
+    }
+
+    /**
+     * Decodes a JSON-formatted block announcement.
+     *
+     * @param json The JSON-formatted announcement.
+     * @return The announcement.
+     * @throws IOException If the input is not a valid announcement.
+     */
+    public static BlockAnnouncement parseAnnouncement(String json) throws IOException {
+        try (JsonReader in = new JsonReader(new StringReader(json))) {
+            String peer = null;
+            List<Block> blocks = List.of();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "peer" -> peer = in.nextString();
+                    case "blocks" -> blocks = readBlocks(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return new BlockAnnouncement(peer, blocks);
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException("Invalid block announcement: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Encodes a message from the mining pool to a worker as a single line of JSON.
+     *
+     * @param message The message to encode.
+     * @return The JSON-formatted message.
+     */
+    public static String toJson(PoolMessage message) {
+        StringBuilder json = builder();
+        json.append('{');
+        WorkUnit work = message.work();
+        if (work != null) {
+            json.append("\"work\":{\"jobId\":").append(work.jobId());
+            appendField(json, "prefix", work.prefix(), true);
+            appendField(json, "suffix", work.suffix(), true);
+            json.append(",\"hashVersion\":").append(work.hashVersion());
+            json.append(",\"difficulty\":").append(work.difficulty());
+            json.append(",\"nonceStart\":").append(work.nonceStart());
+            json.append(",\"nonceEnd\":").append(work.nonceEnd());
+            json.append('}');
+        }
+        if (message.cancelJobId() != null) {
+            json.append(work != null ? ",\"cancelJobId\":" : "\"cancelJobId\":").append(message.cancelJobId().longValue());
+        }
+        json.append('}');
+        return finish(json);
+    }
+
+    /**
+     * Decodes a JSON-formatted message from the mining pool.
+     *
+     * @param json The JSON-formatted message.
+     * @return The message.
+     * @throws IOException If the input is not a valid pool message.
+     */
+    public static PoolMessage parsePoolMessage(String json) throws IOException {
+        try (JsonReader in = new JsonReader(new StringReader(json))) {
+            WorkUnit work = null;
+            Long cancelJobId = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "work" -> work = readWorkUnit(in);
+                    case "cancelJobId" -> cancelJobId = in.nextLong();
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return new PoolMessage(work, cancelJobId);
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException("Invalid pool message: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Encodes a mining worker's result as a single line of JSON.
+     *
+     * @param result The result to encode.
+     * @return The JSON-formatted result.
+     */
+    public static String toJson(WorkResult result) {
+        StringBuilder json = builder();
+        json.append("{\"jobId\":").append(result.jobId());
+        json.append(",\"nonceStart\":").append(result.nonceStart());
+        json.append(",\"nonceEnd\":").append(result.nonceEnd());
+        if (result.nonce() != null) {
+            json.append(",\"nonce\":").append(result.nonce().longValue());
+        }
+        json.append(",\"hashes\":").append(result.hashes());
+        json.append('}');
+        return finish(json);
+    }
+
+    /**
+     * Decodes a JSON-formatted result of a mining worker.
+     *
+     * @param json The JSON-formatted result.
+     * @return The result.
+     * @throws IOException If the input is not a valid result.
+     */
+    public static WorkResult parseWorkResult(String json) throws IOException {
+        try (JsonReader in = new JsonReader(new StringReader(json))) {
+            long jobId = 0;
+            long nonceStart = 0;
+            long nonceEnd = 0;
+            Long nonce = null;
+            long hashes = 0;
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "jobId" -> jobId = in.nextLong();
+                    case "nonceStart" -> nonceStart = in.nextLong();
+                    case "nonceEnd" -> nonceEnd = in.nextLong();
+                    case "nonce" -> nonce = in.nextLong();
+                    case "hashes" -> hashes = in.nextLong();
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return new WorkResult(jobId, nonceStart, nonceEnd, nonce, hashes);
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException("Invalid work result: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Encodes a block as a single line of JSON, such as the data of a {@code submitBlock} request.
+     *
+     * @param block The block to encode.
+     * @return The JSON-formatted block.
+     */
+    public static String toJson(Block block) {
+        StringBuilder json = builder();
+        appendBlock(json, block);
+        return finish(json);
+    }
+
+    /**
+     * Decodes a JSON-formatted block.
+     *
+     * @param json The JSON-formatted block.
+     * @return The block.
+     * @throws IOException If the input is not a valid block.
+     */
+    public static Block parseBlock(String json) throws IOException {
+        try (JsonReader in = new JsonReader(new StringReader(json))) {
+            return readBlock(in);
+        } catch (IllegalStateException | NumberFormatException | JsonParseException e) {
+            throw new IOException("Invalid block: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Decodes a JSON-formatted request.
+     *
+     * @param json The JSON-formatted request.
+     * @return The request, or null if the input is empty.
+     */
+    public static RequestMessage parseRequest(String json) {
+        return gson.fromJson(json, RequestMessage.class);
+    }
+
+    /**
+     * Decodes a JSON-formatted response.
+     *
+     * @param json The JSON-formatted response.
+     * @return The response, or null if the input is empty.
+     */
+    public static ResponseMessage parseResponse(String json) {
+        return gson.fromJson(json, ResponseMessage.class);
+    }
+
+    /**
+     * Takes the calling thread's builder, emptied.
+     *
+     * @return An empty builder.
+     */
+    private static StringBuilder builder() {
+        StringBuilder json = builders.get();
+        json.setLength(0);
+        return json;
+    }
+
+    /**
+     * Turns the builder content into a string, dropping the builder if it grew too large to keep around.
+     *
+     * @param json The builder holding an encoded message.
+     * @return The encoded message.
+     */
+    private static String finish(StringBuilder json) {
+        String result = json.toString();
+        if (json.capacity() > MAX_RETAINED_CAPACITY) {
+            builders.remove();
+        }
+        return result;
+    }
+
+    /**
+     * Appends a string field, omitting it if the value is null.
+     *
+     * @param json      The builder to append to.
+     * @param name      The field name, which must not need escaping.
+     * @param value     The field value, possibly null.
+     * @param separator Whether a comma must precede the field.
+     */
+    private static void appendField(StringBuilder json, String name, String value, boolean separator) {
+        if (value == null) {
+            return;
+        }
+        if (separator && json.length() > 1) {
+            json.append(',');
+        }
+        json.append('"').append(name).append("\":");
+        appendString(json, value, false);
+    }
+
+    /**
+     * Appends a string value, escaped and quoted.
+     *
+     * @param json      The builder to append to.
+     * @param value     The value, which must not be null.
+     * @param separator Whether a comma must precede the value.
+     */
+    private static void appendString(StringBuilder json, String value, boolean separator) {
+        if (separator) {
+            json.append(',');
+        }
+        json.append('"');
+        int length = value.length();
+        int last = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            String escape;
+            if (c < 128) {
+                escape = ESCAPES[c];
+            } else if (c == '\u2028') {
+                escape = "\\u2028";
+            } else if (c == '\u2029') {
+                escape = "\\u2029";
+            } else {
+                continue;
+            }
+            if (escape == null) {
+                continue;
+            }
+            json.append(value, last, i).append(escape);
+            last = i + 1;
+        }
+        json.append(value, last, length).append('"');
+    }
+
+    /**
+     * Appends blocks as a JSON array, recorded as a {@link ChainSerializationEvent}.
+     *
+     * @param json   The builder to append to.
+     * @param blocks The blocks to encode.
+     */
+    private static void appendBlocks(StringBuilder json, List<Block> blocks) {
+        ChainSerializationEvent event = new ChainSerializationEvent();
+        event.begin();
+        int start = json.length();
+        json.append('[');
+        for (int i = 0; i < blocks.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendBlock(json, blocks.get(i));
+        }
+        json.append(']');
+        if (event.shouldCommit()) {
+            event.view = ChainSerializationEvent.BLOCKS;
+            event.blocks = blocks.size();
+            event.length = json.length() - start;
+            event.commit();
+        }
+    }
+
+    /**
+     * Appends a block as a JSON object.
+     *
+     * @param json  The builder to append to.
+     * @param block The block to encode.
+     */
+    private static void appendBlock(StringBuilder json, Block block) {
+        json.append("{\"index\":").append(block.getIndex());
+        json.append(",\"timestamp\":").append(block.getTimestamp().getTime());
+        appendField(json, "data", block.getData(), true);
+        appendField(json, "previousHash", block.getPreviousHash(), true);
+        json.append(",\"nonce\":\"").append(block.getNonce()).append('"');
+        json.append(",\"difficulty\":").append(block.getDifficulty());
+        json.append(",\"version\":").append(block.getHashVersion()).append('}');
+    }
+
+    /**
+     * Appends an inclusion proof as a JSON object.
+     *
+     * @param json  The builder to append to.
+     * @param proof The proof to encode.
+     */
+    private static void appendProof(StringBuilder json, InclusionProof proof) {
+        json.append("{\"index\":").append(proof.index());
+        json.append(",\"leafCount\":").append(proof.leafCount());
+        appendField(json, "blockHash", proof.blockHash(), true);
+        appendField(json, "header", proof.header(), true);
+        appendHashes(json, "siblings", proof.siblings());
+        appendHashes(json, "peaks", proof.peaks());
+        appendField(json, "root", proof.root(), true);
+        json.append('}');
+    }
+
+    /**
+     * Appends a list of hashes as a JSON array field, omitting it if the list is null.
+     *
+     * @param json   The builder to append to.
+     * @param name   The field name.
+     * @param hashes The hexadecimal hashes, possibly null.
+     */
+    private static void appendHashes(StringBuilder json, String name, List<String> hashes) {
+        if (hashes == null) {
+            return;
+        }
+        json.append(",\"").append(name).append("\":[");
+        for (int i = 0; i < hashes.size(); i++) {
+            appendString(json, hashes.get(i), i > 0);
+        }
+        json.append(']');
+    }
+
+    /**
+     * Reads an inclusion proof.
+     *
+     * @param in The reader positioned at the object.
+     * @return The proof.
+     * @throws IOException If reading fails.
+     */
+    private static InclusionProof readProof(JsonReader in) throws IOException {
+        int index = 0;
+        int leafCount = 0;
+        String blockHash = null;
+        String header = null;
+        List<String> siblings = null;
+        List<String> peaks = null;
+        String root = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "index" -> index = in.nextInt();
+                case "leafCount" -> leafCount = in.nextInt();
+                case "blockHash" -> blockHash = in.nextString();
+                case "header" -> header = in.nextString();
+                case "siblings" -> siblings = readStrings(in);
+                case "peaks" -> peaks = readStrings(in);
+                case "root" -> root = in.nextString();
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return new InclusionProof(index, leafCount, blockHash, header, siblings, peaks, root);
+    }
+
+    /**
+     * Reads an array of blocks.
+     *
+     * @param in The reader positioned at the array.
+     * @return The blocks.
+     * @throws IOException If reading fails.
+     */
+    private static List<Block> readBlocks(JsonReader in) throws IOException {
+        List<Block> blocks = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            blocks.add(readBlock(in));
+        }
+        in.endArray();
+        return blocks;
+    }
+
+    /**
+     * Reads a block.
+     *
+     * @param in The reader positioned at the block object.
+     * @return The block.
+     * @throws IOException If reading fails.
+     */
+    private static Block readBlock(JsonReader in) throws IOException {
+        int index = 0;
+        long timestamp = 0;
+        String data = null;
+        String previousHash = null;
+        BigInteger nonce = BigInteger.ZERO;
+        int difficulty = 0;
+        int version = Block.LEGACY_HASH_VERSION; // Servers predating hash versions only send legacy blocks
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "index" -> index = in.nextInt();
+                case "timestamp" -> timestamp = in.nextLong();
+                case "data" -> data = in.nextString();
+                case "previousHash" -> previousHash = in.nextString();
+                case "nonce" -> nonce = new BigInteger(in.nextString());
+                case "difficulty" -> difficulty = in.nextInt();
+                case "version" -> version = in.nextInt();
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        try {
+            return new Block(index, new Timestamp(timestamp), data, previousHash, nonce, difficulty, version);
+        } catch (IllegalArgumentException e) {
+            throw new JsonParseException("Invalid block " + index + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads a work unit object.
+     *
+     * @param in The reader positioned at the unit.
+     * @return The work unit.
+     * @throws IOException If reading fails.
+     */
+    private static WorkUnit readWorkUnit(JsonReader in) throws IOException {
+        long jobId = 0;
+        String prefix = null;
+        String suffix = null;
+        int hashVersion = 0;
+        int difficulty = 0;
+        long nonceStart = 0;
+        long nonceEnd = 0;
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "jobId" -> jobId = in.nextLong();
+                case "prefix" -> prefix = in.nextString();
+                case "suffix" -> suffix = in.nextString();
+                case "hashVersion" -> hashVersion = in.nextInt();
+                case "difficulty" -> difficulty = in.nextInt();
+                case "nonceStart" -> nonceStart = in.nextLong();
+                case "nonceEnd" -> nonceEnd = in.nextLong();
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return new WorkUnit(jobId, prefix, suffix, hashVersion, difficulty, nonceStart, nonceEnd);
+    }
+
+    /**
+     * Reads an array of strings, keeping null elements.
+     *
+     * @param in The reader positioned at the array.
+     * @return The strings.
+     * @throws IOException If reading fails.
+     */
+    private static List<String> readStrings(JsonReader in) throws IOException {
+        List<String> strings = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                strings.add(null);
+            } else {
+                strings.add(in.nextString());
+            }
+        }
+        in.endArray();
+        return strings;
+    }
+
+    /**
+     * Reads an array of integers.
+     *
+     * @param in The reader positioned at the array.
+     * @return The integers.
+     * @throws IOException If reading fails.
+     */
+    private static List<Integer> readInts(JsonReader in) throws IOException {
+        List<Integer> ints = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            ints.add(in.nextInt());
+        }
+        in.endArray();
+        return ints;
+    }
+
+    /**
+     * Reads an array of mining samples.
+     *
+     * @param in The reader positioned at the array.
+     * @return The samples.
+     * @throws IOException If reading fails.
+     */
+    private static List<MiningSample> readMiningSamples(JsonReader in) throws IOException {
+        List<MiningSample> samples = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            int blockIndex = 0;
+            int difficulty = 0;
+            long finishedMillis = 0;
+            long elapsedNanos = 0;
+            long attempts = 0;
+            int threads = 0;
+            long hashesPerSecond = 0;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "blockIndex" -> blockIndex = in.nextInt();
+                    case "difficulty" -> difficulty = in.nextInt();
+                    case "finishedMillis" -> finishedMillis = in.nextLong();
+                    case "elapsedNanos" -> elapsedNanos = in.nextLong();
+                    case "attempts" -> attempts = in.nextLong();
+                    case "threads" -> threads = in.nextInt();
+                    case "hashesPerSecond" -> hashesPerSecond = in.nextLong();
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            samples.add(new MiningSample(blockIndex, difficulty, finishedMillis, elapsedNanos, attempts, threads, hashesPerSecond));
+        }
+        in.endArray();
+        return samples;
+    }
+
+    /**
+     * Reads an array of batch results.
+     *
+     * @param in The reader positioned at the array.
+     * @return The results.
+     * @throws IOException If reading fails.
+     */
+    private static List<TransactionResult> readResults(JsonReader in) throws IOException {
+        List<TransactionResult> results = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            Integer blockIndex = null;
+            String error = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "blockIndex" -> blockIndex = in.nextInt();
+                    case "error" -> error = in.nextString();
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            results.add(new TransactionResult(blockIndex, error));
+        }
+        in.endArray();
+        return results;
+    }
+
+    /**
+     * Rejects values that JSON cannot represent, as Gson does by default.
+     *
+     * @param value The value to encode.
+     * @return The value, if finite.
+     */
+    private static double checkFinite(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException(value + " is not a valid double value as per JSON specification.");
+        }
+        return value;
+    }
+
+    /**
+     * Streaming adapter for {@link RequestMessage}.
+     */
+    static final class RequestMessageAdapter extends TypeAdapter<RequestMessage> {
+
+        @Override
+        public void write(JsonWriter out, RequestMessage request) throws IOException {
+            if (request == null) {
+                out.nullValue();
+                return;
+            }
+            out.jsonValue(MessageCodec.toJson(request));
+        }
+
+        @Override
+        public RequestMessage read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            String action = null;
+            String data = null;
+            int difficulty = 0;
+            Long requestId = null;
+            List<String> transactions = null;
+            String chain = null;
+            String idempotencyKey = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "action" -> action = in.nextString();
+                    case "data" -> data = in.nextString();
+                    case "difficulty" -> difficulty = in.nextInt();
+                    case "requestId" -> requestId = in.nextLong();
+                    case "transactions" -> transactions = readStrings(in);
+                    case "chain" -> chain = in.nextString();
+                    case "idempotencyKey" -> idempotencyKey = in.nextString();
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return new RequestMessage(action, data, difficulty, requestId, transactions, chain, idempotencyKey);
+        }
+    }
+
+    /**
+     * Streaming adapter for {@link ResponseMessage}.
+     */
+    static final class ResponseMessageAdapter extends TypeAdapter<ResponseMessage> {
+
+        @Override
+        public void write(JsonWriter out, ResponseMessage response) throws IOException {
+            if (response == null) {
+                out.nullValue();
+                return;
+            }
+            out.jsonValue(MessageCodec.toJson(response));
+        }
+
+        @Override
+        public ResponseMessage read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            ResponseMessage response = new ResponseMessage(false, null, null, null);
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "success" -> response.setSuccess(in.nextBoolean());
+                    case "message" -> response.setMessage(in.nextString());
+                    case "action" -> response.setAction(in.nextString());
+                    case "blockchainData" -> response.setBlockchainData(in.nextString());
+                    case "chainSize" -> response.setChainSize(in.nextInt());
+                    case "latestBlockDifficulty" -> response.setLatestBlockDifficulty(in.nextInt());
+                    case "totalDifficulty" -> response.setTotalDifficulty(in.nextInt());
+                    case "hashesPerSecond" -> response.setHashesPerSecond(in.nextLong());
+                    case "totalExpectedHashes" -> response.setTotalExpectedHashes(in.nextDouble());
+                    case "latestBlockNonce" -> response.setLatestBlockNonce(in.nextString());
+                    case "chainHash" -> response.setChainHash(in.nextString());
+                    case "requestId" -> response.setRequestId(in.nextLong());
+                    case "retryAfterMillis" -> response.setRetryAfterMillis(in.nextLong());
+                    case "startIndex" -> response.setStartIndex(in.nextInt());
+                    case "blocks" -> response.setBlocks(readBlocks(in));
+                    case "serverTimeMillis" -> response.setServerTimeMillis(in.nextLong());
+                    case "results" -> response.setResults(readResults(in));
+                    case "inclusionProof" -> response.setInclusionProof(readProof(in));
+                    case "matches" -> response.setMatches(readInts(in));
+                    case "cursor" -> response.setCursor(in.nextString());
+                    case "event" -> response.setEvent(in.nextString());
+                    case "dropped" -> response.setDropped(in.nextLong());
+                    case "replayed" -> response.setReplayed(in.nextBoolean());
+                    case "miningSamples" -> response.setMiningSamples(readMiningSamples(in));
+                    case "rollingHashesPerSecond" -> response.setRollingHashesPerSecond(in.nextLong());
+                    case "merkleRoot" -> response.setMerkleRoot(in.nextString());
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return response;
+        }
+    }
+}
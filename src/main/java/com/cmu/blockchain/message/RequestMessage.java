@@ -3,26 +3,137 @@
 
 package com.cmu.blockchain.message;
 
+import java.util.List;
+
 /**
  * RequestMessage class represents a request message sent by the client to the server.
  * It encapsulates information such as action, data, and difficulty level.
+ * A request may carry a client-chosen request id; the server copies it into the matching response,
+ * which lets clients pipeline many requests on one connection and receive the answers in any order.
+ * An {@code addTransactions} request carries a batch of transaction payloads instead of a single data string.
+ * A request may name one of the chains hosted by the server; a request naming none uses the server's default chain.
+ * A write may carry a client-chosen idempotency key; a retry with the same key gets the result of the original
+ * instead of being mined again.
  *
  * @param action     Fields Specifies the action to be performed by the server
  * @param data       Data associated with the request
  * @param difficulty Difficulty level, if applicable
+ * @param requestId  Correlation id echoed in the response, or null for strictly ordered request/response
+ * @param transactions Transaction payloads of a batch request, or null
+ * @param chain      Name of the chain the request applies to, or null for the default chain
+ * @param idempotencyKey Key identifying a write across retries, or null
  */
-public record RequestMessage(String action, String data, int difficulty) {
+public record RequestMessage(String action, String data, int difficulty, Long requestId, List<String> transactions,
+                             String chain, String idempotencyKey) {
 
     // Constructors
 
     /**
-     * Constructs a RequestMessage object with the specified action, data, and difficulty level.
+     * Constructs a RequestMessage object with the specified action, data, difficulty level, request id,
+     * transaction batch, chain and idempotency key.
+     *
+     * @param action         Specifies the action to be performed by the server
+     * @param data           Data associated with the request
+     * @param difficulty     Difficulty level, if applicable
+     * @param requestId      Correlation id echoed in the response, or null
+     * @param transactions   Transaction payloads of a batch request, or null
+     * @param chain          Name of the chain the request applies to, or null for the default chain
+     * @param idempotencyKey Key identifying a write across retries, or null
+     */
+    public RequestMessage {
+    }
+
+    /**
+     * Constructs a RequestMessage object without an idempotency key with the specified action, data, difficulty
+     * level, request id, transaction batch and chain.
+     *
+     * @param action       Specifies the action to be performed by the server
+     * @param data         Data associated with the request
+     * @param difficulty   Difficulty level, if applicable
+     * @param requestId    Correlation id echoed in the response, or null
+     * @param transactions Transaction payloads of a batch request, or null
+     * @param chain        Name of the chain the request applies to, or null for the default chain
+     */
+    public RequestMessage(String action, String data, int difficulty, Long requestId, List<String> transactions, String chain) {
+        this(action, data, difficulty, requestId, transactions, chain, null);
+    }
+
+    /**
+     * Constructs a RequestMessage object for the default chain with the specified action, data, difficulty level,
+     * request id and transaction batch.
+     *
+     * @param action       Specifies the action to be performed by the server
+     * @param data         Data associated with the request
+     * @param difficulty   Difficulty level, if applicable
+     * @param requestId    Correlation id echoed in the response, or null
+     * @param transactions Transaction payloads of a batch request, or null
+     */
+    public RequestMessage(String action, String data, int difficulty, Long requestId, List<String> transactions) {
+        this(action, data, difficulty, requestId, transactions, null);
+    }
+
+    /**
+     * Constructs a RequestMessage object with the specified action, data, difficulty level and request id.
      *
      * @param action     Specifies the action to be performed by the server
      * @param data       Data associated with the request
      * @param difficulty Difficulty level, if applicable
+     * @param requestId  Correlation id echoed in the response, or null
      */
-    public RequestMessage {
+    public RequestMessage(String action, String data, int difficulty, Long requestId) {
+        this(action, data, difficulty, requestId, null);
+    }
+
+    /**
+     * Constructs a RequestMessage object without a request id.
+     *
+     * @param action     Specifies the action to be performed by the server
+     * @param data       Data associated with the request
+     * @param difficulty Difficulty level, if applicable
+     */
+    public RequestMessage(String action, String data, int difficulty) {
+        this(action, data, difficulty, null);
+    }
+
+    /**
+     * Constructs an {@code addTransactions} request mining every payload at the same difficulty.
+     *
+     * @param transactions Transaction payloads, each stored in its own block
+     * @param difficulty   Difficulty level of every block
+     * @return The batch request
+     */
+    public static RequestMessage batch(List<String> transactions, int difficulty) {
+        return new RequestMessage("addTransactions", null, difficulty, null, List.copyOf(transactions));
+    }
+
+    /**
+     * Returns a copy of this request carrying the given request id.
+     *
+     * @param requestId Correlation id echoed in the response
+     * @return A copy of this request with the request id set
+     */
+    public RequestMessage withRequestId(long requestId) {
+        return new RequestMessage(action, data, difficulty, requestId, transactions, chain, idempotencyKey);
+    }
+
+    /**
+     * Returns a copy of this request applying to the given chain.
+     *
+     * @param chain Name of the chain, or null for the default chain
+     * @return A copy of this request with the chain set
+     */
+    public RequestMessage withChain(String chain) {
+        return new RequestMessage(action, data, difficulty, requestId, transactions, chain, idempotencyKey);
+    }
+
+    /**
+     * Returns a copy of this request carrying the given idempotency key.
+     *
+     * @param idempotencyKey Key identifying the write across retries, or null
+     * @return A copy of this request with the idempotency key set
+     */
+    public RequestMessage withIdempotencyKey(String idempotencyKey) {
+        return new RequestMessage(action, data, difficulty, requestId, transactions, chain, idempotencyKey);
     }
 
     // Getters and Setters
@@ -56,4 +167,44 @@ public record RequestMessage(String action, String data, int difficulty) {
     public int difficulty() {
         return difficulty;
     }
+
+    /**
+     * Gets the correlation id of the request.
+     *
+     * @return Correlation id of the request, or null if the request is not pipelined
+     */
+    @Override
+    public Long requestId() {
+        return requestId;
+    }
+
+    /**
+     * Gets the transaction payloads of a batch request.
+     *
+     * @return Transaction payloads, or null if the request is not a batch
+     */
+    @Override
+    public List<String> transactions() {
+        return transactions;
+    }
+
+    /**
+     * Gets the name of the chain the request applies to.
+     *
+     * @return Name of the chain, or null for the default chain
+     */
+    @Override
+    public String chain() {
+        return chain;
+    }
+
+    /**
+     * Gets the key identifying the write across retries.
+     *
+     * @return Idempotency key, or null if retries are mined again
+     */
+    @Override
+    public String idempotencyKey() {
+        return idempotencyKey;
+    }
 }
@@ -3,6 +3,12 @@
 
 package com.cmu.blockchain.message;
 
+import com.cmu.blockchain.metrics.MiningSample;
+import com.cmu.blockchain.model.Block;
+import com.cmu.blockchain.model.InclusionProof;
+
+import java.util.List;
+
 /**
  * ResponseMessage class represents a response message to be sent back to the client.
  * It encapsulates information such as success status, message, action, and blockchain data.
@@ -24,6 +30,34 @@ public class ResponseMessage {
     private String latestBlockNonce;    // Nonce of the latest block
     private String chainHash;           // Hash of the entire blockchain
 
+    private Long requestId;             // Correlation id copied from the request, if it carried one
+    private Long retryAfterMillis;      // Suggested delay before retrying a request rejected as busy
+
+    // Fields of the chain updates streamed to followers
+    private Integer startIndex;         // Index of the first block in blocks
+    private List<Block> blocks;         // Blocks replacing the chain from startIndex on
+    private Long serverTimeMillis;      // Wall-clock time at which the server sent the update
+
+    private List<TransactionResult> results; // Per-transaction outcome of an addTransactions batch, in request order
+
+    private InclusionProof inclusionProof; // Proof that a block is committed to by the chain's Merkle root
+
+    private List<Integer> matches;      // Indexes of the blocks matching a searchTransactions query, ascending
+
+    private String cursor;              // Where the next page of a getBlocksBetween query starts, null on the last page
+
+    private String event;               // What changed the chain, in an event pushed to a subscriber
+
+    private Long dropped;               // Events a slow subscriber missed before this one, if any
+
+    private Boolean replayed;           // True if this is the stored result of an earlier request with the same idempotency key
+
+    private List<MiningSample> miningSamples; // What mining the most recent blocks cost, oldest first
+
+    private Long rollingHashesPerSecond; // Hash rate achieved over the blocks mined during the last minute
+
+    private String merkleRoot;          // Merkle root over the block hashes, against which inclusion proofs are checked
+
     // Constructors
 
     /**
@@ -240,4 +274,274 @@ public class ResponseMessage {
     public void setChainHash(String chainHash) {
         this.chainHash = chainHash;
     }
+
+    /**
+     * Gets the correlation id copied from the request.
+     *
+     * @return Correlation id of the request, or null if the request carried none
+     */
+    public Long getRequestId() {
+        return requestId;
+    }
+
+    /**
+     * Sets the correlation id copied from the request.
+     *
+     * @param requestId Correlation id of the request
+     */
+    public void setRequestId(Long requestId) {
+        this.requestId = requestId;
+    }
+
+    /**
+     * Gets the suggested delay before retrying a request the server rejected because it was busy.
+     *
+     * @return Retry delay in milliseconds, or null if the request was not rejected as busy
+     */
+    public Long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+
+    /**
+     * Sets the suggested delay before retrying a request the server rejected because it was busy.
+     *
+     * @param retryAfterMillis Retry delay in milliseconds
+     */
+    public void setRetryAfterMillis(Long retryAfterMillis) {
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * Gets the index of the first block carried by a chain update.
+     *
+     * @return Index of the first block, or null if the response carries no blocks
+     */
+    public Integer getStartIndex() {
+        return startIndex;
+    }
+
+    /**
+     * Sets the index of the first block carried by a chain update.
+     *
+     * @param startIndex Index of the first block
+     */
+    public void setStartIndex(Integer startIndex) {
+        this.startIndex = startIndex;
+    }
+
+    /**
+     * Gets the blocks carried by a chain update.
+     *
+     * @return Blocks replacing the chain from the start index on, or null if the response carries no blocks
+     */
+    public List<Block> getBlocks() {
+        return blocks;
+    }
+
+    /**
+     * Sets the blocks carried by a chain update.
+     *
+     * @param blocks Blocks replacing the chain from the start index on
+     */
+    public void setBlocks(List<Block> blocks) {
+        this.blocks = blocks;
+    }
+
+    /**
+     * Gets the wall-clock time at which the server sent the response.
+     *
+     * @return Time in milliseconds since the epoch, or null if not recorded
+     */
+    public Long getServerTimeMillis() {
+        return serverTimeMillis;
+    }
+
+    /**
+     * Sets the wall-clock time at which the server sent the response.
+     *
+     * @param serverTimeMillis Time in milliseconds since the epoch
+     */
+    public void setServerTimeMillis(Long serverTimeMillis) {
+        this.serverTimeMillis = serverTimeMillis;
+    }
+
+    /**
+     * Gets the per-transaction outcome of a batch.
+     *
+     * @return Outcome of each transaction, in request order, or null if the response is not for a batch
+     */
+    public List<TransactionResult> getResults() {
+        return results;
+    }
+
+    /**
+     * Sets the per-transaction outcome of a batch.
+     *
+     * @param results Outcome of each transaction, in request order
+     */
+    public void setResults(List<TransactionResult> results) {
+        this.results = results;
+    }
+
+    /**
+     * Gets the proof that a block is part of the chain.
+     *
+     * @return The inclusion proof, or null if the response is not for a getInclusionProof request
+     */
+    public InclusionProof getInclusionProof() {
+        return inclusionProof;
+    }
+
+    /**
+     * Sets the proof that a block is part of the chain.
+     *
+     * @param inclusionProof The inclusion proof
+     */
+    public void setInclusionProof(InclusionProof inclusionProof) {
+        this.inclusionProof = inclusionProof;
+    }
+
+    /**
+     * Gets the blocks matching a search.
+     *
+     * @return Indexes of the matching blocks, ascending, or null if the response is not for a search
+     */
+    public List<Integer> getMatches() {
+        return matches;
+    }
+
+    /**
+     * Sets the blocks matching a search.
+     *
+     * @param matches Indexes of the matching blocks, ascending
+     */
+    public void setMatches(List<Integer> matches) {
+        this.matches = matches;
+    }
+
+    /**
+     * Gets where the next page of a paged query starts.
+     *
+     * @return The cursor to send with the next request, or null if this is the last page
+     */
+    public String getCursor() {
+        return cursor;
+    }
+
+    /**
+     * Sets where the next page of a paged query starts.
+     *
+     * @param cursor The cursor to send with the next request, or null if this is the last page
+     */
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    /**
+     * Gets what changed the chain in a pushed event.
+     *
+     * @return The event name, or null if the response is not an event
+     */
+    public String getEvent() {
+        return event;
+    }
+
+    /**
+     * Sets what changed the chain in a pushed event.
+     *
+     * @param event The event name
+     */
+    public void setEvent(String event) {
+        this.event = event;
+    }
+
+    /**
+     * Gets the number of events a subscriber missed before this one.
+     *
+     * @return The number of dropped events, or null if none were dropped
+     */
+    public Long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * Sets the number of events a subscriber missed before this one.
+     *
+     * @param dropped The number of dropped events
+     */
+    public void setDropped(Long dropped) {
+        this.dropped = dropped;
+    }
+
+    /**
+     * Gets whether this response repeats the result of an earlier request with the same idempotency key.
+     *
+     * @return True for a replayed result, or null if the request was processed
+     */
+    public Boolean getReplayed() {
+        return replayed;
+    }
+
+    /**
+     * Sets whether this response repeats the result of an earlier request with the same idempotency key.
+     *
+     * @param replayed True for a replayed result, or null
+     */
+    public void setReplayed(Boolean replayed) {
+        this.replayed = replayed;
+    }
+
+    /**
+     * Gets what mining the most recent blocks cost.
+     *
+     * @return The mining samples, oldest first
+     */
+    public List<MiningSample> getMiningSamples() {
+        return miningSamples;
+    }
+
+    /**
+     * Sets what mining the most recent blocks cost.
+     *
+     * @param miningSamples The mining samples, oldest first
+     */
+    public void setMiningSamples(List<MiningSample> miningSamples) {
+        this.miningSamples = miningSamples;
+    }
+
+    /**
+     * Gets the hash rate achieved over the blocks mined during the last minute.
+     *
+     * @return The rolling hashes per second
+     */
+    public Long getRollingHashesPerSecond() {
+        return rollingHashesPerSecond;
+    }
+
+    /**
+     * Sets the hash rate achieved over the blocks mined during the last minute.
+     *
+     * @param rollingHashesPerSecond The rolling hashes per second
+     */
+    public void setRollingHashesPerSecond(Long rollingHashesPerSecond) {
+        this.rollingHashesPerSecond = rollingHashesPerSecond;
+    }
+
+    /**
+     * Gets the Merkle root over the block hashes of the chain.
+     *
+     * @return The hexadecimal Merkle root, or null if the response does not describe the chain
+     */
+    public String getMerkleRoot() {
+        return merkleRoot;
+    }
+
+    /**
+     * Sets the Merkle root over the block hashes of the chain.
+     *
+     * @param merkleRoot The hexadecimal Merkle root
+     */
+    public void setMerkleRoot(String merkleRoot) {
+        this.merkleRoot = merkleRoot;
+    }
 }
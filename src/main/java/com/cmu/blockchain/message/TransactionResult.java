@@ -0,0 +1,34 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.message;
+
+/**
+ * TransactionResult is the outcome of one transaction of an {@code addTransactions} batch.
+ * Exactly one of the fields is set.
+ *
+ * @param blockIndex The index of the block the transaction was mined into, or null if it was rejected.
+ * @param error      Why the transaction was rejected, or null if it was added.
+ */
+public record TransactionResult(Integer blockIndex, String error) {
+
+    /**
+     * Creates the result of a transaction that was mined.
+     *
+     * @param blockIndex The index of the block holding the transaction.
+     * @return The result.
+     */
+    public static TransactionResult added(int blockIndex) {
+        return new TransactionResult(blockIndex, null);
+    }
+
+    /**
+     * Creates the result of a transaction that was rejected.
+     *
+     * @param error Why the transaction was rejected.
+     * @return The result.
+     */
+    public static TransactionResult rejected(String error) {
+        return new TransactionResult(null, error);
+    }
+}
@@ -0,0 +1,47 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * ChainCheckEvent is the Java Flight Recorder event for one pass over a whole chain: a verification, which stops
+ * at the first invalid block, or a repair, which mines every block after the genesis block again.
+ */
+@Name("com.cmu.blockchain.ChainCheck")
+@Label("Chain Check")
+@Category({"Blockchain", "Chain"})
+@Description("A verification or repair of a whole chain")
+@StackTrace(false)
+public class ChainCheckEvent extends jdk.jfr.Event {
+
+    /**
+     * The operation of a verification.
+     */
+    public static final String VERIFY = "verify";
+
+    /**
+     * The operation of a repair.
+     */
+    public static final String REPAIR = "repair";
+
+    @Label("Operation")
+    @Description("verify or repair")
+    public String operation;
+
+    @Label("Chain Size")
+    public int chainSize;
+
+    @Label("Blocks")
+    @Description("Blocks verified, or blocks mined again by a repair")
+    public int blocks;
+
+    @Label("Valid")
+    @Description("Whether the chain is valid after the pass")
+    public boolean valid;
+}
@@ -0,0 +1,44 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * ChainSerializationEvent is the Java Flight Recorder event for one encoding of blocks as JSON: the whole chain
+ * returned by {@code viewBlockchain} and {@code viewBlockchainStatus}, or the blocks of a response, feed update
+ * or gossip announcement.
+ */
+@Name("com.cmu.blockchain.ChainSerialization")
+@Label("Chain Serialization")
+@Category({"Blockchain", "Chain"})
+@Description("Blocks encoded as JSON")
+@StackTrace(false)
+public class ChainSerializationEvent extends jdk.jfr.Event {
+
+    /**
+     * The view of the whole chain returned by {@code viewBlockchain}.
+     */
+    public static final String CHAIN = "chain";
+
+    /**
+     * The blocks carried by a message.
+     */
+    public static final String BLOCKS = "blocks";
+
+    @Label("View")
+    @Description("chain or blocks")
+    public String view;
+
+    @Label("Blocks")
+    public int blocks;
+
+    @Label("Length")
+    @Description("Characters of JSON written")
+    public int length;
+}
@@ -0,0 +1,21 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.metrics;
+
+/**
+ * MiningSample records what mining one block cost.
+ * A block of difficulty {@code d} takes {@code 16^d} attempts on average, so comparing the attempts with that, and
+ * the achieved hash rate with the rate measured at startup, shows unlucky blocks and throttled hosts.
+ *
+ * @param blockIndex      The index of the mined block.
+ * @param difficulty      The difficulty the block was mined at.
+ * @param finishedMillis  When mining finished, in milliseconds since the epoch.
+ * @param elapsedNanos    The wall time spent mining.
+ * @param attempts        The nonces tried up to the winning one.
+ * @param threads         The threads or pool workers searching.
+ * @param hashesPerSecond The achieved hash rate: attempts per second of wall time.
+ */
+public record MiningSample(int blockIndex, int difficulty, long finishedMillis, long elapsedNanos, long attempts,
+                           int threads, long hashesPerSecond) {
+}
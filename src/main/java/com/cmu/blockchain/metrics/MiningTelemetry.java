@@ -0,0 +1,129 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * MiningTelemetry keeps a {@link MiningSample} for each of the most recently mined blocks of a chain in a ring
+ * buffer, and derives a rolling hash rate from the blocks mined during the last {@link #RATE_WINDOW_MILLIS}.
+ * Recording costs a few field writes per block, which is nothing next to the proof-of-work it describes.
+ */
+public class MiningTelemetry {
+
+    /**
+     * Default number of recent blocks kept.
+     */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    /**
+     * Period over which the rolling hash rate is computed.
+     */
+    public static final long RATE_WINDOW_MILLIS = 60_000;
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    private final ReentrantLock lock = new ReentrantLock(); // Guards the fields below.
+    private final MiningSample[] samples; // Ring buffer of the latest samples.
+    private long recorded; // Blocks recorded since startup; the next slot is this modulo the capacity.
+
+    /**
+     * Constructs a MiningTelemetry.
+     *
+     * @param capacity The number of recent blocks kept.
+     */
+    public MiningTelemetry(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Telemetry needs room for at least one block.");
+        }
+        this.samples = new MiningSample[capacity];
+    }
+
+    /**
+     * Records the mining of a block.
+     *
+     * @param blockIndex   The index of the mined block.
+     * @param difficulty   The difficulty the block was mined at.
+     * @param elapsedNanos The wall time spent mining.
+     * @param attempts     The nonces tried up to the winning one.
+     * @param threads      The threads or pool workers searching.
+     * @return The recorded sample.
+     */
+    public MiningSample record(int blockIndex, int difficulty, long elapsedNanos, long attempts, int threads) {
+        long hashesPerSecond = (long) (attempts * NANOS_PER_SECOND / Math.max(1, elapsedNanos));
+        MiningSample sample = new MiningSample(blockIndex, difficulty, System.currentTimeMillis(), elapsedNanos,
+                attempts, threads, hashesPerSecond);
+        lock.lock();
+        try {
+            samples[(int) (recorded++ % samples.length)] = sample;
+        } finally {
+            lock.unlock();
+        }
+        return sample;
+    }
+
+    /**
+     * Gets the samples of the most recently mined blocks.
+     *
+     * @param max The maximum number of samples returned.
+     * @return The samples, oldest first.
+     */
+    public List<MiningSample> getRecentSamples(int max) {
+        lock.lock();
+        try {
+            long total = recorded;
+            int count = (int) Math.max(0, Math.min(Math.min(max, samples.length), total));
+            List<MiningSample> recent = new ArrayList<>(count);
+            for (long i = total - count; i < total; i++) {
+                recent.add(samples[(int) (i % samples.length)]);
+            }
+            return recent;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the hash rate achieved over the blocks mined during the last minute: their attempts divided by the
+     * time spent mining them, so idle time between blocks does not lower it.
+     *
+     * @return The rolling hashes per second, or 0 if no block was mined during the last minute.
+     */
+    public long getRollingHashesPerSecond() {
+        long since = System.currentTimeMillis() - RATE_WINDOW_MILLIS;
+        long attempts = 0;
+        long elapsedNanos = 0;
+        lock.lock();
+        try {
+            long total = recorded;
+            for (long i = total - 1; i >= Math.max(0, total - samples.length); i--) {
+                MiningSample sample = samples[(int) (i % samples.length)];
+                if (sample.finishedMillis() < since) {
+                    break;
+                }
+                attempts += sample.attempts();
+                elapsedNanos += sample.elapsedNanos();
+            }
+        } finally {
+            lock.unlock();
+        }
+        return (long) (attempts * NANOS_PER_SECOND / Math.max(1, elapsedNanos));
+    }
+
+    /**
+     * Gets the number of blocks recorded since startup, including those no longer kept.
+     *
+     * @return The number of mined blocks.
+     */
+    public long getRecorded() {
+        lock.lock();
+        try {
+            return recorded;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * ProofOfWorkEvent is the Java Flight Recorder event for one nonce search run on the calling thread, whether by
+ * the server, by a client mining a template or by a mining pool worker.
+ */
+@Name("com.cmu.blockchain.ProofOfWork")
+@Label("Proof of Work")
+@Category({"Blockchain", "Mining"})
+@Description("A nonce search for one block")
+@StackTrace(false)
+public class ProofOfWorkEvent extends jdk.jfr.Event {
+
+    @Label("Block Index")
+    public int blockIndex;
+
+    @Label("Difficulty")
+    public int difficulty;
+
+    @Label("Attempts")
+    @Description("Nonces tried up to the winning one")
+    public long attempts;
+
+    @Label("Data Length")
+    @Description("Characters of block data")
+    public int dataLength;
+}
@@ -0,0 +1,46 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * RequestEvent is the Java Flight Recorder event for one request handled by the server, from the parsed request
+ * to the encoded response. Like every event in this package it costs next to nothing unless a recording is
+ * running, so it is emitted for every request; start a recording with {@code -XX:StartFlightRecording} or
+ * {@code jcmd <pid> JFR.start} to see them.
+ */
+@Name("com.cmu.blockchain.Request")
+@Label("Blockchain Request")
+@Category({"Blockchain", "Requests"})
+@Description("A request handled by the blockchain server")
+@StackTrace(false)
+public class RequestEvent extends jdk.jfr.Event {
+
+    @Label("Action")
+    public String action;
+
+    @Label("Chain")
+    @Description("The named chain, or null for the default chain")
+    public String chain;
+
+    @Label("Success")
+    public boolean success;
+
+    @Label("Replayed")
+    @Description("Answered with the stored result of an earlier request with the same idempotency key")
+    public boolean replayed;
+
+    @Label("Response Length")
+    @Description("Characters in the JSON-formatted response")
+    public int responseLength;
+
+    @Label("Chain Size")
+    @Description("Blocks on the chain after the request")
+    public int chainSize;
+}
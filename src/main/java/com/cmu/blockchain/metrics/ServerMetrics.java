@@ -0,0 +1,228 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.metrics;
+
+import com.cmu.blockchain.util.LoggerUtil;
+import com.google.gson.Gson;
+import org.slf4j.Logger;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * ServerMetrics collects request instrumentation for the blockchain server: per-action latency histograms
+ * with a decode/process/encode breakdown, requests in flight, bytes in and out, errors and rejections.
+ * Recording only touches atomic counters of objects created up front, so it does not allocate once an
+ * action has been seen. Components can also register gauges, such as the replication lag of a follower,
+ * which are sampled when the metrics are rendered. The collected values are rendered as JSON for the {@code getMetrics} action and
+ * for the optional periodic dump to the log.
+ */
+public class ServerMetrics {
+
+    private static final Logger LOGGER = LoggerUtil.getLogger(ServerMetrics.class);
+    private static final Gson gson = new Gson();
+
+    private static final String OTHER_ACTION = "other"; // Bucket for unnamed or unexpected actions.
+    private static final int MAX_ACTIONS = 64; // Clients choose action names, so the number tracked is bounded.
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final ConcurrentHashMap<String, ActionMetrics> actions = new ConcurrentHashMap<>();
+    private final AtomicLong inFlight = new AtomicLong();
+    private final AtomicLong bytesIn = new AtomicLong();
+    private final AtomicLong bytesOut = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final ConcurrentHashMap<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+    /**
+     * Histograms and counters for one action.
+     */
+    public static final class ActionMetrics {
+        private final LatencyHistogram total = new LatencyHistogram();
+        private final LatencyHistogram decode = new LatencyHistogram();
+        private final LatencyHistogram process = new LatencyHistogram();
+        private final LatencyHistogram encode = new LatencyHistogram();
+        private final AtomicLong errors = new AtomicLong();
+
+        /**
+         * Records the time spent parsing a request.
+         *
+         * @param nanos The decode time in nanoseconds.
+         */
+        public void recordDecode(long nanos) {
+            decode.record(nanos);
+        }
+
+        /**
+         * Records the time spent executing a request.
+         *
+         * @param nanos The process time in nanoseconds.
+         */
+        public void recordProcess(long nanos) {
+            process.record(nanos);
+        }
+
+        /**
+         * Records the time spent serializing a response.
+         *
+         * @param nanos The encode time in nanoseconds.
+         */
+        public void recordEncode(long nanos) {
+            encode.record(nanos);
+        }
+
+        /**
+         * Records the end-to-end time from receiving a request to having its response ready,
+         * including any time spent waiting in a work queue.
+         *
+         * @param nanos The total time in nanoseconds.
+         */
+        public void recordTotal(long nanos) {
+            total.record(nanos);
+        }
+    }
+
+    /**
+     * Gets the metrics of an action, creating them the first time the action is seen.
+     *
+     * @param action The action name, possibly null.
+     * @return The metrics for the action.
+     */
+    public ActionMetrics forAction(String action) {
+        String key = action == null ? OTHER_ACTION : action;
+        ActionMetrics metrics = actions.get(key);
+        if (metrics != null) {
+            return metrics;
+        }
+        if (actions.size() >= MAX_ACTIONS) {
+            key = OTHER_ACTION;
+        }
+        return actions.computeIfAbsent(key, k -> new ActionMetrics());
+    }
+
+    /**
+     * Marks the start of a request and counts its size.
+     *
+     * @param requestBytes The size of the request line.
+     */
+    public void requestStarted(long requestBytes) {
+        inFlight.incrementAndGet();
+        bytesIn.addAndGet(requestBytes);
+    }
+
+    /**
+     * Marks the end of a request and counts the size of its response.
+     *
+     * @param responseBytes The size of the response line.
+     */
+    public void requestFinished(long responseBytes) {
+        inFlight.decrementAndGet();
+        bytesOut.addAndGet(responseBytes);
+    }
+
+    /**
+     * Counts a request that failed with an error.
+     *
+     * @param action The action of the failed request, possibly null.
+     */
+    public void recordError(String action) {
+        errors.incrementAndGet();
+        forAction(action).errors.incrementAndGet();
+    }
+
+    /**
+     * Counts a request rejected because its work queue was full.
+     */
+    public void recordRejected() {
+        rejected.incrementAndGet();
+    }
+
+    /**
+     * Registers a gauge, replacing any gauge of the same name.
+     *
+     * @param name  The name the gauge is reported under.
+     * @param gauge Supplies the current value; called whenever the metrics are rendered.
+     */
+    public void registerGauge(String name, LongSupplier gauge) {
+        gauges.put(name, gauge);
+    }
+
+    /**
+     * Gets the number of requests currently being processed.
+     *
+     * @return The number of requests in flight.
+     */
+    public long getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Renders all metrics as JSON. Latencies are reported in milliseconds.
+     *
+     * @return A JSON object with the server-wide counters and the per-action latencies.
+     */
+    public String toJson() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("inFlight", inFlight.get());
+        report.put("bytesIn", bytesIn.get());
+        report.put("bytesOut", bytesOut.get());
+        report.put("errors", errors.get());
+        report.put("rejected", rejected.get());
+        Map<String, Object> perAction = new TreeMap<>();
+        actions.forEach((action, metrics) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("count", metrics.total.getCount());
+            entry.put("errors", metrics.errors.get());
+            entry.put("total", summarize(metrics.total));
+            entry.put("decode", summarize(metrics.decode));
+            entry.put("process", summarize(metrics.process));
+            entry.put("encode", summarize(metrics.encode));
+            perAction.put(action, entry);
+        });
+        report.put("actions", perAction);
+        if (!gauges.isEmpty()) {
+            Map<String, Object> gaugeValues = new TreeMap<>();
+            gauges.forEach((name, gauge) -> gaugeValues.put(name, gauge.getAsLong()));
+            report.put("gauges", gaugeValues);
+        }
+        return gson.toJson(report);
+    }
+
+    /**
+     * Logs the metrics at a fixed interval on a daemon thread.
+     *
+     * @param intervalSeconds The time between two dumps.
+     * @return The executor running the dump, which the caller may shut down.
+     */
+    public ScheduledExecutorService startPeriodicDump(long intervalSeconds) {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("metrics-dump").daemon().factory());
+        executor.scheduleAtFixedRate(() -> LOGGER.info("Server metrics: " + toJson()),
+                intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        return executor;
+    }
+
+    /**
+     * Summarizes a histogram of nanosecond values in milliseconds.
+     *
+     * @param histogram The histogram to summarize.
+     * @return The percentiles, mean and maximum.
+     */
+    private static Map<String, Object> summarize(LatencyHistogram histogram) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("p50", histogram.getValueAtPercentile(50) / NANOS_PER_MILLI);
+        summary.put("p99", histogram.getValueAtPercentile(99) / NANOS_PER_MILLI);
+        summary.put("p999", histogram.getValueAtPercentile(99.9) / NANOS_PER_MILLI);
+        summary.put("max", histogram.getMax() / NANOS_PER_MILLI);
+        summary.put("mean", histogram.getMean() / NANOS_PER_MILLI);
+        return summary;
+    }
+}
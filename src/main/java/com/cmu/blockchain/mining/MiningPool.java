@@ -0,0 +1,392 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.mining;
+
+import com.cmu.blockchain.core.Miner;
+import com.cmu.blockchain.message.MessageCodec;
+import com.cmu.blockchain.model.Block;
+import com.cmu.blockchain.util.LoggerUtil;
+import org.slf4j.Logger;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.util.ArrayDeque;
+import java.util.Base64;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * MiningPool spreads the proof-of-work of each block over remote {@link MiningWorker} processes.
+ * Workers connect to the pool's port and are handed {@link WorkUnit}s: the block's hash prefix and suffix plus a
+ * range of nonces. A worker answers with the winning nonce or reports the range as exhausted, and then gets the
+ * next range. The pool checks every claimed nonce before accepting it and tells all other workers to stop.
+ * The thread mining the block searches ranges of the same job as well, so mining keeps going with no workers
+ * connected, and the ranges of a worker that disconnects are handed out again.
+ * Messages are JSON lines: {@link PoolMessage}s to the workers and {@link WorkResult}s back.
+ */
+public class MiningPool implements Miner, Closeable {
+
+    private static final Logger LOGGER = LoggerUtil.getLogger(MiningPool.class);
+
+    /**
+     * Default number of nonces per work unit.
+     */
+    public static final long DEFAULT_CHUNK_SIZE = 1 << 18;
+
+    private final ServerSocket serverSocket;
+    private final long chunkSize;
+    private final Set<WorkerConnection> workers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService connectionExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicLong nextJobId = new AtomicLong();
+    private final AtomicLong hashes = new AtomicLong(); // Hashes computed by the pool and its workers.
+    private volatile Job currentJob; // The block being mined, or null between blocks.
+    private volatile boolean running;
+
+    /**
+     * Constructs a MiningPool listening for workers. Call {@link #start()} to accept them.
+     *
+     * @param address   The address workers connect to.
+     * @param chunkSize The number of nonces per work unit.
+     * @throws IOException If the listening socket cannot be opened.
+     */
+    public MiningPool(SocketAddress address, long chunkSize) throws IOException {
+        this.serverSocket = new ServerSocket();
+        this.serverSocket.bind(address);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Creates a pool listening on all interfaces.
+     *
+     * @param port The port workers connect to.
+     * @return The pool, not yet started.
+     * @throws IOException If the listening socket cannot be opened.
+     */
+    public static MiningPool onPort(int port) throws IOException {
+        return new MiningPool(new InetSocketAddress(port), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Starts accepting workers.
+     */
+    public void start() {
+        running = true;
+        Thread.ofPlatform().name("mining-pool-acceptor").daemon().start(this::acceptWorkers);
+    }
+
+    /**
+     * Gets the port workers connect to, which is useful when bound to port 0.
+     *
+     * @return The local port of the listening socket.
+     */
+    public int getLocalPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Gets the number of connected workers.
+     *
+     * @return The number of workers.
+     */
+    public int getWorkerCount() {
+        return workers.size();
+    }
+
+    /**
+     * Gets the number of threads searching for nonces: the connected workers and the mining thread itself.
+     *
+     * @return The number of searching threads.
+     */
+    @Override
+    public int getThreads() {
+        return workers.size() + 1;
+    }
+
+    /**
+     * Gets the number of hashes computed for the pool so far, by its workers and by the mining thread.
+     *
+     * @return The number of hashes.
+     */
+    public long getHashes() {
+        return hashes.get();
+    }
+
+    /**
+     * Mines a block with the help of the connected workers.
+     *
+     * @param block The block to mine.
+     * @return A copy of the block holding the winning nonce.
+     */
+    @Override
+    public Block mine(Block block) {
+        Job job = new Job(nextJobId.incrementAndGet(), block, chunkSize);
+        currentJob = job;
+        for (WorkerConnection worker : workers) {
+            worker.assign(job);
+        }
+        // Take part in the search, which also guarantees progress when no worker is connected
+        while (!job.isDone()) {
+            long[] range = job.nextRange();
+            long nonce = NonceSearch.search(job.prefix, job.suffix, job.hashVersion, job.difficulty, range[0], range[1], job::isDone);
+            if (nonce != NonceSearch.NOT_FOUND) {
+                hashes.addAndGet(nonce - range[0] + 1);
+                job.complete(nonce);
+            } else if (!job.isDone()) {
+                hashes.addAndGet(range[1] - range[0]);
+            }
+        }
+        currentJob = null;
+        for (WorkerConnection worker : workers) {
+            worker.cancel(job);
+        }
+        return block.withNonce(BigInteger.valueOf(job.getNonce()));
+    }
+
+    /**
+     * Stops accepting workers and disconnects the connected ones.
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            LOGGER.error("Error closing mining pool: " + e.getMessage());
+        }
+        for (WorkerConnection worker : workers) {
+            worker.close();
+        }
+        connectionExecutor.shutdownNow();
+    }
+
+    /**
+     * Accepts workers until the pool is closed.
+     */
+    private void acceptWorkers() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                WorkerConnection worker = new WorkerConnection(socket);
+                connectionExecutor.execute(worker::serve);
+            } catch (IOException e) {
+                if (running) {
+                    LOGGER.error("Error accepting mining worker: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * The proof-of-work of one block, shared out in ranges of nonces.
+     */
+    private static final class Job {
+        private final long id;
+        private final byte[] prefix;
+        private final byte[] suffix;
+        private final int hashVersion;
+        private final int difficulty;
+        private final long chunkSize;
+        private final ArrayDeque<long[]> returnedRanges = new ArrayDeque<>(); // Ranges of departed workers.
+        private long nextNonce; // Start of the next range never handed out, guarded by this.
+        private volatile boolean done;
+        private long nonce = NonceSearch.NOT_FOUND; // Guarded by this.
+
+        Job(long id, Block block, long chunkSize) {
+            this.id = id;
+            this.prefix = block.getHashPrefix();
+            this.suffix = block.getHashSuffix();
+            this.hashVersion = block.getHashVersion();
+            this.difficulty = block.getDifficulty();
+            this.chunkSize = chunkSize;
+            this.nextNonce = block.getNonce().longValueExact();
+        }
+
+        /**
+         * Hands out the next range of nonces to try, preferring ranges given back by departed workers.
+         *
+         * @return The range as {@code {start, end}}.
+         */
+        synchronized long[] nextRange() {
+            long[] range = returnedRanges.poll();
+            if (range != null) {
+                return range;
+            }
+            long start = nextNonce;
+            nextNonce = Math.min(Long.MAX_VALUE, start + chunkSize);
+            return new long[]{start, nextNonce};
+        }
+
+        /**
+         * Takes back a range that was handed out but not searched.
+         *
+         * @param range The range as {@code {start, end}}.
+         */
+        synchronized void giveBack(long[] range) {
+            returnedRanges.add(range);
+        }
+
+        /**
+         * Records the winning nonce, unless another one was recorded first.
+         *
+         * @param winningNonce The nonce solving the block.
+         * @return True if this nonce completed the job, otherwise false.
+         */
+        synchronized boolean complete(long winningNonce) {
+            if (done) {
+                return false;
+            }
+            nonce = winningNonce;
+            done = true;
+            return true;
+        }
+
+        boolean isDone() {
+            return done;
+        }
+
+        synchronized long getNonce() {
+            return nonce;
+        }
+
+        /**
+         * Builds the work unit for a range of this job.
+         *
+         * @param range The range as {@code {start, end}}.
+         * @return The work unit.
+         */
+        WorkUnit workUnit(long[] range) {
+            return new WorkUnit(id, Base64.getEncoder().encodeToString(prefix), Base64.getEncoder().encodeToString(suffix),
+                    hashVersion, difficulty, range[0], range[1]);
+        }
+    }
+
+    /**
+     * The connection to one worker, which holds at most one range at a time.
+     */
+    private final class WorkerConnection {
+        private final Socket socket;
+        private final String name;
+        private PrintWriter out;
+        private Job assignedJob; // Job of the assigned range, guarded by this.
+        private long[] assignedRange; // Range the worker is searching, guarded by this.
+
+        WorkerConnection(Socket socket) {
+            this.socket = socket;
+            this.name = String.valueOf(socket.getRemoteSocketAddress());
+        }
+
+        /**
+         * Registers the worker, gives it work if a block is being mined and processes its results.
+         */
+        void serve() {
+            try (socket;
+                 BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+                out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(socket.getOutputStream())), true);
+                workers.add(this);
+                LOGGER.info("Mining worker " + name + " joined, " + workers.size() + " connected.");
+                Job job = currentJob;
+                if (job != null) {
+                    assign(job);
+                }
+                String line;
+                while ((line = in.readLine()) != null) {
+                    handleResult(MessageCodec.parseWorkResult(line));
+                }
+            } catch (Exception e) {
+                if (running) {
+                    LOGGER.error("Mining worker " + name + " failed: " + e.getMessage());
+                }
+            } finally {
+                workers.remove(this);
+                synchronized (this) {
+                    if (assignedRange != null && !assignedJob.isDone()) {
+                        assignedJob.giveBack(assignedRange); // Someone else has to search it
+                    }
+                    assignedRange = null;
+                }
+                LOGGER.info("Mining worker " + name + " left, " + workers.size() + " connected.");
+            }
+        }
+
+        /**
+         * Hands the worker a range of a job, unless it is already searching one of that job.
+         *
+         * @param job The job to work on.
+         */
+        synchronized void assign(Job job) {
+            if (job.isDone() || (assignedJob == job && assignedRange != null)) {
+                return;
+            }
+            assignedJob = job;
+            assignedRange = job.nextRange();
+            out.println(MessageCodec.toJson(new PoolMessage(job.workUnit(assignedRange), null)));
+        }
+
+        /**
+         * Tells the worker to abandon a solved job.
+         *
+         * @param job The solved job.
+         */
+        synchronized void cancel(Job job) {
+            if (assignedJob == job && assignedRange != null) {
+                assignedRange = null;
+                out.println(MessageCodec.toJson(new PoolMessage(null, job.id)));
+            }
+        }
+
+        /**
+         * Checks a worker's result and gives it more work.
+         *
+         * @param result The result reported by the worker.
+         */
+        private void handleResult(WorkResult result) {
+            hashes.addAndGet(Math.max(0, result.hashes()));
+            Job job = currentJob;
+            long[] finishedRange = null;
+            synchronized (this) {
+                if (assignedJob != null && assignedJob.id == result.jobId()) {
+                    finishedRange = assignedRange;
+                    assignedRange = null;
+                }
+            }
+            if (job == null || job.id != result.jobId()) {
+                if (job != null) {
+                    assign(job); // A result for a job solved in the meantime
+                }
+                return;
+            }
+            if (result.nonce() != null) {
+                if (NonceSearch.isSolution(job.prefix, job.suffix, job.hashVersion, job.difficulty, result.nonce())) {
+                    if (job.complete(result.nonce())) {
+                        LOGGER.info("Mining worker " + name + " found nonce " + result.nonce() + " for job " + job.id);
+                    }
+                    return;
+                }
+                LOGGER.error("Mining worker " + name + " claimed an invalid nonce " + result.nonce() + " for job " + job.id);
+                if (finishedRange != null) {
+                    job.giveBack(finishedRange); // The range may still hold the solution
+                }
+            }
+            assign(job);
+        }
+
+        /**
+         * Disconnects the worker.
+         */
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                LOGGER.error("Error closing mining worker " + name + ": " + e.getMessage());
+            }
+        }
+    }
+}
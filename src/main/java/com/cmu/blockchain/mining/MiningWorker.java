@@ -0,0 +1,198 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.mining;
+
+import com.cmu.blockchain.message.MessageCodec;
+import com.cmu.blockchain.util.LoggerUtil;
+import org.slf4j.Logger;
+
+import java.io.*;
+import java.net.Socket;
+import java.util.Base64;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * MiningWorker is a process that lends its cores to a {@link MiningPool}.
+ * It connects to the pool, splits every {@link WorkUnit} it receives over its threads, and reports the winning
+ * nonce or that the range is exhausted. Work is abandoned as soon as the pool cancels the job.
+ */
+public class MiningWorker implements Closeable {
+
+    private static final Logger LOGGER = LoggerUtil.getLogger(MiningWorker.class);
+
+    private final String host;
+    private final int port;
+    private final int threads;
+    private final ExecutorService searchExecutor;
+    private Socket socket;
+    private PrintWriter out;
+    private volatile Task currentTask; // The unit being searched, or null.
+
+    /**
+     * Constructs a MiningWorker. Call {@link #start()} to connect to the pool.
+     *
+     * @param host    The host name of the mining pool.
+     * @param port    The port of the mining pool.
+     * @param threads The number of threads searching nonces.
+     */
+    public MiningWorker(String host, int port, int threads) {
+        this.host = host;
+        this.port = port;
+        this.threads = threads;
+        this.searchExecutor = Executors.newFixedThreadPool(threads, Thread.ofPlatform().name("mining-worker-", 0).daemon().factory());
+    }
+
+    /**
+     * Main method for starting a mining worker.
+     *
+     * @param args Command-line arguments: {@code [poolHost] [poolPort] [threads]}, by default
+     *             {@code localhost 7779} and one thread per core.
+     */
+    public static void main(String[] args) {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 7779;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        MiningWorker worker = new MiningWorker(host, port, threads);
+        try {
+            worker.start();
+            LOGGER.info("Mining for " + host + ":" + port + " with " + threads + " threads");
+        } catch (IOException e) {
+            LOGGER.error("Mining worker Exception: " + e.getMessage());
+            worker.close();
+        }
+    }
+
+    /**
+     * Connects to the pool and starts processing work on a background thread.
+     *
+     * @throws IOException If the pool cannot be reached.
+     */
+    public void start() throws IOException {
+        socket = new Socket(host, port);
+        out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(socket.getOutputStream())), true);
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+        Thread.ofPlatform().name("mining-worker-reader").start(() -> readMessages(in));
+    }
+
+    /**
+     * Stops searching and disconnects from the pool.
+     */
+    @Override
+    public void close() {
+        Task task = currentTask;
+        if (task != null) {
+            task.stop.set(true);
+        }
+        searchExecutor.shutdownNow();
+        try {
+            if (socket != null) {
+                socket.close();
+            }
+        } catch (IOException e) {
+            LOGGER.error("Error closing mining worker: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Processes messages from the pool until it disconnects.
+     *
+     * @param in BufferedReader receiving messages from the pool.
+     */
+    private void readMessages(BufferedReader in) {
+        try (in) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                PoolMessage message = MessageCodec.parsePoolMessage(line);
+                Task task = currentTask;
+                if (message.cancelJobId() != null && task != null && task.unit.jobId() == message.cancelJobId()) {
+                    task.stop.set(true);
+                }
+                if (message.work() != null) {
+                    if (task != null) {
+                        task.stop.set(true); // The pool only hands out new work once the previous unit is settled
+                    }
+                    startTask(message.work());
+                }
+            }
+            LOGGER.info("Mining pool closed the connection.");
+        } catch (IOException e) {
+            LOGGER.error("Lost connection to the mining pool: " + e.getMessage());
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Splits a work unit over the search threads.
+     *
+     * @param unit The work unit to search.
+     */
+    private void startTask(WorkUnit unit) {
+        Task task = new Task(unit, threads);
+        currentTask = task;
+        long size = unit.nonceEnd() - unit.nonceStart();
+        for (int i = 0; i < threads; i++) {
+            long start = unit.nonceStart() + size * i / threads;
+            long end = unit.nonceStart() + size * (i + 1) / threads;
+            searchExecutor.execute(() -> task.search(start, end));
+        }
+    }
+
+    /**
+     * Sends a result to the pool.
+     *
+     * @param result The result to send.
+     */
+    private void send(WorkResult result) {
+        synchronized (out) {
+            out.println(MessageCodec.toJson(result));
+        }
+    }
+
+    /**
+     * The search of one work unit by all threads.
+     */
+    private final class Task {
+        private final WorkUnit unit;
+        private final byte[] prefix; // Decoded once for all threads.
+        private final byte[] suffix;
+        private final AtomicBoolean stop = new AtomicBoolean(); // Set once solved or cancelled.
+        private final AtomicInteger remaining; // Threads still searching.
+        private final AtomicLong hashes = new AtomicLong();
+        private final AtomicLong winningNonce = new AtomicLong(NonceSearch.NOT_FOUND);
+
+        Task(WorkUnit unit, int threads) {
+            this.unit = unit;
+            this.prefix = Base64.getDecoder().decode(unit.prefix());
+            this.suffix = Base64.getDecoder().decode(unit.suffix());
+            this.remaining = new AtomicInteger(threads);
+        }
+
+        /**
+         * Searches one thread's share of the unit and reports the outcome once all threads are done.
+         *
+         * @param start The first nonce to try.
+         * @param end   The nonce after the last one to try.
+         */
+        void search(long start, long end) {
+            long nonce = NonceSearch.search(prefix, suffix, unit.hashVersion(), unit.difficulty(), start, end, stop::get);
+            if (nonce != NonceSearch.NOT_FOUND) {
+                hashes.addAndGet(nonce - start + 1);
+                if (winningNonce.compareAndSet(NonceSearch.NOT_FOUND, nonce)) {
+                    stop.set(true);
+                    send(new WorkResult(unit.jobId(), unit.nonceStart(), unit.nonceEnd(), nonce, hashes.get()));
+                }
+            } else if (!stop.get()) {
+                hashes.addAndGet(end - start);
+            }
+            if (remaining.decrementAndGet() == 0 && !stop.get()) {
+                send(new WorkResult(unit.jobId(), unit.nonceStart(), unit.nonceEnd(), null, hashes.get()));
+            }
+        }
+    }
+}
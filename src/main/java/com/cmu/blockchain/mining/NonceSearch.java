@@ -0,0 +1,151 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.mining;
+
+import com.cmu.blockchain.model.Block;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * NonceSearch scans a range of nonces for one whose block hash meets a difficulty, using the same hashed input as
+ * {@link Block#calculateHash()}. The digest state after the prefix is computed once and copied for every nonce,
+ * so long block data is not rehashed, and hashes are checked as bytes instead of being converted to hexadecimal
+ * strings. The nonce is hashed as decimal digits for {@link Block#LEGACY_HASH_VERSION} blocks and as eight
+ * big-endian bytes for blocks of the binary header layout.
+ */
+public final class NonceSearch {
+
+    /**
+     * Returned when no nonce in the range meets the difficulty, or the search was cancelled.
+     */
+    public static final long NOT_FOUND = -1;
+
+    private static final int CANCEL_CHECK_INTERVAL = 4096; // Nonces tried between two cancellation checks.
+
+    private NonceSearch() {
+    }
+
+    /**
+     * Searches a range of nonces.
+     *
+     * @param prefix      The bytes hashed before the nonce, from {@link Block#getHashPrefix()}.
+     * @param suffix      The bytes hashed after the nonce, from {@link Block#getHashSuffix()}.
+     * @param hashVersion The hash version of the block, which decides how the nonce is encoded.
+     * @param difficulty  The number of leading zero hex digits required.
+     * @param nonceStart  The first nonce to try, at least zero.
+     * @param nonceEnd    The nonce after the last one to try.
+     * @param cancelled   Polled periodically; the search stops once it returns true.
+     * @return The lowest winning nonce in the range, or {@link #NOT_FOUND}.
+     */
+    public static long search(byte[] prefix, byte[] suffix, int hashVersion, int difficulty, long nonceStart, long nonceEnd,
+                              BooleanSupplier cancelled) {
+        MessageDigest prefixDigest = newDigest();
+        prefixDigest.update(prefix);
+        boolean decimal = hashVersion == Block.LEGACY_HASH_VERSION;
+        byte[] digits = new byte[20];
+        byte[] hash = new byte[32];
+        try {
+            for (long nonce = nonceStart; nonce < nonceEnd; nonce++) {
+                if ((nonce - nonceStart) % CANCEL_CHECK_INTERVAL == 0 && cancelled.getAsBoolean()) {
+                    return NOT_FOUND;
+                }
+                MessageDigest digest = (MessageDigest) prefixDigest.clone();
+                int start = decimal ? writeDigits(nonce, digits) : writeBytes(nonce, digits);
+                digest.update(digits, start, digits.length - start);
+                digest.update(suffix);
+                digest.digest(hash, 0, hash.length);
+                if (meetsDifficulty(hash, difficulty)) {
+                    return nonce;
+                }
+            }
+        } catch (CloneNotSupportedException | DigestException e) {
+            throw new IllegalStateException("SHA-256 digest cannot be reused: " + e.getMessage(), e);
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Checks whether a nonce solves a work unit, as the pool does before accepting a worker's result.
+     *
+     * @param prefix      The bytes hashed before the nonce.
+     * @param suffix      The bytes hashed after the nonce.
+     * @param hashVersion The hash version of the block.
+     * @param difficulty  The number of leading zero hex digits required.
+     * @param nonce       The nonce to check.
+     * @return True if the hash meets the difficulty, otherwise false.
+     */
+    public static boolean isSolution(byte[] prefix, byte[] suffix, int hashVersion, int difficulty, long nonce) {
+        return nonce >= 0 && nonce < Long.MAX_VALUE
+                && search(prefix, suffix, hashVersion, difficulty, nonce, nonce + 1, () -> false) == nonce;
+    }
+
+    /**
+     * Checks that a hash starts with the required number of zero hex digits.
+     *
+     * @param hash       The SHA-256 hash.
+     * @param difficulty The number of leading zero hex digits required.
+     * @return True if the hash meets the difficulty, otherwise false.
+     */
+    static boolean meetsDifficulty(byte[] hash, int difficulty) {
+        if (difficulty > hash.length * 2) {
+            return false;
+        }
+        for (int i = 0; i < difficulty; i++) {
+            int b = hash[i / 2];
+            int nibble = i % 2 == 0 ? (b >> 4) & 0xf : b & 0xf;
+            if (nibble != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes the decimal digits of a non-negative number at the end of a buffer.
+     *
+     * @param value  The number to write.
+     * @param digits A buffer of 20 bytes.
+     * @return The index of the first digit.
+     */
+    private static int writeDigits(long value, byte[] digits) {
+        int position = digits.length;
+        do {
+            digits[--position] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        return position;
+    }
+
+    /**
+     * Writes a number as eight big-endian bytes at the end of a buffer.
+     *
+     * @param value  The number to write.
+     * @param buffer A buffer of at least 8 bytes.
+     * @return The index of the first byte.
+     */
+    private static int writeBytes(long value, byte[] buffer) {
+        int position = buffer.length - Long.BYTES;
+        for (int i = buffer.length - 1; i >= position; i--) {
+            buffer[i] = (byte) value;
+            value >>>= 8;
+        }
+        return position;
+    }
+
+    /**
+     * Creates a SHA-256 digest.
+     *
+     * @return The digest.
+     */
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
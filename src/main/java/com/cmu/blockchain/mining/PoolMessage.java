@@ -0,0 +1,14 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.mining;
+
+/**
+ * PoolMessage is one line sent by the mining pool to a worker: either new work or the cancellation of a job
+ * that another worker has already solved.
+ *
+ * @param work        The work to start, or null.
+ * @param cancelJobId The id of the job to abandon, or null.
+ */
+public record PoolMessage(WorkUnit work, Long cancelJobId) {
+}
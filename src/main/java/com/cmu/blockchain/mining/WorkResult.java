@@ -0,0 +1,16 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.mining;
+
+/**
+ * WorkResult is a mining worker's answer to a {@link WorkUnit}.
+ *
+ * @param jobId      The id of the job the unit belonged to.
+ * @param nonceStart The first nonce of the unit.
+ * @param nonceEnd   The nonce after the last one of the unit.
+ * @param nonce      The winning nonce, or null if the whole range was tried without success.
+ * @param hashes     The number of hashes computed for the unit.
+ */
+public record WorkResult(long jobId, long nonceStart, long nonceEnd, Long nonce, long hashes) {
+}
@@ -0,0 +1,20 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.mining;
+
+/**
+ * WorkUnit is the share of a block's proof-of-work handed to one mining worker.
+ * The hashed input is {@code prefix + nonce + suffix}, with the nonce encoded as the block's hash version requires
+ * (see {@link NonceSearch}), and a nonce wins when the hexadecimal hash starts with {@code difficulty} zeros.
+ *
+ * @param jobId       The id of the block being mined; results for older jobs are ignored.
+ * @param prefix      The Base64 of the bytes hashed before the nonce.
+ * @param suffix      The Base64 of the bytes hashed after the nonce.
+ * @param hashVersion The hash version of the block.
+ * @param difficulty  The number of leading zero hex digits required.
+ * @param nonceStart  The first nonce to try.
+ * @param nonceEnd    The nonce after the last one to try.
+ */
+public record WorkUnit(long jobId, String prefix, String suffix, int hashVersion, int difficulty, long nonceStart, long nonceEnd) {
+}
@@ -3,10 +3,14 @@
 
 package com.cmu.blockchain.model;
 
+import com.cmu.blockchain.metrics.ProofOfWorkEvent;
+import com.cmu.blockchain.mining.NonceSearch;
+
 import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
 import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.HexFormat;
 
 /**
  * Represents a block in the blockchain.
@@ -16,22 +20,46 @@ import java.sql.Timestamp;
  * The block's hash is calculated using the SHA-256 hashing algorithm.
  * The proof-of-work process involves finding a nonce that results in a hash with a specific number of leading zeroes.
  * The difficulty level determines the number of leading zeroes required in the hash.
- * The nonce is incremented until the hash satisfies the difficulty condition.
- * The block's hash is recalculated after the proof-of-work process.
- * The block is immutable once created, and its attributes can be accessed using getters.
+ * The block is immutable: mining, linking or altering a block produces a new instance, so its hash is computed
+ * once and cached.
+ * How the hash is computed depends on the block's hash version. New blocks use {@link #CURRENT_HASH_VERSION}, which
+ * hashes the fixed binary layout of a {@link BlockHeader}. Blocks of {@link #LEGACY_HASH_VERSION} hash the text
+ * {@code index + timestamp + data + previousHash + nonce + difficulty}, so chains mined before the binary layout
+ * stay verifiable.
  * The block can be represented as a JSON string for serialization and communication.
  * The block is part of a blockchain, which is a chain of blocks linked together.
  */
-public class Block {
+public final class Block {
+
+    /**
+     * The hash version of blocks hashed as text, which depends on the local time zone through the timestamp.
+     */
+    public static final int LEGACY_HASH_VERSION = 1;
+
+    /**
+     * The hash version of new blocks, which hashes the binary {@link BlockHeader}.
+     */
+    public static final int CURRENT_HASH_VERSION = BlockHeader.VERSION;
+
+    /**
+     * The previous hash of a genesis block of the current hash version.
+     */
+    public static final String GENESIS_PREVIOUS_HASH = "0".repeat(BlockHeader.HASH_LENGTH * 2);
+
+    private static final HexFormat HEX = HexFormat.of();
+
     private final int index; // Position of the block within the blockchain.
-    private final Timestamp timestamp; // Time the block was created.
-    private String data; // Data (transaction details) contained in the block.
-    private String previousHash; // Hash of the previous block in the chain.
-    private BigInteger nonce; // Proof-of-work nonce.
-    private int difficulty; // Difficulty level for the proof-of-work algorithm.
+    private final long timestampMillis; // Time the block was created.
+    private final String data; // Data (transaction details) contained in the block.
+    private final String previousHash; // Hash of the previous block in the chain, or null until linked.
+    private final BigInteger nonce; // Proof-of-work nonce.
+    private final int difficulty; // Difficulty level for the proof-of-work algorithm.
+    private final int hashVersion; // How the hash is computed.
+    private final BlockHeader header; // The hashed header, or null for legacy blocks.
+    private String hash; // Computed on first use; racing threads compute the same value.
 
     /**
-     * Constructor for creating a new block.
+     * Constructor for creating a new block, not yet linked to the chain or mined.
      *
      * @param index      The index of this block in the chain.
      * @param timestamp  The time when the block was created.
@@ -39,49 +67,198 @@ public class Block {
      * @param difficulty The difficulty level for mining this block.
      */
     public Block(int index, Timestamp timestamp, String data, int difficulty) {
+        this(index, timestamp, data, null, BigInteger.ZERO, difficulty);
+    }
+
+    /**
+     * Constructor for recreating an existing block of the current hash version, including its link and
+     * proof-of-work nonce.
+     *
+     * @param index        The index of this block in the chain.
+     * @param timestamp    The time when the block was created.
+     * @param data         The data (transaction details) included in this block.
+     * @param previousHash The hash of the previous block in the chain.
+     * @param nonce        The proof-of-work nonce.
+     * @param difficulty   The difficulty level the block was mined at.
+     */
+    public Block(int index, Timestamp timestamp, String data, String previousHash, BigInteger nonce, int difficulty) {
+        this(index, timestamp, data, previousHash, nonce, difficulty, CURRENT_HASH_VERSION);
+    }
+
+    /**
+     * Constructor for recreating an existing block of any hash version, such as one received from a server.
+     *
+     * @param index        The index of this block in the chain.
+     * @param timestamp    The time when the block was created.
+     * @param data         The data (transaction details) included in this block.
+     * @param previousHash The hash of the previous block in the chain.
+     * @param nonce        The proof-of-work nonce.
+     * @param difficulty   The difficulty level the block was mined at.
+     * @param hashVersion  How the hash of the block is computed.
+     * @throws IllegalArgumentException If the hash version is unknown, or a block of the current hash version has a
+     *                                  previous hash that is not 64 hexadecimal digits or a nonce outside 0 to
+     *                                  {@link Long#MAX_VALUE}.
+     */
+    public Block(int index, Timestamp timestamp, String data, String previousHash, BigInteger nonce, int difficulty, int hashVersion) {
+        this(index, timestamp.getTime(), data, previousHash, nonce, difficulty, hashVersion,
+                createHeader(index, timestamp.getTime(), data, previousHash, nonce, difficulty, hashVersion));
+    }
+
+    /**
+     * Constructor for copies, which reuse a header whose data hash is already known.
+     */
+    private Block(int index, long timestampMillis, String data, String previousHash, BigInteger nonce, int difficulty,
+                  int hashVersion, BlockHeader header) {
         this.index = index;
-        this.timestamp = timestamp;
+        this.timestampMillis = timestampMillis;
         this.data = data;
+        this.previousHash = previousHash;
+        this.nonce = nonce;
         this.difficulty = difficulty;
-        this.nonce = BigInteger.ZERO;
+        this.hashVersion = hashVersion;
+        this.header = header;
+    }
+
+    /**
+     * Creates the header hashed by blocks of the current hash version.
+     *
+     * @return The header, or null for a legacy block.
+     */
+    private static BlockHeader createHeader(int index, long timestampMillis, String data, String previousHash,
+                                            BigInteger nonce, int difficulty, int hashVersion) {
+        if (hashVersion == LEGACY_HASH_VERSION) {
+            return null;
+        }
+        if (hashVersion != CURRENT_HASH_VERSION) {
+            throw new IllegalArgumentException("Unknown hash version " + hashVersion);
+        }
+        if (nonce.signum() < 0 || nonce.bitLength() >= Long.SIZE) {
+            throw new IllegalArgumentException("Nonce out of range: " + nonce);
+        }
+        return BlockHeader.of(index, timestampMillis, previousHash, data, nonce.longValue(), difficulty);
     }
 
     /**
      * Calculates the hash of the block using SHA-256 hashing algorithm.
+     * The hash is computed once and cached, since the block cannot change.
      *
      * @return A hexadecimal string representing the block's hash.
      */
     public String calculateHash() {
-        // Concatenate block attributes to form the input for hashing
-        String input = index + timestamp.toString() + data + previousHash + nonce + difficulty;
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(input.getBytes(StandardCharsets.UTF_8));
-            StringBuilder hexString = new StringBuilder();
-            for (byte elem : hash) {
-                String hex = Integer.toHexString(0xff & elem);
-                if (hex.length() == 1) hexString.append('0'); // Ensure leading zero for single digit hex values
-                hexString.append(hex);
-            }
-            return hexString.toString();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+        String cached = hash;
+        if (cached == null) {
+            cached = header != null ? header.hash() : HEX.formatHex(BlockHeader.sha256(
+                    (getLegacyHashPrefix() + nonce + difficulty).getBytes(StandardCharsets.UTF_8)));
+            hash = cached;
         }
+        return cached;
     }
 
     /**
      * Performs proof-of-work to find a valid hash for the block.
-     * Adjusts the nonce until the hash satisfies the required difficulty level.
+     * Tries nonces upwards from the current one until the hash satisfies the required difficulty level.
+     * The search is recorded as a {@link ProofOfWorkEvent}.
+     *
+     * @return A copy of the block with the winning nonce.
+     */
+    public Block proofOfWork() {
+        ProofOfWorkEvent event = new ProofOfWorkEvent();
+        event.begin();
+        long start = nonce.longValueExact();
+        long found = NonceSearch.search(getHashPrefix(), getHashSuffix(), hashVersion, difficulty,
+                start, Long.MAX_VALUE, () -> false);
+        if (event.shouldCommit()) {
+            event.blockIndex = index;
+            event.difficulty = difficulty;
+            event.attempts = found - start + 1;
+            event.dataLength = data == null ? 0 : data.length();
+            event.commit();
+        }
+        return withNonce(BigInteger.valueOf(found));
+    }
+
+    /**
+     * Gets the part of the hashed input that precedes the nonce, which lets miners hash it once per block.
+     *
+     * @return The bytes hashed before the nonce.
+     */
+    public byte[] getHashPrefix() {
+        if (header == null) {
+            return getLegacyHashPrefix().getBytes(StandardCharsets.UTF_8);
+        }
+        return Arrays.copyOf(header.encode(), BlockHeader.NONCE_OFFSET);
+    }
+
+    /**
+     * Gets the part of the hashed input that follows the nonce.
+     *
+     * @return The bytes hashed after the nonce.
      */
-    public void proofOfWork() {
-        String target = new String(new char[difficulty]).replace('\0', '0'); // Target string with required number of leading zeroes
-        while (!calculateHash().substring(0, difficulty).equals(target)) { // Check if the hash satisfies the difficulty condition
-            nonce = nonce.add(BigInteger.ONE); // Increment the nonce and recalculate the hash
+    public byte[] getHashSuffix() {
+        if (header == null) {
+            return String.valueOf(difficulty).getBytes(StandardCharsets.UTF_8);
         }
-        calculateHash(); // Recalculate hash after proof-of-work
+        return Arrays.copyOfRange(header.encode(), BlockHeader.NONCE_OFFSET + Long.BYTES, BlockHeader.ENCODED_LENGTH);
     }
 
-    // Getters and Setters
+    /**
+     * Gets the text hashed before the nonce by legacy blocks.
+     *
+     * @return The block attributes hashed before the nonce.
+     */
+    private String getLegacyHashPrefix() {
+        return index + getTimestamp().toString() + data + previousHash;
+    }
+
+    /**
+     * Creates a copy of the block with different data, keeping its nonce, as when a block is tampered with.
+     *
+     * @param newData The data of the copy.
+     * @return The copy.
+     */
+    public Block withData(String newData) {
+        return new Block(index, getTimestamp(), newData, previousHash, nonce, difficulty, hashVersion);
+    }
+
+    /**
+     * Creates a copy of the block linked to another previous block, keeping its nonce.
+     *
+     * @param newPreviousHash The hash of the previous block.
+     * @return The copy.
+     */
+    public Block withPreviousHash(String newPreviousHash) {
+        return new Block(index, getTimestamp(), data, newPreviousHash, nonce, difficulty, hashVersion);
+    }
+
+    /**
+     * Creates a copy of the block with another proof-of-work nonce, as found by a miner.
+     *
+     * @param newNonce The nonce of the copy.
+     * @return The copy.
+     */
+    public Block withNonce(BigInteger newNonce) {
+        if (header == null) {
+            return new Block(index, getTimestamp(), data, previousHash, newNonce, difficulty, hashVersion);
+        }
+        if (newNonce.signum() < 0 || newNonce.bitLength() >= Long.SIZE) {
+            throw new IllegalArgumentException("Nonce out of range: " + newNonce);
+        }
+        BlockHeader mined = new BlockHeader(header.index(), header.timestampMillis(), header.previousHash(),
+                header.dataHash(), newNonce.longValue(), difficulty); // The data is not hashed again
+        return new Block(index, timestampMillis, data, previousHash, newNonce, difficulty, hashVersion, mined);
+    }
+
+    /**
+     * Creates a copy of the block with another difficulty level, keeping its nonce.
+     *
+     * @param newDifficulty The difficulty level of the copy.
+     * @return The copy.
+     */
+    public Block withDifficulty(int newDifficulty) {
+        return new Block(index, getTimestamp(), data, previousHash, nonce, newDifficulty, hashVersion);
+    }
+
+    // Getters
 
     /**
      * Gets the index of the block within the blockchain.
@@ -95,48 +272,39 @@ public class Block {
     /**
      * Gets the timestamp of when the block was created.
      *
-     * @return The timestamp of the block.
+     * @return A new timestamp holding the creation time of the block.
      */
     public Timestamp getTimestamp() {
-        return timestamp;
+        return new Timestamp(timestampMillis);
     }
 
     /**
-     * Gets the data contained in the block (transaction details).
+     * Gets the time the block was created, without allocating a timestamp.
      *
-     * @return The data of the block.
+     * @return The creation time in milliseconds since the epoch.
      */
-    public String getData() {
-        return data;
+    public long getTimestampMillis() {
+        return timestampMillis;
     }
 
     /**
-     * Sets the data contained in the block (transaction details).
+     * Gets the data contained in the block (transaction details).
      *
-     * @param data The data to be set.
+     * @return The data of the block.
      */
-    public void setData(String data) {
-        this.data = data;
+    public String getData() {
+        return data;
     }
 
     /**
      * Gets the hash of the previous block in the chain.
      *
-     * @return The previous hash of the block.
+     * @return The previous hash of the block, or null if the block is not linked yet.
      */
     public String getPreviousHash() {
         return previousHash;
     }
 
-    /**
-     * Sets the hash of the previous block in the chain.
-     *
-     * @param previousHash The previous hash to be set.
-     */
-    public void setPreviousHash(String previousHash) {
-        this.previousHash = previousHash;
-    }
-
     /**
      * Gets the proof-of-work nonce of the block.
      *
@@ -156,12 +324,21 @@ public class Block {
     }
 
     /**
-     * Sets the difficulty level of mining the block.
+     * Gets how the hash of the block is computed.
      *
-     * @param difficulty The difficulty level to be set.
+     * @return {@link #CURRENT_HASH_VERSION} or {@link #LEGACY_HASH_VERSION}.
      */
-    public void setDifficulty(int difficulty) {
-        this.difficulty = difficulty;
+    public int getHashVersion() {
+        return hashVersion;
+    }
+
+    /**
+     * Gets the header that the hash of the block covers.
+     *
+     * @return The header, or null for a {@link #LEGACY_HASH_VERSION} block, whose hash covers the data itself.
+     */
+    public BlockHeader getHeader() {
+        return header;
     }
 
     /**
@@ -172,6 +349,6 @@ public class Block {
     @Override
     public String toString() {
         return String.format("{\"index\": %d, \"timestamp\": \"%s\", \"data\": \"%s\", \"previousHash\": \"%s\", \"nonce\": \"%s\", \"difficulty\": %d}",
-                index, timestamp, data, previousHash, nonce, difficulty);
+                index, getTimestamp(), data, previousHash, nonce, difficulty);
     }
 }
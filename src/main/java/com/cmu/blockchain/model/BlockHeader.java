@@ -0,0 +1,216 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.model;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * BlockHeader is the part of a block that its hash covers, in the canonical binary layout of hash version
+ * {@link #VERSION}. The block data enters only through its SHA-256, so the header has a fixed size however large
+ * the transaction is, and every field has one encoding independent of locale, time zone or number formatting:
+ * <pre>
+ * offset  size  field
+ *      0     1  version (2)
+ *      1     8  index, big-endian
+ *      9     8  timestamp in milliseconds since the epoch
+ *     17    32  hash of the previous block
+ *     49    32  SHA-256 of the UTF-8 block data
+ *     81     8  nonce
+ *     89     4  difficulty
+ * </pre>
+ *
+ * @param index           The index of the block.
+ * @param timestampMillis The time the block was created, in milliseconds since the epoch.
+ * @param previousHash    The 32-byte hash of the previous block.
+ * @param dataHash        The 32-byte SHA-256 of the block data.
+ * @param nonce           The proof-of-work nonce, at least zero.
+ * @param difficulty      The number of leading zero hex digits the block hash needs.
+ */
+public record BlockHeader(long index, long timestampMillis, byte[] previousHash, byte[] dataHash, long nonce, int difficulty) {
+
+    /**
+     * The hash version whose layout this header implements.
+     */
+    public static final int VERSION = 2;
+
+    /**
+     * The length of the encoded header in bytes.
+     */
+    public static final int ENCODED_LENGTH = 93;
+
+    /**
+     * The offset of the nonce in the encoded header; miners hash the bytes before it once per block.
+     */
+    public static final int NONCE_OFFSET = 81;
+
+    /**
+     * The length of a hash in bytes.
+     */
+    public static final int HASH_LENGTH = 32;
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    /**
+     * Validates the header and copies the hashes, so the header cannot change after construction.
+     */
+    public BlockHeader {
+        if (previousHash.length != HASH_LENGTH || dataHash.length != HASH_LENGTH) {
+            throw new IllegalArgumentException("Header hashes must be " + HASH_LENGTH + " bytes");
+        }
+        if (nonce < 0) {
+            throw new IllegalArgumentException("Nonce must not be negative: " + nonce);
+        }
+        previousHash = previousHash.clone();
+        dataHash = dataHash.clone();
+    }
+
+    /**
+     * Creates the header of a block.
+     *
+     * @param index           The index of the block.
+     * @param timestampMillis The time the block was created, in milliseconds since the epoch.
+     * @param previousHash    The hexadecimal hash of the previous block, or null for a block not linked yet.
+     * @param data            The block data.
+     * @param nonce           The proof-of-work nonce.
+     * @param difficulty      The difficulty level of the block.
+     * @return The header.
+     * @throws IllegalArgumentException If the previous hash is not 64 hexadecimal digits or the nonce is negative.
+     */
+    public static BlockHeader of(long index, long timestampMillis, String previousHash, String data, long nonce, int difficulty) {
+        return new BlockHeader(index, timestampMillis, parseHash(previousHash),
+                sha256(data == null ? new byte[0] : data.getBytes(StandardCharsets.UTF_8)), nonce, difficulty);
+    }
+
+    /**
+     * Encodes the header in the canonical layout.
+     *
+     * @return The {@link #ENCODED_LENGTH} bytes of the header.
+     */
+    public byte[] encode() {
+        return ByteBuffer.allocate(ENCODED_LENGTH)
+                .put((byte) VERSION)
+                .putLong(index)
+                .putLong(timestampMillis)
+                .put(previousHash)
+                .put(dataHash)
+                .putLong(nonce)
+                .putInt(difficulty)
+                .array();
+    }
+
+    /**
+     * Decodes a header encoded by {@link #encode()}.
+     *
+     * @param encoded The {@link #ENCODED_LENGTH} bytes of the header.
+     * @return The header.
+     * @throws IllegalArgumentException If the bytes are not a header of version {@link #VERSION}.
+     */
+    public static BlockHeader decode(byte[] encoded) {
+        if (encoded.length != ENCODED_LENGTH || encoded[0] != VERSION) {
+            throw new IllegalArgumentException("Not a version " + VERSION + " block header of " + ENCODED_LENGTH + " bytes");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(encoded, 1, ENCODED_LENGTH - 1);
+        long index = buffer.getLong();
+        long timestampMillis = buffer.getLong();
+        byte[] previousHash = new byte[HASH_LENGTH];
+        byte[] dataHash = new byte[HASH_LENGTH];
+        buffer.get(previousHash).get(dataHash);
+        return new BlockHeader(index, timestampMillis, previousHash, dataHash, buffer.getLong(), buffer.getInt());
+    }
+
+    /**
+     * Computes the block hash: the SHA-256 of the encoded header.
+     *
+     * @return The hash as 64 lowercase hexadecimal digits.
+     */
+    public String hash() {
+        return HEX.formatHex(sha256(encode()));
+    }
+
+    /**
+     * Gets the hash of the previous block.
+     *
+     * @return A copy of the 32-byte hash.
+     */
+    @Override
+    public byte[] previousHash() {
+        return previousHash.clone();
+    }
+
+    /**
+     * Gets the hash of the block data.
+     *
+     * @return A copy of the 32-byte hash.
+     */
+    @Override
+    public byte[] dataHash() {
+        return dataHash.clone();
+    }
+
+    /**
+     * Compares headers by their contents.
+     *
+     * @param o The object to compare with.
+     * @return True if the object is a header with the same fields, otherwise false.
+     */
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof BlockHeader other && index == other.index && timestampMillis == other.timestampMillis
+                && Arrays.equals(previousHash, other.previousHash) && Arrays.equals(dataHash, other.dataHash)
+                && nonce == other.nonce && difficulty == other.difficulty;
+    }
+
+    /**
+     * @return A hash code consistent with {@link #equals(Object)}.
+     */
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(encode());
+    }
+
+    /**
+     * @return The header fields, with the hashes in hexadecimal.
+     */
+    @Override
+    public String toString() {
+        return "BlockHeader[index=" + index + ", timestampMillis=" + timestampMillis + ", previousHash=" + HEX.formatHex(previousHash)
+                + ", dataHash=" + HEX.formatHex(dataHash) + ", nonce=" + nonce + ", difficulty=" + difficulty + "]";
+    }
+
+    /**
+     * Decodes a hexadecimal block hash.
+     *
+     * @param hash 64 hexadecimal digits, or null for the all-zero hash.
+     * @return The 32 bytes of the hash.
+     * @throws IllegalArgumentException If the hash is not 64 hexadecimal digits.
+     */
+    public static byte[] parseHash(String hash) {
+        if (hash == null) {
+            return new byte[HASH_LENGTH];
+        }
+        if (hash.length() != HASH_LENGTH * 2) {
+            throw new IllegalArgumentException("Expected a hash of " + HASH_LENGTH * 2 + " hex digits but got \"" + hash + "\"");
+        }
+        return HEX.parseHex(hash);
+    }
+
+    /**
+     * Computes a SHA-256 hash.
+     *
+     * @param input The bytes to hash.
+     * @return The 32-byte hash.
+     */
+    static byte[] sha256(byte[] input) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(input);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.model;
+
+import java.util.List;
+
+/**
+ * ChainSegment is a run of consecutive blocks taken together with the size and head hash of the chain they were
+ * taken from, so the three always describe the same version of the chain.
+ *
+ * @param blocks    The blocks, empty if the chain has no block at the requested index.
+ * @param chainSize The number of blocks in the chain.
+ * @param chainHash The hash of the newest block in the chain.
+ */
+public record ChainSegment(List<Block> blocks, int chainSize, String chainHash) {
+}
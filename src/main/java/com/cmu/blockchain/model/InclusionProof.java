@@ -0,0 +1,112 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * InclusionProof shows that a block is part of a chain whose {@link MerkleMountainRange} root is known, without
+ * the rest of the chain. It holds the sibling hashes from the block's leaf up to the peak of its mountain and the
+ * peaks of all mountains, so it grows with the logarithm of the chain length.
+ * The root carried by the proof comes from the same server as the proof, so a proof is only checked against a root
+ * the caller obtained on its own, such as the {@code merkleRoot} of a status response.
+ *
+ * @param index     The index of the block.
+ * @param leafCount The number of blocks the root commits to.
+ * @param blockHash The hexadecimal hash of the block.
+ * @param header    The hexadecimal {@link BlockHeader} of the block, which ties the block hash to the hash of its
+ *                  data; null for a {@link Block#LEGACY_HASH_VERSION} block.
+ * @param siblings  The sibling hashes from the leaf upwards.
+ * @param peaks     The mountain peaks, highest first.
+ * @param root      The hexadecimal root.
+ */
+public record InclusionProof(int index, int leafCount, String blockHash, String header, List<String> siblings,
+                             List<String> peaks, String root) {
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    /**
+     * Checks that the proof leads from the block hash to a trusted root.
+     *
+     * @param trustedRoot The hexadecimal Merkle root the caller obtained independently of the proof.
+     * @return True if the block is committed to by the trusted root, otherwise false.
+     */
+    public boolean verify(String trustedRoot) {
+        return root != null && root.equals(trustedRoot) && leadsToRoot();
+    }
+
+    /**
+     * Checks that the proof is for a block holding the given data and leads to a trusted root.
+     *
+     * @param data        The transaction data the block should hold.
+     * @param trustedRoot The hexadecimal Merkle root the caller obtained independently of the proof.
+     * @return True if a block with that data is committed to by the trusted root, otherwise false; always false for
+     *         a legacy block, whose proof carries no header.
+     */
+    public boolean verifyData(String data, String trustedRoot) {
+        if (header == null) {
+            return false;
+        }
+        try {
+            byte[] dataHash = BlockHeader.sha256(data.getBytes(StandardCharsets.UTF_8));
+            return Arrays.equals(BlockHeader.decode(HEX.parseHex(header)).dataHash(), dataHash) && verify(trustedRoot);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Checks that the proof leads from the block hash to the root it carries.
+     *
+     * @return True if the hashes of the proof are consistent, otherwise false.
+     */
+    private boolean leadsToRoot() {
+        try {
+            if (header != null) {
+                byte[] encoded = HEX.parseHex(header);
+                if (BlockHeader.decode(encoded).index() != index || !HEX.formatHex(BlockHeader.sha256(encoded)).equals(blockHash)) {
+                    return false;
+                }
+            }
+            if (index < 0 || index >= leafCount || peaks.size() != Integer.bitCount(leafCount)) {
+                return false;
+            }
+            // Find the mountain holding the leaf; mountains are the set bits of the leaf count, largest first
+            int start = 0;
+            int peak = 0;
+            int height = Integer.SIZE - 1;
+            for (; height >= 0; height--) {
+                if ((leafCount >> height & 1) == 0) {
+                    continue;
+                }
+                if (index < start + (1 << height)) {
+                    break;
+                }
+                start += 1 << height;
+                peak++;
+            }
+            if (siblings.size() != height) {
+                return false;
+            }
+            byte[] node = MerkleMountainRange.leafHash(BlockHeader.parseHash(blockHash));
+            for (int level = 0; level < height; level++) {
+                byte[] sibling = BlockHeader.parseHash(siblings.get(level));
+                node = (index >> level & 1) == 0 ? MerkleMountainRange.nodeHash(node, sibling)
+                        : MerkleMountainRange.nodeHash(sibling, node);
+            }
+            List<byte[]> peakHashes = new ArrayList<>(peaks.size());
+            for (String hash : peaks) {
+                peakHashes.add(BlockHeader.parseHash(hash));
+            }
+            return Arrays.equals(node, peakHashes.get(peak))
+                    && Arrays.equals(MerkleMountainRange.bagPeaks(peakHashes), BlockHeader.parseHash(root));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return false; // Malformed proof
+        }
+    }
+}
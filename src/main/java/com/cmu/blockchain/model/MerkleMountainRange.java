@@ -0,0 +1,176 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.model;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * MerkleMountainRange commits to the hashes of a chain's blocks under a single root, so that a light client can
+ * check that one block belongs to the chain with a proof of O(log n) hashes instead of downloading the chain.
+ * The blocks form perfect binary trees (mountains), one per set bit of the number of blocks, largest first.
+ * Appending a block adds a leaf and merges equal-height mountains, and the root bags the mountain peaks from right
+ * to left. Leaves are hashed as {@code SHA-256(0x00 || blockHash)} and inner nodes as
+ * {@code SHA-256(0x01 || left || right)}, so a leaf can never pass for an inner node.
+ * Level {@code h} holds the {@code size >> h} complete nodes at that height, which makes truncating back to any
+ * earlier size, as a replaced or repaired block requires, a matter of dropping the tail of every level.
+ * The structure is not thread-safe; its owner guards it like the chain it summarizes.
+ */
+public class MerkleMountainRange {
+
+    private static final byte LEAF_PREFIX = 0x00;
+    private static final byte NODE_PREFIX = 0x01;
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final List<List<byte[]>> levels = new ArrayList<>(); // Level h holds the complete nodes of height h.
+
+    /**
+     * Adds the hash of the next block.
+     *
+     * @param blockHash The hexadecimal hash of the block.
+     */
+    public void append(String blockHash) {
+        byte[] node = leafHash(BlockHeader.parseHash(blockHash));
+        for (int height = 0; ; height++) {
+            if (levels.size() == height) {
+                levels.add(new ArrayList<>());
+            }
+            List<byte[]> level = levels.get(height);
+            level.add(node);
+            if (level.size() % 2 != 0) {
+                return; // A new peak
+            }
+            node = nodeHash(level.get(level.size() - 2), node); // Merge two mountains of equal height
+        }
+    }
+
+    /**
+     * Drops the blocks from an index on.
+     *
+     * @param size The number of blocks to keep.
+     */
+    public void truncate(int size) {
+        for (int height = 0; height < levels.size(); height++) {
+            List<byte[]> level = levels.get(height);
+            level.subList(Math.min(level.size(), size >> height), level.size()).clear();
+        }
+        while (!levels.isEmpty() && levels.getLast().isEmpty()) {
+            levels.removeLast();
+        }
+    }
+
+    /**
+     * Gets the number of blocks committed to.
+     *
+     * @return The number of leaves.
+     */
+    public int size() {
+        return levels.isEmpty() ? 0 : levels.getFirst().size();
+    }
+
+    /**
+     * Computes the root committing to every block.
+     *
+     * @return The hexadecimal root, or null if no block was added.
+     */
+    public String root() {
+        List<byte[]> peaks = peaks();
+        return peaks.isEmpty() ? null : HEX.formatHex(bagPeaks(peaks));
+    }
+
+    /**
+     * Builds the proof that a block is committed to by the current root.
+     *
+     * @param block The block, which must be the one whose hash was appended at its index.
+     * @return The proof.
+     * @throws IndexOutOfBoundsException If no block was appended at the block's index.
+     */
+    public InclusionProof prove(Block block) {
+        int index = block.getIndex();
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("No block " + index + " among " + size() + " blocks");
+        }
+        List<String> siblings = new ArrayList<>();
+        int position = index;
+        for (int height = 0; height + 1 < levels.size() && (position >> 1) < levels.get(height + 1).size(); height++) {
+            siblings.add(HEX.formatHex(levels.get(height).get(position ^ 1)));
+            position >>= 1;
+        }
+        List<String> peaks = peaks().stream().map(HEX::formatHex).toList();
+        String header = block.getHeader() == null ? null : HEX.formatHex(block.getHeader().encode());
+        return new InclusionProof(index, size(), block.calculateHash(), header, siblings, peaks, root());
+    }
+
+    /**
+     * Collects the mountain peaks, highest (leftmost) first.
+     *
+     * @return The peaks.
+     */
+    private List<byte[]> peaks() {
+        List<byte[]> peaks = new ArrayList<>();
+        for (int height = levels.size() - 1; height >= 0; height--) {
+            List<byte[]> level = levels.get(height);
+            if (level.size() % 2 != 0) {
+                peaks.add(level.getLast());
+            }
+        }
+        return peaks;
+    }
+
+    /**
+     * Combines the mountain peaks into the root, folding from the rightmost peak.
+     *
+     * @param peaks The peaks, highest first; at least one.
+     * @return The root.
+     */
+    static byte[] bagPeaks(List<byte[]> peaks) {
+        byte[] root = peaks.getLast();
+        for (int i = peaks.size() - 2; i >= 0; i--) {
+            root = nodeHash(peaks.get(i), root);
+        }
+        return root;
+    }
+
+    /**
+     * Hashes a block hash into a leaf.
+     *
+     * @param blockHash The 32-byte block hash.
+     * @return The leaf hash.
+     */
+    static byte[] leafHash(byte[] blockHash) {
+        MessageDigest digest = newDigest();
+        digest.update(LEAF_PREFIX);
+        return digest.digest(blockHash);
+    }
+
+    /**
+     * Hashes two children into their parent.
+     *
+     * @param left  The left child.
+     * @param right The right child.
+     * @return The parent hash.
+     */
+    static byte[] nodeHash(byte[] left, byte[] right) {
+        MessageDigest digest = newDigest();
+        digest.update(NODE_PREFIX);
+        digest.update(left);
+        return digest.digest(right);
+    }
+
+    /**
+     * Creates a SHA-256 digest.
+     *
+     * @return The digest.
+     */
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,610 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.network;
+
+import com.cmu.blockchain.message.MessageCodec;
+import com.cmu.blockchain.message.RequestMessage;
+import com.cmu.blockchain.message.ResponseMessage;
+import com.cmu.blockchain.model.Block;
+import com.cmu.blockchain.model.InclusionProof;
+import com.cmu.blockchain.util.LoggerUtil;
+import org.slf4j.Logger;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * BlockChainClient lets programs use a blockchain server without the interactive {@link ClientTCP} menu.
+ * Every action returns a {@link CompletableFuture} of the server's response, so callers can keep thousands of
+ * requests in flight without a thread each. Requests carry a request id and are pipelined over a bounded pool of
+ * connections; each connection has one reader thread that completes the futures as responses arrive in any order.
+ * A new connection is only opened when every open one is busy and the pool is not full.
+ * Connections are opened lazily and a broken connection is dropped from the pool, failing its outstanding requests
+ * with an {@link IOException}; the next request reconnects. Requests are not retried automatically, but a write
+ * sent with an idempotency key can be sent again with the same key: the server answers the retry with the result
+ * of the original instead of mining it twice. Requests that take longer than the request timeout fail with a
+ * {@link java.util.concurrent.TimeoutException}, but the server still processes them.
+ * Large responses are compressed if the server supports it (see {@link LineCompressor}).
+ * A client on the same host as the server can connect through the server's Unix domain socket instead of TCP
+ * (see {@link #forSocketPath(Path)}); the protocol is the same.
+ */
+public class BlockChainClient implements Closeable {
+
+    private static final Logger LOGGER = LoggerUtil.getLogger(BlockChainClient.class);
+
+    /**
+     * Default maximum number of pooled connections.
+     */
+    public static final int DEFAULT_MAX_CONNECTIONS = 4;
+
+    /**
+     * Default limit for opening a connection.
+     */
+    public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(5);
+
+    /**
+     * Default limit for a response to arrive, generous because mining a block can take long.
+     */
+    public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(60);
+
+    /**
+     * Number of times {@link #mineTransaction(String, int)} submits before giving up on a busy chain.
+     */
+    public static final int MAX_STALE_SUBMISSIONS = 3;
+
+    private final SocketAddress address; // An unresolved InetSocketAddress, or a UnixDomainSocketAddress.
+    private final String serverName; // The server as shown in log and error messages.
+    private final int maxConnections;
+    private final Duration connectTimeout;
+    private final Duration requestTimeout;
+    private final ReentrantLock poolLock = new ReentrantLock();
+    private final List<Connection> connections = new ArrayList<>(); // Open connections, guarded by poolLock.
+    private final List<CompletableFuture<Connection>> opening = new ArrayList<>(); // Guarded by poolLock.
+    private final ExecutorService ioExecutor = Executors.newCachedThreadPool(
+            Thread.ofPlatform().name("blockchain-client-", 0).daemon().factory()); // Readers block in monitors, which would pin virtual threads.
+    private final AtomicLong nextRequestId = new AtomicLong();
+    private volatile boolean closed;
+
+    /**
+     * Constructs a BlockChainClient. No connection is opened until the first request.
+     *
+     * @param host           The host name of the server.
+     * @param port           The port of the server.
+     * @param maxConnections The maximum number of pooled connections.
+     * @param connectTimeout The limit for opening a connection.
+     * @param requestTimeout The limit for a response to arrive after the request was sent.
+     */
+    public BlockChainClient(String host, int port, int maxConnections, Duration connectTimeout, Duration requestTimeout) {
+        this(InetSocketAddress.createUnresolved(host, port), maxConnections, connectTimeout, requestTimeout);
+    }
+
+    /**
+     * Constructs a BlockChainClient for a server address. No connection is opened until the first request.
+     *
+     * @param address        The address of the server: an {@link InetSocketAddress}, resolved again for every
+     *                       connection, or the {@link UnixDomainSocketAddress} of a server on this host.
+     * @param maxConnections The maximum number of pooled connections.
+     * @param connectTimeout The limit for opening a TCP connection; a Unix domain socket connects or fails at once.
+     * @param requestTimeout The limit for a response to arrive after the request was sent.
+     */
+    public BlockChainClient(SocketAddress address, int maxConnections, Duration connectTimeout, Duration requestTimeout) {
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException("At least one connection is required.");
+        }
+        this.address = address;
+        this.serverName = address instanceof InetSocketAddress inet ? inet.getHostString() + ":" + inet.getPort()
+                : address.toString();
+        this.maxConnections = maxConnections;
+        this.connectTimeout = connectTimeout;
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * Creates a client with the default pool size and timeouts.
+     *
+     * @param host The host name of the server.
+     * @param port The port of the server.
+     * @return The client.
+     */
+    public static BlockChainClient forServer(String host, int port) {
+        return new BlockChainClient(host, port, DEFAULT_MAX_CONNECTIONS, DEFAULT_CONNECT_TIMEOUT, DEFAULT_REQUEST_TIMEOUT);
+    }
+
+    /**
+     * Creates a client with the default pool size and timeouts for a server on this host, connecting through the
+     * Unix domain socket it listens on.
+     *
+     * @param socketPath The path of the server's socket file.
+     * @return The client.
+     */
+    public static BlockChainClient forSocketPath(Path socketPath) {
+        return new BlockChainClient(UnixDomainSocketAddress.of(socketPath), DEFAULT_MAX_CONNECTIONS,
+                DEFAULT_CONNECT_TIMEOUT, DEFAULT_REQUEST_TIMEOUT);
+    }
+
+    /**
+     * Requests the status of the blockchain.
+     *
+     * @return The server's response.
+     */
+    public CompletableFuture<ResponseMessage> viewBlockchainStatus() {
+        return send(new RequestMessage("viewBlockchainStatus", "", 0));
+    }
+
+    /**
+     * Mines and adds a block holding a transaction.
+     *
+     * @param data       The transaction data.
+     * @param difficulty The difficulty level of the block.
+     * @return The server's response.
+     */
+    public CompletableFuture<ResponseMessage> addTransaction(String data, int difficulty) {
+        return send(new RequestMessage("addTransaction", data, difficulty));
+    }
+
+    /**
+     * Mines and adds a block holding a transaction, unless a request with the same idempotency key already did.
+     * Retrying with the same key after a timeout or a broken connection returns the original result.
+     *
+     * @param data           The transaction data.
+     * @param difficulty     The difficulty level of the block.
+     * @param idempotencyKey A key unique to this transaction, such as a random UUID.
+     * @return The server's response, marked {@code replayed} if it repeats an earlier result.
+     */
+    public CompletableFuture<ResponseMessage> addTransaction(String data, int difficulty, String idempotencyKey) {
+        return send(new RequestMessage("addTransaction", data, difficulty).withIdempotencyKey(idempotencyKey));
+    }
+
+    /**
+     * Mines and adds one block per transaction, in one request.
+     *
+     * @param transactions The transaction payloads.
+     * @param difficulty   The difficulty level of every block.
+     * @return The server's response, with the outcome of each transaction.
+     */
+    public CompletableFuture<ResponseMessage> addTransactions(List<String> transactions, int difficulty) {
+        return send(RequestMessage.batch(transactions, difficulty));
+    }
+
+    /**
+     * Mines and adds one block per transaction, in one request, unless a request with the same idempotency key
+     * already did.
+     *
+     * @param transactions   The transaction payloads.
+     * @param difficulty     The difficulty level of every block.
+     * @param idempotencyKey A key unique to this batch, such as a random UUID.
+     * @return The server's response, with the outcome of each transaction.
+     */
+    public CompletableFuture<ResponseMessage> addTransactions(List<String> transactions, int difficulty, String idempotencyKey) {
+        return send(RequestMessage.batch(transactions, difficulty).withIdempotencyKey(idempotencyKey));
+    }
+
+    /**
+     * Verifies the whole blockchain.
+     *
+     * @return The server's response, successful if the chain is valid.
+     */
+    public CompletableFuture<ResponseMessage> verifyBlockchain() {
+        return send(new RequestMessage("verifyBlockchain", "", 0));
+    }
+
+    /**
+     * Requests the whole blockchain.
+     *
+     * @return The server's response.
+     */
+    public CompletableFuture<ResponseMessage> viewBlockchain() {
+        return send(new RequestMessage("viewBlockchain", "", 0));
+    }
+
+    /**
+     * Replaces the data of a block without mining it again.
+     *
+     * @param blockId The index of the block.
+     * @param newData The new data of the block.
+     * @return The server's response.
+     */
+    public CompletableFuture<ResponseMessage> corruptBlockchain(int blockId, String newData) {
+        return send(new RequestMessage("corruptBlockchain", blockId + ":" + newData, 0));
+    }
+
+    /**
+     * Mines the blockchain again from the first invalid block.
+     *
+     * @return The server's response.
+     */
+    public CompletableFuture<ResponseMessage> repairBlockchain() {
+        return send(new RequestMessage("repairBlockchain", "", 0));
+    }
+
+    /**
+     * Requests the server's request metrics.
+     *
+     * @return The server's response, carrying the metrics as JSON in its blockchain data.
+     */
+    public CompletableFuture<ResponseMessage> getMetrics() {
+        return send(new RequestMessage("getMetrics", "", 0));
+    }
+
+    /**
+     * Requests the blocks following the newest block of a locator that the server shares.
+     *
+     * @param locator Comma-separated {@code <index>:<hash>} entries, newest first, or empty for the whole chain.
+     * @return The server's response, carrying at most {@link ChainFeed#MAX_BLOCKS_PER_UPDATE} blocks.
+     */
+    public CompletableFuture<ResponseMessage> getBlocks(String locator) {
+        return send(new RequestMessage("getBlocks", locator, 0));
+    }
+
+    /**
+     * Requests the proof that a block is part of the chain, which {@link InclusionProof#verify(String)}
+     * checks against a Merkle root obtained separately, without downloading the chain.
+     *
+     * @param blockId The index of the block.
+     * @return The server's response, carrying the proof and the Merkle root it leads to.
+     */
+    public CompletableFuture<ResponseMessage> getInclusionProof(int blockId) {
+        return send(new RequestMessage("getInclusionProof", String.valueOf(blockId), 0));
+    }
+
+    /**
+     * Checks that a block holding a transaction is part of the chain. The Merkle root is read from a status
+     * response and the proof is checked against it, not against the root carried by the proof itself.
+     * A block mined between the two requests changes the root, so a false result may be retried.
+     *
+     * @param blockId The index of the block.
+     * @param data    The transaction data the block should hold.
+     * @return True if the proof of the block leads to the chain's Merkle root, otherwise false.
+     */
+    public CompletableFuture<Boolean> verifyInclusion(int blockId, String data) {
+        return viewBlockchainStatus().thenCompose(status -> getInclusionProof(blockId).thenApply(response ->
+                response.getInclusionProof() != null && response.getInclusionProof().verifyData(data, status.getMerkleRoot())));
+    }
+
+    /**
+     * Finds the blocks whose data holds every word of a query.
+     *
+     * @param query The words to look for; a word ending in {@code *} matches words starting with it.
+     * @return The server's response, carrying the indexes of the matching blocks.
+     */
+    public CompletableFuture<ResponseMessage> searchTransactions(String query) {
+        return send(new RequestMessage("searchTransactions", query, 0));
+    }
+
+    /**
+     * Retrieves what mining the latest blocks cost, with the hash rate achieved over the last minute.
+     *
+     * @param maxSamples The maximum number of blocks reported.
+     * @return The server's response, with one mining sample per block, oldest first.
+     */
+    public CompletableFuture<ResponseMessage> getMiningStats(int maxSamples) {
+        return send(new RequestMessage("getMiningStats", String.valueOf(maxSamples), 0));
+    }
+
+    /**
+     * Asks for an unmined block holding a transaction, for this client to mine with {@link Block#proofOfWork()}.
+     *
+     * @param data       The transaction data.
+     * @param difficulty The difficulty level to mine at; the server may raise it to its minimum.
+     * @return The server's response, carrying the block to mine as its only block.
+     */
+    public CompletableFuture<ResponseMessage> getMiningTemplate(String data, int difficulty) {
+        return send(new RequestMessage("getMiningTemplate", data, difficulty));
+    }
+
+    /**
+     * Submits a block mined by this client. The server only checks its hash before appending it.
+     *
+     * @param block The mined block.
+     * @return The server's response; a stale block is rejected with a fresh template as its only block.
+     */
+    public CompletableFuture<ResponseMessage> submitBlock(Block block) {
+        return send(new RequestMessage("submitBlock", MessageCodec.toJson(block), block.getDifficulty()));
+    }
+
+    /**
+     * Adds a transaction mined by this client instead of the server: fetches a template, mines it on the common
+     * pool and submits it, mining again if another block got in first, up to {@link #MAX_STALE_SUBMISSIONS} times.
+     *
+     * @param data       The transaction data.
+     * @param difficulty The difficulty level to mine at.
+     * @return The server's response to the last submission.
+     */
+    public CompletableFuture<ResponseMessage> mineTransaction(String data, int difficulty) {
+        return getMiningTemplate(data, difficulty).thenCompose(template -> mineAndSubmit(template, MAX_STALE_SUBMISSIONS));
+    }
+
+    /**
+     * Mines the block carried by a template or stale response and submits it.
+     *
+     * @param template The response carrying the block to mine.
+     * @param attempts The number of submissions left.
+     * @return The server's response to the last submission.
+     */
+    private CompletableFuture<ResponseMessage> mineAndSubmit(ResponseMessage template, int attempts) {
+        if (template.getBlocks() == null || template.getBlocks().size() != 1 || attempts == 0) {
+            return CompletableFuture.completedFuture(template);
+        }
+        Block block = template.getBlocks().getFirst();
+        return CompletableFuture.supplyAsync(block::proofOfWork) // Never mine on a connection's reader thread
+                .thenCompose(this::submitBlock)
+                .thenCompose(response -> response.isSuccess() ? CompletableFuture.completedFuture(response)
+                        : mineAndSubmit(response, attempts - 1));
+    }
+
+    /**
+     * Retrieves one page of the blocks mined in a time window.
+     *
+     * @param fromMillis The start of the window in milliseconds since the epoch, inclusive.
+     * @param toMillis   The end of the window in milliseconds since the epoch, exclusive.
+     * @param cursor     The cursor of the previous page, or null for the first page.
+     * @return The server's response, carrying the blocks and the cursor of the next page, if any.
+     */
+    public CompletableFuture<ResponseMessage> getBlocksBetween(long fromMillis, long toMillis, String cursor) {
+        String window = fromMillis + ":" + toMillis + (cursor == null ? "" : ":" + cursor);
+        return send(new RequestMessage("getBlocksBetween", window, 0));
+    }
+
+    /**
+     * Sends any request. Its request id is replaced by one chosen by the client.
+     *
+     * @param request The request to send; streaming actions such as {@code followChain} are not supported.
+     * @return The server's response.
+     */
+    public CompletableFuture<ResponseMessage> send(RequestMessage request) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IOException("Client is closed."));
+        }
+        return acquire().thenCompose(connection -> connection.send(request));
+    }
+
+    /**
+     * Gets the number of open connections.
+     *
+     * @return The number of connections in the pool.
+     */
+    public int getConnectionCount() {
+        poolLock.lock();
+        try {
+            connections.removeIf(connection -> connection.broken);
+            return connections.size();
+        } finally {
+            poolLock.unlock();
+        }
+    }
+
+    /**
+     * Closes all connections, failing the requests still in flight.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        List<Connection> open;
+        poolLock.lock();
+        try {
+            open = new ArrayList<>(connections);
+            connections.clear();
+        } finally {
+            poolLock.unlock();
+        }
+        for (Connection connection : open) {
+            connection.fail(new IOException("Client is closed."));
+        }
+        ioExecutor.shutdown();
+    }
+
+    /**
+     * Picks the connection for a request: the least busy open connection, unless all are busy and the pool
+     * may grow, in which case a new connection is opened in the background.
+     *
+     * @return The connection to send on.
+     */
+    private CompletableFuture<Connection> acquire() {
+        poolLock.lock();
+        try {
+            connections.removeIf(connection -> connection.broken);
+            Connection leastBusy = null;
+            for (Connection connection : connections) {
+                if (leastBusy == null || connection.inFlight() < leastBusy.inFlight()) {
+                    leastBusy = connection;
+                }
+            }
+            boolean full = connections.size() + opening.size() >= maxConnections;
+            if (leastBusy != null && (leastBusy.inFlight() == 0 || full)) {
+                return CompletableFuture.completedFuture(leastBusy);
+            }
+            if (full) {
+                return opening.getFirst(); // Every slot is taken by a connection still being opened
+            }
+            CompletableFuture<Connection> connecting = new CompletableFuture<>();
+            opening.add(connecting);
+            ioExecutor.execute(() -> open(connecting));
+            return connecting;
+        } finally {
+            poolLock.unlock();
+        }
+    }
+
+    /**
+     * Opens a connection and adds it to the pool.
+     *
+     * @param connecting Completed with the connection, or exceptionally if it cannot be opened.
+     */
+    private void open(CompletableFuture<Connection> connecting) {
+        Connection connection = null;
+        IOException failure = null;
+        try {
+            connection = new Connection();
+        } catch (IOException e) {
+            LOGGER.error("Failed to connect to " + serverName + ": " + e.getMessage());
+            failure = e;
+        }
+        poolLock.lock();
+        try {
+            opening.remove(connecting);
+            if (connection != null && !closed) {
+                connections.add(connection);
+            }
+        } finally {
+            poolLock.unlock();
+        }
+        if (connection == null) {
+            connecting.completeExceptionally(failure);
+        } else if (closed) {
+            connection.fail(new IOException("Client is closed."));
+            connecting.completeExceptionally(new IOException("Client is closed."));
+        } else {
+            connecting.complete(connection);
+        }
+    }
+
+    /**
+     * One pooled connection, carrying any number of pipelined requests.
+     */
+    private final class Connection {
+        private final Closeable link; // A Socket, or a SocketChannel for a Unix domain socket.
+        private final PrintWriter out;
+        private final BufferedReader in;
+        private final Map<Long, CompletableFuture<ResponseMessage>> pending = new ConcurrentHashMap<>(); // By request id.
+        private final ReentrantLock writeLock = new ReentrantLock(); // A monitor would pin virtual callers during IO.
+        private volatile boolean broken;
+
+        /**
+         * Connects, negotiates compression and starts reading responses.
+         *
+         * @throws IOException If the server cannot be reached.
+         */
+        Connection() throws IOException {
+            InputStream input;
+            OutputStream output;
+            if (address instanceof InetSocketAddress inet) {
+                Socket socket = new Socket();
+                link = socket;
+                try {
+                    socket.connect(new InetSocketAddress(inet.getHostString(), inet.getPort()), (int) connectTimeout.toMillis());
+                    socket.setTcpNoDelay(true);
+                    socket.setSoTimeout((int) connectTimeout.toMillis());
+                    input = socket.getInputStream();
+                    output = socket.getOutputStream();
+                } catch (IOException e) {
+                    socket.close();
+                    throw e;
+                }
+            } else {
+                SocketChannel channel = SocketChannel.open(address);
+                link = channel;
+                input = Channels.newInputStream(channel);
+                output = Channels.newOutputStream(channel);
+            }
+            try {
+                out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(output)));
+                in = new CompressedLineReader(new InputStreamReader(input));
+                ClientTCP.negotiateCompression(out, in);
+                if (link instanceof Socket socket) {
+                    socket.setSoTimeout(0); // Requests are timed individually from now on
+                }
+            } catch (IOException e) {
+                link.close();
+                throw e;
+            }
+            ioExecutor.execute(this::readResponses);
+        }
+
+        /**
+         * Gets the number of requests awaiting a response.
+         *
+         * @return The number of requests in flight.
+         */
+        int inFlight() {
+            return pending.size();
+        }
+
+        /**
+         * Sends a request with a new request id.
+         *
+         * @param request The request to send.
+         * @return The response, or a failure if the connection breaks or the response is late.
+         */
+        CompletableFuture<ResponseMessage> send(RequestMessage request) {
+            long requestId = nextRequestId.incrementAndGet();
+            CompletableFuture<ResponseMessage> response = new CompletableFuture<>();
+            pending.put(requestId, response);
+            response.orTimeout(requestTimeout.toMillis(), TimeUnit.MILLISECONDS).whenComplete((r, e) -> pending.remove(requestId));
+            String json = MessageCodec.toJson(request.withRequestId(requestId));
+            writeLock.lock();
+            try {
+                if (!broken) {
+                    out.print(json);
+                    out.print('\n');
+                    out.flush();
+                }
+                if (broken || out.checkError()) {
+                    fail(new IOException("Failed to send request to " + serverName));
+                }
+            } finally {
+                writeLock.unlock();
+            }
+            return response;
+        }
+
+        /**
+         * Completes the pending requests as their responses arrive, until the connection breaks.
+         */
+        private void readResponses() {
+            try {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    ResponseMessage response = MessageCodec.parseResponse(line);
+                    CompletableFuture<ResponseMessage> future = response.getRequestId() == null ? null : pending.remove(response.getRequestId());
+                    if (future == null) {
+                        LOGGER.warn("Ignoring response without a pending request: " + line);
+                        continue;
+                    }
+                    future.complete(response);
+                }
+                fail(new EOFException("Server closed the connection."));
+            } catch (IOException | RuntimeException e) {
+                fail(e);
+            }
+        }
+
+        /**
+         * Marks the connection as broken, closes it and fails every pending request.
+         *
+         * @param cause Why the connection broke.
+         */
+        void fail(Exception cause) {
+            broken = true;
+            try {
+                link.close();
+            } catch (IOException e) {
+                LOGGER.error("Error closing connection to " + serverName + ": " + e.getMessage());
+            }
+            for (Long requestId : pending.keySet()) {
+                CompletableFuture<ResponseMessage> future = pending.remove(requestId);
+                if (future != null) {
+                    future.completeExceptionally(cause instanceof IOException ? cause
+                            : new IOException(cause.getMessage(), cause));
+                }
+            }
+        }
+    }
+}
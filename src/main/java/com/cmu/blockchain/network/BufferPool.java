@@ -0,0 +1,69 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.network;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * BufferPool recycles fixed-size direct byte buffers used for socket reads and writes.
+ * Direct buffers are expensive to allocate and are only released by the garbage collector,
+ * so the pool keeps up to a bounded number of them around for reuse.
+ */
+public class BufferPool {
+
+    private final int bufferSize; // Capacity of every buffer handed out by the pool.
+    private final int maxPooled; // Upper bound on idle buffers kept for reuse.
+    private final ConcurrentLinkedQueue<ByteBuffer> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    /**
+     * Constructs a BufferPool.
+     *
+     * @param bufferSize The capacity in bytes of each buffer.
+     * @param maxPooled  The maximum number of idle buffers retained.
+     */
+    public BufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    /**
+     * Takes a cleared buffer from the pool, allocating a new one if none is idle.
+     *
+     * @return A buffer ready to be filled.
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = idle.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+        idleCount.decrementAndGet();
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer to the pool. Buffers beyond the pool bound are left to the garbage collector.
+     *
+     * @param buffer The buffer to return; it must not be used by the caller afterwards.
+     */
+    public void release(ByteBuffer buffer) {
+        if (idleCount.incrementAndGet() > maxPooled) {
+            idleCount.decrementAndGet();
+            return;
+        }
+        buffer.clear();
+        idle.offer(buffer);
+    }
+
+    /**
+     * Gets the capacity of the buffers handed out by the pool.
+     *
+     * @return The buffer capacity in bytes.
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+}
@@ -0,0 +1,276 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.network;
+
+import com.cmu.blockchain.core.BlockChain;
+import com.cmu.blockchain.message.MessageCodec;
+import com.cmu.blockchain.message.ResponseMessage;
+import com.cmu.blockchain.model.Block;
+import com.cmu.blockchain.util.LoggerUtil;
+import org.slf4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ChainCache keeps a verified copy of a server's blockchain on the client, so repeated reads such as viewing or
+ * verifying the chain are answered locally without a round trip.
+ * A refresh sends the server a block locator of the cached chain and only receives the blocks appended or
+ * replaced since, in batches of at most {@link ChainFeed#MAX_BLOCKS_PER_UPDATE}. Received blocks are checked
+ * with the same rules as {@link BlockChain#isChainValid()} before they are cached, so a server handing out a
+ * corrupted chain is detected and the last verified chain is kept.
+ * The cache can be stored in a file, which then holds a journal of the applied batches, one JSON line each;
+ * a cache opened on an existing file resumes from the chain it holds. The journal is rewritten as a single
+ * batch once it grows long.
+ */
+public class ChainCache {
+
+    private static final Logger LOGGER = LoggerUtil.getLogger(ChainCache.class);
+    private static final int MAX_JOURNAL_ENTRIES = 64; // Batches appended to the file before it is compacted.
+
+    private final BlockChainClient client;
+    private final Path file; // The journal, or null to keep the cache in memory only.
+    private final BlockChain replica = BlockChain.createReplica();
+    private final ReentrantLock refreshLock = new ReentrantLock(); // Serializes refreshes and journal writes.
+    private int journalEntries; // Guarded by refreshLock.
+    private volatile long lastRefreshMillis; // 0 until the first successful refresh.
+
+    /**
+     * Constructs a ChainCache kept in memory only. It is empty until the first {@link #refresh()}.
+     *
+     * @param client The client used to fetch blocks from the server.
+     */
+    public ChainCache(BlockChainClient client) {
+        this.client = client;
+        this.file = null;
+    }
+
+    /**
+     * Constructs a ChainCache stored in a file, loading the chain the file already holds.
+     * If part of the file cannot be read or fails verification, the cache keeps the blocks verified before it.
+     *
+     * @param client The client used to fetch blocks from the server.
+     * @param file   The file holding the cache; created by the first refresh if it does not exist.
+     */
+    public ChainCache(BlockChainClient client, Path file) {
+        this.client = client;
+        this.file = file;
+        load();
+    }
+
+    /**
+     * Fetches the blocks the server added or replaced since the last refresh and verifies them.
+     * Blocks until the cache has caught up with the server.
+     *
+     * @return The number of blocks received, 0 if the cache was up to date.
+     * @throws IOException If the server cannot be reached or sends blocks that fail verification; the blocks
+     *                     verified before the failure stay cached.
+     * @throws InterruptedException If interrupted while waiting for the server.
+     */
+    public int refresh() throws IOException, InterruptedException {
+        refreshLock.lock();
+        try {
+            int received = 0;
+            String locator = replica.getLocator();
+            while (true) {
+                ResponseMessage batch = fetch(locator);
+                if (!batch.isSuccess() || batch.getBlocks() == null || batch.getStartIndex() == null) {
+                    throw new IOException("Unexpected response to getBlocks: " + batch.getMessage());
+                }
+                int fromIndex = batch.getStartIndex();
+                List<Block> blocks = batch.getBlocks();
+                if (blocks.isEmpty() && fromIndex == replica.getChainSize()) {
+                    break; // Up to date
+                }
+                try {
+                    replica.replaceFrom(fromIndex, blocks);
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Rejected blocks from the server: " + e.getMessage(), e);
+                }
+                append(fromIndex, blocks);
+                received += blocks.size();
+                if (blocks.isEmpty() || replica.getChainSize() >= batch.getChainSize()) {
+                    break;
+                }
+                Block last = replica.getLatestBlock();
+                locator = last.getIndex() + ":" + last.calculateHash(); // The server resumes right after it
+            }
+            lastRefreshMillis = System.currentTimeMillis();
+            return received;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Refreshes the cache unless it was refreshed recently, so frequent readers such as dashboards share one
+     * round trip per interval.
+     *
+     * @param maxAge How old the cached chain may be.
+     * @return The number of blocks received, 0 if the cache was fresh enough or up to date.
+     * @throws IOException If the server cannot be reached or sends blocks that fail verification.
+     * @throws InterruptedException If interrupted while waiting for the server.
+     */
+    public int refreshIfOlderThan(Duration maxAge) throws IOException, InterruptedException {
+        if (System.currentTimeMillis() - lastRefreshMillis < maxAge.toMillis()) {
+            return 0;
+        }
+        return refresh();
+    }
+
+    /**
+     * Gets the time of the last successful refresh.
+     *
+     * @return The time in milliseconds since the epoch, or 0 if the cache was never refreshed.
+     */
+    public long getLastRefreshMillis() {
+        return lastRefreshMillis;
+    }
+
+    /**
+     * Retrieves the number of cached blocks.
+     *
+     * @return The size of the cached chain.
+     */
+    public int getChainSize() {
+        return replica.getChainSize();
+    }
+
+    /**
+     * Retrieves the hash of the newest cached block.
+     *
+     * @return The hash of the newest block, or an empty string if the cache is empty.
+     */
+    public String getChainHash() {
+        return replica.getChainHash();
+    }
+
+    /**
+     * Retrieves a cached block.
+     *
+     * @param index The index of the block.
+     * @return The block at the index.
+     */
+    public Block getBlock(int index) {
+        return replica.getBlock(index);
+    }
+
+    /**
+     * Retrieves a consecutive run of cached blocks.
+     *
+     * @param fromIndex The index of the first block to retrieve.
+     * @param maxBlocks The maximum number of blocks to retrieve.
+     * @return The blocks, empty if the cache has no block at the index.
+     */
+    public List<Block> getBlocks(int fromIndex, int maxBlocks) {
+        return replica.getBlocks(fromIndex, maxBlocks);
+    }
+
+    /**
+     * Verifies the cached chain locally.
+     *
+     * @return True if the cached chain is valid, otherwise false.
+     */
+    public boolean isChainValid() {
+        return replica.isChainValid();
+    }
+
+    /**
+     * @return The cached chain in the JSON format of a {@code viewBlockchain} response.
+     */
+    @Override
+    public String toString() {
+        return replica.toString();
+    }
+
+    /**
+     * Sends a {@code getBlocks} request and waits for the response.
+     *
+     * @param locator The block locator to send.
+     * @return The server's response.
+     * @throws IOException If the request fails.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    private ResponseMessage fetch(String locator) throws IOException, InterruptedException {
+        try {
+            return client.getBlocks(locator).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("Failed to fetch blocks: " + e.getCause(), e.getCause());
+        }
+    }
+
+    /**
+     * Replays the journal in the cache file.
+     */
+    private void load() {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                ResponseMessage batch = MessageCodec.parseResponse(line);
+                replica.replaceFrom(batch.getStartIndex(), batch.getBlocks());
+                journalEntries++;
+            }
+            LOGGER.info("Loaded " + replica.getChainSize() + " cached blocks from " + file);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Ignoring the rest of chain cache " + file + ": " + e.getMessage());
+            journalEntries = MAX_JOURNAL_ENTRIES; // Rewrite the file from the blocks verified so far with the next refresh
+        }
+    }
+
+    /**
+     * Appends a verified batch to the cache file, compacting the file once the journal grows long.
+     * The caller must hold the refresh lock.
+     *
+     * @param fromIndex The index of the first block of the batch.
+     * @param blocks    The blocks of the batch.
+     * @throws IOException If the file cannot be written.
+     */
+    private void append(int fromIndex, List<Block> blocks) throws IOException {
+        if (file == null) {
+            return;
+        }
+        if (journalEntries >= MAX_JOURNAL_ENTRIES) {
+            Path compacted = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.writeString(compacted, journalLine(0, replica.getBlocks(0, Integer.MAX_VALUE)), StandardCharsets.UTF_8);
+            Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            journalEntries = 1;
+            return;
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writer.write(journalLine(fromIndex, blocks));
+        }
+        journalEntries++;
+    }
+
+    /**
+     * Encodes a batch as a journal line.
+     *
+     * @param fromIndex The index of the first block of the batch.
+     * @param blocks    The blocks of the batch.
+     * @return The JSON-formatted batch, followed by a line terminator.
+     */
+    private static String journalLine(int fromIndex, List<Block> blocks) {
+        ResponseMessage batch = new ResponseMessage(true, "Cached blocks", "getBlocks", null);
+        batch.setStartIndex(fromIndex);
+        batch.setBlocks(blocks);
+        return MessageCodec.toJson(batch) + "\n";
+    }
+}
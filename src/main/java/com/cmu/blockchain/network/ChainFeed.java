@@ -0,0 +1,129 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.network;
+
+import com.cmu.blockchain.core.BlockChain;
+import com.cmu.blockchain.core.ChainListener;
+import com.cmu.blockchain.message.MessageCodec;
+import com.cmu.blockchain.message.ResponseMessage;
+import com.cmu.blockchain.model.Block;
+import com.cmu.blockchain.model.ChainSegment;
+
+import java.io.Closeable;
+import java.util.List;
+
+/**
+ * ChainFeed streams the changes of a blockchain to one follower connection.
+ * Changes are coalesced: the feed only remembers the lowest changed index since the last update was taken,
+ * so a slow follower receives fewer, larger updates instead of making the leader buffer every change.
+ * Each update is a {@code followChain} response carrying the blocks from that index to the head of the chain,
+ * at most {@link #MAX_BLOCKS_PER_UPDATE} at a time, together with the leader's chain size and hash rate.
+ */
+public class ChainFeed implements ChainListener, Closeable {
+
+    /**
+     * The action a follower sends to start the feed. Its data is empty or {@code <chainSize>:<chainHash>}
+     * describing the chain the follower already holds.
+     */
+    public static final String ACTION = "followChain";
+
+    /**
+     * Maximum number of blocks carried by one update; longer catch-ups are split over several updates.
+     */
+    public static final int MAX_BLOCKS_PER_UPDATE = 256;
+
+    private static final int NOTHING_PENDING = Integer.MAX_VALUE;
+
+    private final BlockChain blockchain;
+    private final Runnable onChange; // Wakes up whoever sends the updates.
+    private int pendingFrom = NOTHING_PENDING; // Lowest index changed since the last update, guarded by this.
+    private boolean closed; // Guarded by this.
+
+    /**
+     * Constructs a ChainFeed and starts listening to the blockchain.
+     *
+     * @param blockchain The blockchain to stream.
+     * @param onChange   Called after every change, possibly on a mining thread; must return quickly.
+     */
+    public ChainFeed(BlockChain blockchain, Runnable onChange) {
+        this.blockchain = blockchain;
+        this.onChange = onChange;
+        blockchain.addListener(this);
+    }
+
+    /**
+     * Records that the chain changed from an index on. Also used to request the initial catch-up.
+     *
+     * @param fromIndex The index of the first block that was added or replaced.
+     */
+    @Override
+    public void onChainChanged(int fromIndex) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            pendingFrom = Math.min(pendingFrom, fromIndex);
+            notifyAll();
+        }
+        onChange.run();
+    }
+
+    /**
+     * Takes the next update if the chain changed since the last one.
+     *
+     * @return The JSON-formatted update, or null if there is nothing to send.
+     */
+    public String nextUpdate() {
+        int from;
+        synchronized (this) {
+            if (closed || pendingFrom == NOTHING_PENDING) {
+                return null;
+            }
+            from = pendingFrom;
+            pendingFrom = NOTHING_PENDING;
+        }
+        ChainSegment segment = blockchain.getSegment(from, MAX_BLOCKS_PER_UPDATE);
+        List<Block> blocks = segment.blocks();
+        if (from + blocks.size() < segment.chainSize()) {
+            synchronized (this) {
+                pendingFrom = Math.min(pendingFrom, from + blocks.size()); // Send the rest in the next update
+            }
+        }
+        ResponseMessage update = new ResponseMessage(true, "Chain update", ACTION, null);
+        update.setStartIndex(from);
+        update.setBlocks(blocks);
+        update.setChainSize(segment.chainSize());
+        update.setHashesPerSecond(blockchain.getHashesPerSecond());
+        update.setChainHash(segment.chainHash());
+        update.setServerTimeMillis(System.currentTimeMillis());
+        return MessageCodec.toJson(update);
+    }
+
+    /**
+     * Waits until the chain changes and takes the next update.
+     *
+     * @return The JSON-formatted update, or null once the feed is closed.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public String awaitUpdate() throws InterruptedException {
+        synchronized (this) {
+            while (!closed && pendingFrom == NOTHING_PENDING) {
+                wait();
+            }
+        }
+        return nextUpdate();
+    }
+
+    /**
+     * Stops listening to the blockchain and wakes up a thread waiting for an update.
+     */
+    @Override
+    public void close() {
+        blockchain.removeListener(this);
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+    }
+}
@@ -0,0 +1,397 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.network;
+
+import com.cmu.blockchain.core.BlockChain;
+import com.cmu.blockchain.message.MessageCodec;
+import com.cmu.blockchain.message.ResponseMessage;
+import com.cmu.blockchain.util.LoggerUtil;
+import org.slf4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * ChainRegistry hosts the blockchains of one server: the default chain, used by requests that name no chain, and
+ * any number of named chains, selected by the {@code chain} field of a request. Each named chain is a separate
+ * {@link BlockChain} with its own locks, so tenants mine and read their chains without waiting for each other.
+ * Named chains are created by the first write naming them, up to {@code -Dblockchain.chains.max} chains (1,000 by
+ * default); reads never create a chain. When the registry has a directory, a named chain that has not been used
+ * for the idle timeout is stored there as a single JSON line in the format of a {@code getBlocks} response and
+ * dropped from memory; it is loaded again by the next request naming it.
+ * Requests hold a {@link Lease} on their chain while they use it, and a chain is only evicted while nobody holds
+ * one, so no change is lost to an eviction. A chain with listeners, such as subscribers, is not evicted either.
+ */
+public class ChainRegistry implements Closeable {
+
+    private static final Logger LOGGER = LoggerUtil.getLogger(ChainRegistry.class);
+    private static final Pattern CHAIN_NAME = Pattern.compile("[A-Za-z0-9_-]{1,64}"); // Also safe as a file name.
+    private static final String FILE_SUFFIX = ".chain";
+    private static final int DEFAULT_MAX_CHAINS = 1000;
+
+    private final BlockChain defaultChain;
+    private final Path directory; // Where idle chains are stored, or null to keep every chain in memory.
+    private final long idleNanos;
+    private final int maxChains;
+    private final Map<String, Entry> chains = new ConcurrentHashMap<>(); // Named chains, loaded or being loaded.
+    private final Set<String> names = ConcurrentHashMap.newKeySet(); // Every named chain, in memory or stored.
+
+    /**
+     * Constructs a ChainRegistry keeping every chain in memory.
+     *
+     * @param defaultChain The chain used by requests that name no chain.
+     */
+    public ChainRegistry(BlockChain defaultChain) {
+        this(defaultChain, null, Duration.ZERO, DEFAULT_MAX_CHAINS);
+    }
+
+    /**
+     * Constructs a ChainRegistry storing idle chains in a directory, holding at most 1,000 named chains.
+     *
+     * @param defaultChain The chain used by requests that name no chain; it is never evicted.
+     * @param directory    Where idle chains are stored, or null to keep every chain in memory.
+     * @param idleTimeout  How long a named chain stays in memory after its last use.
+     */
+    public ChainRegistry(BlockChain defaultChain, Path directory, Duration idleTimeout) {
+        this(defaultChain, directory, idleTimeout, DEFAULT_MAX_CHAINS);
+    }
+
+    /**
+     * Constructs a ChainRegistry storing idle chains in a directory.
+     *
+     * @param defaultChain The chain used by requests that name no chain; it is never evicted.
+     * @param directory    Where idle chains are stored, or null to keep every chain in memory.
+     * @param idleTimeout  How long a named chain stays in memory after its last use.
+     * @param maxChains    The maximum number of named chains, counting those stored in the directory.
+     */
+    public ChainRegistry(BlockChain defaultChain, Path directory, Duration idleTimeout, int maxChains) {
+        this.defaultChain = defaultChain;
+        this.directory = directory;
+        this.idleNanos = idleTimeout.toNanos();
+        this.maxChains = maxChains;
+        if (directory != null && Files.isDirectory(directory)) {
+            try (Stream<Path> files = Files.list(directory)) {
+                files.map(file -> file.getFileName().toString())
+                        .filter(file -> file.endsWith(FILE_SUFFIX))
+                        .map(file -> file.substring(0, file.length() - FILE_SUFFIX.length()))
+                        .filter(ChainRegistry::isValidName)
+                        .forEach(names::add);
+            } catch (IOException e) {
+                LOGGER.error("Failed to list stored chains: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Creates a registry storing idle chains in the directory set with {@code -Dblockchain.chains.dir}
+     * ({@code chains} by default) once they have been idle for {@code -Dblockchain.chains.idleSeconds} seconds
+     * (600 by default), and holding at most {@code -Dblockchain.chains.max} named chains (1,000 by default).
+     *
+     * @param defaultChain The chain used by requests that name no chain.
+     * @return The configured registry.
+     */
+    public static ChainRegistry fromSystemProperties(BlockChain defaultChain) {
+        return new ChainRegistry(defaultChain, Path.of(System.getProperty("blockchain.chains.dir", "chains")),
+                Duration.ofSeconds(Long.getLong("blockchain.chains.idleSeconds", 600)),
+                Integer.getInteger("blockchain.chains.max", DEFAULT_MAX_CHAINS));
+    }
+
+    /**
+     * Checks a chain name, which must be made of 1 to 64 letters, digits, {@code _} or {@code -}.
+     *
+     * @param name The name of the chain.
+     * @return True if the name is valid, otherwise false.
+     */
+    public static boolean isValidName(String name) {
+        return name != null && CHAIN_NAME.matcher(name).matches();
+    }
+
+    /**
+     * Gets the chain used by requests that name no chain.
+     *
+     * @return The default chain.
+     */
+    public BlockChain getDefaultChain() {
+        return defaultChain;
+    }
+
+    /**
+     * Takes a lease on an existing chain, loading a named chain first if it is not in memory.
+     * The lease must be closed by the same thread once it is done with the chain.
+     *
+     * @param name The name of the chain, or null for the default chain.
+     * @return The lease, or null if no chain has the name.
+     * @throws IllegalArgumentException If the name is not made of 1 to 64 letters, digits, {@code _} or {@code -}.
+     * @throws IOException              If a stored chain cannot be loaded.
+     */
+    public Lease acquire(String name) throws IOException {
+        if (name == null) {
+            return new Lease(defaultChain, null);
+        }
+        if (!isValidName(name)) {
+            throw new IllegalArgumentException("Invalid chain name: " + name);
+        }
+        return names.contains(name) ? lease(name) : null;
+    }
+
+    /**
+     * Takes a lease on a chain, creating a named chain first if no chain has the name.
+     * The lease must be closed by the same thread once it is done with the chain.
+     *
+     * @param name The name of the chain, or null for the default chain.
+     * @return The lease.
+     * @throws IllegalArgumentException If the name is not made of 1 to 64 letters, digits, {@code _} or {@code -}.
+     * @throws IllegalStateException    If the chain would exceed the maximum number of named chains.
+     * @throws IOException              If a stored chain cannot be loaded.
+     */
+    public Lease acquireOrCreate(String name) throws IOException {
+        if (name == null) {
+            return new Lease(defaultChain, null);
+        }
+        if (!isValidName(name)) {
+            throw new IllegalArgumentException("Invalid chain name: " + name);
+        }
+        if (!names.contains(name)) {
+            synchronized (names) {
+                if (!names.contains(name)) {
+                    if (names.size() >= maxChains) {
+                        throw new IllegalStateException("Cannot create chain " + name + ": the server holds its limit of "
+                                + maxChains + " chains.");
+                    }
+                    names.add(name);
+                }
+            }
+        }
+        return lease(name);
+    }
+
+    /**
+     * Takes a lease on a named chain that exists, loading or creating it first if it is not in memory.
+     *
+     * @param name The valid name of the chain.
+     * @return The lease.
+     * @throws IOException If a stored chain cannot be loaded.
+     */
+    private Lease lease(String name) throws IOException {
+        while (true) {
+            Entry entry = chains.computeIfAbsent(name, Entry::new);
+            entry.users.readLock().lock();
+            if (entry.evicted) {
+                entry.users.readLock().unlock(); // Stored while we waited; load it again
+                continue;
+            }
+            try {
+                entry.load();
+            } catch (IOException | RuntimeException e) {
+                entry.users.readLock().unlock();
+                throw e;
+            }
+            entry.lastUsedNanos = System.nanoTime();
+            return new Lease(entry.blockchain, entry);
+        }
+    }
+
+    /**
+     * Stores and drops the named chains that have not been used for the idle timeout.
+     * A chain in use is skipped and considered again by a later call.
+     *
+     * @return The number of chains evicted.
+     */
+    public int evictIdle() {
+        if (directory == null) {
+            return 0;
+        }
+        int evicted = 0;
+        long now = System.nanoTime();
+        for (Entry entry : chains.values()) {
+            if (now - entry.lastUsedNanos >= idleNanos && evict(entry, true)) {
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Evicts idle chains on a daemon thread, checking twice per idle timeout, so a chain stays in memory for at
+     * most one and a half timeouts after its last use.
+     *
+     * @return The executor running the evictions, which the caller may shut down.
+     */
+    public ScheduledExecutorService startEvictor() {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("chain-evictor").daemon().factory());
+        long intervalMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(idleNanos) / 2);
+        executor.scheduleWithFixedDelay(this::evictIdle, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        return executor;
+    }
+
+    /**
+     * Gets the number of named chains held in memory.
+     *
+     * @return The number of loaded chains.
+     */
+    public int getLoadedChains() {
+        return chains.size();
+    }
+
+    /**
+     * Indicates whether a named chain exists, in memory or stored.
+     *
+     * @param name The name of the chain.
+     * @return True if the chain exists, otherwise false.
+     */
+    public boolean contains(String name) {
+        return names.contains(name);
+    }
+
+    /**
+     * Stores every named chain that is not in use, so the chains survive a restart.
+     */
+    @Override
+    public void close() {
+        if (directory != null) {
+            chains.values().forEach(entry -> evict(entry, false));
+        }
+    }
+
+    /**
+     * Stores a chain and drops it from memory, unless it is in use.
+     *
+     * @param entry        The chain to evict.
+     * @param keepListened Whether a chain with listeners counts as in use.
+     * @return True if the chain was evicted, false if it is in use or could not be stored.
+     */
+    private boolean evict(Entry entry, boolean keepListened) {
+        if (!entry.users.writeLock().tryLock()) {
+            return false;
+        }
+        try {
+            if (entry.evicted || (keepListened && entry.blockchain != null && entry.blockchain.hasListeners())) {
+                return false;
+            }
+            if (entry.blockchain != null) {
+                store(entry.name, entry.blockchain);
+            }
+            entry.evicted = true;
+            chains.remove(entry.name, entry);
+            LOGGER.info("Evicted idle chain " + entry.name + ".");
+            return true;
+        } catch (IOException e) {
+            LOGGER.error("Failed to store chain " + entry.name + ": " + e.getMessage());
+            return false;
+        } finally {
+            entry.users.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes a chain to its file, replacing the previous copy atomically.
+     *
+     * @param name       The name of the chain.
+     * @param blockchain The chain.
+     * @throws IOException If the file cannot be written.
+     */
+    private void store(String name, BlockChain blockchain) throws IOException {
+        ResponseMessage stored = new ResponseMessage(true, "Stored chain " + name, "getBlocks", null);
+        stored.setStartIndex(0);
+        stored.setBlocks(blockchain.getBlocks(0, Integer.MAX_VALUE));
+        stored.setChainHash(blockchain.getChainHash());
+        Files.createDirectories(directory);
+        Path file = directory.resolve(name + FILE_SUFFIX);
+        Path written = directory.resolve(name + FILE_SUFFIX + ".tmp");
+        Files.writeString(written, MessageCodec.toJson(stored) + "\n", StandardCharsets.UTF_8);
+        Files.move(written, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * A named chain and the leases on it.
+     */
+    private final class Entry {
+        private final String name;
+        private final ReentrantReadWriteLock users = new ReentrantReadWriteLock(); // Leases read, eviction writes.
+        private final ReentrantLock loadLock = new ReentrantLock(); // Lets a single lease create or load the chain.
+        private volatile BlockChain blockchain; // Null until loaded.
+        private volatile boolean evicted; // Set, under the write lock, once the chain is stored and dropped.
+        private volatile long lastUsedNanos = System.nanoTime();
+
+        Entry(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Loads the chain from its file, or creates it if it was never stored. The caller must hold a lease.
+         *
+         * @throws IOException If the stored chain cannot be read.
+         */
+        void load() throws IOException {
+            if (blockchain != null) {
+                return;
+            }
+            loadLock.lock();
+            try {
+                if (blockchain != null) {
+                    return;
+                }
+                Path file = directory == null ? null : directory.resolve(name + FILE_SUFFIX);
+                if (file != null && Files.exists(file)) {
+                    ResponseMessage stored = MessageCodec.parseResponse(Files.readString(file, StandardCharsets.UTF_8));
+                    blockchain = BlockChain.restore(stored.getBlocks(), stored.getChainHash(), defaultChain.getHashesPerSecond());
+                    LOGGER.info("Loaded chain " + name + " with " + blockchain.getChainSize() + " blocks.");
+                } else {
+                    blockchain = BlockChain.create(defaultChain.getHashesPerSecond());
+                    LOGGER.info("Created chain " + name + ".");
+                }
+            } finally {
+                loadLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * A caller's use of a chain, which keeps the chain from being evicted until it is closed.
+     */
+    public static final class Lease implements AutoCloseable {
+        private final BlockChain blockchain;
+        private final Entry entry; // Null for the default chain, which is never evicted.
+
+        private Lease(BlockChain blockchain, Entry entry) {
+            this.blockchain = blockchain;
+            this.entry = entry;
+        }
+
+        /**
+         * Gets the leased chain.
+         *
+         * @return The chain.
+         */
+        public BlockChain getBlockChain() {
+            return blockchain;
+        }
+
+        /**
+         * Releases the lease.
+         */
+        @Override
+        public void close() {
+            if (entry != null) {
+                entry.users.readLock().unlock();
+            }
+        }
+    }
+}
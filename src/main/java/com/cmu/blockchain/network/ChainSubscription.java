@@ -0,0 +1,269 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.network;
+
+import com.cmu.blockchain.core.BlockChain;
+import com.cmu.blockchain.core.ChainListener;
+import com.cmu.blockchain.message.MessageCodec;
+import com.cmu.blockchain.message.ResponseMessage;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ChainSubscription pushes a compact event to one monitoring connection whenever a block is added, a block is
+ * corrupted, the chain is repaired or blocks are replaced, so monitors no longer poll {@code viewBlockchainStatus}.
+ * Each event is a {@code subscribe} response naming the {@code event} and carrying the index of the first changed
+ * block as {@code startIndex}, the new {@code chainSize} and {@code chainHash}, and the server time.
+ * The first event, {@code subscribed}, reports the chain as it was when the subscription started.
+ * Events wait in a bounded buffer until the connection takes them, so a slow subscriber never holds up the miner,
+ * which only appends to the buffer. When the buffer is full, the {@link OverflowPolicy} decides: either the oldest
+ * event is dropped and the next event delivered reports how many were lost in {@code dropped}, or the subscriber
+ * gets a final {@code overflow} event and is disconnected.
+ */
+public class ChainSubscription implements ChainListener, Closeable {
+
+    /**
+     * The action a client sends to subscribe. Its data is empty or the name of an {@link OverflowPolicy}.
+     */
+    public static final String ACTION = "subscribe";
+
+    /**
+     * Default number of events buffered per subscriber, used when no system property overrides it.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 64;
+
+    /**
+     * What happens to a subscriber whose buffer is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Drop the oldest buffered event; later events still carry the current chain hash and height.
+         */
+        DROP,
+        /**
+         * Send a final {@code overflow} event and close the subscription.
+         */
+        DISCONNECT;
+
+        /**
+         * Parses the policy named in a subscribe request.
+         *
+         * @param name The policy name, ignoring case, or null or empty for {@link #DROP}.
+         * @return The policy.
+         * @throws IllegalArgumentException If the name is not a policy.
+         */
+        public static OverflowPolicy parse(String name) {
+            return name == null || name.isBlank() ? DROP : valueOf(name.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final BlockChain blockchain;
+    private final Runnable onChange; // Wakes up whoever sends the events.
+    private final int bufferSize;
+    private final OverflowPolicy policy;
+    private final ReentrantLock lock = new ReentrantLock(); // Guards the fields below; never held while sending.
+    private final Condition eventAdded = lock.newCondition();
+    private final ArrayDeque<Event> events = new ArrayDeque<>();
+    private long dropped; // Events dropped since the last one was taken.
+    private boolean overflowed; // The buffer overflowed under the DISCONNECT policy.
+    private boolean closed;
+
+    /**
+     * Constructs a ChainSubscription and starts listening to the blockchain.
+     *
+     * @param blockchain The blockchain to watch.
+     * @param bufferSize The maximum number of events waiting to be sent.
+     * @param policy     What happens when the buffer is full.
+     * @param onChange   Called after every event, possibly on a mining thread; must return quickly.
+     */
+    public ChainSubscription(BlockChain blockchain, int bufferSize, OverflowPolicy policy, Runnable onChange) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("A subscription needs room for at least one event.");
+        }
+        this.blockchain = blockchain;
+        this.bufferSize = bufferSize;
+        this.policy = policy;
+        this.onChange = onChange;
+        blockchain.addListener(this);
+        // Listen before reading the chain, so no change in between is missed
+        int chainSize = blockchain.getChainSize();
+        Event subscribed = new Event("subscribed", chainSize, chainSize, blockchain.getChainHash(), System.currentTimeMillis());
+        lock.lock();
+        try {
+            events.addFirst(subscribed);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records a change whose cause is not known.
+     *
+     * @param fromIndex The index of the first block that was added or replaced.
+     */
+    @Override
+    public void onChainChanged(int fromIndex) {
+        onChainChanged(fromIndex, Change.REPLACED);
+    }
+
+    /**
+     * Buffers an event for the change, applying the overflow policy if the buffer is full.
+     *
+     * @param fromIndex The index of the first block that was added or replaced.
+     * @param change    What changed the chain.
+     */
+    @Override
+    public void onChainChanged(int fromIndex, Change change) {
+        Event event = new Event(eventName(change), fromIndex, blockchain.getChainSize(), blockchain.getChainHash(),
+                System.currentTimeMillis());
+        lock.lock();
+        try {
+            if (closed || overflowed) {
+                return;
+            }
+            if (events.size() == bufferSize) {
+                if (policy == OverflowPolicy.DISCONNECT) {
+                    overflowed = true;
+                    events.clear();
+                    events.add(new Event("overflow", fromIndex, event.chainSize(), event.chainHash(), event.timeMillis()));
+                } else {
+                    events.poll();
+                    dropped++;
+                    events.add(event);
+                }
+            } else {
+                events.add(event);
+            }
+            eventAdded.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        onChange.run();
+    }
+
+    /**
+     * Takes the next event, if any.
+     *
+     * @return The JSON-formatted event, or null if there is nothing to send.
+     */
+    public String nextEvent() {
+        Event event;
+        long lost;
+        boolean last;
+        lock.lock();
+        try {
+            if (closed || (event = events.poll()) == null) {
+                return null;
+            }
+            lost = dropped;
+            dropped = 0;
+            last = overflowed;
+        } finally {
+            lock.unlock();
+        }
+        if (last) {
+            close(); // Nothing follows the overflow event
+        }
+        return encode(event, lost);
+    }
+
+    /**
+     * Waits until an event is buffered and takes it.
+     *
+     * @return The JSON-formatted event, or null once the subscription is closed.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public String awaitEvent() throws InterruptedException {
+        lock.lock();
+        try {
+            while (!closed && events.isEmpty()) {
+                eventAdded.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+        return nextEvent();
+    }
+
+    /**
+     * Indicates whether the subscription has ended, because it was closed or after its overflow event was taken.
+     *
+     * @return True if no more events will be delivered, otherwise false.
+     */
+    public boolean isClosed() {
+        lock.lock();
+        try {
+            return closed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops listening to the blockchain and wakes up a thread waiting for an event.
+     */
+    @Override
+    public void close() {
+        blockchain.removeListener(this);
+        lock.lock();
+        try {
+            closed = true;
+            events.clear();
+            eventAdded.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Names the event for a change.
+     *
+     * @param change What changed the chain.
+     * @return The event name.
+     */
+    private static String eventName(Change change) {
+        return switch (change) {
+            case APPENDED -> "blockAdded";
+            case CORRUPTED -> "blockCorrupted";
+            case REPAIRED -> "chainRepaired";
+            case REPLACED -> "chainReplaced";
+        };
+    }
+
+    /**
+     * Encodes an event as a {@code subscribe} response.
+     *
+     * @param event The event.
+     * @param lost  The number of events dropped before it.
+     * @return The JSON-formatted event.
+     */
+    private static String encode(Event event, long lost) {
+        ResponseMessage message = new ResponseMessage(true, null, ACTION, null);
+        message.setEvent(event.name());
+        message.setStartIndex(event.fromIndex());
+        message.setChainSize(event.chainSize());
+        message.setChainHash(event.chainHash());
+        message.setServerTimeMillis(event.timeMillis());
+        if (lost > 0) {
+            message.setDropped(lost);
+        }
+        return MessageCodec.toJson(message);
+    }
+
+    /**
+     * A buffered change, encoded only once it is sent.
+     *
+     * @param name       The event name.
+     * @param fromIndex  The index of the first changed block.
+     * @param chainSize  The number of blocks after the change.
+     * @param chainHash  The chain hash after the change.
+     * @param timeMillis When the change happened.
+     */
+    private record Event(String name, int fromIndex, int chainSize, String chainHash, long timeMillis) {
+    }
+}
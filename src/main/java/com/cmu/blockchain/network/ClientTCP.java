@@ -4,42 +4,58 @@
 package com.cmu.blockchain.network;
 
 import java.io.*;
-import java.net.Socket;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 
+import com.cmu.blockchain.message.MessageCodec;
 import com.cmu.blockchain.message.RequestMessage;
 import com.cmu.blockchain.message.ResponseMessage;
 import com.cmu.blockchain.util.LoggerUtil;
-import com.google.gson.Gson; // Import Gson for JSON handling.
 import org.slf4j.Logger;
 
 /**
  * This class implements a TCP client that interacts with a blockchain server.
  * It allows the user to perform various operations related to a blockchain,
  * such as adding transactions, verifying integrity, and viewing blockchain status.
+ * It connects over TCP, or through the Unix domain socket of a server on the same host.
  */
 public class ClientTCP {
     
     private static final Logger LOGGER = LoggerUtil.getLogger(ClientTCP.class);
 
-    // Gson instance for handling JSON serialization and deserialization.
-    private static final Gson gson = new Gson();
     // The port number of the server to connect to.
     private static final int serverPort = 7777;
     // The hostname or IP address of the server.
     private static final String hostname = "localhost"; // Can be modified to connect to different servers.
 
+    /**
+     * Main method for starting the blockchain client.
+     *
+     * @param args Command-line arguments; an optional port selects another server, such as a follower, and an
+     *             optional path selects the Unix domain socket of a server on this host.
+     */
     public static void main(String[] args) {
+        String target = args.length > 0 ? args[0] : String.valueOf(serverPort);
+        SocketAddress address = target.chars().allMatch(Character::isDigit)
+                ? new InetSocketAddress(hostname, Integer.parseInt(target)) : UnixDomainSocketAddress.of(target);
         try (
                 // Establish a socket connection to the server.
-                Socket clientSocket = new Socket(hostname, serverPort);
+                SocketChannel channel = SocketChannel.open(address);
                 // Create a PrintWriter to send data to the server.
-                PrintWriter out = new PrintWriter(clientSocket.getOutputStream(), true);
-                // Create a BufferedReader to receive data from the server.
-                BufferedReader in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
+                PrintWriter out = new PrintWriter(Channels.newOutputStream(channel), true);
+                // Create a BufferedReader to receive data from the server, decompressing large responses.
+                BufferedReader in = new CompressedLineReader(new InputStreamReader(Channels.newInputStream(channel)));
                 // Scanner to read user input from the console.
                 Scanner scanner = new Scanner(System.in)
         ) {
+            negotiateCompression(out, in); // Shrinks large responses such as the whole chain
             handleClient(out, in, scanner); // Refactored handling method
         } catch (Exception e) {
             LOGGER.error("Error: " + e.getMessage());
@@ -97,17 +113,97 @@ public static void handleClient(PrintWriter out, BufferedReader in, Scanner scan
     private static void handleUserInput(String userInput, PrintWriter out, BufferedReader in, Scanner scanner) throws IOException {
         RequestMessage request = createRequest(userInput, scanner); // Create a request based on the user input.
         if (request != null) {
-            String jsonRequest = gson.toJson(request); // Convert the request to JSON.
+            String jsonRequest = MessageCodec.toJson(request); // Convert the request to JSON.
             out.println(jsonRequest); // Send JSON request to the server.
 
             String jsonResponse = in.readLine(); // Wait for and read the response from the server.
-            ResponseMessage response = gson.fromJson(jsonResponse, ResponseMessage.class); // Deserialize JSON response.
+            ResponseMessage response = MessageCodec.parseResponse(jsonResponse); // Deserialize JSON response.
             displayResponse(response); // Display the server's response.
         } else {
             LOGGER.info("Invalid option selected."); // Invalid menu option.
         }
     }
 
+    /**
+     * Asks the server to compress large responses on this connection. Servers without compression support
+     * refuse, and the connection simply stays uncompressed.
+     *
+     * @param out PrintWriter to send data to the server.
+     * @param in  BufferedReader to receive data from the server; must be a {@link CompressedLineReader}
+     *            for the responses to be readable afterward.
+     * @return True if the server compresses large responses from now on, otherwise false.
+     * @throws IOException If an I/O error occurs or the server closes the connection.
+     */
+    public static boolean negotiateCompression(PrintWriter out, BufferedReader in) throws IOException {
+        out.println(MessageCodec.toJson(new RequestMessage(LineCompressor.ACTION, LineCompressor.DEFLATE, 0)));
+        out.flush();
+        String jsonResponse = in.readLine();
+        if (jsonResponse == null) {
+            throw new EOFException("Server closed the connection while negotiating compression.");
+        }
+        return MessageCodec.parseResponse(jsonResponse).isSuccess();
+    }
+
+    /**
+     * Submits many transactions in one {@code addTransactions} request. The server mines them one after another
+     * into consecutive blocks, so a bulk import costs one round trip instead of one per transaction.
+     *
+     * @param transactions The transaction payloads.
+     * @param difficulty   The difficulty level of every block.
+     * @param out          PrintWriter to send data to the server.
+     * @param in           BufferedReader to receive data from the server.
+     * @return The server's response, whose results give the block index or error of each transaction.
+     * @throws IOException If an I/O error occurs or the server closes the connection.
+     */
+    public static ResponseMessage addTransactions(List<String> transactions, int difficulty, PrintWriter out, BufferedReader in) throws IOException {
+        out.println(MessageCodec.toJson(RequestMessage.batch(transactions, difficulty)));
+        String jsonResponse = in.readLine();
+        if (jsonResponse == null) {
+            throw new EOFException("Server closed the connection before answering the batch.");
+        }
+        return MessageCodec.parseResponse(jsonResponse);
+    }
+
+    /**
+     * Sends several requests back-to-back on one connection without waiting for each response, then
+     * collects the responses, which the server may return in any order, by their request ids.
+     * The whole batch costs a single network round trip instead of one per request.
+     *
+     * @param requests The requests to send.
+     * @param out      PrintWriter to send data to the server.
+     * @param in       BufferedReader to receive data from the server.
+     * @return The responses, in the same order as the requests.
+     * @throws IOException If an I/O error occurs or the server closes the connection early.
+     */
+    public static List<ResponseMessage> sendPipelined(List<RequestMessage> requests, PrintWriter out, BufferedReader in) throws IOException {
+        Map<Long, Integer> positions = new HashMap<>(); // Request id -> position of the request in the batch.
+        for (int i = 0; i < requests.size(); i++) {
+            long requestId = i + 1;
+            positions.put(requestId, i);
+            out.print(MessageCodec.toJson(requests.get(i).withRequestId(requestId)));
+            out.print('\n');
+        }
+        out.flush(); // Send the whole batch at once.
+
+        ResponseMessage[] responses = new ResponseMessage[requests.size()];
+        int received = 0;
+        while (received < requests.size()) {
+            String jsonResponse = in.readLine();
+            if (jsonResponse == null) {
+                throw new EOFException("Server closed the connection with " + (requests.size() - received) + " responses outstanding.");
+            }
+            ResponseMessage response = MessageCodec.parseResponse(jsonResponse);
+            Integer position = response.getRequestId() == null ? null : positions.remove(response.getRequestId());
+            if (position == null) {
+                LOGGER.warn("Ignoring response without a matching request id: " + jsonResponse);
+                continue;
+            }
+            responses[position] = response;
+            received++;
+        }
+        return List.of(responses);
+    }
+
     /**
      * Creates a request message from user input. The method prompts the user for additional
      * details based on the selected action, such as transaction details or the difficulty level
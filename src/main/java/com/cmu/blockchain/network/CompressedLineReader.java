@@ -0,0 +1,75 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.network;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * CompressedLineReader reads response lines from a server, decompressing those sent by a {@link LineCompressor}.
+ * Plain lines are returned as they are, so the reader can be used before compression is negotiated and with
+ * servers that do not support it. One streaming {@link Inflater} decodes every compressed line of the connection,
+ * mirroring the server's deflater.
+ */
+public class CompressedLineReader extends BufferedReader {
+
+    private Inflater inflater; // Created with the first compressed line.
+    private final byte[] chunk = new byte[8192];
+
+    /**
+     * Constructs a CompressedLineReader.
+     *
+     * @param in The reader of the connection.
+     */
+    public CompressedLineReader(Reader in) {
+        super(in);
+    }
+
+    /**
+     * Reads the next line, decompressing it if needed.
+     *
+     * @return The JSON-formatted line, or null at the end of the stream.
+     * @throws IOException If reading fails or a compressed line is corrupt.
+     */
+    @Override
+    public String readLine() throws IOException {
+        String line = super.readLine();
+        if (line == null || !line.startsWith(LineCompressor.PREFIX)) {
+            return line;
+        }
+        if (inflater == null) {
+            inflater = new Inflater(true);
+        }
+        try {
+            inflater.setInput(Base64.getDecoder().decode(line.substring(LineCompressor.PREFIX.length())));
+            ByteArrayOutputStream decompressed = new ByteArrayOutputStream(line.length() * 4);
+            int length;
+            while ((length = inflater.inflate(chunk)) > 0) {
+                decompressed.write(chunk, 0, length);
+            }
+            return decompressed.toString(StandardCharsets.UTF_8);
+        } catch (DataFormatException | IllegalArgumentException e) {
+            throw new IOException("Corrupt compressed line: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Closes the reader and releases the native memory of the inflater.
+     *
+     * @throws IOException If closing the underlying reader fails.
+     */
+    @Override
+    public void close() throws IOException {
+        super.close();
+        if (inflater != null) {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,412 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.network;
+
+import com.cmu.blockchain.core.BlockChain;
+import com.cmu.blockchain.message.MessageCodec;
+import com.cmu.blockchain.message.RequestMessage;
+import com.cmu.blockchain.message.ResponseMessage;
+import com.cmu.blockchain.metrics.ServerMetrics;
+import com.cmu.blockchain.util.LoggerUtil;
+import org.slf4j.Logger;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * FollowerServer is a read-only replica of a leader server.
+ * It follows the leader's chain over a {@code followChain} connection, verifies every streamed block before
+ * accepting it, and serves {@code viewBlockchainStatus}, {@code viewBlockchain} and {@code verifyBlockchain}
+ * from its own copy, so reads scale by adding followers. Writes ({@code addTransaction}, {@code addTransactions},
+ * {@code corruptBlockchain}, {@code repairBlockchain} and {@code submitBlock}) are forwarded to the leader; once a
+ * forwarded write succeeds, the follower waits briefly for it to be replicated so the client can read its own write.
+ * The follower only replicates the leader's default chain: writes naming a chain are forwarded like the others,
+ * and other requests naming a chain are refused, since they run on the event loops and must not wait on the leader.
+ * Idempotency keys are forwarded too, so the leader deduplicates a retry whichever server it reaches.
+ * A follower mines nothing itself, so {@code getMiningStats} is forwarded as well and reports the leader's mining.
+ * Updates that fail verification, such as a corrupted block, are rejected and the follower keeps serving the
+ * last verified chain until the leader repairs it.
+ * Replication lag is reported by the {@code getMetrics} action under {@code gauges}.
+ */
+public class FollowerServer implements Closeable {
+
+    private static final Logger LOGGER = LoggerUtil.getLogger(FollowerServer.class);
+
+    private static final Set<String> FORWARDED_ACTIONS = Set.of("addTransaction", "addTransactions", "corruptBlockchain",
+            "repairBlockchain", "submitBlock", "getMiningStats");
+    private static final String NAMED_CHAIN_REFUSAL = "A follower only serves the default chain; send requests "
+            + "naming a chain to the leader."; // Answer to reads and subscriptions naming a chain.
+    private static final long RECONNECT_DELAY_MILLIS = 1000; // Pause before reconnecting to the leader.
+    private static final long SYNC_TIMEOUT_SECONDS = 60; // Longest wait for the initial copy of the chain.
+    private static final long REPLICATION_WAIT_MILLIS = 5000; // Longest wait for a forwarded write to come back.
+    private static final int LEADER_TIMEOUT_MILLIS = (int) TimeUnit.SECONDS.toMillis(
+            Long.getLong("blockchain.follower.leaderTimeoutSeconds", 120)); // Longest wait for a forwarded reply.
+
+    private final String leaderHost;
+    private final int leaderPort;
+    private final BlockChain replica = BlockChain.createReplica(); // Verified copy of the leader's chain.
+    private final FollowerRequestHandler handler = new FollowerRequestHandler();
+    private final RequestScheduler scheduler;
+    private final NioServerTCP server;
+    private final Thread replicationThread;
+    private final CountDownLatch synced = new CountDownLatch(1); // Released once the first copy is in place.
+    private final Object replicated = new Object(); // Notified after every applied update.
+
+    private final AtomicLong leaderChainSize = new AtomicLong(); // Chain size reported by the latest update.
+    private final AtomicLong lagMillis = new AtomicLong(); // Delay between the leader sending and applying an update.
+    private final AtomicLong rejectedUpdates = new AtomicLong(); // Updates that failed verification.
+    private volatile boolean leaderConnected;
+    private volatile boolean running;
+    private volatile Socket feedSocket; // Connection streaming the chain, closed to stop replication.
+
+    private volatile Socket leaderSocket; // Connection forwarding writes, guarded by the handler; closed without it.
+    private PrintWriter leaderOut;
+    private BufferedReader leaderIn;
+
+    /**
+     * Constructs a FollowerServer. Call {@link #start()} to copy the chain and begin serving.
+     *
+     * @param leaderHost The host name of the leader.
+     * @param leaderPort The port of the leader.
+     * @param address    The address to serve clients on.
+     * @param eventLoops The number of event-loop threads serving clients.
+     * @throws IOException If the listening socket cannot be opened.
+     */
+    public FollowerServer(String leaderHost, int leaderPort, SocketAddress address, int eventLoops) throws IOException {
+        this.leaderHost = leaderHost;
+        this.leaderPort = leaderPort;
+        // Forwarded writes wait on the leader, so they all run on worker threads instead of the event loops
+        this.scheduler = RequestScheduler.fromSystemProperties(handler, FORWARDED_ACTIONS.toArray(new String[0]));
+        this.server = new NioServerTCP(address, handler, eventLoops, scheduler);
+        this.replicationThread = Thread.ofPlatform().name("follower-replication").daemon().unstarted(this::replicate);
+
+        ServerMetrics metrics = handler.getMetrics();
+        metrics.registerGauge("replicationLagBlocks", () -> Math.max(0, leaderChainSize.get() - replica.getChainSize()));
+        metrics.registerGauge("replicationLagMillis", lagMillis::get);
+        metrics.registerGauge("rejectedUpdates", rejectedUpdates::get);
+        metrics.registerGauge("leaderConnected", () -> leaderConnected ? 1 : 0);
+    }
+
+    /**
+     * Main method for starting a follower server.
+     *
+     * @param args Command-line arguments: {@code [leaderHost] [leaderPort] [port]}, by default
+     *             {@code localhost 7777 7778}.
+     */
+    public static void main(String[] args) {
+        String leaderHost = args.length > 0 ? args[0] : "localhost";
+        int leaderPort = args.length > 1 ? Integer.parseInt(args[1]) : 7777;
+        int serverPort = args.length > 2 ? Integer.parseInt(args[2]) : 7778;
+        try {
+            FollowerServer follower = new FollowerServer(leaderHost, leaderPort, new InetSocketAddress(serverPort), NioServerTCP.DEFAULT_EVENT_LOOPS);
+            Runtime.getRuntime().addShutdownHook(new Thread(follower::close));
+            follower.start();
+            LOGGER.info("Follower of " + leaderHost + ":" + leaderPort + " running on port " + serverPort);
+        } catch (IOException e) {
+            LOGGER.error("Follower Exception: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Starts following the leader, waits for the first copy of its chain and then starts serving clients.
+     *
+     * @throws IOException If the chain could not be copied in time.
+     */
+    public void start() throws IOException {
+        running = true;
+        replicationThread.start();
+        try {
+            if (!synced.await(SYNC_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                close();
+                throw new IOException("Timed out copying the chain from " + leaderHost + ":" + leaderPort);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new InterruptedIOException("Interrupted while copying the chain");
+        }
+        server.start();
+    }
+
+    /**
+     * Gets the port the follower serves clients on.
+     *
+     * @return The local port of the listening socket.
+     */
+    public int getLocalPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * Gets the follower's copy of the chain.
+     *
+     * @return The replica.
+     */
+    public BlockChain getBlockChain() {
+        return replica;
+    }
+
+    /**
+     * Stops serving clients and following the leader.
+     */
+    @Override
+    public void close() {
+        running = false;
+        server.close();
+        scheduler.close();
+        replicationThread.interrupt();
+        closeQuietly(feedSocket);
+        closeQuietly(leaderSocket); // Unblocks a forward waiting on the leader before taking its lock
+        synchronized (handler) {
+            closeQuietly(leaderSocket);
+            leaderSocket = null;
+        }
+    }
+
+    /**
+     * Follows the leader's chain, reconnecting whenever the connection is lost.
+     */
+    private void replicate() {
+        while (running) {
+            try (Socket socket = new Socket(leaderHost, leaderPort);
+                 PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream()), true);
+                 BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+                feedSocket = socket;
+                String ownChain = replica.getChainSize() == 0 ? "" : replica.getChainSize() + ":" + replica.getChainHash();
+                out.println(MessageCodec.toJson(new RequestMessage(ChainFeed.ACTION, ownChain, 0)));
+                leaderConnected = true;
+                LOGGER.info("Following the chain of " + leaderHost + ":" + leaderPort);
+                String line;
+                while ((line = in.readLine()) != null) {
+                    apply(MessageCodec.parseResponse(line));
+                }
+                LOGGER.error("Leader closed the chain feed.");
+            } catch (IOException e) {
+                if (running) {
+                    LOGGER.error("Lost connection to the leader: " + e.getMessage());
+                }
+            } finally {
+                leaderConnected = false;
+            }
+            try {
+                Thread.sleep(RECONNECT_DELAY_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Verifies and applies one chain update from the leader.
+     *
+     * @param update The update received from the leader.
+     */
+    private void apply(ResponseMessage update) {
+        if (update == null || !update.isSuccess() || update.getBlocks() == null || update.getStartIndex() == null) {
+            LOGGER.error("Unexpected message from the leader: " + (update == null ? null : update.getMessage()));
+            return;
+        }
+        try {
+            replica.replaceFrom(update.getStartIndex(), update.getBlocks());
+        } catch (IllegalArgumentException e) {
+            rejectedUpdates.incrementAndGet();
+            LOGGER.error("Rejected chain update from the leader: " + e.getMessage());
+        }
+        replica.setHashesPerSecond((int) update.getHashesPerSecond());
+        leaderChainSize.set(update.getChainSize());
+        if (update.getServerTimeMillis() != null) {
+            lagMillis.set(Math.max(0, System.currentTimeMillis() - update.getServerTimeMillis()));
+        }
+        synchronized (replicated) {
+            replicated.notifyAll();
+        }
+        if (replica.getChainSize() > 0) {
+            synced.countDown();
+        }
+    }
+
+    /**
+     * Waits until the replica reflects a write the leader has acknowledged, or until the wait times out.
+     *
+     * @param response The leader's response to the forwarded write.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    private void awaitReplication(ResponseMessage response) throws InterruptedException {
+        if (!response.isSuccess() || response.getChainHash() == null) {
+            return;
+        }
+        long deadline = System.currentTimeMillis() + REPLICATION_WAIT_MILLIS;
+        synchronized (replicated) {
+            while (replica.getChainSize() < response.getChainSize()
+                    || (replica.getChainSize() == response.getChainSize() && !replica.getChainHash().equals(response.getChainHash()))) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    LOGGER.error("Write not replicated within " + REPLICATION_WAIT_MILLIS + " ms");
+                    return;
+                }
+                replicated.wait(remaining);
+            }
+        }
+    }
+
+    /**
+     * Closes a socket, logging instead of propagating failures.
+     *
+     * @param socket The socket to close, possibly null.
+     */
+    private static void closeQuietly(Socket socket) {
+        if (socket == null) {
+            return;
+        }
+        try {
+            socket.close();
+        } catch (IOException e) {
+            LOGGER.error("Error closing leader connection: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Request handler of the follower: reads are served from the replica, writes are forwarded to the leader.
+     */
+    private final class FollowerRequestHandler extends RequestHandler {
+
+        FollowerRequestHandler() {
+            super(replica);
+        }
+
+        /**
+         * Processes a parsed request, forwarding writes to the leader.
+         *
+         * @param request       The request received from the client.
+         * @param receivedNanos The {@link System#nanoTime()} at which the request line was received.
+         * @return A JSON-formatted response to be sent back to the client.
+         */
+        @Override
+        public String processRequest(RequestMessage request, long receivedNanos) {
+            if (request == null || (request.chain() == null && !FORWARDED_ACTIONS.contains(request.action()))) {
+                return super.processRequest(request, receivedNanos);
+            }
+            ServerMetrics.ActionMetrics actionMetrics = getMetrics().forAction(request.action());
+            if (!FORWARDED_ACTIONS.contains(request.action())) {
+                ResponseMessage refused = new ResponseMessage(false, NAMED_CHAIN_REFUSAL, request.action(), null);
+                refused.setRequestId(request.requestId());
+                String jsonResponse = MessageCodec.toJson(refused);
+                actionMetrics.recordTotal(System.nanoTime() - receivedNanos);
+                getMetrics().requestFinished(jsonResponse.length() + 1L);
+                return jsonResponse;
+            }
+            try {
+                long processStart = System.nanoTime();
+                ResponseMessage response = forward(request);
+                if (request.chain() == null) {
+                    awaitReplication(response);
+                }
+                long encodeStart = System.nanoTime();
+                actionMetrics.recordProcess(encodeStart - processStart);
+                String jsonResponse = MessageCodec.toJson(response);
+                long encodeEnd = System.nanoTime();
+                actionMetrics.recordEncode(encodeEnd - encodeStart);
+                actionMetrics.recordTotal(encodeEnd - receivedNanos);
+                getMetrics().requestFinished(jsonResponse.length() + 1L);
+                return jsonResponse;
+            } catch (Exception e) {
+                getMetrics().recordError(request.action());
+                return errorResponse(e, request.requestId());
+            }
+        }
+
+        /**
+         * Subscribes a client to the events of the replica. A follower only replicates the default chain,
+         * so a subscription naming a chain is refused rather than served from a local chain of that name.
+         *
+         * @param request       The subscribe request.
+         * @param receivedNanos The {@link System#nanoTime()} at which the request line was received.
+         * @param onChange      Called whenever an event is ready to be sent.
+         * @return The subscription, which the caller must close when the client disconnects.
+         * @throws IllegalArgumentException If the request names a chain or an unknown policy.
+         * @throws IOException              If the chain cannot be loaded.
+         */
+        @Override
+        public ChainSubscription openSubscription(RequestMessage request, long receivedNanos, Runnable onChange) throws IOException {
+            if (request.chain() != null) {
+                throw new IllegalArgumentException(NAMED_CHAIN_REFUSAL);
+            }
+            return super.openSubscription(request, receivedNanos, onChange);
+        }
+
+        /**
+         * Sends a write to the leader over the forwarding connection and returns the leader's response,
+         * carrying the client's request id.
+         * A failed exchange is retried once on a fresh connection, but only if the request never reached the
+         * leader or carries an idempotency key: otherwise the leader may already have mined it.
+         *
+         * @param request The write to forward.
+         * @return The leader's response.
+         * @throws IOException If the leader cannot be reached or its reply was lost.
+         */
+        private synchronized ResponseMessage forward(RequestMessage request) throws IOException {
+            String line = MessageCodec.toJson(new RequestMessage(request.action(), request.data(), request.difficulty(),
+                    null, request.transactions(), request.chain(), request.idempotencyKey()));
+            String reply;
+            boolean sent = false;
+            try {
+                send(line);
+                sent = true;
+                reply = receive();
+            } catch (IOException e) {
+                closeQuietly(leaderSocket);
+                leaderSocket = null;
+                if (sent && request.idempotencyKey() == null) {
+                    throw e;
+                }
+                // The connection may have gone stale, or the leader will answer a keyed retry with the original
+                send(line);
+                reply = receive();
+            }
+            ResponseMessage response = MessageCodec.parseResponse(reply);
+            response.setRequestId(request.requestId());
+            return response;
+        }
+
+        /**
+         * Sends one request line to the leader, connecting first if needed.
+         *
+         * @param line The JSON-formatted request.
+         * @throws IOException If the request could not be sent.
+         */
+        private void send(String line) throws IOException {
+            if (leaderSocket == null) {
+                Socket socket = new Socket(leaderHost, leaderPort);
+                socket.setSoTimeout(LEADER_TIMEOUT_MILLIS);
+                leaderOut = new PrintWriter(new OutputStreamWriter(socket.getOutputStream()), true);
+                leaderIn = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+                leaderSocket = socket;
+            }
+            leaderOut.println(line);
+            if (leaderOut.checkError()) {
+                throw new IOException("Failed to send the request to the leader");
+            }
+        }
+
+        /**
+         * Reads the leader's response line to the request just sent.
+         *
+         * @return The JSON-formatted response.
+         * @throws IOException If the leader closed the connection or did not answer in time.
+         */
+        private String receive() throws IOException {
+            String reply = leaderIn.readLine();
+            if (reply == null) {
+                throw new EOFException("Leader closed the connection");
+            }
+            return reply;
+        }
+    }
+}
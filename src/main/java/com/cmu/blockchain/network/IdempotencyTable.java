@@ -0,0 +1,250 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.network;
+
+import com.cmu.blockchain.message.MessageCodec;
+import com.cmu.blockchain.message.RequestMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * IdempotencyTable remembers the outcome of the writes that carry an idempotency key, so that a client retrying a
+ * write after a timeout gets the result of the original instead of mining the same transaction again.
+ * The first request with a key becomes the owner of an entry and runs; a retry arriving while it is still mining
+ * waits for its result, and a retry arriving later gets the stored result straight away.
+ * Keys are scoped to a chain. Entries expire once they are older than the time to live, and the oldest completed
+ * entries are dropped when the table is full; a retry whose key has expired or been dropped runs again.
+ * Entries still running are never dropped, since their retries would mine the write a second time, so the table
+ * can exceed its capacity by the writes in flight, which the work queues bound.
+ * A key reused for a different request is refused rather than answered with another request's result: each entry
+ * keeps the SHA-256 of the request's canonical JSON, so two different requests never pass for the same one.
+ */
+public class IdempotencyTable {
+
+    /**
+     * Default number of keys remembered.
+     */
+    public static final int DEFAULT_CAPACITY = 10_000;
+
+    /**
+     * Default time a key is remembered for.
+     */
+    public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMinutes(10);
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final int capacity;
+    private final long timeToLiveNanos;
+    private final ReentrantLock lock = new ReentrantLock(); // Guards entries; never held while waiting for a result.
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(); // By chain and key, oldest first.
+
+    /**
+     * Constructs an IdempotencyTable.
+     *
+     * @param capacity   The maximum number of completed keys remembered.
+     * @param timeToLive How long a key is remembered after its first request.
+     */
+    public IdempotencyTable(int capacity, Duration timeToLive) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The table needs room for at least one key.");
+        }
+        this.capacity = capacity;
+        this.timeToLiveNanos = timeToLive.toNanos();
+    }
+
+    /**
+     * Creates a table remembering {@code -Dblockchain.idempotency.capacity} keys (10,000 by default) for
+     * {@code -Dblockchain.idempotency.ttlSeconds} seconds (600 by default).
+     *
+     * @return The configured table.
+     */
+    public static IdempotencyTable fromSystemProperties() {
+        return new IdempotencyTable(Integer.getInteger("blockchain.idempotency.capacity", DEFAULT_CAPACITY),
+                Duration.ofSeconds(Long.getLong("blockchain.idempotency.ttlSeconds", DEFAULT_TIME_TO_LIVE.toSeconds())));
+    }
+
+    /**
+     * Looks up the key of a request, making the caller the owner of a new entry if the key is not remembered.
+     * The owner must {@link Claim#complete complete} or {@link Claim#abandon abandon} its claim.
+     *
+     * @param request The request, carrying an idempotency key.
+     * @return The claim on the key.
+     */
+    public Claim claim(RequestMessage request) {
+        String key = (request.chain() == null ? "" : request.chain()) + "/" + request.idempotencyKey();
+        String fingerprint = fingerprint(request);
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            purgeExpired(now);
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                return new Claim(key, entry, false, entry.fingerprint.equals(fingerprint));
+            }
+            entry = new Entry(fingerprint, now, new CompletableFuture<>());
+            entries.put(key, entry);
+            evictCompleted();
+            return new Claim(key, entry, true, true);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of keys remembered.
+     *
+     * @return The number of entries, including those still running.
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops the entries that have outlived the time to live, except those still running.
+     *
+     * @param now The current {@link System#nanoTime()}.
+     */
+    private void purgeExpired(long now) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (now - entry.createdNanos < timeToLiveNanos) {
+                break; // Later entries are newer
+            }
+            if (entry.result.isDone()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Drops the oldest completed entries while the table is over capacity. Entries still running are kept.
+     */
+    private void evictCompleted() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > capacity && iterator.hasNext()) {
+            if (iterator.next().result.isDone()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Forgets a key whose owner failed, so the next retry runs the request again.
+     *
+     * @param key   The scoped key.
+     * @param entry The entry the owner created.
+     */
+    private void remove(String key, Entry entry) {
+        lock.lock();
+        try {
+            entries.remove(key, entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Summarizes what a request asks for, to detect a key reused for a different request.
+     * The action, data, difficulty and transactions are encoded as JSON, which is unambiguous, and hashed.
+     *
+     * @param request The request.
+     * @return The hexadecimal SHA-256 of its canonical form.
+     */
+    private static String fingerprint(RequestMessage request) {
+        String canonical = MessageCodec.toJson(new RequestMessage(request.action(), request.data(), request.difficulty(),
+                null, request.transactions()));
+        try {
+            return HEX.formatHex(MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A remembered key.
+     *
+     * @param fingerprint  The fingerprint of the request that created it, compared with {@link String#equals}.
+     * @param createdNanos When it was created.
+     * @param result       The JSON-formatted response of the owner, without a request id.
+     */
+    private record Entry(String fingerprint, long createdNanos, CompletableFuture<String> result) {
+    }
+
+    /**
+     * A request's claim on its idempotency key.
+     */
+    public final class Claim {
+        private final String key;
+        private final Entry entry;
+        private final boolean owner;
+        private final boolean matches;
+
+        private Claim(String key, Entry entry, boolean owner, boolean matches) {
+            this.key = key;
+            this.entry = entry;
+            this.owner = owner;
+            this.matches = matches;
+        }
+
+        /**
+         * Indicates whether the request is the first with its key, and so must run.
+         *
+         * @return True if the caller owns the entry, false if the request is a retry.
+         */
+        public boolean isOwner() {
+            return owner;
+        }
+
+        /**
+         * Indicates whether the key was first used for the same request.
+         *
+         * @return True if the request matches the one that created the entry, otherwise false.
+         */
+        public boolean matches() {
+            return matches;
+        }
+
+        /**
+         * Gets the result of the request that created the entry, which may still be running.
+         *
+         * @return The JSON-formatted response, without a request id.
+         */
+        public CompletableFuture<String> result() {
+            return entry.result;
+        }
+
+        /**
+         * Records the owner's result and hands it to the retries waiting for it.
+         *
+         * @param response The JSON-formatted response, without a request id.
+         */
+        public void complete(String response) {
+            entry.result.complete(response);
+        }
+
+        /**
+         * Forgets the key after the owner failed, failing the retries waiting for it.
+         *
+         * @param cause Why the owner failed.
+         */
+        public void abandon(Throwable cause) {
+            remove(key, entry);
+            entry.result.completeExceptionally(cause);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.network;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.Deflater;
+
+/**
+ * LineCompressor compresses the response lines of one connection once the client has asked for it with a
+ * {@link #ACTION} request. All lines of the connection go through a single streaming {@link Deflater}, so later
+ * lines are compressed against the earlier ones: repeated JSON keys, hashes and timestamps of a chain cost only a
+ * few bytes after they first appear. Each line is flushed on its own, so it can be decoded as soon as it arrives.
+ * Lines shorter than the threshold, such as status responses, are sent as plain JSON.
+ * A compressed line is {@link #PREFIX} followed by the Base64 of the raw Deflate output, which keeps the protocol
+ * line-based; plain JSON lines never start with the prefix. {@link CompressedLineReader} reverses the encoding.
+ * Callers writing a connection from several threads must encode and write each line under one lock, so the lines
+ * reach the wire in the order they were compressed.
+ */
+public class LineCompressor implements Closeable {
+
+    /**
+     * The action a client sends to turn on compression. Its data names the algorithm, which must be {@link #DEFLATE}.
+     */
+    public static final String ACTION = "negotiateCompression";
+
+    /**
+     * The only supported algorithm: raw Deflate, flushed after every line.
+     */
+    public static final String DEFLATE = "deflate";
+
+    /**
+     * Marks a compressed line.
+     */
+    public static final String PREFIX = "~";
+
+    /**
+     * Default length in characters below which lines stay uncompressed.
+     */
+    public static final int DEFAULT_THRESHOLD = 1024;
+
+    private final int threshold;
+    private Deflater deflater; // Created once compression is negotiated.
+    private final byte[] chunk = new byte[8192];
+
+    /**
+     * Constructs a LineCompressor that leaves lines uncompressed until {@link #enable()} is called.
+     *
+     * @param threshold The length in characters below which lines stay uncompressed.
+     */
+    public LineCompressor(int threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * Creates a LineCompressor with the threshold set by {@code -Dblockchain.compression.threshold}.
+     *
+     * @return The compressor, not yet enabled.
+     */
+    public static LineCompressor fromSystemProperties() {
+        return new LineCompressor(Integer.getInteger("blockchain.compression.threshold", DEFAULT_THRESHOLD));
+    }
+
+    /**
+     * Checks whether a client asked for an algorithm this server supports.
+     *
+     * @param algorithm The data of a {@link #ACTION} request.
+     * @return True if the algorithm is supported, otherwise false.
+     */
+    public static boolean isSupported(String algorithm) {
+        return algorithm != null && DEFLATE.equalsIgnoreCase(algorithm.trim());
+    }
+
+    /**
+     * Turns on compression for the lines encoded from now on.
+     */
+    public synchronized void enable() {
+        if (deflater == null) {
+            deflater = new Deflater(Deflater.BEST_SPEED, true);
+        }
+    }
+
+    /**
+     * Checks whether compression is turned on.
+     *
+     * @return True once {@link #enable()} was called, otherwise false.
+     */
+    public synchronized boolean isEnabled() {
+        return deflater != null;
+    }
+
+    /**
+     * Encodes a response line for the wire.
+     *
+     * @param line The JSON-formatted response, without the line terminator.
+     * @return The compressed line, or the line itself if compression is off or the line is short.
+     */
+    public synchronized String encode(String line) {
+        if (deflater == null || line.length() < threshold) {
+            return line;
+        }
+        deflater.setInput(line.getBytes(StandardCharsets.UTF_8));
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(line.length() / 4);
+        int length;
+        do {
+            length = deflater.deflate(chunk, 0, chunk.length, Deflater.SYNC_FLUSH);
+            compressed.write(chunk, 0, length);
+        } while (length == chunk.length); // A full chunk means there may be more output pending
+        return PREFIX + Base64.getEncoder().encodeToString(compressed.toByteArray());
+    }
+
+    /**
+     * Releases the native memory of the deflater.
+     */
+    @Override
+    public synchronized void close() {
+        if (deflater != null) {
+            deflater.end();
+            deflater = null;
+        }
+    }
+}
@@ -0,0 +1,628 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.network;
+
+import com.cmu.blockchain.message.RequestMessage;
+import com.cmu.blockchain.util.LoggerUtil;
+import org.slf4j.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * NioServerTCP is a non-blocking alternative to the blocking server loop in {@link ServerTCP}.
+ * A small number of event-loop threads multiplex all client connections with {@link Selector}s,
+ * while mining actions are handed to the bounded worker queues of a {@link RequestScheduler}
+ * so that they never stall the event loops.
+ * The wire protocol is unchanged: one JSON request per line, answered by one JSON response per line, in order.
+ * Requests carrying a request id are pipelined instead: they run concurrently (reads alongside mining) and
+ * their responses are written as soon as they are ready, matched to the request by the echoed id.
+ * A {@code followChain} request turns the connection into a {@link ChainFeed} stream for a follower server;
+ * updates are only encoded once the previous one has been written, so a slow follower cannot exhaust memory.
+ * A {@link ChainSubscription#ACTION} request likewise turns it into a stream of chain events for a monitor; events
+ * wait in the subscription's bounded buffer while the socket drains.
+ * A client may ask for large responses to be compressed with a {@link LineCompressor#ACTION} request.
+ * An idle connection holds no buffers; pooled direct buffers are only borrowed while bytes are moving.
+ * Bound to a {@link UnixDomainSocketAddress}, the server serves the same protocol to clients on the same host
+ * without the TCP loopback stack; the socket file is deleted when the server is closed.
+ */
+public class NioServerTCP implements Closeable {
+
+    private static final Logger LOGGER = LoggerUtil.getLogger(NioServerTCP.class);
+
+    /**
+     * Default number of event-loop threads.
+     */
+    public static final int DEFAULT_EVENT_LOOPS = Math.max(1, Runtime.getRuntime().availableProcessors() / 4);
+
+    private static final int BUFFER_SIZE = 16 * 1024; // Size of each pooled direct buffer.
+    private static final int MAX_POOLED_BUFFERS = 1024; // Idle buffers kept for reuse.
+    private static final int MAX_LINE_LENGTH = 1 << 20; // Longest request line accepted, in bytes.
+    private static final int MAX_PENDING_LINES = 64; // Queued requests per connection before reading pauses.
+
+    private final ServerSocketChannel serverChannel;
+    private final RequestHandler handler;
+    private final EventLoop[] eventLoops;
+    private final RequestScheduler scheduler;
+    private final BufferPool bufferPool = new BufferPool(BUFFER_SIZE, MAX_POOLED_BUFFERS);
+    private int nextEventLoop; // Round-robin cursor, only touched by the accepting event loop.
+    private volatile boolean running;
+
+    /**
+     * Constructs a NioServerTCP bound to the given address. Call {@link #start()} to begin serving.
+     *
+     * @param address    The address to listen on: an {@link InetSocketAddress} or a {@link UnixDomainSocketAddress}.
+     * @param handler    The handler turning requests into responses.
+     * @param eventLoops The number of event-loop threads.
+     * @param scheduler  The scheduler running mining actions.
+     * @throws IOException If the listening socket cannot be opened.
+     */
+    public NioServerTCP(SocketAddress address, RequestHandler handler, int eventLoops, RequestScheduler scheduler) throws IOException {
+        this.handler = handler;
+        this.scheduler = scheduler;
+        this.serverChannel = address instanceof UnixDomainSocketAddress
+                ? ServerSocketChannel.open(StandardProtocolFamily.UNIX) : ServerSocketChannel.open();
+        this.serverChannel.bind(address);
+        this.serverChannel.configureBlocking(false);
+        this.eventLoops = new EventLoop[eventLoops];
+        for (int i = 0; i < eventLoops; i++) {
+            this.eventLoops[i] = new EventLoop(i);
+        }
+    }
+
+    /**
+     * Starts the event loops. The first event loop also accepts new connections.
+     */
+    public void start() {
+        running = true;
+        eventLoops[0].execute(() -> eventLoops[0].registerAcceptor());
+        for (EventLoop eventLoop : eventLoops) {
+            eventLoop.thread.start();
+        }
+    }
+
+    /**
+     * Gets the port the server is listening on, which is useful when bound to port 0.
+     *
+     * @return The local port of the listening socket.
+     */
+    public int getLocalPort() {
+        try {
+            return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Gets the address the server is listening on.
+     *
+     * @return The local address of the listening socket, such as the path of a Unix domain socket.
+     */
+    public SocketAddress getLocalAddress() {
+        try {
+            return serverChannel.getLocalAddress();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Stops accepting connections and closes all client connections. The scheduler is owned by the caller.
+     */
+    @Override
+    public void close() {
+        running = false;
+        for (EventLoop eventLoop : eventLoops) {
+            eventLoop.selector.wakeup();
+        }
+        for (EventLoop eventLoop : eventLoops) {
+            try {
+                eventLoop.thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            SocketAddress address = serverChannel.getLocalAddress();
+            serverChannel.close();
+            if (address instanceof UnixDomainSocketAddress unixAddress) {
+                Files.deleteIfExists(unixAddress.getPath()); // Unlike a port, the socket file outlives the channel
+            }
+        } catch (IOException e) {
+            LOGGER.error("Error closing server channel: " + e.getMessage());
+        }
+    }
+
+    /**
+     * An event loop owns a selector and every connection registered with it.
+     * All connection state is only touched from the loop's own thread; other threads hand work over with
+     * {@link #execute(Runnable)}.
+     */
+    private final class EventLoop implements Runnable {
+        private final Selector selector;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final Thread thread;
+
+        EventLoop(int id) throws IOException {
+            this.selector = Selector.open();
+            this.thread = Thread.ofPlatform().name("blockchain-event-loop-" + id).unstarted(this);
+        }
+
+        /**
+         * Runs a task on this event loop's thread.
+         *
+         * @param task The task to run.
+         */
+        void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        /**
+         * Runs a task for a connection on this event loop's thread, closing only that connection if it fails.
+         *
+         * @param connection The connection the task acts on.
+         * @param task       The task to run.
+         */
+        void execute(Connection connection, Runnable task) {
+            execute(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    LOGGER.error("Connection task failure, closing client: " + e);
+                    connection.close();
+                }
+            });
+        }
+
+        /**
+         * Registers the listening socket with this event loop.
+         */
+        void registerAcceptor() {
+            try {
+                serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+            } catch (IOException e) {
+                LOGGER.error("Error registering acceptor: " + e.getMessage());
+            }
+        }
+
+        /**
+         * Registers a newly accepted client with this event loop.
+         *
+         * @param channel The accepted client channel.
+         */
+        void registerConnection(SocketChannel channel) {
+            try {
+                Connection connection = new Connection(channel, this);
+                connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+            } catch (IOException e) {
+                LOGGER.error("Error registering client: " + e.getMessage());
+                closeQuietly(channel);
+            }
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    selector.select(this::handleKey);
+                    Runnable task;
+                    while ((task = tasks.poll()) != null) {
+                        try {
+                            task.run();
+                        } catch (RuntimeException e) {
+                            LOGGER.error("Event loop task failure: " + e);
+                        }
+                    }
+                } catch (IOException e) {
+                    LOGGER.error("Event loop failure: " + e.getMessage());
+                }
+            }
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof Connection connection) {
+                    connection.close();
+                }
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                LOGGER.error("Error closing selector: " + e.getMessage());
+            }
+        }
+
+        /**
+         * Dispatches a ready selection key. A failure only closes the connection the key belongs to.
+         *
+         * @param key The key that is ready for I/O.
+         */
+        private void handleKey(SelectionKey key) {
+            try {
+                if (!key.isValid()) {
+                    return;
+                }
+                if (key.isAcceptable()) {
+                    accept();
+                    return;
+                }
+                Connection connection = (Connection) key.attachment();
+                if (key.isWritable()) {
+                    connection.flush();
+                }
+                if (key.isValid() && key.isReadable()) {
+                    connection.read();
+                }
+            } catch (RuntimeException e) {
+                LOGGER.error("Connection failure, closing client: " + e);
+                if (key.attachment() instanceof Connection connection) {
+                    connection.close();
+                }
+            }
+        }
+
+        /**
+         * Accepts all pending clients and spreads them over the event loops.
+         */
+        private void accept() {
+            try {
+                SocketChannel channel;
+                while ((channel = serverChannel.accept()) != null) {
+                    channel.configureBlocking(false);
+                    if (channel.getRemoteAddress() instanceof InetSocketAddress) {
+                        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                    }
+                    EventLoop target = eventLoops[nextEventLoop++ % eventLoops.length];
+                    SocketChannel accepted = channel;
+                    target.execute(() -> target.registerConnection(accepted));
+                }
+            } catch (IOException e) {
+                LOGGER.error("Error accepting client: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * State of one client connection. Only accessed from the owning event loop's thread.
+     */
+    private final class Connection {
+        private final SocketChannel channel;
+        private final EventLoop eventLoop;
+        private SelectionKey key;
+        private ByteArrayOutputStream partialLine; // Bytes of a request line split across reads, if any.
+        private final ArrayDeque<String> pendingLines = new ArrayDeque<>(); // Complete requests not yet processed.
+        private final ArrayDeque<ByteBuffer> outbound = new ArrayDeque<>(); // Encoded responses not yet written.
+        private boolean awaitingWorker; // A mining request is running; later requests wait to keep responses in order.
+        private int pipelinedInFlight; // Mining requests with a request id that are still running.
+        private boolean inputClosed; // The client has shut down its side of the connection.
+        private ChainFeed feed; // Set once the client follows the chain; later requests are ignored.
+        private ChainSubscription subscription; // Set once the client subscribes; later requests are ignored.
+        private final LineCompressor compressor = LineCompressor.fromSystemProperties(); // Off until negotiated.
+        private boolean closed;
+
+        Connection(SocketChannel channel, EventLoop eventLoop) {
+            this.channel = channel;
+            this.eventLoop = eventLoop;
+        }
+
+        /**
+         * Reads the available bytes, splits them into request lines and processes them.
+         * Reading stops once {@link #MAX_PENDING_LINES} requests are queued, leaving the rest in the socket, so a
+         * client that sends without reading its responses is slowed down by TCP instead of filling the heap.
+         */
+        void read() {
+            ByteBuffer buffer = bufferPool.acquire();
+            try {
+                int read = 0;
+                while (pendingLines.size() < MAX_PENDING_LINES && (read = channel.read(buffer)) > 0) {
+                    buffer.flip();
+                    if (!extractLines(buffer)) {
+                        LOGGER.error("Request line too long, closing client.");
+                        close();
+                        return;
+                    }
+                    buffer.clear();
+                }
+                if (read < 0) {
+                    inputClosed = true;
+                }
+            } catch (IOException e) {
+                LOGGER.error("Exception handling client: " + e.getMessage());
+                close();
+                return;
+            } finally {
+                bufferPool.release(buffer);
+            }
+            processPendingLines();
+        }
+
+        /**
+         * Splits the bytes in the buffer into complete request lines, keeping any trailing partial line.
+         *
+         * @param buffer A buffer ready to be read.
+         * @return False if a request line exceeds the maximum length, otherwise true.
+         */
+        private boolean extractLines(ByteBuffer buffer) {
+            int start = buffer.position();
+            for (int i = start; i < buffer.limit(); i++) {
+                if (buffer.get(i) != '\n') {
+                    continue;
+                }
+                ByteBuffer segment = buffer.slice(start, i - start);
+                String line;
+                if (partialLine == null) {
+                    line = StandardCharsets.UTF_8.decode(segment).toString();
+                } else {
+                    appendPartial(segment);
+                    line = partialLine.toString(StandardCharsets.UTF_8);
+                    partialLine = null;
+                }
+                if (line.endsWith("\r")) {
+                    line = line.substring(0, line.length() - 1);
+                }
+                pendingLines.add(line);
+                start = i + 1;
+            }
+            if (start < buffer.limit()) {
+                if (partialLine == null) {
+                    partialLine = new ByteArrayOutputStream();
+                }
+                appendPartial(buffer.slice(start, buffer.limit() - start));
+                return partialLine.size() <= MAX_LINE_LENGTH;
+            }
+            return true;
+        }
+
+        /**
+         * Copies a segment of a read buffer to the partial line.
+         *
+         * @param segment The bytes to append.
+         */
+        private void appendPartial(ByteBuffer segment) {
+            byte[] bytes = new byte[segment.remaining()];
+            segment.get(bytes);
+            partialLine.writeBytes(bytes);
+        }
+
+        /**
+         * Processes queued request lines in order until one has to wait for a worker or output backs up.
+         */
+        private void processPendingLines() {
+            if (feed != null) {
+                pendingLines.clear(); // A follower only listens once it is streaming
+                sendFeedUpdates();
+                return;
+            }
+            if (subscription != null) {
+                pendingLines.clear(); // A subscriber only listens once it is subscribed
+                sendEvents();
+                return;
+            }
+            while (!closed && feed == null && subscription == null && !awaitingWorker && outbound.isEmpty() && !pendingLines.isEmpty()) {
+                String line = pendingLines.poll();
+                long receivedNanos = System.nanoTime();
+                RequestMessage request;
+                try {
+                    request = handler.parseRequest(line);
+                } catch (Exception e) {
+                    send(handler.errorResponse(e));
+                    continue;
+                }
+                if (request != null && request.requestId() != null && scheduler.isScheduled(request.action())) {
+                    pipelinedInFlight++;
+                    scheduler.submit(request, receivedNanos).thenAccept(response -> eventLoop.execute(this, () -> completePipelinedRequest(response)));
+                } else if (request != null && scheduler.isScheduled(request.action())) {
+                    awaitingWorker = true;
+                    scheduler.submit(request, receivedNanos).thenAccept(response -> eventLoop.execute(this, () -> completeWorkerRequest(response)));
+                } else if (request != null && ChainFeed.ACTION.equals(request.action())) {
+                    feed = handler.openFeed(request, receivedNanos, () -> eventLoop.execute(this, this::sendFeedUpdates));
+                    pendingLines.clear();
+                } else if (request != null && ChainSubscription.ACTION.equals(request.action())) {
+                    try {
+                        subscription = handler.openSubscription(request, receivedNanos, () -> eventLoop.execute(this, this::sendEvents));
+                    } catch (Exception e) {
+                        send(handler.errorResponse(e, request.requestId()));
+                        continue;
+                    }
+                    pendingLines.clear();
+                    sendEvents();
+                    return;
+                } else if (request != null && LineCompressor.ACTION.equals(request.action())) {
+                    send(handler.processRequest(request, receivedNanos)); // The answer itself is never compressed
+                    if (LineCompressor.isSupported(request.data())) {
+                        compressor.enable();
+                    }
+                } else {
+                    send(handler.processRequest(request, receivedNanos));
+                }
+            }
+            updateInterest();
+        }
+
+        /**
+         * Sends pending chain updates to a follower, one at a time as the socket drains.
+         */
+        private void sendFeedUpdates() {
+            if (closed) {
+                return;
+            }
+            String update;
+            while (outbound.isEmpty() && (update = feed.nextUpdate()) != null) {
+                send(update);
+            }
+            updateInterest();
+        }
+
+        /**
+         * Sends buffered chain events to a subscriber, one at a time as the socket drains, and closes the
+         * connection once an overflowed subscription has sent its last event.
+         */
+        private void sendEvents() {
+            if (closed) {
+                return;
+            }
+            String event;
+            while (outbound.isEmpty() && (event = subscription.nextEvent()) != null) {
+                send(event);
+            }
+            updateInterest();
+        }
+
+        /**
+         * Sends the response of a mining request and resumes processing queued requests.
+         *
+         * @param response The JSON-formatted response.
+         */
+        private void completeWorkerRequest(String response) {
+            if (closed) {
+                return;
+            }
+            awaitingWorker = false;
+            send(response);
+            processPendingLines();
+        }
+
+        /**
+         * Sends the response of a pipelined mining request, which may overtake earlier requests.
+         *
+         * @param response The JSON-formatted response carrying the request id.
+         */
+        private void completePipelinedRequest(String response) {
+            if (closed) {
+                return;
+            }
+            pipelinedInFlight--;
+            send(response);
+            processPendingLines();
+        }
+
+        /**
+         * Encodes a response line into pooled buffers, compressing it if negotiated, and starts writing it.
+         *
+         * @param response The JSON-formatted response, without the line terminator.
+         */
+        private void send(String response) {
+            if (closed) {
+                return;
+            }
+            byte[] bytes = compressor.encode(response).getBytes(StandardCharsets.UTF_8);
+            int written = 0;
+            while (written <= bytes.length) {
+                ByteBuffer buffer = bufferPool.acquire();
+                int length = Math.min(buffer.remaining(), bytes.length - written);
+                buffer.put(bytes, written, length);
+                written += length;
+                if (written == bytes.length && buffer.hasRemaining()) {
+                    buffer.put((byte) '\n');
+                    written++;
+                }
+                buffer.flip();
+                outbound.add(buffer);
+            }
+            writeOutbound();
+        }
+
+        /**
+         * Writes queued output once the socket becomes writable again, then resumes processing requests.
+         */
+        void flush() {
+            writeOutbound();
+            processPendingLines();
+        }
+
+        /**
+         * Writes as much queued output as the socket accepts.
+         */
+        private void writeOutbound() {
+            try {
+                while (!outbound.isEmpty()) {
+                    ByteBuffer buffer = outbound.peek();
+                    channel.write(buffer);
+                    if (buffer.hasRemaining()) {
+                        break;
+                    }
+                    bufferPool.release(outbound.poll());
+                }
+            } catch (IOException e) {
+                LOGGER.error("Exception handling client: " + e.getMessage());
+                close();
+            }
+        }
+
+        /**
+         * Updates the selector interest to match the connection state, closing it once fully drained.
+         */
+        private void updateInterest() {
+            if (closed) {
+                return;
+            }
+            boolean unsubscribed = subscription != null && subscription.isClosed();
+            if ((inputClosed || unsubscribed) && !awaitingWorker && pipelinedInFlight == 0 && pendingLines.isEmpty() && outbound.isEmpty()) {
+                close();
+                return;
+            }
+            int ops = 0;
+            if (!inputClosed && !awaitingWorker && outbound.isEmpty() && pendingLines.size() < MAX_PENDING_LINES) {
+                ops |= SelectionKey.OP_READ;
+            }
+            if (!outbound.isEmpty()) {
+                ops |= SelectionKey.OP_WRITE;
+            }
+            key.interestOps(ops);
+        }
+
+        /**
+         * Closes the connection and returns its buffers to the pool.
+         */
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (feed != null) {
+                feed.close();
+            }
+            if (subscription != null) {
+                subscription.close();
+            }
+            if (key != null) {
+                key.cancel();
+            }
+            closeQuietly(channel);
+            compressor.close();
+            ByteBuffer buffer;
+            while ((buffer = outbound.poll()) != null) {
+                bufferPool.release(buffer);
+            }
+        }
+    }
+
+    /**
+     * Closes a channel, logging instead of propagating failures.
+     *
+     * @param channel The channel to close.
+     */
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOGGER.error("Error closing client: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,414 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.network;
+
+import com.cmu.blockchain.core.BlockChain;
+import com.cmu.blockchain.core.ChainListener;
+import com.cmu.blockchain.message.BlockAnnouncement;
+import com.cmu.blockchain.message.MessageCodec;
+import com.cmu.blockchain.message.RequestMessage;
+import com.cmu.blockchain.message.ResponseMessage;
+import com.cmu.blockchain.metrics.ServerMetrics;
+import com.cmu.blockchain.model.Block;
+import com.cmu.blockchain.util.LoggerUtil;
+import org.slf4j.Logger;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * PeerNode replicates the chain between equal servers, so the chain survives the loss of any one of them.
+ * Whenever the local chain changes, its newest blocks are gossiped to every known peer with a {@code gossipBlock}
+ * request. A node receiving blocks that extend or compete with its chain verifies them and keeps the chain with
+ * the most cumulative work (see {@link BlockChain#adoptFork(int, List)}), and the change is gossiped on in turn.
+ * Blocks that do not connect to the local chain make the node pull the peer's chain with batched
+ * {@code getBlocks} requests, so a lagging node catches up in bulk. A node announcing itself is added as a peer once
+ * it accepts this node's chain in return, so a new node only needs to know one member; peers found this way are
+ * capped by {@code -Dblockchain.peer.maxPeers} (32 by default). Received blocks are applied on a single background
+ * thread, never on the thread serving the request.
+ */
+public class PeerNode implements ChainListener, Closeable {
+
+    private static final Logger LOGGER = LoggerUtil.getLogger(PeerNode.class);
+
+    private static final int GOSSIP_BLOCKS = 16; // Newest blocks sent with an announcement; peers sync the rest.
+    private static final int CONNECT_TIMEOUT_MILLIS = 2000;
+    private static final int READ_TIMEOUT_MILLIS = 10_000; // A peer that stops answering must not stall syncing.
+    private static final int MAX_PEERS = Integer.getInteger("blockchain.peer.maxPeers", 32); // Discovered peers.
+
+    private final BlockChain blockchain;
+    private final String selfAddress;
+    private final Map<String, PeerLink> peers = new ConcurrentHashMap<>();
+    private final Set<String> handshakes = ConcurrentHashMap.newKeySet(); // Announced addresses being checked.
+    private final ExecutorService applyExecutor = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("peer-apply").daemon().factory());
+
+    private final AtomicLong forksAdopted = new AtomicLong(); // Received branches that replaced local blocks.
+    private final AtomicLong blocksRejected = new AtomicLong(); // Received branches that failed verification.
+    private volatile boolean running;
+
+    /**
+     * Constructs a PeerNode. Call {@link #start()} to join the peers.
+     *
+     * @param blockchain  The local chain to replicate.
+     * @param selfAddress The address peers reach this node's server at, as {@code host:port}.
+     * @param peerAddresses The addresses of known peers, as {@code host:port}.
+     */
+    public PeerNode(BlockChain blockchain, String selfAddress, List<String> peerAddresses) {
+        this.blockchain = blockchain;
+        this.selfAddress = selfAddress;
+        for (String address : peerAddresses) {
+            addPeer(address);
+        }
+    }
+
+    /**
+     * Starts gossiping local changes and pulls the chain of every known peer.
+     * Announcing the local chain at the same time makes the peers pull it if it carries more work.
+     */
+    public void start() {
+        running = true;
+        blockchain.addListener(this);
+        for (PeerLink peer : peers.values()) {
+            applyExecutor.execute(() -> syncWith(peer));
+            peer.announce(blockchain.getChainSize() - 1);
+        }
+    }
+
+    /**
+     * Registers the replication counters of this node as gauges.
+     *
+     * @param metrics The metrics to register with.
+     */
+    public void registerGauges(ServerMetrics metrics) {
+        metrics.registerGauge("peers", peers::size);
+        metrics.registerGauge("peerForksAdopted", forksAdopted::get);
+        metrics.registerGauge("peerBlocksRejected", blocksRejected::get);
+    }
+
+    /**
+     * Gets the number of known peers.
+     *
+     * @return The number of peers.
+     */
+    public int getPeerCount() {
+        return peers.size();
+    }
+
+    /**
+     * Queues local changes for gossip to every peer.
+     *
+     * @param fromIndex The index of the first block that was added or replaced.
+     */
+    @Override
+    public void onChainChanged(int fromIndex) {
+        for (PeerLink peer : peers.values()) {
+            peer.announce(fromIndex);
+        }
+    }
+
+    /**
+     * Accepts blocks gossiped by a peer for verification on the background thread.
+     *
+     * @param announcement The announced blocks.
+     */
+    public void receive(BlockAnnouncement announcement) {
+        PeerLink sender = announcement.peer() == null ? null : peers.get(announcement.peer());
+        if (sender == null && announcement.peer() != null) {
+            handshake(announcement.peer());
+        }
+        applyExecutor.execute(() -> apply(announcement.blocks(), sender));
+    }
+
+    /**
+     * Stops gossiping and closes the connections to the peers.
+     */
+    @Override
+    public void close() {
+        running = false;
+        blockchain.removeListener(this);
+        applyExecutor.shutdownNow();
+        for (PeerLink peer : peers.values()) {
+            peer.close();
+        }
+    }
+
+    /**
+     * Adds a configured peer.
+     *
+     * @param address The peer's address, as {@code host:port}.
+     */
+    private void addPeer(String address) {
+        if (!address.equals(selfAddress)) {
+            peers.computeIfAbsent(address, PeerLink::new);
+        }
+    }
+
+    /**
+     * Checks an address that announced itself in the background, and adds it as a peer if it accepts this
+     * node's chain. Announced addresses are not trusted, so nothing is sent to them until the check succeeds,
+     * and none are checked once the peer set is full.
+     *
+     * @param address The announced address, as {@code host:port}.
+     */
+    private void handshake(String address) {
+        if (address.equals(selfAddress) || !running || peers.size() + handshakes.size() >= MAX_PEERS
+                || !handshakes.add(address)) {
+            return;
+        }
+        PeerLink candidate = new PeerLink(address);
+        try {
+            candidate.sender.execute(() -> {
+                try {
+                    ResponseMessage response = candidate.exchange(candidate.announcement(blockchain.getChainSize() - 1));
+                    if (response.isSuccess() && running && peers.size() < MAX_PEERS
+                            && peers.putIfAbsent(address, candidate) == null) {
+                        LOGGER.info("Added peer " + address);
+                        applyExecutor.execute(() -> syncWith(candidate));
+                        return;
+                    }
+                    LOGGER.info("Not adding peer " + address + ": " + response.getMessage());
+                } catch (IOException | RejectedExecutionException e) {
+                    LOGGER.error("Handshake with peer " + address + " failed: " + e.getMessage());
+                } finally {
+                    handshakes.remove(address);
+                }
+                candidate.close();
+            });
+        } catch (RejectedExecutionException e) {
+            handshakes.remove(address);
+        }
+    }
+
+    /**
+     * Applies blocks received from a peer: blocks that connect to the local chain are adopted if they carry more
+     * work, otherwise the peer's chain is pulled.
+     *
+     * @param blocks The received blocks, in order.
+     * @param sender The peer that sent them, or null if unknown.
+     */
+    private void apply(List<Block> blocks, PeerLink sender) {
+        if (blocks.isEmpty()) {
+            return;
+        }
+        Block first = blocks.getFirst();
+        int index = first.getIndex();
+        boolean connects;
+        try {
+            connects = index == 0 || (index <= blockchain.getChainSize()
+                    && blockchain.getBlock(index - 1).calculateHash().equals(first.getPreviousHash()));
+        } catch (IndexOutOfBoundsException e) {
+            connects = false; // The chain shrank in the meantime
+        }
+        if (!connects) {
+            if (sender != null) {
+                syncWith(sender);
+            }
+            return;
+        }
+        if (adopt(index, blocks) || sender == null) {
+            return;
+        }
+        String announcedHead = blocks.getLast().calculateHash();
+        if (!announcedHead.equals(blockchain.getChainHash())) {
+            sender.announce(blockchain.getChainSize() - 1); // The sender is behind; show it the better chain
+        }
+    }
+
+    /**
+     * Pulls a peer's chain in batches and adopts it if it carries more work.
+     *
+     * @param peer The peer to pull from.
+     */
+    private void syncWith(PeerLink peer) {
+        try {
+            ResponseMessage batch = peer.exchange(new RequestMessage("getBlocks", blockchain.getLocator(), 0));
+            if (!batch.isSuccess() || batch.getBlocks() == null || batch.getStartIndex() == null) {
+                return;
+            }
+            int fromIndex = batch.getStartIndex();
+            List<Block> branch = new ArrayList<>(batch.getBlocks());
+            while (!batch.getBlocks().isEmpty() && fromIndex + branch.size() < batch.getChainSize()) {
+                Block last = branch.getLast();
+                batch = peer.exchange(new RequestMessage("getBlocks", last.getIndex() + ":" + last.calculateHash(), 0));
+                if (!batch.isSuccess() || batch.getBlocks() == null || batch.getStartIndex() == null
+                        || batch.getStartIndex() != fromIndex + branch.size()) {
+                    LOGGER.error("Peer " + peer.address + " changed its chain during sync; retrying later.");
+                    return;
+                }
+                branch.addAll(batch.getBlocks());
+            }
+            if (!branch.isEmpty() && adopt(fromIndex, branch)) {
+                LOGGER.info("Synced " + branch.size() + " blocks from peer " + peer.address);
+            }
+        } catch (IOException e) {
+            LOGGER.error("Failed to sync with peer " + peer.address + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Adopts a verified branch if it carries more work than the local chain.
+     *
+     * @param fromIndex The index of the first block of the branch.
+     * @param blocks    The blocks of the branch.
+     * @return True if the branch was adopted, otherwise false.
+     */
+    private boolean adopt(int fromIndex, List<Block> blocks) {
+        try {
+            boolean replacesBlocks = fromIndex < blockchain.getChainSize();
+            if (!blockchain.adoptFork(fromIndex, blocks)) {
+                return false;
+            }
+            if (replacesBlocks) {
+                forksAdopted.incrementAndGet();
+                LOGGER.info("Adopted a branch with more work from block " + fromIndex + ".");
+            }
+            return true;
+        } catch (IllegalArgumentException e) {
+            blocksRejected.incrementAndGet();
+            LOGGER.error("Rejected blocks from a peer: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * The connection to one peer. Announcements are coalesced: only the lowest changed index is remembered
+     * while a previous announcement is still being sent.
+     */
+    private final class PeerLink {
+        private final String address;
+        private final ExecutorService sender = Executors.newSingleThreadExecutor(Thread.ofVirtual().factory());
+        private int pendingFrom = Integer.MAX_VALUE; // Lowest index to announce, guarded by this.
+        private Socket socket; // Guarded by this link's exchange lock.
+        private PrintWriter out;
+        private BufferedReader in;
+        private final ReentrantLock exchangeLock = new ReentrantLock(); // A monitor would pin the virtual sender thread.
+
+        PeerLink(String address) {
+            this.address = address;
+        }
+
+        /**
+         * Queues the local blocks from an index on for announcement to the peer.
+         *
+         * @param fromIndex The index of the first changed block.
+         */
+        void announce(int fromIndex) {
+            synchronized (this) {
+                boolean idle = pendingFrom == Integer.MAX_VALUE;
+                pendingFrom = Math.min(pendingFrom, Math.max(0, fromIndex));
+                if (!idle) {
+                    return;
+                }
+            }
+            try {
+                sender.execute(this::sendAnnouncement);
+            } catch (RejectedExecutionException e) {
+                LOGGER.info("Not gossiping to peer " + address + ": node is shutting down.");
+            }
+        }
+
+        /**
+         * Sends the newest blocks from the pending index on, at most {@link #GOSSIP_BLOCKS} of them.
+         */
+        private void sendAnnouncement() {
+            int fromIndex;
+            synchronized (this) {
+                fromIndex = pendingFrom;
+                pendingFrom = Integer.MAX_VALUE;
+            }
+            try {
+                exchange(announcement(fromIndex));
+            } catch (IOException e) {
+                LOGGER.error("Failed to gossip to peer " + address + ": " + e.getMessage());
+            }
+        }
+
+        /**
+         * Builds a {@code gossipBlock} request with the newest local blocks from an index on.
+         *
+         * @param fromIndex The index of the first changed block.
+         * @return The request, carrying at most {@link #GOSSIP_BLOCKS} blocks.
+         */
+        RequestMessage announcement(int fromIndex) {
+            int size = blockchain.getChainSize();
+            int start = Math.max(fromIndex, size - GOSSIP_BLOCKS);
+            List<Block> blocks = blockchain.getBlocks(start, GOSSIP_BLOCKS);
+            return new RequestMessage("gossipBlock", MessageCodec.toJson(new BlockAnnouncement(selfAddress, blocks)), 0);
+        }
+
+        /**
+         * Sends a request to the peer and waits for its response, connecting first if needed.
+         *
+         * @param request The request to send.
+         * @return The peer's response.
+         * @throws IOException If the peer cannot be reached.
+         */
+        ResponseMessage exchange(RequestMessage request) throws IOException {
+            exchangeLock.lock();
+            try {
+                try {
+                    if (socket == null) {
+                        int separator = address.lastIndexOf(':');
+                        socket = new Socket();
+                        socket.connect(new InetSocketAddress(address.substring(0, separator),
+                                Integer.parseInt(address.substring(separator + 1))), CONNECT_TIMEOUT_MILLIS);
+                        socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+                        out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(socket.getOutputStream())), true);
+                        in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+                    }
+                    out.println(MessageCodec.toJson(request));
+                    String line = in.readLine();
+                    if (line == null) {
+                        throw new EOFException("Peer closed the connection");
+                    }
+                    return MessageCodec.parseResponse(line);
+                } catch (IOException | RuntimeException e) {
+                    closeSocket();
+                    throw e instanceof IOException io ? io : new IOException(e.getMessage(), e);
+                }
+            } finally {
+                exchangeLock.unlock();
+            }
+        }
+
+        /**
+         * Stops sending to the peer and closes the connection.
+         */
+        void close() {
+            sender.shutdownNow();
+            exchangeLock.lock();
+            try {
+                closeSocket();
+            } finally {
+                exchangeLock.unlock();
+            }
+        }
+
+        /**
+         * Closes the connection, if open. The caller must hold the exchange lock.
+         */
+        private void closeSocket() {
+            if (socket == null) {
+                return;
+            }
+            try {
+                socket.close();
+            } catch (IOException e) {
+                LOGGER.error("Error closing connection to peer " + address + ": " + e.getMessage());
+            }
+            socket = null;
+        }
+    }
+}
@@ -0,0 +1,732 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.network;
+
+import com.cmu.blockchain.core.BlockChain;
+import com.cmu.blockchain.message.MessageCodec;
+import com.cmu.blockchain.message.RequestMessage;
+import com.cmu.blockchain.message.ResponseMessage;
+import com.cmu.blockchain.message.TransactionResult;
+import com.cmu.blockchain.metrics.MiningTelemetry;
+import com.cmu.blockchain.metrics.RequestEvent;
+import com.cmu.blockchain.metrics.ServerMetrics;
+import com.cmu.blockchain.model.Block;
+import com.cmu.blockchain.util.LoggerUtil;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * RequestHandler turns JSON-formatted client requests into JSON-formatted responses for a blockchain.
+ * It is shared by the blocking and the non-blocking server, and is safe to call from several threads
+ * because the underlying blockchain serializes its writers.
+ * Every request is instrumented in its {@link ServerMetrics}: a request is started by {@link #parseRequest(String)}
+ * and finished by exactly one of {@link #processRequest(RequestMessage, long)}, {@link #busyResponse} or
+ * {@link #errorResponse(Exception)}, or by {@link #openFeed} for a follower asking to stream the chain.
+ * A request naming a chain is applied to that chain of the handler's {@link ChainRegistry}, which is held for the
+ * duration of the request; followers, peers and the metrics always concern the server as a whole. Only
+ * {@code addTransaction} and {@code addTransactions} create a named chain; other requests naming an unknown chain
+ * fail with "No such chain".
+ * Writes that mine and carry an idempotency key are recorded in an {@link IdempotencyTable}, so a retry of such a
+ * write is answered with the original's result, marked {@code replayed}, instead of being mined again.
+ * Each processed request is recorded as a {@link RequestEvent} for Java Flight Recorder. Only one request in
+ * {@code -Dblockchain.log.sampleInterval} (100 by default, 0 for none) is logged with its response, shortened to
+ * {@value #MAX_LOGGED_LENGTH} characters, because logging every response, chain views included, is costly under
+ * load.
+ */
+public class RequestHandler {
+
+    private static final Logger LOGGER = LoggerUtil.getLogger(RequestHandler.class);
+    private static final int MAX_SEARCH_MATCHES = 1000; // Matches returned by one searchTransactions request.
+    private static final int MIN_SUBMITTED_DIFFICULTY = Integer.getInteger("blockchain.submit.minDifficulty",
+            2); // Lowest difficulty accepted for blocks mined by clients.
+    private static final Set<String> IDEMPOTENT_ACTIONS = Set.of("addTransaction", "addTransactions",
+            "submitBlock"); // Writes deduplicated by their idempotency key.
+    private static final Set<String> CREATING_ACTIONS = Set.of("addTransaction",
+            "addTransactions"); // Writes that create the named chain they target; other requests need it to exist.
+    private static final int SUBSCRIPTION_BUFFER_SIZE = Integer.getInteger("blockchain.subscription.bufferSize",
+            ChainSubscription.DEFAULT_BUFFER_SIZE); // Events buffered per subscriber.
+    private static final int LOG_SAMPLE_INTERVAL = Integer.getInteger("blockchain.log.sampleInterval",
+            100); // Requests processed per request logged with its response; 0 logs none.
+    private static final int MAX_LOGGED_LENGTH = 512; // Characters logged of a request or response.
+
+    // Blockchains served, selected by the chain named in a request
+    private final ChainRegistry chains;
+
+    // Request instrumentation exposed through the getMetrics action
+    private final ServerMetrics metrics = new ServerMetrics();
+
+    // Results of keyed writes, answering their retries
+    private final IdempotencyTable idempotency = IdempotencyTable.fromSystemProperties();
+
+    // Requests processed, selecting the ones that are logged
+    private final AtomicLong processedRequests = new AtomicLong();
+
+    // Peer replication receiving gossipBlock requests, if enabled
+    private volatile PeerNode peerNode;
+
+    /**
+     * Constructs a RequestHandler serving the given blockchain, and any named chains in memory.
+     *
+     * @param blockchain The blockchain that requests naming no chain are applied to.
+     */
+    public RequestHandler(BlockChain blockchain) {
+        this(new ChainRegistry(blockchain));
+    }
+
+    /**
+     * Constructs a RequestHandler serving the chains of a registry.
+     *
+     * @param chains The chains that requests are applied to.
+     */
+    public RequestHandler(ChainRegistry chains) {
+        this.chains = chains;
+    }
+
+    /**
+     * Processes a request received from the client and generates an appropriate response.
+     *
+     * @param inputLine The JSON-formatted request received from the client.
+     * @return A JSON-formatted response to be sent back to the client.
+     */
+    public String processRequest(String inputLine) {
+        long receivedNanos = System.nanoTime();
+        RequestMessage request;
+        try {
+            request = parseRequest(inputLine);
+        } catch (Exception e) {
+            return errorResponse(e);
+        }
+        return processRequest(request, receivedNanos);
+    }
+
+    /**
+     * Parses a JSON-formatted request received from the client.
+     *
+     * @param inputLine The JSON-formatted request received from the client.
+     * @return The parsed request.
+     */
+    public RequestMessage parseRequest(String inputLine) {
+        metrics.requestStarted(inputLine.length() + 1L); // Characters on the wire, including the line terminator
+        long start = System.nanoTime();
+        RequestMessage request = MessageCodec.parseRequest(inputLine);
+        metrics.forAction(request == null ? null : request.action()).recordDecode(System.nanoTime() - start);
+        return request;
+    }
+
+    /**
+     * Processes a parsed request and generates an appropriate response.
+     *
+     * @param request       The request received from the client.
+     * @param receivedNanos The {@link System#nanoTime()} at which the request line was received.
+     * @return A JSON-formatted response to be sent back to the client.
+     */
+    public String processRequest(RequestMessage request, long receivedNanos) {
+        String action = request == null ? null : request.action();
+        ServerMetrics.ActionMetrics actionMetrics = metrics.forAction(action);
+        ChainRegistry.Lease lease = null;
+        IdempotencyTable.Claim claim = null;
+        RequestEvent event = new RequestEvent();
+        event.begin();
+        try {
+            long processStart = System.nanoTime();
+            // A retried write gets the result of the original instead of being mined again
+            if (request.idempotencyKey() != null && IDEMPOTENT_ACTIONS.contains(action)) {
+                claim = idempotency.claim(request);
+                if (!claim.isOwner()) {
+                    ResponseMessage replayed = replay(request, claim);
+                    String jsonResponse = MessageCodec.toJson(replayed);
+                    actionMetrics.recordProcess(System.nanoTime() - processStart);
+                    actionMetrics.recordTotal(System.nanoTime() - receivedNanos);
+                    metrics.requestFinished(jsonResponse.length() + 1L);
+                    event.success = replayed.isSuccess();
+                    event.replayed = true;
+                    event.responseLength = jsonResponse.length();
+                    logSampled(request, jsonResponse);
+                    return jsonResponse;
+                }
+            }
+            lease = CREATING_ACTIONS.contains(action) ? chains.acquireOrCreate(request.chain()) : chains.acquire(request.chain());
+            if (lease == null) {
+                ResponseMessage missing = new ResponseMessage(false, "No such chain: " + request.chain() + ".", action, null);
+                missing.setRequestId(request.requestId());
+                String jsonResponse = MessageCodec.toJson(missing);
+                actionMetrics.recordProcess(System.nanoTime() - processStart);
+                actionMetrics.recordTotal(System.nanoTime() - receivedNanos);
+                metrics.requestFinished(jsonResponse.length() + 1L);
+                if (claim != null) {
+                    missing.setRequestId(null); // Retries carry their own request ids
+                    claim.complete(MessageCodec.toJson(missing));
+                }
+                event.responseLength = jsonResponse.length();
+                logSampled(request, jsonResponse);
+                return jsonResponse;
+            }
+            BlockChain blockchain = lease.getBlockChain();
+
+            // Initialize a default response with failure status and an error message
+            ResponseMessage response = new ResponseMessage(false, "Invalid action", action, null);
+            response.setRequestId(request.requestId()); // Echo the correlation id for pipelined requests
+
+            // Handle the request based on the specified action
+            switch (action) {
+                case "viewBlockchainStatus":
+                    // Get the blockchain status and set it in the response
+                    String blockchainStatus = blockchain.toString();
+                    response.setSuccess(true);
+                    response.setMessage("Blockchain status viewed successfully.");
+                    response.setAction(action);
+                    response.setBlockchainData(blockchainStatus);
+                    // Set additional blockchain details
+                    setBlockchainDetails(response, blockchain);
+                    break;
+                case "addTransaction":
+                    // Add a new transaction to the blockchain
+                    blockchain.addTransaction(request.data(), request.difficulty());
+                    response.setSuccess(true);
+                    response.setMessage("Transaction added successfully.");
+                    response.setAction(action);
+                    // Update blockchain status after adding the block
+                    setBlockchainDetails(response, blockchain);
+                    break;
+                case "addTransactions":
+                    // Mine a batch of transactions in one server-side loop and report each one
+                    List<TransactionResult> results = addTransactions(request, blockchain);
+                    long added = results.stream().filter(result -> result.blockIndex() != null).count();
+                    response.setSuccess(added == results.size());
+                    response.setMessage("Added " + added + " of " + results.size() + " transactions.");
+                    response.setAction(action);
+                    response.setResults(results);
+                    setBlockchainDetails(response, blockchain);
+                    break;
+                case "verifyBlockchain":
+                    // Verify the integrity of the blockchain
+                    boolean isValid = blockchain.isChainValid();
+                    response.setSuccess(isValid);
+                    response.setMessage(isValid ? "Blockchain is valid." : "Blockchain validation failed.");
+                    response.setAction(action);
+                    // Provide blockchain details for verification context
+                    setBlockchainDetails(response, blockchain);
+                    break;
+                case "viewBlockchain":
+                    // View the entire blockchain
+                    response.setSuccess(true);
+                    response.setMessage("Viewing the Blockchain");
+                    response.setAction(action);
+                    response.setBlockchainData(blockchain.toString());
+                    break;
+                case "corruptBlockchain":
+                    // Corrupt a specific block in the blockchain
+                    try {
+                        // Extract block ID and new data from the request
+                        String[] parts = request.data().split(":", 2);
+                        int blockId = Integer.parseInt(parts[0]);
+                        String newData = parts[1];
+
+                        // Update the block data with the new data if the block ID is valid
+                        if (blockchain.corruptBlock(blockId, newData)) {
+                            response.setSuccess(true);
+                            response.setMessage("Block " + blockId + " corrupted successfully with new data: " + newData);
+                        } else {
+                            // Invalid block ID provided
+                            response.setSuccess(false);
+                            response.setMessage("Invalid block ID provided.");
+                        }
+                    } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                        // Error processing request data for block corruption
+                        response.setSuccess(false);
+                        response.setMessage("Error processing request data for block corruption: " + e.getMessage());
+                    }
+                    response.setAction(action);
+                    break;
+                case "getBlocks":
+                    // Return a batch of blocks following the newest block the caller shares with this chain
+                    int fromIndex = locateFork(request.data(), blockchain);
+                    List<Block> blocks = blockchain.getBlocks(fromIndex, ChainFeed.MAX_BLOCKS_PER_UPDATE);
+                    response.setSuccess(true);
+                    response.setMessage("Blocks " + fromIndex + " to " + (fromIndex + blocks.size() - 1) + ".");
+                    response.setAction(action);
+                    response.setStartIndex(fromIndex);
+                    response.setBlocks(blocks);
+                    setBlockchainDetails(response, blockchain);
+                    break;
+                case "getInclusionProof":
+                    // Prove that a block belongs to the chain without sending the chain
+                    try {
+                        int blockId = Integer.parseInt(request.data().trim());
+                        response.setInclusionProof(blockchain.getInclusionProof(blockId));
+                        response.setSuccess(true);
+                        response.setMessage("Inclusion proof for block " + blockId + ".");
+                        setBlockchainDetails(response, blockchain);
+                    } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                        response.setSuccess(false);
+                        response.setMessage("Invalid block ID provided.");
+                    }
+                    response.setAction(action);
+                    break;
+                case "searchTransactions":
+                    // Look the query up in the transaction index instead of scanning the chain
+                    try {
+                        int[] found = blockchain.searchTransactions(request.data() == null ? "" : request.data());
+                        List<Integer> matches = new ArrayList<>(Math.min(found.length, MAX_SEARCH_MATCHES));
+                        for (int i = 0; i < found.length && i < MAX_SEARCH_MATCHES; i++) {
+                            matches.add(found[i]);
+                        }
+                        response.setSuccess(true);
+                        response.setMessage(found.length > MAX_SEARCH_MATCHES
+                                ? "Found " + found.length + " matching blocks, returning the first " + MAX_SEARCH_MATCHES + "."
+                                : "Found " + found.length + " matching blocks.");
+                        response.setMatches(matches);
+                        setBlockchainDetails(response, blockchain);
+                    } catch (IllegalArgumentException e) {
+                        response.setSuccess(false);
+                        response.setMessage(e.getMessage());
+                    }
+                    response.setAction(action);
+                    break;
+                case "getBlocksBetween":
+                    // Page through the blocks mined in a time window, located in the time index
+                    try {
+                        String[] window = String.valueOf(request.data()).trim().split(":");
+                        if (window.length < 2 || window.length > 3) {
+                            throw new NumberFormatException();
+                        }
+                        long fromMillis = Long.parseLong(window[0]);
+                        long toMillis = Long.parseLong(window[1]);
+                        int cursor = window.length == 3 ? Integer.parseInt(window[2]) : 0;
+                        // Ask for one block more than a page to learn whether another page follows
+                        List<Block> page = blockchain.getBlocksBetween(fromMillis, toMillis, cursor,
+                                ChainFeed.MAX_BLOCKS_PER_UPDATE + 1);
+                        boolean more = page.size() > ChainFeed.MAX_BLOCKS_PER_UPDATE;
+                        if (more) {
+                            page = page.subList(0, ChainFeed.MAX_BLOCKS_PER_UPDATE);
+                        }
+                        response.setSuccess(true);
+                        response.setMessage(page.isEmpty() ? "No blocks in the window."
+                                : "Blocks " + page.getFirst().getIndex() + " to " + page.getLast().getIndex() + " of the window.");
+                        response.setStartIndex(page.isEmpty() ? cursor : page.getFirst().getIndex());
+                        response.setBlocks(page);
+                        response.setCursor(more ? String.valueOf(page.getLast().getIndex() + 1) : null);
+                        setBlockchainDetails(response, blockchain);
+                    } catch (NumberFormatException e) {
+                        response.setSuccess(false);
+                        response.setMessage("Expected <fromMillis>:<toMillis>[:<cursor>].");
+                    }
+                    response.setAction(action);
+                    break;
+                case "getMiningTemplate":
+                    // Hand out the next block for the client to mine itself
+                    Block template = blockchain.getMiningTemplate(request.data() == null ? "" : request.data(),
+                            Math.max(request.difficulty(), MIN_SUBMITTED_DIFFICULTY));
+                    response.setSuccess(true);
+                    response.setMessage("Mine block " + template.getIndex() + " at difficulty " + template.getDifficulty() + ", then submit it.");
+                    response.setAction(action);
+                    response.setStartIndex(template.getIndex());
+                    response.setBlocks(List.of(template));
+                    setBlockchainDetails(response, blockchain);
+                    break;
+                case "submitBlock":
+                    // Append a block mined by the client after checking its hash; no proof-of-work runs here
+                    try {
+                        Block submitted = MessageCodec.parseBlock(String.valueOf(request.data()));
+                        if (submitted.getDifficulty() < MIN_SUBMITTED_DIFFICULTY) {
+                            response.setSuccess(false);
+                            response.setMessage("Blocks must be mined at difficulty " + MIN_SUBMITTED_DIFFICULTY + " or more.");
+                        } else if (blockchain.submitBlock(submitted)) {
+                            response.setSuccess(true);
+                            response.setMessage("Block " + submitted.getIndex() + " added.");
+                        } else {
+                            // Stale: hand back a fresh template so the client can mine again right away
+                            Block fresh = blockchain.getMiningTemplate(submitted.getData(), submitted.getDifficulty());
+                            response.setSuccess(false);
+                            response.setMessage("Stale block: the chain moved on to block " + fresh.getIndex() + ", mine the new template.");
+                            response.setStartIndex(fresh.getIndex());
+                            response.setBlocks(List.of(fresh));
+                        }
+                        setBlockchainDetails(response, blockchain);
+                    } catch (IOException | IllegalArgumentException e) {
+                        response.setSuccess(false);
+                        response.setMessage("Rejected block: " + e.getMessage());
+                    }
+                    response.setAction(action);
+                    break;
+                case "gossipBlock":
+                    // Take in blocks announced by a peer; they are verified and applied in the background
+                    if (peerNode == null) {
+                        response.setSuccess(false);
+                        response.setMessage("Peer replication is not enabled.");
+                    } else {
+                        peerNode.receive(MessageCodec.parseAnnouncement(request.data()));
+                        response.setSuccess(true);
+                        response.setMessage("Blocks received.");
+                    }
+                    response.setAction(action);
+                    break;
+                case "getMetrics":
+                    // Report the server's request instrumentation
+                    response.setSuccess(true);
+                    response.setMessage("Server metrics.");
+                    response.setAction(action);
+                    response.setBlockchainData(metrics.toJson());
+                    break;
+                case "getMiningStats":
+                    // Report what mining the latest blocks cost, optionally only the last few
+                    try {
+                        MiningTelemetry telemetry = blockchain.getMiningTelemetry();
+                        int maxSamples = request.data() == null || request.data().isBlank() ? Integer.MAX_VALUE
+                                : Integer.parseInt(request.data().trim());
+                        response.setSuccess(true);
+                        response.setMessage(telemetry.getRecorded() + " blocks mined since startup.");
+                        response.setMiningSamples(telemetry.getRecentSamples(maxSamples));
+                        response.setRollingHashesPerSecond(telemetry.getRollingHashesPerSecond());
+                        setBlockchainDetails(response, blockchain);
+                    } catch (NumberFormatException e) {
+                        response.setSuccess(false);
+                        response.setMessage("Expected a sample count.");
+                    }
+                    response.setAction(action);
+                    break;
+                case "negotiateCompression":
+                    // Agree on compressing the following responses; the server applies it to the connection
+                    boolean supported = LineCompressor.isSupported(request.data());
+                    response.setSuccess(supported);
+                    response.setMessage(supported ? "Compression enabled: " + LineCompressor.DEFLATE + "."
+                            : "Unsupported compression: " + request.data() + ".");
+                    response.setAction(action);
+                    break;
+                case "repairBlockchain":
+                    // Repair the blockchain by restoring it to a valid state
+                    blockchain.repairChain();
+                    response.setSuccess(true);
+                    response.setMessage("Blockchain repaired successfully.");
+                    response.setAction(action);
+                    // Update blockchain status after repair
+                    setBlockchainDetails(response, blockchain);
+                    break;
+                default:
+                    // Unknown action requested
+                    response.setSuccess(false);
+                    response.setMessage("Unknown action requested.");
+                    response.setAction(action);
+            }
+
+            long encodeStart = System.nanoTime();
+            actionMetrics.recordProcess(encodeStart - processStart);
+            // Convert the response to JSON format
+            String jsonResponse = MessageCodec.toJson(response);
+            long encodeEnd = System.nanoTime();
+            actionMetrics.recordEncode(encodeEnd - encodeStart);
+            actionMetrics.recordTotal(encodeEnd - receivedNanos);
+            metrics.requestFinished(jsonResponse.length() + 1L);
+            if (claim != null) {
+                response.setRequestId(null); // Retries carry their own request ids
+                claim.complete(MessageCodec.toJson(response));
+            }
+            event.success = response.isSuccess();
+            event.responseLength = jsonResponse.length();
+            if (event.shouldCommit()) {
+                event.chainSize = blockchain.getChainSize();
+            }
+            logSampled(request, jsonResponse);
+            return jsonResponse;
+        } catch (Exception e) {
+            if (claim != null && claim.isOwner()) {
+                claim.abandon(e); // Nothing to replay; let the next retry run again
+            }
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            metrics.recordError(action);
+            String jsonResponse = errorResponse(e, request == null ? null : request.requestId());
+            event.responseLength = jsonResponse.length();
+            return jsonResponse;
+        } finally {
+            if (lease != null) {
+                lease.close();
+            }
+            if (event.shouldCommit()) {
+                event.action = action;
+                event.chain = request == null ? null : request.chain();
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Logs a request and its response if the request is one of those sampled.
+     *
+     * @param request      The processed request.
+     * @param jsonResponse The JSON-formatted response.
+     */
+    private void logSampled(RequestMessage request, String jsonResponse) {
+        if (LOG_SAMPLE_INTERVAL <= 0 || processedRequests.getAndIncrement() % LOG_SAMPLE_INTERVAL != 0
+                || !LOGGER.isInfoEnabled()) {
+            return;
+        }
+        LOGGER.info("Sampled Request: " + shorten(MessageCodec.toJson(request)) + " Response: " + shorten(jsonResponse));
+    }
+
+    /**
+     * Shortens a message to be logged.
+     *
+     * @param message The message.
+     * @return The message, cut to {@value #MAX_LOGGED_LENGTH} characters followed by its full length if longer.
+     */
+    private static String shorten(String message) {
+        return message.length() <= MAX_LOGGED_LENGTH ? message
+                : message.substring(0, MAX_LOGGED_LENGTH) + "... (" + message.length() + " characters)";
+    }
+
+    /**
+     * Answers a retried write with the result of the request that first used its idempotency key, waiting for it
+     * if it is still running.
+     *
+     * @param request The retried write.
+     * @param claim   The claim on its idempotency key, owned by the original request.
+     * @return The response, marked as replayed, or a failure if the key was used for another request.
+     * @throws InterruptedException If interrupted while waiting for the original.
+     * @throws ExecutionException   If the original failed without a result.
+     */
+    private ResponseMessage replay(RequestMessage request, IdempotencyTable.Claim claim) throws InterruptedException, ExecutionException {
+        ResponseMessage response;
+        if (claim.matches()) {
+            response = MessageCodec.parseResponse(claim.result().get());
+            response.setReplayed(true);
+        } else {
+            response = new ResponseMessage(false, "Idempotency key " + request.idempotencyKey()
+                    + " was already used for a different request.", request.action(), null);
+        }
+        response.setRequestId(request.requestId());
+        LOGGER.info("Replayed the result for idempotency key " + request.idempotencyKey() + ".");
+        return response;
+    }
+
+    /**
+     * Mines the transactions of a batch request. Missing payloads are rejected; the others are mined in order
+     * into consecutive blocks.
+     *
+     * @param request    The batch request.
+     * @param blockchain The chain the request names.
+     * @return The outcome of each transaction, in request order.
+     */
+    private List<TransactionResult> addTransactions(RequestMessage request, BlockChain blockchain) {
+        List<String> transactions = request.transactions() == null ? List.of() : request.transactions();
+        List<String> accepted = new ArrayList<>(transactions.size());
+        for (String data : transactions) {
+            if (data != null) {
+                accepted.add(data);
+            }
+        }
+        List<Block> blocks = blockchain.addTransactions(accepted, request.difficulty());
+        List<TransactionResult> results = new ArrayList<>(transactions.size());
+        int next = 0;
+        for (String data : transactions) {
+            results.add(data == null ? TransactionResult.rejected("Missing transaction data.")
+                    : TransactionResult.added(blocks.get(next++).getIndex()));
+        }
+        return results;
+    }
+
+    /**
+     * Starts streaming the chain to a follower that sent a {@link ChainFeed#ACTION} request.
+     * The follower describes the chain it already holds as {@code <chainSize>:<chainHash>}; if that matches,
+     * the feed resumes after it, otherwise the whole chain is sent again.
+     *
+     * @param request       The follow request.
+     * @param receivedNanos The {@link System#nanoTime()} at which the request line was received.
+     * @param onChange      Called whenever an update is ready to be sent.
+     * @return The feed, which the caller must close when the follower disconnects.
+     */
+    public ChainFeed openFeed(RequestMessage request, long receivedNanos, Runnable onChange) {
+        ServerMetrics.ActionMetrics actionMetrics = metrics.forAction(request.action());
+        long processStart = System.nanoTime();
+        // Listen before choosing the start index, so no change in between is missed
+        ChainFeed feed = new ChainFeed(chains.getDefaultChain(), onChange);
+        int fromIndex = resumeIndex(request.data(), chains.getDefaultChain());
+        LOGGER.info("Follower connected, streaming the chain from block " + fromIndex + ".");
+        feed.onChainChanged(fromIndex);
+        long processEnd = System.nanoTime();
+        actionMetrics.recordProcess(processEnd - processStart);
+        actionMetrics.recordTotal(processEnd - receivedNanos);
+        metrics.requestFinished(0);
+        return feed;
+    }
+
+    /**
+     * Subscribes a client that sent a {@link ChainSubscription#ACTION} request to the events of the chain it names.
+     * The request data selects the {@link ChainSubscription.OverflowPolicy}; the buffer size is set with
+     * {@code -Dblockchain.subscription.bufferSize}.
+     *
+     * @param request       The subscribe request.
+     * @param receivedNanos The {@link System#nanoTime()} at which the request line was received.
+     * @param onChange      Called whenever an event is ready to be sent.
+     * @return The subscription, which the caller must close when the client disconnects.
+     * @throws IllegalArgumentException If the request names an unknown policy, or an invalid or unknown chain.
+     * @throws IOException              If the chain cannot be loaded.
+     */
+    public ChainSubscription openSubscription(RequestMessage request, long receivedNanos, Runnable onChange) throws IOException {
+        ServerMetrics.ActionMetrics actionMetrics = metrics.forAction(request.action());
+        long processStart = System.nanoTime();
+        ChainSubscription.OverflowPolicy policy = ChainSubscription.OverflowPolicy.parse(request.data());
+        ChainSubscription subscription;
+        try (ChainRegistry.Lease lease = chains.acquire(request.chain())) {
+            if (lease == null) {
+                throw new IllegalArgumentException("No such chain: " + request.chain());
+            }
+            subscription = new ChainSubscription(lease.getBlockChain(), SUBSCRIPTION_BUFFER_SIZE, policy, onChange);
+        }
+        LOGGER.info("Subscriber connected with the " + policy + " overflow policy.");
+        long processEnd = System.nanoTime();
+        actionMetrics.recordProcess(processEnd - processStart);
+        actionMetrics.recordTotal(processEnd - receivedNanos);
+        metrics.requestFinished(0);
+        return subscription;
+    }
+
+    /**
+     * Finds the first block a caller is missing from a block locator: a comma-separated list of
+     * {@code <index>:<hash>} entries describing the caller's chain, newest first.
+     *
+     * @param locator    The caller's block locator, possibly empty.
+     * @param blockchain The chain to locate the caller's blocks in.
+     * @return The index following the newest located block that this chain shares, or 0 if none is shared.
+     */
+    private int locateFork(String locator, BlockChain blockchain) {
+        if (locator == null || locator.isEmpty()) {
+            return 0;
+        }
+        for (String entry : locator.split(",")) {
+            String[] parts = entry.split(":", 2);
+            try {
+                int index = Integer.parseInt(parts[0].trim());
+                if (parts.length == 2 && index >= 0 && index < blockchain.getChainSize()
+                        && blockchain.getBlock(index).calculateHash().equals(parts[1].trim())) {
+                    return index + 1;
+                }
+            } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                LOGGER.error("Invalid block locator entry: " + entry);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Lets a peer node receive the blocks gossiped to this server.
+     *
+     * @param peerNode The peer node of this server.
+     */
+    public void setPeerNode(PeerNode peerNode) {
+        this.peerNode = peerNode;
+    }
+
+    /**
+     * Finds where a follower's copy of the chain stops matching this chain.
+     *
+     * @param followerChain The follower's chain as {@code <chainSize>:<chainHash>}, possibly empty.
+     * @param blockchain    The chain being followed.
+     * @return The index of the first block the follower needs.
+     */
+    private int resumeIndex(String followerChain, BlockChain blockchain) {
+        if (followerChain == null || followerChain.isEmpty()) {
+            return 0;
+        }
+        try {
+            String[] parts = followerChain.split(":", 2);
+            int size = Integer.parseInt(parts[0]);
+            if (size > 0 && size <= blockchain.getChainSize() && blockchain.getBlock(size - 1).calculateHash().equals(parts[1])) {
+                return size;
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            LOGGER.error("Invalid follower chain description: " + e.getMessage());
+        }
+        return 0;
+    }
+
+    /**
+     * Gets the request instrumentation of this handler.
+     *
+     * @return The server metrics.
+     */
+    public ServerMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Gets the chains served by this handler.
+     *
+     * @return The chain registry.
+     */
+    public ChainRegistry getChains() {
+        return chains;
+    }
+
+    /**
+     * Builds the JSON-formatted response sent when a request is rejected because its work queue is full.
+     *
+     * @param request          The rejected request.
+     * @param retryAfterMillis The suggested delay before retrying, in milliseconds.
+     * @return A JSON-formatted busy response.
+     */
+    public String busyResponse(RequestMessage request, long retryAfterMillis) {
+        ResponseMessage response = new ResponseMessage(false, "Server busy, retry after " + retryAfterMillis + " ms", request.action(), null);
+        response.setRequestId(request.requestId());
+        response.setRetryAfterMillis(retryAfterMillis);
+        String busyResponse = MessageCodec.toJson(response);
+        metrics.recordRejected();
+        metrics.requestFinished(busyResponse.length() + 1L);
+        return busyResponse;
+    }
+
+    /**
+     * Builds the JSON-formatted response sent when a request could not be parsed.
+     *
+     * @param e The exception raised while parsing the request.
+     * @return A JSON-formatted error response.
+     */
+    public String errorResponse(Exception e) {
+        metrics.recordError(null);
+        return errorResponse(e, null);
+    }
+
+    /**
+     * Builds the JSON-formatted response sent when a request could not be processed.
+     *
+     * @param e         The exception raised while processing the request.
+     * @param requestId The correlation id of the failed request, or null if unknown.
+     * @return A JSON-formatted error response.
+     */
+    protected String errorResponse(Exception e, Long requestId) {
+        // Error occurred while processing the request
+        ResponseMessage response = new ResponseMessage(false, "Error processing request: " + e.getMessage(), "", "");
+        response.setRequestId(requestId);
+        String errorResponse = MessageCodec.toJson(response);
+        // Log the error response
+        LOGGER.error("Error Response: " + errorResponse);
+        LOGGER.error("Number of Blocks on Chain == " + chains.getDefaultChain().getChainSize() + ".");
+        metrics.requestFinished(errorResponse.length() + 1L);
+        return errorResponse;
+    }
+
+    /**
+     * Sets additional blockchain details in the response message.
+     *
+     * @param response   The ResponseMessage object to which the blockchain details will be added.
+     * @param blockchain The chain the request was applied to.
+     */
+    private void setBlockchainDetails(ResponseMessage response, BlockChain blockchain) {
+        response.setChainSize(blockchain.getChainSize());
+        response.setLatestBlockDifficulty(blockchain.getLatestBlock().getDifficulty());
+        response.setTotalDifficulty(blockchain.getTotalDifficulty());
+        response.setHashesPerSecond(blockchain.getHashesPerSecond());
+        response.setTotalExpectedHashes(blockchain.getTotalExpectedHashes());
+        response.setLatestBlockNonce(blockchain.getLatestBlock().getNonce().toString());
+        response.setChainHash(blockchain.getChainHash());
+        response.setMerkleRoot(blockchain.getMerkleRoot());
+    }
+}
@@ -0,0 +1,231 @@
+//Andrew ID: mpanindr
+//Name: Manjunath K P
+
+package com.cmu.blockchain.network;
+
+import com.cmu.blockchain.message.RequestMessage;
+import com.cmu.blockchain.util.LoggerUtil;
+import org.slf4j.Logger;
+
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * RequestScheduler provides admission control for expensive server actions.
+ * Every scheduled action (by default {@code addTransaction}, {@code addTransactions}, {@code repairBlockchain} and
+ * {@code submitBlock}) gets its own bounded work queue and worker threads. When a queue is full the request is rejected straight away with a
+ * "busy, retry after N ms" response instead of piling up, and the estimate is derived from the recent service
+ * time of that action. Reads are never queued here, so they are not delayed behind a burst of mining requests.
+ * Requests naming a chain get queues of their own for that chain, created on first use, so each tenant's mining
+ * waits only behind its own; their worker threads stop once the queue has been idle for a while. At most
+ * {@code -Dblockchain.queue.maxChainQueues} such queues (256 by default) exist at once: idle ones are dropped to
+ * make room, and a request is rejected as busy if none is idle. Invalid chain names are refused without a queue.
+ */
+public class RequestScheduler implements Closeable {
+
+    private static final Logger LOGGER = LoggerUtil.getLogger(RequestScheduler.class);
+
+    /**
+     * Default number of queued requests per action, used when no system property overrides it.
+     */
+    public static final int DEFAULT_QUEUE_LIMIT = 32;
+
+    private static final String QUEUE_LIMIT_PROPERTY = "blockchain.queue."; // Followed by the action name.
+    private static final long MIN_RETRY_AFTER_MILLIS = 10;
+    private static final long CHAIN_WORKER_KEEP_ALIVE_SECONDS = 60; // Idle time after which a chain's workers stop.
+    private static final int MAX_CHAIN_QUEUES = Integer.getInteger("blockchain.queue.maxChainQueues",
+            256); // Queues of named chains that may exist at once.
+
+    private final RequestHandler handler;
+    private final Map<String, Integer> queueLimits;
+    private final int threads;
+    private final Map<String, ActionQueue> queues = new ConcurrentHashMap<>(); // Keyed by action, or by chain/action for named chains.
+    private final AtomicInteger chainQueues = new AtomicInteger(); // Entries of queues keyed by chain/action.
+
+    /**
+     * Constructs a RequestScheduler with one bounded queue per action.
+     *
+     * @param handler     The handler processing admitted requests.
+     * @param queueLimits The maximum number of waiting requests, per scheduled action.
+     * @param threads     The number of worker threads per scheduled action.
+     */
+    public RequestScheduler(RequestHandler handler, Map<String, Integer> queueLimits, int threads) {
+        this.handler = handler;
+        this.queueLimits = Map.copyOf(queueLimits);
+        this.threads = threads;
+        queueLimits.forEach((action, limit) -> queues.put(action, new ActionQueue(action, limit, threads, false)));
+    }
+
+    /**
+     * Creates a scheduler for the expensive actions, reading the queue limits from the system properties
+     * {@code blockchain.queue.addTransaction}, {@code blockchain.queue.addTransactions},
+     * {@code blockchain.queue.repairBlockchain} and {@code blockchain.queue.submitBlock}.
+     * Mining is serialized by the blockchain, so a single thread per action is enough to keep it busy.
+     * Submitting a block is cheap, but it waits for mining in progress, so it is queued as well.
+     *
+     * @param handler The handler processing admitted requests.
+     * @return The configured scheduler.
+     */
+    public static RequestScheduler fromSystemProperties(RequestHandler handler) {
+        return fromSystemProperties(handler, "addTransaction", "addTransactions", "repairBlockchain", "submitBlock");
+    }
+
+    /**
+     * Creates a scheduler for the given actions, reading each queue limit from the system property
+     * {@code blockchain.queue.<action>}.
+     *
+     * @param handler The handler processing admitted requests.
+     * @param actions The actions to schedule.
+     * @return The configured scheduler.
+     */
+    public static RequestScheduler fromSystemProperties(RequestHandler handler, String... actions) {
+        Map<String, Integer> limits = new HashMap<>();
+        for (String action : actions) {
+            limits.put(action, Integer.getInteger(QUEUE_LIMIT_PROPERTY + action, DEFAULT_QUEUE_LIMIT));
+        }
+        return new RequestScheduler(handler, limits, 1);
+    }
+
+    /**
+     * Indicates whether requests for the action go through a bounded queue.
+     *
+     * @param action The action named in the request.
+     * @return True if the action is scheduled, otherwise false.
+     */
+    public boolean isScheduled(String action) {
+        return action != null && queueLimits.containsKey(action);
+    }
+
+    /**
+     * Queues a request for a scheduled action.
+     * If the action's queue is full, the returned future is already completed with a busy response.
+     *
+     * @param request       The request to process; its action must be scheduled.
+     * @param receivedNanos The {@link System#nanoTime()} at which the request line was received.
+     * @return A future completed with the JSON-formatted response.
+     */
+    public CompletableFuture<String> submit(RequestMessage request, long receivedNanos) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        if (request.chain() != null && !ChainRegistry.isValidName(request.chain())) {
+            handler.getMetrics().recordError(request.action());
+            result.complete(handler.errorResponse(new IllegalArgumentException("Invalid chain name: " + request.chain()),
+                    request.requestId()));
+            return result;
+        }
+        ActionQueue queue = request.chain() == null ? queues.get(request.action()) : chainQueue(request);
+        if (queue == null) {
+            LOGGER.warn("Rejected " + request.action() + " for chain " + request.chain() + ": too many chain queues");
+            result.complete(handler.busyResponse(request, MIN_RETRY_AFTER_MILLIS));
+            return result;
+        }
+        try {
+            queue.executor.execute(() -> {
+                long start = System.nanoTime();
+                try {
+                    result.complete(handler.processRequest(request, receivedNanos));
+                } finally {
+                    queue.recordServiceTime(System.nanoTime() - start);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            long retryAfterMillis = queue.estimateRetryAfterMillis();
+            LOGGER.warn("Rejected " + request.action() + ": queue full, retry after " + retryAfterMillis + " ms");
+            result.complete(handler.busyResponse(request, retryAfterMillis));
+        }
+        return result;
+    }
+
+    /**
+     * Gets the queue of a named chain for the request's action, creating it if there is room.
+     *
+     * @param request The request naming a chain.
+     * @return The queue, or null if the maximum number of chain queues exist and none of them is idle.
+     */
+    private ActionQueue chainQueue(RequestMessage request) {
+        String key = request.chain() + "/" + request.action();
+        ActionQueue queue = queues.get(key);
+        if (queue != null) {
+            return queue;
+        }
+        if (chainQueues.get() >= MAX_CHAIN_QUEUES) {
+            dropIdleChainQueues();
+        }
+        return queues.computeIfAbsent(key, ignored -> {
+            if (chainQueues.get() >= MAX_CHAIN_QUEUES) {
+                return null;
+            }
+            chainQueues.incrementAndGet();
+            return new ActionQueue(request.chain() + "-" + request.action(), queueLimits.get(request.action()), threads, true);
+        });
+    }
+
+    /**
+     * Drops the queues of named chains that have nothing running or waiting. A request that already picked up a
+     * dropped queue still runs on it, and its workers stop once idle.
+     */
+    private void dropIdleChainQueues() {
+        queues.forEach((key, queue) -> {
+            if (queue.idleWorkersStop && queue.executor.getActiveCount() == 0 && queue.executor.getQueue().isEmpty()
+                    && queues.remove(key, queue)) {
+                chainQueues.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Stops all worker threads, abandoning queued requests.
+     */
+    @Override
+    public void close() {
+        for (ActionQueue queue : queues.values()) {
+            queue.executor.shutdownNow();
+        }
+    }
+
+    /**
+     * A bounded queue and its workers for one action.
+     */
+    private static final class ActionQueue {
+        private final ThreadPoolExecutor executor;
+        private final int threads;
+        private final boolean idleWorkersStop; // Set for the queues of named chains.
+        private final AtomicLong averageServiceNanos = new AtomicLong(); // Exponentially weighted moving average.
+
+        ActionQueue(String name, int limit, int threads, boolean idleWorkersStop) {
+            this.threads = threads;
+            this.idleWorkersStop = idleWorkersStop;
+            this.executor = new ThreadPoolExecutor(threads, threads, CHAIN_WORKER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(limit), Thread.ofPlatform().name(name + "-worker-", 0).factory(),
+                    new ThreadPoolExecutor.AbortPolicy());
+            executor.allowCoreThreadTimeOut(idleWorkersStop);
+        }
+
+        /**
+         * Folds the service time of a completed request into the moving average.
+         *
+         * @param nanos The time taken to process the request.
+         */
+        void recordServiceTime(long nanos) {
+            averageServiceNanos.updateAndGet(average -> average == 0 ? nanos : average + (nanos - average) / 8);
+        }
+
+        /**
+         * Estimates how long it takes until the queue has drained enough to admit a new request.
+         *
+         * @return The suggested retry delay in milliseconds.
+         */
+        long estimateRetryAfterMillis() {
+            long waitingNanos = averageServiceNanos.get() * (executor.getQueue().size() + 1) / threads;
+            return Math.max(MIN_RETRY_AFTER_MILLIS, TimeUnit.NANOSECONDS.toMillis(waitingNanos));
+        }
+    }
+}
@@ -5,194 +5,402 @@ package com.cmu.blockchain.network;
 
 import java.io.*;
 import java.net.*;
-import java.sql.Timestamp;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
-import com.cmu.blockchain.message.RequestMessage;
-import com.cmu.blockchain.message.ResponseMessage;
 import com.cmu.blockchain.core.BlockChain;
-import com.cmu.blockchain.model.Block;
+import com.cmu.blockchain.message.RequestMessage;
+import com.cmu.blockchain.mining.MiningPool;
 import com.cmu.blockchain.util.LoggerUtil;
-import com.google.gson.Gson;
 import org.slf4j.Logger;
 
 /**
  * ServerTCP class represents the server side of a TCP-based blockchain system.
  * It listens for incoming client connections, processes requests, and sends responses.
+ * By default, each client is served by its own virtual thread over blocking sockets; passing {@code --nio} starts
+ * the selector-based {@link NioServerTCP} instead, which multiplexes many connections over a few threads.
+ * In both modes, requests carrying a request id are pipelined: they are processed concurrently and answered
+ * as soon as they complete, so a client can send many requests without waiting for each response.
+ * Mining actions go through the bounded queues of a {@link RequestScheduler}; when a queue is full the client
+ * is told to retry later. Queue limits are set with {@code -Dblockchain.queue.<action>=<limit>}, and
+ * {@code -Dblockchain.metrics.dumpIntervalSeconds=<seconds>} periodically logs the request metrics.
+ * Clients may negotiate Deflate compression of responses longer than {@code -Dblockchain.compression.threshold}
+ * characters (1024 by default) with a {@link LineCompressor#ACTION} request.
+ * Any server can act as the leader of {@link FollowerServer}s, which stream its chain over a {@code followChain}
+ * connection and serve reads from their own copy, and monitors can have chain events pushed to them over a
+ * {@link ChainSubscription#ACTION} connection instead of polling.
+ * With {@code -Dblockchain.peers=<host:port,...>} the server replicates its chain with other servers through a
+ * {@link PeerNode}; {@code -Dblockchain.port} changes the port and {@code -Dblockchain.advertise} the address
+ * announced to peers, which defaults to {@code localhost:<port>}.
+ * With {@code -Dblockchain.pool.port=<port>}, proof-of-work is shared with {@link com.cmu.blockchain.mining.MiningWorker}
+ * processes connecting to that port.
+ * Besides its default chain, the server hosts named chains selected by the {@code chain} field of a request, kept
+ * by a {@link ChainRegistry}: they are created on first use, and stored in {@code -Dblockchain.chains.dir} once
+ * idle for {@code -Dblockchain.chains.idleSeconds}.
+ * With {@code -Dblockchain.socketPath=<path>}, clients on the same host can also connect through a Unix domain
+ * socket at that path, which skips the TCP loopback stack; it is served by a {@link NioServerTCP} in both modes.
  */
 public class ServerTCP {
-    
-    private static final Logger LOGGER = LoggerUtil.getLogger(ServerTCP.class);
 
-    // Gson instance for JSON handling
-    private static final Gson gson = new Gson();
+    private static final Logger LOGGER = LoggerUtil.getLogger(ServerTCP.class);
 
     // Blockchain instance to manage the blockchain data
     private static final BlockChain blockchain = new BlockChain();
 
-    // Placeholder for the chain hash (not utilized in this example)
-    private static final String chainHash = "";
+    // Named chains hosted next to the default one
+    private static final ChainRegistry chains = ChainRegistry.fromSystemProperties(blockchain);
+
+    // Handler turning client requests into responses for the blockchains
+    private static final RequestHandler handler = new RequestHandler(chains);
+
+    // Bounded work queues for mining actions, shared by both server modes
+    private static final RequestScheduler scheduler = RequestScheduler.fromSystemProperties(handler);
+
+    // Pipelined requests a connection of the blocking server may have running before it stops reading
+    private static final int MAX_PIPELINED_REQUESTS = 64;
+
+    // Executor running pipelined reads of the blocking server concurrently
+    private static final ExecutorService pipelineExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Executor serving each connection of the blocking server on its own thread
+    private static final ExecutorService connectionExecutor = Executors.newVirtualThreadPerTaskExecutor();
 
     /**
      * Main method for starting the blockchain server.
      *
-     * @param args Command-line arguments (not used in this example).
+     * @param args Command-line arguments; {@code --nio [eventLoops]} selects the non-blocking server.
      */
     public static void main(String[] args) {
         // Port number on which the server listens for incoming connections
-        int serverPort = 7777;
+        int serverPort = Integer.getInteger("blockchain.port", 7777);
+
+        // Optionally log the request metrics at a fixed interval
+        long dumpIntervalSeconds = Long.getLong("blockchain.metrics.dumpIntervalSeconds", 0);
+        if (dumpIntervalSeconds > 0) {
+            handler.getMetrics().startPeriodicDump(dumpIntervalSeconds);
+        }
+
+        // Store idle named chains, and every named chain on shutdown
+        chains.startEvictor();
+        Runtime.getRuntime().addShutdownHook(new Thread(chains::close));
+        handler.getMetrics().registerGauge("loadedChains", chains::getLoadedChains);
+        handler.getMetrics().registerGauge("miningHashesPerSecond", blockchain.getMiningTelemetry()::getRollingHashesPerSecond);
+
+        // Optionally let remote workers take part in mining
+        int poolPort = Integer.getInteger("blockchain.pool.port", 0);
+        if (poolPort > 0) {
+            startMiningPool(poolPort);
+        }
+
+        // Optionally replicate the chain with peer servers
+        String peers = System.getProperty("blockchain.peers");
+        if (peers != null) {
+            startPeerNode(System.getProperty("blockchain.advertise", "localhost:" + serverPort), peers);
+        }
+
+        boolean nio = args.length > 0 && "--nio".equals(args[0]);
+        int eventLoops = nio && args.length > 1 ? Integer.parseInt(args[1]) : NioServerTCP.DEFAULT_EVENT_LOOPS;
+
+        // Optionally serve co-located clients over a Unix domain socket as well
+        String socketPath = System.getProperty("blockchain.socketPath");
+        if (socketPath != null) {
+            startUnixListener(Path.of(socketPath), eventLoops);
+        }
+
+        if (nio) {
+            runNonBlocking(serverPort, eventLoops);
+            return;
+        }
 
         try (ServerSocket listenSocket = new ServerSocket(serverPort)) {
             LOGGER.info("Blockchain server running on port " + serverPort);
 
             // Server runs indefinitely, continuously accepting client connections
             while (true) {
-                try (Socket clientSocket = listenSocket.accept();
-                     BufferedReader in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
-                     PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(clientSocket.getOutputStream())), true)) {
+                Socket clientSocket = listenSocket.accept();
+                connectionExecutor.execute(() -> serveClient(clientSocket));
+            }
+        } catch (IOException e) {
+            LOGGER.error("Server Exception: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Serves one client connection until it disconnects, then closes it.
+     *
+     * @param clientSocket The accepted client socket.
+     */
+    private static void serveClient(Socket clientSocket) {
+        try (clientSocket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
+             PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(clientSocket.getOutputStream())), true);
+             LineCompressor compressor = LineCompressor.fromSystemProperties()) {
 
-                    LOGGER.info("New client connected.");
+            LOGGER.info("New client connected.");
+            handleClient(in, out, compressor);
+        } catch (IOException e) {
+            LOGGER.error("Exception handling client: " + e.getMessage());
+        }
+    }
 
-                    // Process incoming requests from the client
-                    String inputLine;
-                    while ((inputLine = in.readLine()) != null) {
-                        String response = processRequest(inputLine);
-                        out.println(response); // Send the response back to the client
+    /**
+     * Processes incoming requests from one client until it disconnects.
+     * Requests without a request id are answered in order; pipelined requests complete in any order.
+     * At most {@link #MAX_PIPELINED_REQUESTS} pipelined requests run at once; beyond that the connection is not read
+     * until one completes, so a client cannot start an unbounded number of requests.
+     *
+     * @param in         BufferedReader to receive requests from the client.
+     * @param out        PrintWriter to send responses to the client.
+     * @param compressor Compresses the responses once the client negotiates it.
+     * @throws IOException If an I/O error occurs.
+     */
+    private static void handleClient(BufferedReader in, PrintWriter out, LineCompressor compressor) throws IOException {
+        List<Future<?>> inFlight = new ArrayList<>();
+        Semaphore pipelineSlots = new Semaphore(MAX_PIPELINED_REQUESTS);
+        String inputLine;
+        while ((inputLine = in.readLine()) != null) {
+            inFlight.removeIf(Future::isDone);
+            long receivedNanos = System.nanoTime();
+            RequestMessage request;
+            try {
+                request = handler.parseRequest(inputLine);
+            } catch (Exception e) {
+                send(out, compressor, handler.errorResponse(e));
+                continue;
+            }
+            if (request != null && ChainFeed.ACTION.equals(request.action())) {
+                streamChain(request, receivedNanos, in, out, compressor);
+                break;
+            }
+            if (request != null && ChainSubscription.ACTION.equals(request.action())) {
+                ChainSubscription subscription;
+                try {
+                    subscription = handler.openSubscription(request, receivedNanos, () -> { });
+                } catch (Exception e) {
+                    send(out, compressor, handler.errorResponse(e, request.requestId()));
+                    continue;
+                }
+                streamEvents(subscription, in, out, compressor);
+                break;
+            }
+            if (request != null && LineCompressor.ACTION.equals(request.action())) {
+                String response = handler.processRequest(request, receivedNanos);
+                synchronized (out) {
+                    out.println(compressor.encode(response)); // The answer itself is never compressed
+                    if (LineCompressor.isSupported(request.data())) {
+                        compressor.enable();
                     }
-                } catch (IOException e) {
-                    LOGGER.error("Exception handling client: " + e.getMessage());
                 }
+                continue;
+            }
+            boolean scheduled = request != null && scheduler.isScheduled(request.action());
+            boolean pipelined = request != null && request.requestId() != null;
+            if (pipelined) {
+                try {
+                    pipelineSlots.acquire(); // Stop reading until a pipelined request completes
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            if (scheduled && pipelined) {
+                inFlight.add(scheduler.submit(request, receivedNanos).thenAccept(response -> send(out, compressor, response))
+                        .whenComplete((ignored, e) -> pipelineSlots.release()));
+            } else if (scheduled) {
+                send(out, compressor, scheduler.submit(request, receivedNanos).join());
+            } else if (pipelined) {
+                inFlight.add(pipelineExecutor.submit(() -> {
+                    try {
+                        send(out, compressor, handler.processRequest(request, receivedNanos));
+                    } finally {
+                        pipelineSlots.release();
+                    }
+                }));
+            } else {
+                send(out, compressor, handler.processRequest(request, receivedNanos)); // Send the response back to the client
+            }
+        }
+        // Let pipelined requests finish before the connection is closed
+        for (Future<?> future : inFlight) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                LOGGER.error("Exception handling pipelined request: " + e.getMessage());
             }
-        } catch (IOException e) {
-            LOGGER.error("Server Exception: " + e.getMessage());
         }
     }
 
     /**
-     * Processes a request received from the client and generates an appropriate response.
+     * Streams chain updates to a follower until it disconnects.
+     * Updates are written by a separate thread while this one reads until the end of the input,
+     * which is how a departed follower is noticed while the chain is idle.
      *
-     * @param inputLine The JSON-formatted request received from the client.
-     * @return A JSON-formatted response to be sent back to the client.
+     * @param request       The follow request.
+     * @param receivedNanos The {@link System#nanoTime()} at which the request line was received.
+     * @param in            BufferedReader receiving from the follower.
+     * @param out           PrintWriter sending the updates.
+     * @param compressor    Compresses the updates if the follower negotiated it.
+     * @throws IOException If an I/O error occurs.
      */
-    private static String processRequest(String inputLine) {
-        // Log the received request
-        LOGGER.info("Received Request: " + inputLine);
+    private static void streamChain(RequestMessage request, long receivedNanos, BufferedReader in, PrintWriter out,
+                                    LineCompressor compressor) throws IOException {
+        try (ChainFeed feed = handler.openFeed(request, receivedNanos, () -> { })) {
+            Future<?> writer = pipelineExecutor.submit(() -> {
+                try {
+                    String update;
+                    while ((update = feed.awaitUpdate()) != null) {
+                        send(out, compressor, update);
+                        if (out.checkError()) {
+                            break;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            while (in.readLine() != null) {
+                // A follower only listens once it is streaming
+            }
+            writer.cancel(true);
+        }
+    }
 
-        try {
-            // Parse the incoming JSON request into a RequestMessage object
-            RequestMessage request = gson.fromJson(inputLine, RequestMessage.class);
-            String action = request.action();
-
-            // Initialize a default response with failure status and an error message
-            ResponseMessage response = new ResponseMessage(false, "Invalid action", action, null);
-
-            // Handle the request based on the specified action
-            switch (action) {
-                case "viewBlockchainStatus":
-                    // Get the blockchain status and set it in the response
-                    String blockchainStatus = blockchain.toString();
-                    response.setSuccess(true);
-                    response.setMessage("Blockchain status viewed successfully.");
-                    response.setAction(action);
-                    response.setBlockchainData(blockchainStatus);
-                    // Set additional blockchain details
-                    setBlockchainDetails(response);
-                    break;
-                case "addTransaction":
-                    // Add a new transaction to the blockchain
-                    blockchain.addBlock(new Block(blockchain.getChainSize(), new Timestamp(System.currentTimeMillis()), request.data(), request.difficulty()));
-                    response.setSuccess(true);
-                    response.setMessage("Transaction added successfully.");
-                    response.setAction(action);
-                    // Update blockchain status after adding the block
-                    setBlockchainDetails(response);
-                    break;
-                case "verifyBlockchain":
-                    // Verify the integrity of the blockchain
-                    boolean isValid = blockchain.isChainValid();
-                    response.setSuccess(isValid);
-                    response.setMessage(isValid ? "Blockchain is valid." : "Blockchain validation failed.");
-                    response.setAction(action);
-                    // Provide blockchain details for verification context
-                    setBlockchainDetails(response);
-                    break;
-                case "viewBlockchain":
-                    // View the entire blockchain
-                    response.setSuccess(true);
-                    response.setMessage("Viewing the Blockchain");
-                    response.setAction(action);
-                    response.setBlockchainData(blockchain.toString());
-                    break;
-                case "corruptBlockchain":
-                    // Corrupt a specific block in the blockchain
-                    try {
-                        // Extract block ID and new data from the request
-                        String[] parts = request.data().split(":", 2);
-                        int blockId = Integer.parseInt(parts[0]);
-                        String newData = parts[1];
-
-                        // Check if the block ID is valid
-                        if (blockId >= 0 && blockId < blockchain.getChainSize()) {
-                            // Update the block data with the new data
-                            blockchain.getBlock(blockId).setData(newData);
-                            response.setSuccess(true);
-                            response.setMessage("Block " + blockId + " corrupted successfully with new data: " + newData);
-                        } else {
-                            // Invalid block ID provided
-                            response.setSuccess(false);
-                            response.setMessage("Invalid block ID provided.");
+    /**
+     * Pushes chain events to a subscriber until it disconnects, or until its subscription overflows, in which case
+     * the connection is closed. Like {@link #streamChain}, events are written by a separate thread.
+     *
+     * @param subscription The subscription, which is closed when streaming ends.
+     * @param in           BufferedReader receiving from the subscriber.
+     * @param out          PrintWriter sending the events.
+     * @param compressor   Compresses the events if the subscriber negotiated it.
+     * @throws IOException If an I/O error occurs.
+     */
+    private static void streamEvents(ChainSubscription subscription, BufferedReader in, PrintWriter out,
+                                     LineCompressor compressor) throws IOException {
+        try (subscription) {
+            Future<?> writer = pipelineExecutor.submit(() -> {
+                try {
+                    String event;
+                    while ((event = subscription.awaitEvent()) != null) {
+                        send(out, compressor, event);
+                        if (out.checkError()) {
+                            break;
                         }
-                    } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
-                        // Error processing request data for block corruption
-                        response.setSuccess(false);
-                        response.setMessage("Error processing request data for block corruption: " + e.getMessage());
                     }
-                    response.setAction(action);
-                    break;
-                case "repairBlockchain":
-                    // Repair the blockchain by restoring it to a valid state
-                    blockchain.repairChain();
-                    response.setSuccess(true);
-                    response.setMessage("Blockchain repaired successfully.");
-                    response.setAction(action);
-                    // Update blockchain status after repair
-                    setBlockchainDetails(response);
-                    break;
-                default:
-                    // Unknown action requested
-                    response.setSuccess(false);
-                    response.setMessage("Unknown action requested.");
-                    response.setAction(action);
+                    if (subscription.isClosed()) {
+                        out.close(); // Overflowed; closing the socket also ends the read below
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            try {
+                while (in.readLine() != null) {
+                    // A subscriber only listens once it is subscribed
+                }
+            } catch (IOException e) {
+                if (!subscription.isClosed()) {
+                    throw e;
+                }
+            }
+            writer.cancel(true);
+        }
+    }
+
+    /**
+     * Writes one response line, serializing writers that share the connection.
+     * Lines are compressed under the same lock, since the compressor's stream must match the order on the wire.
+     *
+     * @param out        PrintWriter to send the response to the client.
+     * @param compressor Compresses the response if the client negotiated it.
+     * @param response   The JSON-formatted response.
+     */
+    private static void send(PrintWriter out, LineCompressor compressor, String response) {
+        synchronized (out) {
+            out.println(compressor.encode(response));
+        }
+    }
+
+    /**
+     * Starts a mining pool and lets it mine the blocks of the blockchain.
+     *
+     * @param poolPort The port mining workers connect to.
+     */
+    private static void startMiningPool(int poolPort) {
+        try {
+            MiningPool pool = MiningPool.onPort(poolPort);
+            pool.start();
+            blockchain.setMiner(pool);
+            handler.getMetrics().registerGauge("miningPoolWorkers", pool::getWorkerCount);
+            handler.getMetrics().registerGauge("miningPoolHashes", pool::getHashes);
+            LOGGER.info("Mining pool accepting workers on port " + poolPort);
+        } catch (IOException e) {
+            LOGGER.error("Mining pool Exception: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Starts replicating the chain with peer servers.
+     *
+     * @param selfAddress The address announced to peers, as {@code host:port}.
+     * @param peers       The comma-separated addresses of known peers, possibly empty.
+     */
+    private static void startPeerNode(String selfAddress, String peers) {
+        List<String> peerAddresses = new ArrayList<>();
+        for (String peer : peers.split(",")) {
+            if (!peer.isBlank()) {
+                peerAddresses.add(peer.trim());
             }
+        }
+        PeerNode peerNode = new PeerNode(blockchain, selfAddress, peerAddresses);
+        handler.setPeerNode(peerNode);
+        peerNode.registerGauges(handler.getMetrics());
+        peerNode.start();
+        LOGGER.info("Replicating with peers " + peerAddresses + " as " + selfAddress);
+    }
 
-            // Convert the response to JSON format
-            String jsonResponse = gson.toJson(response);
-            // Log the generated response
-            LOGGER.info("Generated Response: " + jsonResponse);
-            LOGGER.info("Number of Blocks on Chain == " + blockchain.getChainSize() + ".");
-            return jsonResponse;
-        } catch (Exception e) {
-            // Error occurred while processing the request
-            String errorResponse = gson.toJson(new ResponseMessage(false, "Error processing request: " + e.getMessage(), "", ""));
-            // Log the error response
-            LOGGER.error("Error Response: " + errorResponse);
-            LOGGER.error("Number of Blocks on Chain == " + blockchain.getChainSize() + ".");
-            return errorResponse;
+    /**
+     * Starts serving clients on a Unix domain socket, next to the TCP port.
+     *
+     * @param socketPath The path of the socket file.
+     * @param eventLoops The number of event-loop threads multiplexing the connections.
+     */
+    private static void startUnixListener(Path socketPath, int eventLoops) {
+        try {
+            Files.deleteIfExists(socketPath); // Left behind by a server that did not shut down cleanly
+            NioServerTCP server = new NioServerTCP(UnixDomainSocketAddress.of(socketPath), handler, eventLoops, scheduler);
+            Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+            server.start();
+            LOGGER.info("Blockchain server also listening on Unix domain socket " + socketPath);
+        } catch (IOException e) {
+            LOGGER.error("Unix domain socket Exception: " + e.getMessage());
         }
     }
 
     /**
-     * Sets additional blockchain details in the response message.
+     * Runs the selector-based server until the process is stopped.
      *
-     * @param response The ResponseMessage object to which the blockchain details will be added.
+     * @param serverPort The port to listen on.
+     * @param eventLoops The number of event-loop threads multiplexing the connections.
      */
-    private static void setBlockchainDetails(ResponseMessage response) {
-        // Example method for setting blockchain details in the response
-        response.setChainSize(blockchain.getChainSize());
-        response.setLatestBlockDifficulty(blockchain.getLatestBlock().getDifficulty());
-        response.setTotalDifficulty(blockchain.getTotalDifficulty());
-        response.setHashesPerSecond(blockchain.getHashesPerSecond());
-        response.setTotalExpectedHashes(blockchain.getTotalExpectedHashes());
-        response.setLatestBlockNonce(blockchain.getLatestBlock().getNonce().toString());
-        response.setChainHash(blockchain.getChainHash());
+    private static void runNonBlocking(int serverPort, int eventLoops) {
+        try {
+            NioServerTCP server = new NioServerTCP(new InetSocketAddress(serverPort), handler, eventLoops, scheduler);
+            Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+            server.start();
+            LOGGER.info("Non-blocking blockchain server running on port " + serverPort);
+        } catch (IOException e) {
+            LOGGER.error("Server Exception: " + e.getMessage());
+        }
     }
 }
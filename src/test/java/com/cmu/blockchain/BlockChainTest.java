@@ -1,11 +1,21 @@
 package com.cmu.blockchain;
 
 import com.cmu.blockchain.core.BlockChain;
+import com.cmu.blockchain.message.MessageCodec;
+import com.cmu.blockchain.message.RequestMessage;
+import com.cmu.blockchain.message.ResponseMessage;
 import com.cmu.blockchain.model.Block;
+import com.cmu.blockchain.network.ChainFeed;
+import com.cmu.blockchain.network.RequestHandler;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.math.BigInteger;
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -28,10 +38,12 @@ class BlockChainTest {
     void testAddBlock() {
         int initialSize = blockchain.getChainSize();
         Block newBlock = new Block(initialSize, new Timestamp(System.currentTimeMillis()), "New transaction", 2);
-        blockchain.addBlock(newBlock);
+        Block addedBlock = blockchain.addBlock(newBlock);
 
         assertEquals(initialSize + 1, blockchain.getChainSize(), "Blockchain size should increase after adding a new block.");
-        assertEquals(newBlock, blockchain.getLatestBlock(), "Latest block should be the one just added.");
+        assertEquals(addedBlock, blockchain.getLatestBlock(), "Latest block should be the one just added.");
+        assertNull(newBlock.getPreviousHash(), "The block passed in should not be changed.");
+        assertEquals(blockchain.getBlock(0).calculateHash(), addedBlock.getPreviousHash(), "The added block should be linked to the chain.");
     }
 
     @Test
@@ -52,11 +64,21 @@ class BlockChainTest {
         blockchain.addBlock(newBlock);
 
         // Corrupt the block by modifying data
-        blockchain.getBlock(1).setData("Corrupted transaction");
+        blockchain.corruptBlock(1, "Corrupted transaction");
 
         assertFalse(blockchain.isChainValid(), "Blockchain should be invalid after corruption.");
     }
 
+    @Test
+    void testCorruptingAMissingBlockReleasesTheWriterLock() throws Exception {
+        assertFalse(blockchain.corruptBlock(99, "x"), "There is no block 99.");
+        assertFalse(blockchain.corruptBlock(-1, "x"));
+
+        CompletableFuture<Block> mined = CompletableFuture.supplyAsync(() -> blockchain.addTransaction("After the bad index", 1));
+        assertEquals(1, mined.get(10, TimeUnit.SECONDS).getIndex(), "Another thread should still be able to mine.");
+        assertTrue(blockchain.isChainValid());
+    }
+
     @Test
     void testRepairChain() {
         // Add a valid block
@@ -64,7 +86,7 @@ class BlockChainTest {
         blockchain.addBlock(newBlock);
 
         // Corrupt the block by modifying data
-        blockchain.getBlock(1).setData("Corrupted transaction");
+        blockchain.corruptBlock(1, "Corrupted transaction");
 
         assertFalse(blockchain.isChainValid(), "Blockchain should be invalid before repair.");
 
@@ -107,9 +129,10 @@ class BlockChainTest {
     @Test
     void testGetLatestBlock() {
         Block newBlock = new Block(blockchain.getChainSize(), new Timestamp(System.currentTimeMillis()), "New transaction", 2);
-        blockchain.addBlock(newBlock);
+        Block addedBlock = blockchain.addBlock(newBlock);
 
-        assertEquals(newBlock, blockchain.getLatestBlock(), "The latest block should be the most recently added block.");
+        assertEquals(addedBlock, blockchain.getLatestBlock(), "The latest block should be the most recently added block.");
+        assertEquals("New transaction", blockchain.getLatestBlock().getData());
     }
 
     @Test
@@ -122,4 +145,124 @@ class BlockChainTest {
 
         assertTrue(blockchain.isChainValid(), "Blockchain should maintain integrity with multiple blocks.");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testReplicaAcceptsVerifiedBlocks() {
+        blockchain.addTransaction("Transaction 1", 2);
+        blockchain.addTransaction("Transaction 2", 2);
+
+        BlockChain replica = BlockChain.createReplica();
+        replica.replaceFrom(0, blockchain.getBlocks(0, 2));
+        replica.replaceFrom(2, blockchain.getBlocks(2, 10));
+
+        assertEquals(blockchain.getChainSize(), replica.getChainSize(), "Replica should hold every block of the chain.");
+        assertEquals(blockchain.getChainHash(), replica.getChainHash(), "Replica should end with the same hash.");
+        assertTrue(replica.isChainValid(), "Replica should be valid.");
+    }
+
+    @Test
+    void testReplicaRejectsCorruptedBlocks() {
+        blockchain.addTransaction("Transaction 1", 2);
+        BlockChain replica = BlockChain.createReplica();
+        replica.replaceFrom(0, blockchain.getBlocks(0, 10));
+
+        blockchain.addTransaction("Transaction 2", 2);
+        blockchain.corruptBlock(1, "Corrupted transaction");
+
+        assertThrows(IllegalArgumentException.class, () -> replica.replaceFrom(1, blockchain.getBlocks(1, 10)),
+                "Replica should refuse blocks that fail verification.");
+        assertEquals(2, replica.getChainSize(), "Replica should keep its verified chain.");
+        assertTrue(replica.isChainValid(), "Replica should stay valid.");
+
+        blockchain.repairChain();
+        replica.replaceFrom(1, blockchain.getBlocks(1, 10));
+        assertEquals(blockchain.getChainHash(), replica.getChainHash(), "Replica should accept the repaired chain.");
+    }
+
+    @Test
+    void testForkWithMoreWorkIsAdopted() {
+        blockchain.addTransaction("Shared", 1);
+        BlockChain other = BlockChain.createReplica();
+        other.replaceFrom(0, blockchain.getBlocks(0, 10));
+        blockchain.addTransaction("Light 1", 1);
+        blockchain.addTransaction("Light 2", 1);
+        other.addTransaction("Heavy", 3);
+
+        assertFalse(other.adoptFork(2, blockchain.getBlocks(2, 10)), "Branch with less work should be ignored.");
+        assertEquals("Heavy", other.getLatestBlock().getData(), "Heavier chain should be kept.");
+        assertTrue(blockchain.adoptFork(2, other.getBlocks(2, 10)), "Branch with more work should be adopted.");
+        assertEquals(other.getChainHash(), blockchain.getChainHash(), "Chains should converge.");
+        assertEquals(3, blockchain.getChainSize(), "Longer but lighter blocks should be dropped.");
+    }
+
+    @Test
+    void testAddTransactionsMinesConsecutiveBlocks() {
+        List<Block> added = blockchain.addTransactions(List.of("Transaction 1", "Transaction 2", "Transaction 3"), 2);
+
+        assertEquals(3, added.size(), "Every transaction should get a block.");
+        assertEquals(List.of(1, 2, 3), added.stream().map(Block::getIndex).toList(), "Blocks should be consecutive.");
+        assertEquals("Transaction 3", blockchain.getLatestBlock().getData());
+        assertTrue(blockchain.isChainValid(), "Blockchain should be valid after a batch.");
+    }
+
+    @Test
+    void testGetBlocksBetweenUsesTheTimeIndex() {
+        long[] times = {1_000, 2_000, 2_000, 1_500, 3_000, 4_000};
+        List<Block> blocks = new ArrayList<>();
+        String previousHash = Block.GENESIS_PREVIOUS_HASH;
+        for (int i = 0; i < times.length; i++) {
+            Block block = new Block(i, new Timestamp(times[i]), "Transaction " + i, previousHash, BigInteger.ZERO, 0);
+            blocks.add(block);
+            previousHash = block.calculateHash();
+        }
+        BlockChain replica = BlockChain.createReplica();
+        replica.replaceFrom(0, blocks);
+
+        assertEquals(List.of(1, 2, 3), indexes(replica.getBlocksBetween(2_000, 3_000)),
+                "A block stamped before its predecessor counts as mined with it.");
+        assertEquals(List.of(0, 1, 2, 3, 4, 5), indexes(replica.getBlocksBetween(0, Long.MAX_VALUE)));
+        assertEquals(List.of(4), indexes(replica.getBlocksBetween(2_001, 4_000)), "The end of the window is exclusive.");
+        assertEquals(List.of(), replica.getBlocksBetween(4_001, 5_000));
+        assertEquals(List.of(), replica.getBlocksBetween(3_000, 3_000));
+        assertEquals(List.of(2, 3), indexes(replica.getBlocksBetween(1_000, 3_000, 2, 2)), "Pages start at the cursor.");
+
+        replica.replaceFrom(4, List.of(new Block(4, new Timestamp(10_000), "Late", blocks.get(3).calculateHash(), BigInteger.ZERO, 0)));
+        assertEquals(List.of(4), indexes(replica.getBlocksBetween(3_000, Long.MAX_VALUE)), "Replaced blocks are reindexed.");
+    }
+
+    @Test
+    void testGetBlocksBetweenActionPages() {
+        long from = System.currentTimeMillis();
+        int total = ChainFeed.MAX_BLOCKS_PER_UPDATE + 10;
+        List<String> transactions = new ArrayList<>();
+        for (int i = 0; i < total; i++) {
+            transactions.add("Transaction " + i);
+        }
+        blockchain.addTransactions(transactions, 0);
+        RequestHandler handler = new RequestHandler(blockchain);
+
+        String json = handler.processRequest(MessageCodec.toJson(new RequestMessage("getBlocksBetween", from + ":" + Long.MAX_VALUE, 0)));
+        ResponseMessage first = MessageCodec.parseResponse(json);
+        assertTrue(first.isSuccess(), first.getMessage());
+        assertEquals(ChainFeed.MAX_BLOCKS_PER_UPDATE, first.getBlocks().size(), "The first page should be full.");
+        assertNotNull(first.getCursor(), "More blocks remain.");
+
+        List<Block> received = new ArrayList<>(first.getBlocks());
+        ResponseMessage second = MessageCodec.parseResponse(handler.processRequest(MessageCodec.toJson(
+                new RequestMessage("getBlocksBetween", from + ":" + Long.MAX_VALUE + ":" + first.getCursor(), 0))));
+        received.addAll(second.getBlocks());
+        assertNull(second.getCursor(), "The second page is the last.");
+        assertEquals(second.getStartIndex(), second.getBlocks().getFirst().getIndex());
+        assertEquals(blockchain.getBlocksBetween(from, Long.MAX_VALUE).stream().map(Block::calculateHash).toList(),
+                received.stream().map(Block::calculateHash).toList(), "Pages should cover the window once.");
+        assertTrue(received.size() >= total, "Every new block is in the window.");
+
+        ResponseMessage invalid = MessageCodec.parseResponse(handler.processRequest(
+                MessageCodec.toJson(new RequestMessage("getBlocksBetween", "yesterday", 0))));
+        assertFalse(invalid.isSuccess(), "The window must be in milliseconds.");
+    }
+
+    private static List<Integer> indexes(List<Block> blocks) {
+        return blocks.stream().map(Block::getIndex).toList();
+    }
+}
@@ -0,0 +1,81 @@
+package com.cmu.blockchain;
+
+import com.cmu.blockchain.core.BlockChain;
+import com.cmu.blockchain.model.Block;
+import com.cmu.blockchain.model.BlockHeader;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlockTest {
+
+    private static final Timestamp TIMESTAMP = new Timestamp(1_700_000_000_123L);
+
+    @Test
+    void testHeaderHasAFixedLayout() {
+        Block small = new Block(7, TIMESTAMP, "x", Block.GENESIS_PREVIOUS_HASH, BigInteger.valueOf(5), 3);
+        Block large = new Block(7, TIMESTAMP, "x".repeat(100_000), Block.GENESIS_PREVIOUS_HASH, BigInteger.valueOf(5), 3);
+
+        BlockHeader header = BlockHeader.of(7, TIMESTAMP.getTime(), Block.GENESIS_PREVIOUS_HASH, "x", 5, 3);
+        assertEquals(BlockHeader.ENCODED_LENGTH, header.encode().length, "The header should not grow with the data.");
+        assertEquals(header.hash(), small.calculateHash(), "The block hash should be the hash of its header.");
+        assertEquals(BlockHeader.NONCE_OFFSET, large.getHashPrefix().length);
+        assertEquals(BlockHeader.ENCODED_LENGTH - BlockHeader.NONCE_OFFSET - Long.BYTES, large.getHashSuffix().length);
+        assertNotEquals(small.calculateHash(), large.calculateHash());
+    }
+
+    @Test
+    void testCopiesLeaveTheOriginalUnchanged() {
+        Block block = new Block(1, TIMESTAMP, "Alice pays Bob", 2);
+        String hash = block.calculateHash();
+
+        Block linked = block.withPreviousHash(Block.GENESIS_PREVIOUS_HASH);
+        Block mined = linked.proofOfWork();
+        Block tampered = mined.withData("Alice pays Mallory");
+
+        assertEquals(hash, block.calculateHash(), "The original block should keep its hash.");
+        assertNull(block.getPreviousHash());
+        assertEquals(BigInteger.ZERO, linked.getNonce(), "Mining should not change the block it started from.");
+        assertTrue(BlockChain.isMined(mined));
+        assertEquals(mined.getNonce(), tampered.getNonce(), "Tampering keeps the nonce.");
+        assertNotEquals(mined.calculateHash(), tampered.calculateHash());
+        assertEquals(mined.calculateHash(), mined.withNonce(mined.getNonce()).calculateHash(),
+                "A copy with the same fields should hash the same.");
+    }
+
+    @Test
+    void testLegacyBlocksKeepTheirTextHash() {
+        Block legacy = new Block(3, TIMESTAMP, "Transaction", "00ab", BigInteger.valueOf(42), 2, Block.LEGACY_HASH_VERSION);
+        String text = 3 + TIMESTAMP.toString() + "Transaction" + "00ab" + 42 + 2;
+
+        assertEquals(Block.LEGACY_HASH_VERSION, legacy.withData("Changed").getHashVersion(), "Copies keep the hash version.");
+        assertEquals(sha256Hex(text), legacy.calculateHash(), "Legacy blocks should hash like before the binary header.");
+        assertTrue(BlockChain.isMined(legacy.proofOfWork()), "Legacy blocks can still be mined for repairs.");
+    }
+
+    @Test
+    void testInvalidHeadersAreRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new Block(1, TIMESTAMP, "Transaction", "00ab", BigInteger.ZERO, 2), "Previous hashes are 32 bytes.");
+        assertThrows(IllegalArgumentException.class,
+                () -> new Block(1, TIMESTAMP, "Transaction", null, BigInteger.ONE.shiftLeft(64), 2), "Nonces are 64-bit.");
+        assertThrows(IllegalArgumentException.class,
+                () -> new Block(1, TIMESTAMP, "Transaction", null, BigInteger.ZERO, 2, 3), "Unknown versions are rejected.");
+    }
+
+    private static String sha256Hex(String text) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.cmu.blockchain;
+
+import com.cmu.blockchain.core.BlockChain;
+import com.cmu.blockchain.message.MessageCodec;
+import com.cmu.blockchain.message.RequestMessage;
+import com.cmu.blockchain.network.RequestHandler;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightRecorderEventsTest {
+
+    private static List<RecordedEvent> ofType(List<RecordedEvent> events, String name) {
+        return events.stream().filter(event -> event.getEventType().getName().equals(name)).toList();
+    }
+
+    @Test
+    void testHotPathsAreRecorded(@TempDir Path directory) throws Exception {
+        BlockChain blockchain = new BlockChain();
+        RequestHandler handler = new RequestHandler(blockchain);
+        Path file = directory.resolve("blockchain.jfr");
+        try (Recording recording = new Recording()) {
+            for (String name : List.of("Request", "ProofOfWork", "ChainCheck", "ChainSerialization")) {
+                recording.enable("com.cmu.blockchain." + name).withThreshold(Duration.ZERO);
+            }
+            recording.start();
+            handler.processRequest(MessageCodec.toJson(new RequestMessage("addTransaction", "Alice pays Bob 10", 2)));
+            handler.processRequest(MessageCodec.toJson(new RequestMessage("viewBlockchain", "", 0)));
+            handler.processRequest(MessageCodec.toJson(new RequestMessage("getBlocks", "0", 0)));
+            handler.processRequest(MessageCodec.toJson(new RequestMessage("corruptBlockchain", "1:Mallory", 0)));
+            handler.processRequest(MessageCodec.toJson(new RequestMessage("verifyBlockchain", "", 0)));
+            handler.processRequest(MessageCodec.toJson(new RequestMessage("repairBlockchain", "", 0)));
+            recording.stop();
+            recording.dump(file);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+
+        List<RecordedEvent> requests = ofType(events, "com.cmu.blockchain.Request");
+        assertEquals(List.of("addTransaction", "viewBlockchain", "getBlocks", "corruptBlockchain", "verifyBlockchain",
+                "repairBlockchain"), requests.stream().map(event -> event.getString("action")).toList());
+        assertTrue(requests.get(0).getBoolean("success"));
+        assertFalse(requests.get(4).getBoolean("success"), "The corrupted chain fails verification.");
+        assertEquals(2, requests.get(0).getInt("chainSize"));
+        assertTrue(requests.get(1).getInt("responseLength") > 0);
+
+        RecordedEvent mined = ofType(events, "com.cmu.blockchain.ProofOfWork").get(0);
+        assertEquals(1, mined.getInt("blockIndex"));
+        assertEquals(2, mined.getInt("difficulty"));
+        assertEquals(blockchain.getMiningTelemetry().getRecentSamples(2).get(0).attempts(), mined.getLong("attempts"));
+        assertEquals("Alice pays Bob 10".length(), mined.getInt("dataLength"));
+
+        List<RecordedEvent> checks = ofType(events, "com.cmu.blockchain.ChainCheck");
+        RecordedEvent verify = checks.stream().filter(event -> event.getString("operation").equals("verify")).findFirst().orElseThrow();
+        assertFalse(verify.getBoolean("valid"));
+        assertEquals(2, verify.getInt("blocks"), "Verification stops at the corrupted block.");
+        RecordedEvent repair = checks.stream().filter(event -> event.getString("operation").equals("repair")).findFirst().orElseThrow();
+        assertEquals(1, repair.getInt("blocks"), "Every block after the genesis block is mined again.");
+
+        List<RecordedEvent> serializations = ofType(events, "com.cmu.blockchain.ChainSerialization");
+        assertTrue(serializations.stream().anyMatch(event -> event.getString("view").equals("chain")
+                && event.getInt("blocks") == 2 && event.getInt("length") > 0), "viewBlockchain encodes the chain.");
+        assertTrue(serializations.stream().anyMatch(event -> event.getString("view").equals("blocks")
+                && event.getInt("blocks") == 2), "getBlocks encodes its blocks.");
+    }
+}
@@ -0,0 +1,64 @@
+package com.cmu.blockchain;
+
+import com.cmu.blockchain.metrics.LatencyHistogram;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void testEmptyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        assertEquals(0, histogram.getMean());
+    }
+
+    @Test
+    void testSmallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 10; i++) {
+            histogram.record(i);
+        }
+        assertEquals(5, histogram.getValueAtPercentile(50));
+        assertEquals(10, histogram.getValueAtPercentile(100));
+        assertEquals(10, histogram.getMax());
+        assertEquals(5.5, histogram.getMean(), 1e-9);
+    }
+
+    @Test
+    void testPercentilesWithinRelativeError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 100_000; i++) {
+            histogram.record(i * 1000);
+        }
+        assertEquals(50_000_000, histogram.getValueAtPercentile(50), 50_000_000 * 0.0625);
+        assertEquals(99_000_000, histogram.getValueAtPercentile(99), 99_000_000 * 0.0625);
+        assertEquals(99_900_000, histogram.getValueAtPercentile(99.9), 99_900_000 * 0.0625);
+        assertEquals(100_000_000, histogram.getMax());
+    }
+
+    @Test
+    void testCorrectedRecordingFillsInMissedRequests() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 96; i++) {
+            histogram.recordCorrected(10, 10);
+        }
+        histogram.recordCorrected(40, 10);
+        assertEquals(100, histogram.getCount(), "A stall of four intervals stands for three missed requests.");
+        assertEquals(40, histogram.getMax());
+        assertEquals(30, histogram.getValueAtPercentile(99), "The missed requests waited 30, 20 and 10.");
+        histogram.recordCorrected(1000, 0);
+        assertEquals(101, histogram.getCount(), "Without an expected interval only the value is recorded.");
+    }
+
+    @Test
+    void testExtremeValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(0, histogram.getValueAtPercentile(50), "Negative values are recorded as zero.");
+        assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(100));
+    }
+}
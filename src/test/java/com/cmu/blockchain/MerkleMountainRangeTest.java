@@ -0,0 +1,134 @@
+package com.cmu.blockchain;
+
+import com.cmu.blockchain.core.BlockChain;
+import com.cmu.blockchain.message.MessageCodec;
+import com.cmu.blockchain.message.RequestMessage;
+import com.cmu.blockchain.message.ResponseMessage;
+import com.cmu.blockchain.model.Block;
+import com.cmu.blockchain.model.InclusionProof;
+import com.cmu.blockchain.model.MerkleMountainRange;
+import com.cmu.blockchain.network.RequestHandler;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MerkleMountainRangeTest {
+
+    private static List<Block> blocks(int count) {
+        List<Block> blocks = new ArrayList<>();
+        String previousHash = Block.GENESIS_PREVIOUS_HASH;
+        for (int i = 0; i < count; i++) {
+            Block block = new Block(i, new Timestamp(1_700_000_000_000L + i), "Transaction " + i, previousHash, BigInteger.ZERO, 0);
+            blocks.add(block);
+            previousHash = block.calculateHash();
+        }
+        return blocks;
+    }
+
+    private static MerkleMountainRange rangeOf(List<Block> blocks) {
+        MerkleMountainRange range = new MerkleMountainRange();
+        blocks.forEach(block -> range.append(block.calculateHash()));
+        return range;
+    }
+
+    @Test
+    void testEveryBlockHasAValidProof() {
+        List<Block> blocks = blocks(33);
+        for (int size = 1; size <= blocks.size(); size++) {
+            MerkleMountainRange range = rangeOf(blocks.subList(0, size));
+            for (int i = 0; i < size; i++) {
+                InclusionProof proof = range.prove(blocks.get(i));
+                assertTrue(proof.verify(range.root()), "Proof of block " + i + " among " + size + " should verify.");
+                assertTrue(proof.verifyData("Transaction " + i, range.root()));
+                assertEquals(range.root(), proof.root());
+                assertTrue(proof.siblings().size() <= 32 - Integer.numberOfLeadingZeros(size), "Proofs grow logarithmically.");
+            }
+        }
+    }
+
+    @Test
+    void testTamperedProofsFail() {
+        List<Block> blocks = blocks(11);
+        String root = rangeOf(blocks).root();
+        InclusionProof proof = rangeOf(blocks).prove(blocks.get(5));
+        String otherHash = blocks.get(6).calculateHash();
+
+        assertFalse(proof.verifyData("Transaction 6", root), "The proof is for other data.");
+        assertFalse(new InclusionProof(6, proof.leafCount(), proof.blockHash(), proof.header(), proof.siblings(),
+                proof.peaks(), proof.root()).verify(root), "The proof is for another index.");
+        assertFalse(new InclusionProof(5, proof.leafCount(), otherHash, null, proof.siblings(),
+                proof.peaks(), proof.root()).verify(root), "The proof is for another block.");
+        assertFalse(new InclusionProof(5, proof.leafCount(), proof.blockHash(), proof.header(), proof.siblings(),
+                proof.peaks(), otherHash).verify(root), "The proof leads to another root.");
+        assertFalse(new InclusionProof(5, proof.leafCount(), proof.blockHash(), proof.header(), List.of("zz"),
+                proof.peaks(), proof.root()).verify(root), "Malformed proofs are rejected.");
+    }
+
+    @Test
+    void testProofWithAForgedRootFails() {
+        List<Block> blocks = blocks(11);
+        String root = rangeOf(blocks).root();
+        List<Block> forged = new ArrayList<>(blocks);
+        forged.set(5, blocks.get(5).withData("Forged transaction"));
+        MerkleMountainRange forgedRange = rangeOf(forged);
+        InclusionProof proof = forgedRange.prove(forged.get(5));
+
+        assertTrue(proof.verifyData("Forged transaction", forgedRange.root()), "The forged proof is consistent with its own root.");
+        assertFalse(proof.verifyData("Forged transaction", root), "It does not lead to the trusted root.");
+        assertFalse(proof.verify(null), "A proof needs a trusted root.");
+    }
+
+    @Test
+    void testTruncationMatchesRebuilding() {
+        List<Block> blocks = blocks(20);
+        MerkleMountainRange range = rangeOf(blocks);
+        for (int size = 19; size >= 0; size -= 3) {
+            range.truncate(size);
+            assertEquals(size, range.size());
+            assertEquals(rangeOf(blocks.subList(0, size)).root(), range.root(), "Truncating to " + size + " blocks.");
+        }
+        assertNull(new MerkleMountainRange().root(), "An empty range has no root.");
+    }
+
+    @Test
+    void testChainProofsFollowCorruptionAndRepair() {
+        BlockChain blockchain = new BlockChain();
+        blockchain.addTransactions(List.of("Transaction 1", "Transaction 2", "Transaction 3"), 1);
+        String root = blockchain.getMerkleRoot();
+        InclusionProof proof = blockchain.getInclusionProof(2);
+        assertTrue(proof.verifyData("Transaction 2", root));
+
+        blockchain.corruptBlock(2, "Forged transaction");
+        assertNotEquals(root, blockchain.getMerkleRoot(), "A changed block changes the root.");
+        assertTrue(blockchain.getInclusionProof(2).verifyData("Forged transaction", blockchain.getMerkleRoot()));
+        assertFalse(blockchain.getInclusionProof(2).verifyData("Forged transaction", root), "Not committed to by the old root.");
+        blockchain.repairChain();
+        assertTrue(blockchain.getInclusionProof(3).verify(blockchain.getMerkleRoot()));
+        assertEquals(rangeOf(blockchain.getBlocks(0, Integer.MAX_VALUE)).root(), blockchain.getMerkleRoot());
+        assertThrows(IndexOutOfBoundsException.class, () -> blockchain.getInclusionProof(4));
+    }
+
+    @Test
+    void testInclusionProofAction() {
+        BlockChain blockchain = new BlockChain();
+        blockchain.addTransaction("Alice pays Bob 10", 1);
+        RequestHandler handler = new RequestHandler(blockchain);
+
+        ResponseMessage status = MessageCodec.parseResponse(handler.processRequest(
+                MessageCodec.toJson(new RequestMessage("viewBlockchainStatus", "", 0))));
+        assertEquals(blockchain.getMerkleRoot(), status.getMerkleRoot(), "The status publishes the Merkle root.");
+        String json = handler.processRequest(MessageCodec.toJson(new RequestMessage("getInclusionProof", "1", 0)));
+        ResponseMessage response = MessageCodec.parseResponse(json);
+        assertTrue(response.isSuccess(), response.getMessage());
+        assertTrue(response.getInclusionProof().verifyData("Alice pays Bob 10", status.getMerkleRoot()));
+
+        ResponseMessage invalid = MessageCodec.parseResponse(handler.processRequest(
+                MessageCodec.toJson(new RequestMessage("getInclusionProof", "7", 0))));
+        assertFalse(invalid.isSuccess(), "There is no block 7.");
+    }
+}
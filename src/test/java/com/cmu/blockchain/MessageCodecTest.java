@@ -0,0 +1,170 @@
+package com.cmu.blockchain;
+
+import com.cmu.blockchain.message.MessageCodec;
+import com.cmu.blockchain.message.RequestMessage;
+import com.cmu.blockchain.message.ResponseMessage;
+import com.cmu.blockchain.message.TransactionResult;
+import com.cmu.blockchain.mining.PoolMessage;
+import com.cmu.blockchain.mining.WorkResult;
+import com.cmu.blockchain.mining.WorkUnit;
+import com.cmu.blockchain.model.Block;
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageCodecTest {
+
+    // Reflective Gson, as used before the precompiled codecs
+    private final Gson reflectiveGson = new Gson();
+
+    private static ResponseMessage fullResponse() {
+        ResponseMessage response = new ResponseMessage(true, "Blockchain status viewed successfully.", "viewBlockchainStatus",
+                "{\n\"ds_chain\": [\n {\"index\": 0, \"data\": \"Genesis <&>\"}\n ]\n}");
+        response.setChainSize(5);
+        response.setLatestBlockDifficulty(2);
+        response.setTotalDifficulty(10);
+        response.setHashesPerSecond(1_500_000);
+        response.setTotalExpectedHashes(12_345_678.0);
+        response.setLatestBlockNonce("1234");
+        response.setChainHash("00ab");
+        response.setRequestId(42L);
+        response.setRetryAfterMillis(250L);
+        return response;
+    }
+
+    @Test
+    void testRequestEncodingMatchesReflectiveGson() {
+        RequestMessage plain = new RequestMessage("addTransaction", "Alice pays Bob \"10\"", 3);
+        RequestMessage pipelined = plain.withRequestId(7);
+
+        RequestMessage empty = new RequestMessage(null, null, 0);
+
+        assertEquals(reflectiveGson.toJson(plain), MessageCodec.toJson(plain));
+        assertEquals(reflectiveGson.toJson(pipelined), MessageCodec.toJson(pipelined));
+        assertEquals(reflectiveGson.toJson(empty), MessageCodec.toJson(empty));
+    }
+
+    @Test
+    void testResponseEncodingMatchesReflectiveGson() {
+        ResponseMessage sparse = new ResponseMessage(false, "Invalid action", "unknown", null);
+
+        assertEquals(reflectiveGson.toJson(fullResponse()), MessageCodec.toJson(fullResponse()));
+        assertEquals(reflectiveGson.toJson(sparse), MessageCodec.toJson(sparse));
+    }
+
+    @Test
+    void testStringEscapingMatchesReflectiveGson() {
+        StringBuilder allChars = new StringBuilder();
+        for (char c = 0; c < 256; c++) {
+            allChars.append(c);
+        }
+        allChars.append("\u2028\u2029\u20ac\uD83D\uDE00");
+        ResponseMessage response = new ResponseMessage(true, allChars.toString(), "viewBlockchain", null);
+
+        assertEquals(reflectiveGson.toJson(response), MessageCodec.toJson(response));
+    }
+
+    @Test
+    void testRoundTrip() {
+        RequestMessage request = MessageCodec.parseRequest(MessageCodec.toJson(new RequestMessage("addTransaction", "tx", 4, 9L)));
+        assertEquals(new RequestMessage("addTransaction", "tx", 4, 9L), request);
+        RequestMessage named = new RequestMessage("addTransaction", "tx", 4, 9L).withChain("tenant-a");
+        assertEquals(reflectiveGson.toJson(named), MessageCodec.toJson(named));
+        assertEquals(named, MessageCodec.parseRequest(MessageCodec.toJson(named)), "The chain name should survive.");
+        RequestMessage keyed = named.withIdempotencyKey("7f3c\"retry\"");
+        assertEquals(reflectiveGson.toJson(keyed), MessageCodec.toJson(keyed));
+        assertEquals(keyed, MessageCodec.parseRequest(MessageCodec.toJson(keyed)), "The idempotency key should survive.");
+
+        ResponseMessage response = MessageCodec.parseResponse(MessageCodec.toJson(fullResponse()));
+        assertEquals(reflectiveGson.toJson(fullResponse()), reflectiveGson.toJson(response));
+    }
+
+    @Test
+    void testGsonAdaptersRoundTrip() {
+        RequestMessage request = new RequestMessage("addTransaction", "Alice pays <Bob>", 2, 5L).withChain("tenant-a");
+        String requestJson = MessageCodec.gson().toJson(request);
+        assertEquals(MessageCodec.toJson(request), requestJson);
+        assertEquals(request, MessageCodec.gson().fromJson(requestJson, RequestMessage.class));
+
+        ResponseMessage response = fullResponse();
+        response.setBlocks(List.of(new Block(1, new Timestamp(1_700_000_000_123L), "Alice pays Bob 10", "0".repeat(64),
+                BigInteger.valueOf(42), 2)));
+        String responseJson = MessageCodec.gson().toJson(response);
+        assertEquals(MessageCodec.toJson(response), responseJson);
+        assertEquals(responseJson, MessageCodec.toJson(MessageCodec.gson().fromJson(responseJson, ResponseMessage.class)));
+    }
+
+    @Test
+    void testBatchEncodingMatchesReflectiveGson() {
+        RequestMessage batch = new RequestMessage("addTransactions", null, 2, 3L, Arrays.asList("Alice pays Bob <10>", null, ""));
+        ResponseMessage results = new ResponseMessage(false, "Added 2 of 3 transactions.", "addTransactions", null);
+        results.setResults(List.of(TransactionResult.added(4), TransactionResult.rejected("Missing transaction data."),
+                TransactionResult.added(5)));
+
+        assertEquals(reflectiveGson.toJson(batch), MessageCodec.toJson(batch));
+        assertEquals(reflectiveGson.toJson(results), MessageCodec.toJson(results));
+        assertEquals(batch, MessageCodec.parseRequest(MessageCodec.toJson(batch)));
+        assertEquals(results.getResults(), MessageCodec.parseResponse(MessageCodec.toJson(results)).getResults());
+    }
+
+    @Test
+    void testMiningPoolMessagesMatchReflectiveGson() throws IOException {
+        PoolMessage work = new PoolMessage(new WorkUnit(7, "AAEC+/8=", "", 2, 3, 1L << 40, (1L << 40) + 4096), null);
+        PoolMessage cancel = new PoolMessage(null, 7L);
+        WorkResult found = new WorkResult(7, 0, 4096, 1234L, 1235);
+        WorkResult exhausted = new WorkResult(7, 4096, 8192, null, 4096);
+
+        for (PoolMessage message : List.of(work, cancel)) {
+            assertEquals(reflectiveGson.toJson(message), MessageCodec.toJson(message));
+            assertEquals(message, MessageCodec.parsePoolMessage(MessageCodec.toJson(message)));
+        }
+        for (WorkResult result : List.of(found, exhausted)) {
+            assertEquals(reflectiveGson.toJson(result), MessageCodec.toJson(result));
+            assertEquals(result, MessageCodec.parseWorkResult(MessageCodec.toJson(result)));
+        }
+        assertThrows(IOException.class, () -> MessageCodec.parseWorkResult("{\"jobId\":\"seven\"}"));
+    }
+
+    @Test
+    void testDecodingToleratesUnknownAndNullFields() {
+        RequestMessage request = MessageCodec.parseRequest("{\"action\":\"verifyBlockchain\",\"data\":null,\"extra\":{\"a\":[1,2]},\"difficulty\":\"2\"}");
+        assertEquals("verifyBlockchain", request.action());
+        assertNull(request.data());
+        assertEquals(2, request.difficulty());
+        assertNull(request.requestId());
+        assertNull(MessageCodec.parseRequest(""));
+    }
+
+    @Test
+    void testBlocksRoundTripWithTheSameHash() {
+        Block legacy = new Block(3, new Timestamp(1_700_000_000_123L), "Alice pays Bob <10>", "00ab",
+                new BigInteger("123456789012345678901234567890"), 2, Block.LEGACY_HASH_VERSION);
+        Block block = new Block(4, new Timestamp(1_700_000_000_124L), "Bob pays Carol \u20ac5", legacy.calculateHash(),
+                BigInteger.valueOf(Long.MAX_VALUE), 2);
+        ResponseMessage update = new ResponseMessage(true, "Chain update", "followChain", null);
+        update.setStartIndex(3);
+        update.setBlocks(List.of(legacy, block));
+        update.setServerTimeMillis(1_700_000_000_456L);
+
+        String json = MessageCodec.toJson(update);
+
+        ResponseMessage decoded = MessageCodec.parseResponse(json);
+        assertEquals(3, decoded.getStartIndex());
+        assertEquals(1_700_000_000_456L, decoded.getServerTimeMillis());
+        assertEquals(2, decoded.getBlocks().size());
+        assertEquals(legacy.calculateHash(), decoded.getBlocks().getFirst().calculateHash(), "A decoded block should hash like the original.");
+        assertEquals(block.calculateHash(), decoded.getBlocks().getLast().calculateHash(), "A decoded block should hash like the original.");
+        assertEquals(Block.CURRENT_HASH_VERSION, decoded.getBlocks().getLast().getHashVersion());
+
+        String withoutVersion = json.replace(",\"version\":1", "").replace(",\"version\":2", "");
+        assertEquals(Block.LEGACY_HASH_VERSION, MessageCodec.parseResponse(withoutVersion).getBlocks().getLast().getHashVersion(),
+                "Blocks from servers predating hash versions are legacy blocks.");
+    }
+}
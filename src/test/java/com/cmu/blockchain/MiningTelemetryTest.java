@@ -0,0 +1,93 @@
+package com.cmu.blockchain;
+
+import com.cmu.blockchain.core.BlockChain;
+import com.cmu.blockchain.message.MessageCodec;
+import com.cmu.blockchain.message.RequestMessage;
+import com.cmu.blockchain.message.ResponseMessage;
+import com.cmu.blockchain.metrics.MiningSample;
+import com.cmu.blockchain.metrics.MiningTelemetry;
+import com.cmu.blockchain.model.Block;
+import com.cmu.blockchain.network.RequestHandler;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MiningTelemetryTest {
+
+    @Test
+    void testRingBufferKeepsTheLatestSamples() {
+        MiningTelemetry telemetry = new MiningTelemetry(3);
+        assertEquals(List.of(), telemetry.getRecentSamples(10));
+        assertEquals(0, telemetry.getRollingHashesPerSecond(), "No blocks, no rate.");
+
+        for (int i = 1; i <= 5; i++) {
+            telemetry.record(i, 2, 1_000_000_000L, 1000L * i, 1);
+        }
+
+        assertEquals(5, telemetry.getRecorded(), "Every block is counted.");
+        assertEquals(List.of(3, 4, 5), telemetry.getRecentSamples(10).stream().map(MiningSample::blockIndex).toList(),
+                "Only the latest blocks are kept, oldest first.");
+        assertEquals(List.of(5), telemetry.getRecentSamples(1).stream().map(MiningSample::blockIndex).toList());
+        assertEquals(List.of(), telemetry.getRecentSamples(-1));
+        assertEquals(3000, telemetry.getRecentSamples(10).get(0).hashesPerSecond());
+        assertEquals(4000, telemetry.getRollingHashesPerSecond(), "12,000 attempts over three seconds.");
+        assertThrows(IllegalArgumentException.class, () -> new MiningTelemetry(0));
+    }
+
+    @Test
+    void testChainRecordsMinedBlocks() {
+        BlockChain blockchain = new BlockChain();
+        long before = blockchain.getMiningTelemetry().getRecorded();
+        blockchain.addTransaction("Alice pays Bob 10", 2);
+        blockchain.addTransaction("Bob pays Carol 5", 3);
+
+        MiningTelemetry telemetry = blockchain.getMiningTelemetry();
+        assertEquals(before + 2, telemetry.getRecorded());
+        List<MiningSample> samples = telemetry.getRecentSamples(2);
+        for (MiningSample sample : samples) {
+            Block block = blockchain.getBlocks(sample.blockIndex(), 1).get(0);
+            assertEquals(block.getDifficulty(), sample.difficulty());
+            assertEquals(block.getNonce().longValue() + 1, sample.attempts(), "Nonces are tried from zero.");
+            assertEquals(1, sample.threads(), "The local miner uses one thread.");
+            assertTrue(sample.elapsedNanos() > 0);
+        }
+        assertEquals(List.of(1, 2), samples.stream().map(MiningSample::blockIndex).toList());
+        assertEquals(List.of(2, 3), samples.stream().map(MiningSample::difficulty).toList());
+
+        blockchain.corruptBlock(1, "Mallory pays Mallory 1000");
+        blockchain.repairChain();
+        assertTrue(telemetry.getRecorded() > before + 2, "Repairs mine blocks again.");
+        assertEquals(1, telemetry.getRecentSamples(2).get(0).blockIndex());
+    }
+
+    @Test
+    void testMiningStatsAction() {
+        BlockChain blockchain = new BlockChain();
+        for (int i = 0; i < 4; i++) {
+            blockchain.addTransaction("Payment " + i, 2);
+        }
+        RequestHandler handler = new RequestHandler(blockchain);
+
+        String json = handler.processRequest(MessageCodec.toJson(new RequestMessage("getMiningStats", "3", 0)));
+        ResponseMessage response = MessageCodec.parseResponse(json);
+        assertTrue(response.isSuccess(), response.getMessage());
+        assertEquals(3, response.getMiningSamples().size());
+        assertEquals(4, response.getMiningSamples().get(2).blockIndex());
+        assertTrue(response.getRollingHashesPerSecond() > 0, "Blocks were mined during the last minute.");
+        assertEquals(5, response.getChainSize());
+
+        ResponseMessage all = MessageCodec.parseResponse(handler.processRequest(
+                MessageCodec.toJson(new RequestMessage("getMiningStats", "", 0))));
+        assertEquals(blockchain.getMiningTelemetry().getRecorded(), all.getMiningSamples().size());
+
+        ResponseMessage invalid = MessageCodec.parseResponse(handler.processRequest(
+                MessageCodec.toJson(new RequestMessage("getMiningStats", "many", 0))));
+        assertFalse(invalid.isSuccess(), "The count must be a number.");
+        assertEquals("Expected a sample count.", invalid.getMessage());
+        assertEquals(0, JsonParser.parseString(handler.getMetrics().toJson()).getAsJsonObject().get("errors").getAsLong(),
+                "A bad count is a failed request, not a server error.");
+    }
+}
@@ -0,0 +1,85 @@
+package com.cmu.blockchain;
+
+import com.cmu.blockchain.core.BlockChain;
+import com.cmu.blockchain.message.MessageCodec;
+import com.cmu.blockchain.message.RequestMessage;
+import com.cmu.blockchain.message.ResponseMessage;
+import com.cmu.blockchain.model.Block;
+import com.cmu.blockchain.network.RequestHandler;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MiningTemplateTest {
+
+    @Test
+    void testMinedTemplatesAreAppended() throws IOException {
+        BlockChain blockchain = new BlockChain();
+        Block template = blockchain.getMiningTemplate("Alice pays Bob 10", 2);
+        assertEquals(1, template.getIndex());
+        assertEquals(BigInteger.ZERO, template.getNonce(), "Templates come unmined.");
+
+        Block mined = MessageCodec.parseBlock(MessageCodec.toJson(template));
+        mined = mined.proofOfWork();
+        assertTrue(blockchain.submitBlock(mined), "A mined block on the tip is accepted.");
+        assertEquals(2, blockchain.getChainSize());
+        assertTrue(blockchain.isChainValid());
+        assertEquals("Alice pays Bob 10", blockchain.getBlock(1).getData());
+    }
+
+    @Test
+    void testStaleAndUnminedBlocksAreRejected() {
+        BlockChain blockchain = new BlockChain();
+        Block stale = blockchain.getMiningTemplate("Alice pays Bob 10", 2);
+        stale = stale.proofOfWork();
+        blockchain.addTransaction("Bob pays Carol 5", 2);
+
+        assertFalse(blockchain.submitBlock(stale), "Another block got in first.");
+        assertEquals(2, blockchain.getChainSize());
+
+        Block unmined = blockchain.getMiningTemplate("Mallory pays Mallory 1000", 8);
+        assertFalse(BlockChain.isMined(unmined));
+        assertThrows(IllegalArgumentException.class, () -> blockchain.submitBlock(unmined));
+        assertEquals(2, blockchain.getChainSize(), "Rejected blocks leave the chain alone.");
+    }
+
+    @Test
+    void testTemplateAndSubmitActions() throws IOException {
+        BlockChain blockchain = new BlockChain();
+        RequestHandler handler = new RequestHandler(blockchain);
+
+        String json = handler.processRequest(MessageCodec.toJson(new RequestMessage("getMiningTemplate", "Alice pays Bob 10", 0)));
+        ResponseMessage template = MessageCodec.parseResponse(json);
+        assertTrue(template.isSuccess(), template.getMessage());
+        Block block = template.getBlocks().getFirst();
+        assertEquals(2, block.getDifficulty(), "The server raises the difficulty to its minimum.");
+
+        block = block.proofOfWork();
+        blockchain.addTransaction("Bob pays Carol 5", 2);
+        ResponseMessage stale = MessageCodec.parseResponse(handler.processRequest(
+                MessageCodec.toJson(new RequestMessage("submitBlock", MessageCodec.toJson(block), 2))));
+        assertFalse(stale.isSuccess(), "The template went stale.");
+        Block fresh = stale.getBlocks().getFirst();
+        assertEquals(2, fresh.getIndex(), "A stale submission gets a fresh template.");
+
+        fresh = fresh.proofOfWork();
+        ResponseMessage added = MessageCodec.parseResponse(handler.processRequest(
+                MessageCodec.toJson(new RequestMessage("submitBlock", MessageCodec.toJson(fresh), 2))));
+        assertTrue(added.isSuccess(), added.getMessage());
+        assertEquals(3, added.getChainSize());
+
+        Block easy = blockchain.getMiningTemplate("Too easy", 1);
+        easy = easy.proofOfWork();
+        ResponseMessage rejected = MessageCodec.parseResponse(handler.processRequest(
+                MessageCodec.toJson(new RequestMessage("submitBlock", MessageCodec.toJson(easy), 1))));
+        assertFalse(rejected.isSuccess(), "Blocks below the minimum difficulty are rejected.");
+
+        ResponseMessage malformed = MessageCodec.parseResponse(handler.processRequest(
+                MessageCodec.toJson(new RequestMessage("submitBlock", "not a block", 2))));
+        assertFalse(malformed.isSuccess());
+        assertEquals(3, blockchain.getChainSize());
+    }
+}
@@ -0,0 +1,114 @@
+package com.cmu.blockchain;
+
+import com.cmu.blockchain.core.BlockChain;
+import com.cmu.blockchain.core.TransactionIndex;
+import com.cmu.blockchain.message.MessageCodec;
+import com.cmu.blockchain.message.RequestMessage;
+import com.cmu.blockchain.message.ResponseMessage;
+import com.cmu.blockchain.network.RequestHandler;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionIndexTest {
+
+    private static TransactionIndex indexOf(String... data) {
+        TransactionIndex index = new TransactionIndex();
+        for (int i = 0; i < data.length; i++) {
+            index.add(i, data[i]);
+        }
+        return index;
+    }
+
+    @Test
+    void testExactAndPrefixQueries() {
+        TransactionIndex index = indexOf("Genesis", "Alice pays Bob 10", "Bob pays Carol 5", "alice pays BOBBY 7");
+
+        assertArrayEquals(new int[]{1, 2}, index.search("bob"), "Exact terms match whole words, ignoring case.");
+        assertArrayEquals(new int[]{1, 2, 3}, index.search("bo*"));
+        assertArrayEquals(new int[]{1, 3}, index.search("Alice  pays"), "Every term must occur.");
+        assertArrayEquals(new int[]{3}, index.search("alice bobb*"));
+        assertArrayEquals(new int[0], index.search("alice carol"));
+        assertArrayEquals(new int[0], index.search("mallory"));
+        assertThrows(IllegalArgumentException.class, () -> index.search(" ,* "), "A query needs a word.");
+    }
+
+    @Test
+    void testLongChainsSpanSeveralRanges() {
+        TransactionIndex index = new TransactionIndex();
+        int blocks = TransactionIndex.RANGE_SIZE * 3 + 17;
+        for (int i = 0; i < blocks; i++) {
+            index.add(i, "Transfer " + i + (i % 500 == 0 ? " audit" : "") + (i % 7 == 0 ? " weekly" : ""));
+        }
+
+        int[] expected = IntStream.range(0, blocks).filter(i -> i % 500 == 0 && i % 7 == 0).toArray();
+        assertArrayEquals(expected, index.search("weekly audit"));
+        assertArrayEquals(new int[]{2049}, index.search("2049"));
+        assertEquals(blocks, index.search("transfer").length);
+
+        index.truncate(TransactionIndex.RANGE_SIZE + 1);
+        assertEquals(TransactionIndex.RANGE_SIZE + 1, index.size());
+        assertArrayEquals(new int[]{0, 500, 1000}, index.search("audit"), "Truncated blocks are no longer found.");
+        index.add(TransactionIndex.RANGE_SIZE + 1, "late audit");
+        assertArrayEquals(new int[]{0, 500, 1000, TransactionIndex.RANGE_SIZE + 1}, index.search("audit"));
+    }
+
+    @Test
+    void testCorruptionUpdatesTheIndex() {
+        BlockChain blockchain = new BlockChain();
+        blockchain.addTransactions(List.of("Alice pays Bob 10", "Bob pays Carol 5", "Carol pays Alice 2"), 0);
+
+        blockchain.corruptBlock(1, "Mallory pays Mallory 1000");
+        assertArrayEquals(new int[]{3}, blockchain.searchTransactions("alice"), "Replaced words are forgotten.");
+        assertArrayEquals(new int[]{1}, blockchain.searchTransactions("mallory"));
+        assertArrayEquals(new int[]{1}, blockchain.searchTransactions("1000"));
+
+        blockchain.repairChain();
+        assertArrayEquals(new int[]{1}, blockchain.searchTransactions("mallory"), "Repairs keep the data.");
+    }
+
+    @Test
+    void testReplicasIndexReceivedBlocks() {
+        BlockChain leader = new BlockChain();
+        leader.addTransactions(List.of("Alice pays Bob 10", "Bob pays Carol 5"), 0);
+        BlockChain replica = BlockChain.createReplica();
+        replica.replaceFrom(0, leader.getBlocks(0, Integer.MAX_VALUE));
+        assertArrayEquals(new int[]{1, 2}, replica.searchTransactions("bob"));
+
+        leader.corruptBlock(2, "Bob pays Dave 5");
+        leader.repairChain();
+        replica.replaceFrom(2, leader.getBlocks(2, Integer.MAX_VALUE));
+        assertArrayEquals(new int[]{2}, replica.searchTransactions("dave"));
+        assertArrayEquals(new int[0], replica.searchTransactions("carol"));
+    }
+
+    @Test
+    void testSearchAction() {
+        BlockChain blockchain = new BlockChain();
+        List<String> transactions = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            transactions.add("Payment " + i);
+        }
+        blockchain.addTransactions(transactions, 0);
+        RequestHandler handler = new RequestHandler(blockchain);
+
+        String json = handler.processRequest(MessageCodec.toJson(new RequestMessage("searchTransactions", "payment 11*", 0)));
+        ResponseMessage response = MessageCodec.parseResponse(json);
+        assertTrue(response.isSuccess(), response.getMessage());
+        assertEquals(List.of(12, 111, 112, 113, 114, 115, 116, 117, 118, 119, 120), response.getMatches().subList(0, 11));
+        assertEquals(111, response.getMatches().size(), "11, 110 to 119 and 1100 to 1199.");
+
+        ResponseMessage capped = MessageCodec.parseResponse(handler.processRequest(
+                MessageCodec.toJson(new RequestMessage("searchTransactions", "payment", 0))));
+        assertEquals(1000, capped.getMatches().size(), "Large results are capped.");
+        assertTrue(capped.getMessage().contains("1200"), capped.getMessage());
+
+        ResponseMessage empty = MessageCodec.parseResponse(handler.processRequest(
+                MessageCodec.toJson(new RequestMessage("searchTransactions", "", 0))));
+        assertFalse(empty.isSuccess(), "An empty query is rejected.");
+    }
+}
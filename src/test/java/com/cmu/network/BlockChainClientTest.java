@@ -0,0 +1,159 @@
+package com.cmu.network;
+
+import com.cmu.blockchain.core.BlockChain;
+import com.cmu.blockchain.message.ResponseMessage;
+import com.cmu.blockchain.network.BlockChainClient;
+import com.cmu.blockchain.network.NioServerTCP;
+import com.cmu.blockchain.network.RequestHandler;
+import com.cmu.blockchain.network.RequestScheduler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlockChainClientTest {
+
+    private RequestHandler handler;
+    private RequestScheduler scheduler;
+    private NioServerTCP server;
+    private BlockChainClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        handler = new RequestHandler(new BlockChain());
+        scheduler = RequestScheduler.fromSystemProperties(handler);
+        startServer(0);
+        client = new BlockChainClient("localhost", server.getLocalPort(), 2, Duration.ofSeconds(2), Duration.ofSeconds(30));
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.close();
+        scheduler.close();
+    }
+
+    private void startServer(int port) throws IOException {
+        server = new NioServerTCP(new InetSocketAddress("localhost", port), handler, 1, scheduler);
+        server.start();
+    }
+
+    @Test
+    void testManyConcurrentRequestsShareThePool() throws Exception {
+        List<CompletableFuture<ResponseMessage>> responses = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            responses.add(i % 2 == 0 ? client.viewBlockchainStatus() : client.verifyBlockchain());
+        }
+        CompletableFuture.allOf(responses.toArray(new CompletableFuture[0])).get();
+
+        for (int i = 0; i < responses.size(); i++) {
+            ResponseMessage response = responses.get(i).get();
+            assertTrue(response.isSuccess());
+            assertEquals(i % 2 == 0 ? "viewBlockchainStatus" : "verifyBlockchain", response.getAction(),
+                    "Each future should complete with the response to its own request.");
+        }
+        assertTrue(client.getConnectionCount() <= 2, "The pool should never exceed its bound.");
+    }
+
+    @Test
+    void testWritesAndReads() throws Exception {
+        assertTrue(client.addTransaction("Transaction 1", 2).get().isSuccess());
+        ResponseMessage batch = client.addTransactions(List.of("Transaction 2", "Transaction 3"), 1).get();
+        assertEquals(3, batch.getResults().get(1).blockIndex());
+
+        ResponseMessage status = client.viewBlockchainStatus().get();
+        assertEquals(4, status.getChainSize());
+        assertTrue(client.viewBlockchain().get().getBlockchainData().contains("Transaction 3"));
+        assertTrue(client.verifyBlockchain().get().isSuccess());
+    }
+
+    @Test
+    void testInclusionIsCheckedAgainstThePublishedRoot() throws Exception {
+        assertTrue(client.addTransactions(List.of("Transaction 1", "Transaction 2"), 1).get().isSuccess());
+
+        assertTrue(client.verifyInclusion(1, "Transaction 1").get());
+        assertFalse(client.verifyInclusion(2, "Transaction 1").get(), "Block 2 holds another transaction.");
+        assertFalse(client.verifyInclusion(7, "Transaction 1").get(), "There is no block 7.");
+    }
+
+    @Test
+    void testClientMinedTransactions() throws Exception {
+        List<CompletableFuture<ResponseMessage>> mined = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            mined.add(client.mineTransaction("Mined by client " + i, 2));
+        }
+        CompletableFuture.allOf(mined.toArray(new CompletableFuture[0])).get();
+
+        int added = 0;
+        for (CompletableFuture<ResponseMessage> response : mined) {
+            added += response.get().isSuccess() ? 1 : 0;
+        }
+        assertTrue(added > 0, "At least one submission should win every race.");
+        assertEquals(1 + added, client.viewBlockchainStatus().get().getChainSize());
+        assertTrue(client.verifyBlockchain().get().isSuccess(), "Client-mined blocks keep the chain valid.");
+    }
+
+    @Test
+    void testUnixDomainSocket(@TempDir Path directory) throws Exception {
+        Path socketPath = directory.resolve("blockchain.sock");
+        NioServerTCP unixServer = new NioServerTCP(UnixDomainSocketAddress.of(socketPath), handler, 1, scheduler);
+        unixServer.start();
+        try (BlockChainClient local = BlockChainClient.forSocketPath(socketPath)) {
+            CompletableFuture<ResponseMessage> added = local.addTransaction("Sent over a Unix socket", 1);
+            List<CompletableFuture<ResponseMessage>> reads = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                reads.add(local.viewBlockchainStatus());
+            }
+            CompletableFuture.allOf(reads.toArray(new CompletableFuture[0])).get();
+            assertTrue(added.get().isSuccess(), "Writes are served like over TCP.");
+            assertTrue(local.viewBlockchain().get().getBlockchainData().contains("Sent over a Unix socket"),
+                    "Reads see the block added over the socket.");
+            assertEquals(2, client.viewBlockchainStatus().get().getChainSize(), "Both listeners share the chain.");
+        } finally {
+            unixServer.close();
+        }
+        assertFalse(Files.exists(socketPath), "Closing the server removes the socket file.");
+    }
+
+    @Test
+    void testSlowRequestTimesOut() throws Exception {
+        try (BlockChainClient impatient = new BlockChainClient("localhost", server.getLocalPort(), 1,
+                Duration.ofSeconds(2), Duration.ofMillis(50))) {
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> impatient.addTransaction("Slow transaction", 6).get());
+            assertInstanceOf(TimeoutException.class, e.getCause());
+        }
+    }
+
+    @Test
+    void testReconnectsAfterServerRestart() throws Exception {
+        assertTrue(client.viewBlockchainStatus().get().isSuccess());
+        int port = server.getLocalPort();
+        server.close();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (client.getConnectionCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, client.getConnectionCount(), "A broken connection should leave the pool.");
+        ExecutionException e = assertThrows(ExecutionException.class, () -> client.viewBlockchainStatus().get());
+        assertInstanceOf(IOException.class, e.getCause());
+
+        startServer(port);
+        assertTrue(client.viewBlockchainStatus().get().isSuccess(), "The client should reconnect on its own.");
+    }
+}
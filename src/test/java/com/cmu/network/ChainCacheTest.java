@@ -0,0 +1,142 @@
+package com.cmu.network;
+
+import com.cmu.blockchain.core.BlockChain;
+import com.cmu.blockchain.network.BlockChainClient;
+import com.cmu.blockchain.network.ChainCache;
+import com.cmu.blockchain.network.ChainFeed;
+import com.cmu.blockchain.network.NioServerTCP;
+import com.cmu.blockchain.network.RequestHandler;
+import com.cmu.blockchain.network.RequestScheduler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChainCacheTest {
+
+    private BlockChain blockchain;
+    private RequestScheduler scheduler;
+    private NioServerTCP server;
+    private BlockChainClient client;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        blockchain = new BlockChain();
+        RequestHandler handler = new RequestHandler(blockchain);
+        scheduler = RequestScheduler.fromSystemProperties(handler);
+        server = new NioServerTCP(new InetSocketAddress("localhost", 0), handler, 1, scheduler);
+        server.start();
+        client = new BlockChainClient("localhost", server.getLocalPort(), 1, Duration.ofSeconds(2), Duration.ofSeconds(30));
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.close();
+        scheduler.close();
+    }
+
+    @Test
+    void testRefreshOnlyFetchesNewBlocks() throws Exception {
+        ChainCache cache = new ChainCache(client);
+        assertEquals(1, cache.refresh(), "The first refresh fetches the genesis block.");
+        assertEquals(0, cache.refresh(), "Nothing changed on the server.");
+
+        blockchain.addTransaction("Transaction 1", 1);
+        blockchain.addTransaction("Transaction 2", 1);
+        assertEquals(2, cache.refresh(), "Only the appended blocks are fetched.");
+        assertEquals(3, cache.getChainSize());
+        assertEquals(blockchain.getChainHash(), cache.getChainHash());
+        assertEquals(blockchain.toString(), cache.toString(), "The cache renders the chain like the server.");
+        assertTrue(cache.isChainValid(), "The cached chain should verify locally.");
+    }
+
+    @Test
+    void testLongChainsArriveInBatches() throws Exception {
+        List<String> transactions = new ArrayList<>();
+        for (int i = 0; i < ChainFeed.MAX_BLOCKS_PER_UPDATE + 50; i++) {
+            transactions.add("Transaction " + i);
+        }
+        blockchain.addTransactions(transactions, 0);
+        ChainCache cache = new ChainCache(client);
+
+        assertEquals(blockchain.getChainSize(), cache.refresh(), "Every block should be fetched.");
+        assertEquals(blockchain.getChainHash(), cache.getChainHash());
+    }
+
+    @Test
+    void testCorruptedBlocksAreRejected() throws Exception {
+        ChainCache cache = new ChainCache(client);
+        blockchain.addTransaction("Transaction 1", 1);
+        cache.refresh();
+        String verifiedHash = cache.getChainHash();
+
+        blockchain.addTransaction("Transaction 2", 4);
+        blockchain.corruptBlock(2, "Forged transaction");
+        assertThrows(IOException.class, cache::refresh, "A block without valid proof of work must be rejected.");
+        assertEquals(2, cache.getChainSize(), "The verified chain is kept.");
+        assertEquals(verifiedHash, cache.getChainHash());
+
+        blockchain.repairChain();
+        assertEquals(1, cache.refresh(), "The repaired block replaces nothing that was cached.");
+        assertEquals(blockchain.getChainHash(), cache.getChainHash());
+    }
+
+    @Test
+    void testReplacedBlocksAreFetchedAgain() throws Exception {
+        blockchain.addTransaction("Transaction 1", 1);
+        blockchain.addTransaction("Transaction 2", 1);
+        ChainCache cache = new ChainCache(client);
+        cache.refresh();
+
+        blockchain.corruptBlock(1, "Changed transaction");
+        blockchain.repairChain();
+        assertEquals(2, cache.refresh(), "Blocks re-mined by a repair are fetched again.");
+        assertEquals(blockchain.getChainHash(), cache.getChainHash());
+        assertEquals("Changed transaction", cache.getBlock(1).getData());
+    }
+
+    @Test
+    void testCacheIsStoredOnDisk() throws Exception {
+        Path file = directory.resolve("chain.cache");
+        ChainCache cache = new ChainCache(client, file);
+        blockchain.addTransaction("Transaction 1", 1);
+        cache.refresh();
+        blockchain.addTransaction("Transaction 2", 1);
+        cache.refresh();
+
+        ChainCache reopened = new ChainCache(client, file);
+        assertEquals(3, reopened.getChainSize(), "The stored chain is loaded without contacting the server.");
+        assertEquals(blockchain.getChainHash(), reopened.getChainHash());
+        assertEquals(0, reopened.refresh(), "A loaded cache only fetches what it is missing.");
+
+        Files.writeString(file, "not json\n", StandardOpenOption.APPEND);
+        ChainCache damaged = new ChainCache(client, file);
+        assertEquals(3, damaged.getChainSize(), "Blocks verified before a damaged entry are kept.");
+    }
+
+    @Test
+    void testRecentCacheSkipsTheRoundTrip() throws Exception {
+        ChainCache cache = new ChainCache(client);
+        cache.refresh();
+        blockchain.addTransaction("Transaction 1", 1);
+
+        assertEquals(0, cache.refreshIfOlderThan(Duration.ofMinutes(1)), "A fresh cache is served as it is.");
+        assertEquals(1, cache.getChainSize());
+        assertEquals(1, cache.refreshIfOlderThan(Duration.ZERO));
+    }
+}
@@ -0,0 +1,83 @@
+package com.cmu.network;
+
+import com.cmu.blockchain.core.BlockChain;
+import com.cmu.blockchain.message.MessageCodec;
+import com.cmu.blockchain.message.RequestMessage;
+import com.cmu.blockchain.message.ResponseMessage;
+import com.cmu.blockchain.network.ChainRegistry;
+import com.cmu.blockchain.network.RequestHandler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChainRegistryTest {
+
+    private static ResponseMessage send(RequestHandler handler, RequestMessage request) {
+        return MessageCodec.parseResponse(handler.processRequest(MessageCodec.toJson(request)));
+    }
+
+    @Test
+    void testNamedChainsAreIndependent() {
+        BlockChain defaultChain = new BlockChain();
+        RequestHandler handler = new RequestHandler(defaultChain);
+
+        assertTrue(send(handler, new RequestMessage("addTransaction", "Alice pays Bob 10", 1).withChain("alice")).isSuccess());
+        assertTrue(send(handler, new RequestMessage("addTransaction", "Alice pays Bob 20", 1).withChain("alice")).isSuccess());
+        assertTrue(send(handler, new RequestMessage("addTransaction", "Carol pays Dave 5", 1).withChain("carol")).isSuccess());
+
+        assertEquals(3, send(handler, new RequestMessage("viewBlockchainStatus", "", 0).withChain("alice")).getChainSize());
+        assertEquals(2, send(handler, new RequestMessage("viewBlockchainStatus", "", 0).withChain("carol")).getChainSize());
+        assertEquals(1, defaultChain.getChainSize(), "The default chain is untouched.");
+        assertEquals(2, handler.getChains().getLoadedChains());
+
+        ResponseMessage invalid = send(handler, new RequestMessage("viewBlockchainStatus", "", 0).withChain("../etc"));
+        assertFalse(invalid.isSuccess(), "Chain names must be safe file names.");
+    }
+
+    @Test
+    void testOnlyWritesCreateChains() {
+        RequestHandler handler = new RequestHandler(new ChainRegistry(new BlockChain(), null, Duration.ZERO, 1));
+
+        ResponseMessage missing = send(handler, new RequestMessage("viewBlockchainStatus", "", 0).withChain("nobody"));
+        assertFalse(missing.isSuccess());
+        assertEquals("No such chain: nobody.", missing.getMessage());
+        assertFalse(send(handler, new RequestMessage("repairBlockchain", "", 0).withChain("nobody")).isSuccess());
+        assertEquals(0, handler.getChains().getLoadedChains(), "Reads do not create chains.");
+
+        assertTrue(send(handler, new RequestMessage("addTransaction", "Alice pays Bob 10", 1).withChain("alice")).isSuccess());
+        assertTrue(send(handler, new RequestMessage("verifyBlockchain", "", 0).withChain("alice")).isSuccess());
+        ResponseMessage overLimit = send(handler, new RequestMessage("addTransaction", "Carol pays Dave 5", 1).withChain("carol"));
+        assertFalse(overLimit.isSuccess(), "The number of chains is capped.");
+        assertEquals(1, handler.getChains().getLoadedChains());
+    }
+
+    @Test
+    void testIdleChainsAreStoredAndReloaded(@TempDir Path directory) throws Exception {
+        ChainRegistry chains = new ChainRegistry(new BlockChain(), directory, Duration.ZERO);
+        RequestHandler handler = new RequestHandler(chains);
+        send(handler, new RequestMessage("addTransaction", "Alice pays Bob 10", 4).withChain("alice"));
+        send(handler, new RequestMessage("corruptBlockchain", "1:Alice pays Bob 1000", 0).withChain("alice"));
+        String chainHash = send(handler, new RequestMessage("viewBlockchainStatus", "", 0).withChain("alice")).getChainHash();
+
+        try (ChainRegistry.Lease lease = chains.acquire("alice")) {
+            assertEquals(0, chains.evictIdle(), "A chain in use stays in memory.");
+            assertEquals(2, lease.getBlockChain().getChainSize());
+        }
+        assertEquals(1, chains.evictIdle());
+        assertEquals(0, chains.getLoadedChains());
+        assertTrue(Files.exists(directory.resolve("alice.chain")));
+        assertTrue(new ChainRegistry(new BlockChain(), directory, Duration.ZERO).contains("alice"),
+                "Stored chains are known after a restart.");
+
+        ResponseMessage reloaded = send(handler, new RequestMessage("verifyBlockchain", "", 0).withChain("alice"));
+        assertEquals(chainHash, reloaded.getChainHash(), "The stored chain is loaded again.");
+        assertFalse(reloaded.isSuccess(), "A corrupted chain stays corrupted.");
+        assertTrue(send(handler, new RequestMessage("repairBlockchain", "", 0).withChain("alice")).isSuccess());
+        assertTrue(send(handler, new RequestMessage("verifyBlockchain", "", 0).withChain("alice")).isSuccess());
+    }
+}
@@ -0,0 +1,100 @@
+package com.cmu.network;
+
+import com.cmu.blockchain.core.BlockChain;
+import com.cmu.blockchain.message.MessageCodec;
+import com.cmu.blockchain.message.RequestMessage;
+import com.cmu.blockchain.message.ResponseMessage;
+import com.cmu.blockchain.network.ChainSubscription;
+import com.cmu.blockchain.network.NioServerTCP;
+import com.cmu.blockchain.network.RequestHandler;
+import com.cmu.blockchain.network.RequestScheduler;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChainSubscriptionTest {
+
+    private static ResponseMessage next(ChainSubscription subscription) {
+        String event = subscription.nextEvent();
+        return event == null ? null : MessageCodec.parseResponse(event);
+    }
+
+    @Test
+    void testEventsFollowTheChain() {
+        BlockChain blockchain = new BlockChain();
+        try (ChainSubscription subscription = new ChainSubscription(blockchain, 8, ChainSubscription.OverflowPolicy.DROP, () -> { })) {
+            assertEquals("subscribed", next(subscription).getEvent(), "The first event describes the chain.");
+
+            blockchain.addTransaction("Alice pays Bob 10", 1);
+            blockchain.corruptBlock(1, "Alice pays Bob 1000");
+            blockchain.repairChain();
+
+            ResponseMessage added = next(subscription);
+            assertEquals("blockAdded", added.getEvent());
+            assertEquals(1, added.getStartIndex());
+            assertEquals(2, added.getChainSize());
+            assertEquals("blockCorrupted", next(subscription).getEvent());
+            ResponseMessage repaired = next(subscription);
+            assertEquals("chainRepaired", repaired.getEvent());
+            assertEquals(blockchain.getChainHash(), repaired.getChainHash());
+            assertNull(repaired.getDropped(), "Nothing was dropped.");
+            assertNull(subscription.nextEvent(), "No more events.");
+        }
+    }
+
+    @Test
+    void testSlowSubscribersDropTheOldestEvents() {
+        BlockChain blockchain = new BlockChain();
+        try (ChainSubscription subscription = new ChainSubscription(blockchain, 2, ChainSubscription.OverflowPolicy.DROP, () -> { })) {
+            blockchain.addTransactions(List.of("Transaction 1", "Transaction 2", "Transaction 3", "Transaction 4"), 0);
+
+            ResponseMessage first = next(subscription);
+            assertEquals(3, first.getStartIndex(), "Only the newest events are kept.");
+            assertEquals(3L, first.getDropped(), "The subscribed event and two block events were dropped.");
+            assertEquals(5, next(subscription).getChainSize());
+            assertNull(subscription.nextEvent());
+        }
+    }
+
+    @Test
+    void testOverflowDisconnects() {
+        BlockChain blockchain = new BlockChain();
+        ChainSubscription subscription = new ChainSubscription(blockchain, 2, ChainSubscription.OverflowPolicy.parse("disconnect"), () -> { });
+        blockchain.addTransactions(List.of("Transaction 1", "Transaction 2"), 0);
+
+        assertEquals("overflow", next(subscription).getEvent());
+        assertTrue(subscription.isClosed(), "The overflow event is the last one.");
+        assertFalse(blockchain.hasListeners(), "A closed subscription stops listening.");
+        assertThrows(IllegalArgumentException.class, () -> ChainSubscription.OverflowPolicy.parse("block"));
+    }
+
+    @Test
+    void testEventsArePushedOverTheNonBlockingServer() throws Exception {
+        BlockChain blockchain = new BlockChain();
+        RequestHandler handler = new RequestHandler(blockchain);
+        try (RequestScheduler scheduler = RequestScheduler.fromSystemProperties(handler);
+             NioServerTCP server = new NioServerTCP(new InetSocketAddress("localhost", 0), handler, 1, scheduler)) {
+            server.start();
+            try (Socket socket = new Socket("localhost", server.getLocalPort());
+                 PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+                 BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+                out.println(MessageCodec.toJson(new RequestMessage(ChainSubscription.ACTION, "drop", 0)));
+                ResponseMessage subscribed = MessageCodec.parseResponse(in.readLine());
+                assertEquals("subscribed", subscribed.getEvent());
+                assertEquals(1, subscribed.getChainSize());
+
+                blockchain.addTransaction("Alice pays Bob 10", 1);
+                ResponseMessage added = MessageCodec.parseResponse(in.readLine());
+                assertEquals("blockAdded", added.getEvent());
+                assertEquals(blockchain.getChainHash(), added.getChainHash());
+            }
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package com.cmu.network;
 
+import com.cmu.blockchain.message.RequestMessage;
+import com.cmu.blockchain.message.ResponseMessage;
 import com.cmu.blockchain.network.ClientTCP;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.*;
+import java.util.List;
 import java.util.Scanner;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -171,4 +174,25 @@ class ClientTCPTest {
         String output = byteArrayOutputStream.toString();
         assertTrue(output.contains("Blockchain repaired successfully."));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testSendPipelinedMatchesOutOfOrderResponses() throws Exception {
+        // Server answers the second request before the first one
+        BufferedReader in = new BufferedReader(new StringReader(
+                "{\"success\":true, \"message\":\"Blockchain is valid.\", \"action\":\"verifyBlockchain\", \"requestId\":2}\n" +
+                "{\"success\":true, \"message\":\"Transaction added successfully.\", \"action\":\"addTransaction\", \"requestId\":1}\n"));
+
+        List<ResponseMessage> responses = ClientTCP.sendPipelined(List.of(
+                new RequestMessage("addTransaction", "Transaction 1", 2),
+                new RequestMessage("verifyBlockchain", "", 0)), mockOut, in);
+
+        // Both requests are written before any response is read, each with its own request id
+        String[] sent = byteArrayOutputStream.toString().split("\n");
+        assertEquals(2, sent.length);
+        assertTrue(sent[0].contains("\"requestId\":1"));
+        assertTrue(sent[1].contains("\"requestId\":2"));
+
+        assertEquals("addTransaction", responses.get(0).getAction());
+        assertEquals("verifyBlockchain", responses.get(1).getAction());
+    }
+}
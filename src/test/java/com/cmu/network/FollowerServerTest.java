@@ -0,0 +1,271 @@
+package com.cmu.network;
+
+import com.cmu.blockchain.core.BlockChain;
+import com.cmu.blockchain.message.MessageCodec;
+import com.cmu.blockchain.message.RequestMessage;
+import com.cmu.blockchain.message.ResponseMessage;
+import com.cmu.blockchain.model.Block;
+import com.cmu.blockchain.network.ChainFeed;
+import com.cmu.blockchain.network.ChainSubscription;
+import com.cmu.blockchain.network.FollowerServer;
+import com.cmu.blockchain.network.NioServerTCP;
+import com.cmu.blockchain.network.RequestHandler;
+import com.cmu.blockchain.network.RequestScheduler;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FollowerServerTest {
+
+    private BlockChain leaderChain;
+    private RequestScheduler scheduler;
+    private NioServerTCP leader;
+    private FollowerServer follower;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        leaderChain = new BlockChain();
+        leaderChain.addTransaction("Before the follower", 2);
+        RequestHandler handler = new RequestHandler(leaderChain);
+        scheduler = RequestScheduler.fromSystemProperties(handler);
+        leader = new NioServerTCP(new InetSocketAddress("localhost", 0), handler, 1, scheduler);
+        leader.start();
+        follower = new FollowerServer("localhost", leader.getLocalPort(), new InetSocketAddress("localhost", 0), 1);
+        follower.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        follower.close();
+        leader.close();
+        scheduler.close();
+    }
+
+    private ResponseMessage send(BufferedReader in, PrintWriter out, RequestMessage request) throws IOException {
+        out.println(MessageCodec.toJson(request));
+        return MessageCodec.parseResponse(in.readLine());
+    }
+
+    private void awaitChainHash(String chainHash) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!chainHash.equals(follower.getBlockChain().getChainHash()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(chainHash, follower.getBlockChain().getChainHash(), "Follower should catch up with the leader.");
+    }
+
+    @Test
+    void testFollowerCopiesTheChainAndServesReads() throws Exception {
+        try (Socket socket = new Socket("localhost", follower.getLocalPort());
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+            ResponseMessage status = send(in, out, new RequestMessage("viewBlockchainStatus", "", 0));
+            assertEquals(2, status.getChainSize(), "Follower should hold the blocks mined before it started.");
+            assertEquals(leaderChain.getChainHash(), status.getChainHash());
+
+            assertTrue(send(in, out, new RequestMessage("verifyBlockchain", "", 0)).isSuccess());
+        }
+    }
+
+    @Test
+    void testFollowerStreamsAppendedBlocks() throws Exception {
+        leaderChain.addTransaction("After the follower", 2);
+        awaitChainHash(leaderChain.getChainHash());
+        assertEquals(3, follower.getBlockChain().getChainSize());
+    }
+
+    @Test
+    void testWritesAreForwardedAndReadBack() throws Exception {
+        try (Socket socket = new Socket("localhost", follower.getLocalPort());
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+            ResponseMessage added = send(in, out, new RequestMessage("addTransaction", "Through the follower", 2));
+            assertTrue(added.isSuccess());
+            assertEquals(3, leaderChain.getChainSize(), "The write should be applied by the leader.");
+
+            ResponseMessage status = send(in, out, new RequestMessage("viewBlockchainStatus", "", 0));
+            assertEquals(3, status.getChainSize(), "The follower should serve its client's own write.");
+        }
+    }
+
+    @Test
+    void testNamedChainReadsAreRefusedAndWritesForwarded() throws Exception {
+        try (Socket socket = new Socket("localhost", follower.getLocalPort());
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+            ResponseMessage read = send(in, out, new RequestMessage("viewBlockchainStatus", "", 0).withChain("tenant-a"));
+            assertFalse(read.isSuccess(), "A follower does not replicate named chains.");
+            assertTrue(read.getMessage().contains("leader"));
+
+            ResponseMessage write = send(in, out, new RequestMessage("addTransaction", "Tenant payment", 1).withChain("tenant-a"));
+            assertTrue(write.isSuccess(), write.getMessage());
+            assertEquals(2, write.getChainSize(), "The write goes to the leader's named chain.");
+            assertEquals(2, leaderChain.getChainSize(), "The default chain is untouched.");
+        }
+    }
+
+    @Test
+    void testNamedChainSubscriptionsAreRefused() throws Exception {
+        try (Socket socket = new Socket("localhost", follower.getLocalPort());
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+            assertTrue(send(in, out, new RequestMessage("addTransaction", "Tenant payment", 1).withChain("tenant-a")).isSuccess());
+
+            ResponseMessage refused = send(in, out, new RequestMessage(ChainSubscription.ACTION, "drop", 0).withChain("tenant-a"));
+            assertFalse(refused.isSuccess(), "A follower does not replicate named chains.");
+            assertTrue(refused.getMessage().contains("leader"));
+
+            ResponseMessage subscribed = send(in, out, new RequestMessage(ChainSubscription.ACTION, "drop", 0));
+            assertEquals("subscribed", subscribed.getEvent(), "The default chain can still be followed.");
+            assertEquals(2, subscribed.getChainSize());
+        }
+    }
+
+    @Test
+    void testFollowerRejectsCorruptionUntilRepaired() throws Exception {
+        String validHash = leaderChain.getChainHash();
+        leaderChain.corruptBlock(1, "Corrupted transaction");
+        leaderChain.addTransaction("After the corruption", 2);
+        leaderChain.repairChain();
+        awaitChainHash(leaderChain.getChainHash());
+
+        assertNotEquals(validHash, follower.getBlockChain().getChainHash());
+        assertTrue(follower.getBlockChain().isChainValid(), "Follower should only ever hold verified blocks.");
+    }
+
+    @Test
+    void testBlocksWithoutAPreviousHashAreRejected() throws Exception {
+        List<Block> blocks = new ArrayList<>();
+        for (int i = 0; i < leaderChain.getChainSize(); i++) {
+            blocks.add(leaderChain.getBlock(i));
+        }
+        Block unlinked = new Block(blocks.size(), new Timestamp(System.currentTimeMillis()), "No link", null, BigInteger.ZERO, 0);
+        Block next = leaderChain.addTransaction("After the bad update", 1);
+        try (ServerSocket fakeLeader = new ServerSocket(0)) {
+            Thread.ofPlatform().daemon().start(() -> {
+                try (Socket socket = fakeLeader.accept();
+                     PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+                     BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+                    in.readLine();
+                    out.println(MessageCodec.toJson(chainUpdate(0, blocks)));
+                    out.println(MessageCodec.toJson(chainUpdate(blocks.size(), List.of(unlinked))));
+                    out.println(MessageCodec.toJson(chainUpdate(blocks.size(), List.of(next))));
+                    in.readLine(); // Hold the feed open until the follower closes it
+                } catch (IOException ignored) {
+                }
+            });
+            FollowerServer replica = new FollowerServer("localhost", fakeLeader.getLocalPort(), new InetSocketAddress("localhost", 0), 1);
+            replica.start();
+            try (Socket socket = new Socket("localhost", replica.getLocalPort());
+                 PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+                 BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+                long deadline = System.currentTimeMillis() + 10_000;
+                while (!leaderChain.getChainHash().equals(replica.getBlockChain().getChainHash()) && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(10);
+                }
+                assertEquals(leaderChain.getChainHash(), replica.getBlockChain().getChainHash(),
+                        "Replication should go on after the bad update.");
+                ResponseMessage response = send(in, out, new RequestMessage("getMetrics", "", 0));
+                JsonObject gauges = JsonParser.parseString(response.getBlockchainData()).getAsJsonObject().getAsJsonObject("gauges");
+                assertEquals(1, gauges.get("rejectedUpdates").getAsLong());
+            } finally {
+                replica.close();
+            }
+        }
+    }
+
+    private static ResponseMessage chainUpdate(int startIndex, List<Block> blocks) {
+        ResponseMessage update = new ResponseMessage(true, "Chain update", ChainFeed.ACTION, null);
+        update.setStartIndex(startIndex);
+        update.setBlocks(blocks);
+        update.setChainSize(startIndex + blocks.size());
+        update.setServerTimeMillis(System.currentTimeMillis());
+        return update;
+    }
+
+    @Test
+    void testReplicationLagIsReported() throws Exception {
+        try (Socket socket = new Socket("localhost", follower.getLocalPort());
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+            ResponseMessage response = send(in, out, new RequestMessage("getMetrics", "", 0));
+            JsonObject gauges = JsonParser.parseString(response.getBlockchainData()).getAsJsonObject().getAsJsonObject("gauges");
+            assertEquals(0, gauges.get("replicationLagBlocks").getAsLong());
+            assertEquals(1, gauges.get("leaderConnected").getAsLong());
+            assertTrue(gauges.has("replicationLagMillis"));
+        }
+    }
+
+    @Test
+    void testUnkeyedWriteIsNotResentWhenTheReplyIsLost() throws Exception {
+        try (ServerSocket proxy = startLossyProxy(leader.getLocalPort(), "Lost reply")) {
+            FollowerServer lossy = new FollowerServer("localhost", proxy.getLocalPort(), new InetSocketAddress("localhost", 0), 1);
+            lossy.start();
+            try (Socket socket = new Socket("localhost", lossy.getLocalPort());
+                 PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+                 BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+                ResponseMessage response = send(in, out, new RequestMessage("addTransaction", "Lost reply", 2));
+                assertFalse(response.isSuccess(), "The client should learn that the outcome is unknown.");
+                Thread.sleep(500);
+                assertEquals(3, leaderChain.getChainSize(), "The leader should mine the write only once.");
+            } finally {
+                lossy.close();
+            }
+        }
+    }
+
+    /**
+     * Relays connections to the leader line by line, but drops a connection as soon as it has relayed a request
+     * holding the marker, so the leader runs that request and its reply is lost.
+     */
+    private static ServerSocket startLossyProxy(int leaderPort, String marker) throws IOException {
+        ServerSocket proxy = new ServerSocket(0);
+        Thread.ofPlatform().daemon().start(() -> {
+            while (!proxy.isClosed()) {
+                try {
+                    Socket client = proxy.accept();
+                    Socket upstream = new Socket("localhost", leaderPort);
+                    Thread.ofPlatform().daemon().start(() -> relay(upstream, client, null));
+                    Thread.ofPlatform().daemon().start(() -> relay(client, upstream, marker));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        });
+        return proxy;
+    }
+
+    private static void relay(Socket from, Socket to, String marker) {
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(from.getInputStream()));
+             PrintWriter out = new PrintWriter(to.getOutputStream(), true)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                out.println(line);
+                if (marker != null && line.contains(marker)) {
+                    break;
+                }
+            }
+        } catch (IOException ignored) {
+            // The other direction closed the connection
+        } finally {
+            try {
+                from.close();
+                to.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
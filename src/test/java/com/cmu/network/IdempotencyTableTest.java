@@ -0,0 +1,135 @@
+package com.cmu.network;
+
+import com.cmu.blockchain.core.BlockChain;
+import com.cmu.blockchain.message.MessageCodec;
+import com.cmu.blockchain.message.RequestMessage;
+import com.cmu.blockchain.message.ResponseMessage;
+import com.cmu.blockchain.network.IdempotencyTable;
+import com.cmu.blockchain.network.RequestHandler;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyTableTest {
+
+    private static ResponseMessage send(RequestHandler handler, RequestMessage request) {
+        return MessageCodec.parseResponse(handler.processRequest(MessageCodec.toJson(request)));
+    }
+
+    @Test
+    void testRetriesAreNotMinedAgain() {
+        BlockChain blockchain = new BlockChain();
+        RequestHandler handler = new RequestHandler(blockchain);
+        RequestMessage write = new RequestMessage("addTransaction", "Alice pays Bob 10", 1, 1L).withIdempotencyKey("payment-1");
+
+        ResponseMessage original = send(handler, write);
+        String json = handler.processRequest(MessageCodec.toJson(write.withRequestId(2L)));
+        ResponseMessage retry = MessageCodec.parseResponse(json);
+
+        assertTrue(retry.isSuccess(), retry.getMessage());
+        assertEquals(Boolean.TRUE, retry.getReplayed());
+        assertNull(original.getReplayed(), "The original was processed.");
+        assertEquals(2L, retry.getRequestId(), "A replay carries the retry's request id.");
+        assertEquals(original.getChainHash(), retry.getChainHash());
+        assertEquals(2, blockchain.getChainSize(), "The transaction is mined once.");
+
+        assertEquals(3, send(handler, write.withIdempotencyKey("payment-2")).getChainSize(), "Another key is mined.");
+        assertEquals(4, send(handler, write.withIdempotencyKey(null)).getChainSize(), "Unkeyed writes are mined.");
+        ResponseMessage named = send(handler, write.withChain("tenant-a"));
+        assertNull(named.getReplayed(), "Keys are scoped to a chain.");
+        assertEquals(2, named.getChainSize());
+
+        ResponseMessage reused = send(handler, new RequestMessage("addTransaction", "Mallory pays Mallory 1000", 1)
+                .withIdempotencyKey("payment-1"));
+        assertFalse(reused.isSuccess(), "A key reused for another transaction is refused.");
+        assertEquals(4, blockchain.getChainSize());
+    }
+
+    @Test
+    void testReusedKeyIsRefusedEvenWhenTheRequestsHashAlike() {
+        IdempotencyTable table = new IdempotencyTable(10, Duration.ofMinutes(1));
+        RequestMessage first = new RequestMessage("addTransaction", "Aa", 1).withIdempotencyKey("payment-1");
+        RequestMessage second = new RequestMessage("addTransaction", "BB", 1).withIdempotencyKey("payment-1");
+        assertEquals(first.data().hashCode(), second.data().hashCode(), "The data of both requests hashes alike.");
+
+        IdempotencyTable.Claim owner = table.claim(first);
+        owner.complete("{\"success\":true}");
+        IdempotencyTable.Claim reused = table.claim(second);
+        assertFalse(reused.isOwner());
+        assertFalse(reused.matches(), "A different request must not get the stored result.");
+        assertTrue(table.claim(first).matches(), "The same request still matches.");
+    }
+
+    @Test
+    void testRetryWaitsForTheMiningOriginal() throws Exception {
+        BlockChain blockchain = new BlockChain();
+        RequestHandler handler = new RequestHandler(blockchain);
+        RequestMessage batch = RequestMessage.batch(List.of("Transaction 1", "Transaction 2"), 3).withIdempotencyKey("batch-1");
+
+        List<CompletableFuture<ResponseMessage>> responses = List.of(
+                CompletableFuture.supplyAsync(() -> send(handler, batch)),
+                CompletableFuture.supplyAsync(() -> send(handler, batch)),
+                CompletableFuture.supplyAsync(() -> send(handler, batch)));
+        int replayed = 0;
+        for (CompletableFuture<ResponseMessage> response : responses) {
+            assertTrue(response.get().isSuccess(), response.get().getMessage());
+            assertEquals(3, response.get().getChainSize());
+            replayed += Boolean.TRUE.equals(response.get().getReplayed()) ? 1 : 0;
+        }
+        assertEquals(2, replayed, "Only one of the concurrent requests mines.");
+        assertEquals(3, blockchain.getChainSize());
+    }
+
+    @Test
+    void testTableIsBoundedAndExpires() throws Exception {
+        IdempotencyTable table = new IdempotencyTable(2, Duration.ofMillis(50));
+        IdempotencyTable.Claim first = table.claim(new RequestMessage("addTransaction", "a", 1).withIdempotencyKey("a"));
+        first.complete("{}");
+        table.claim(new RequestMessage("addTransaction", "b", 1).withIdempotencyKey("b"));
+        table.claim(new RequestMessage("addTransaction", "c", 1).withIdempotencyKey("c"));
+        assertEquals(2, table.size(), "The oldest completed key is dropped when the table is full.");
+        IdempotencyTable.Claim again = table.claim(new RequestMessage("addTransaction", "a", 1).withIdempotencyKey("a"));
+        assertTrue(again.isOwner(), "A dropped key runs again.");
+        assertEquals(3, table.size(), "Running keys are kept over capacity.");
+        again.complete("{}");
+
+        Thread.sleep(100);
+        assertFalse(table.claim(new RequestMessage("addTransaction", "c", 1).withIdempotencyKey("c")).isOwner(),
+                "A key still running does not expire.");
+        assertEquals(2, table.size(), "Expired keys are purged once they have completed.");
+        IdempotencyTable.Claim d = table.claim(new RequestMessage("addTransaction", "d", 1).withIdempotencyKey("d"));
+        assertTrue(d.isOwner());
+
+        IdempotencyTable.Claim retry = table.claim(new RequestMessage("addTransaction", "d", 1).withIdempotencyKey("d"));
+        assertFalse(retry.isOwner());
+        d.abandon(new IllegalStateException("Mining failed"));
+        assertTrue(retry.result().isCompletedExceptionally(), "Waiting retries learn of the failure.");
+        assertTrue(table.claim(new RequestMessage("addTransaction", "d", 1).withIdempotencyKey("d")).isOwner(),
+                "An abandoned key runs again.");
+    }
+
+    @Test
+    void testRunningKeysAreNeverEvicted() {
+        IdempotencyTable table = new IdempotencyTable(1, Duration.ofMinutes(10));
+        RequestMessage a = new RequestMessage("addTransaction", "a", 1).withIdempotencyKey("a");
+        RequestMessage b = new RequestMessage("addTransaction", "b", 1).withIdempotencyKey("b");
+        IdempotencyTable.Claim first = table.claim(a);
+        IdempotencyTable.Claim second = table.claim(b);
+        assertTrue(first.isOwner());
+        assertTrue(second.isOwner());
+        assertEquals(2, table.size(), "Neither running key is dropped to make room.");
+
+        IdempotencyTable.Claim retry = table.claim(a);
+        assertFalse(retry.isOwner(), "A retry of a key still mining waits instead of mining again.");
+        assertSame(first.result(), retry.result());
+
+        first.complete("{}");
+        second.complete("{}");
+        assertTrue(table.claim(new RequestMessage("addTransaction", "c", 1).withIdempotencyKey("c")).isOwner());
+        assertEquals(1, table.size(), "Completed keys make room again.");
+    }
+}
@@ -0,0 +1,96 @@
+package com.cmu.network;
+
+import com.cmu.blockchain.core.BlockChain;
+import com.cmu.blockchain.load.LoadGenerator;
+import com.cmu.blockchain.load.LoadProfile;
+import com.cmu.blockchain.load.LoadReport;
+import com.cmu.blockchain.network.BlockChainClient;
+import com.cmu.blockchain.network.NioServerTCP;
+import com.cmu.blockchain.network.RequestHandler;
+import com.cmu.blockchain.network.RequestScheduler;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadGeneratorTest {
+
+    private RequestScheduler scheduler;
+    private NioServerTCP server;
+    private BlockChainClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        RequestHandler handler = new RequestHandler(new BlockChain());
+        scheduler = RequestScheduler.fromSystemProperties(handler);
+        server = new NioServerTCP(new InetSocketAddress("localhost", 0), handler, 1, scheduler);
+        server.start();
+        client = new BlockChainClient("localhost", server.getLocalPort(), 2, Duration.ofSeconds(2), Duration.ofSeconds(30));
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.close();
+        scheduler.close();
+    }
+
+    private static LoadProfile profile(LoadProfile.Mode mode, double rate) {
+        return new LoadProfile(mode, 2, rate, Duration.ofMillis(300), Duration.ofSeconds(1),
+                LoadProfile.parseMix("viewBlockchainStatus=3,verifyBlockchain=1,addTransaction=1"), 1);
+    }
+
+    @Test
+    void testOpenLoopSendsAtTheTargetRate() throws Exception {
+        LoadProfile profile = profile(LoadProfile.Mode.OPEN, 100);
+        LoadReport report = new LoadGenerator(client, profile).run();
+
+        assertEquals(100, report.getRequests(), 1, "Only requests scheduled after the warm-up are reported.");
+        assertEquals(0, report.getErrors(), "No request should fail.");
+        JsonObject json = JsonParser.parseString(report.toJson(profile)).getAsJsonObject();
+        assertEquals("open", json.get("mode").getAsString());
+        assertEquals(0.0, json.get("errorRate").getAsDouble());
+        JsonObject latency = json.getAsJsonObject("latency");
+        assertTrue(latency.get("p50").getAsDouble() <= latency.get("p99").getAsDouble(), "Percentiles should be ordered.");
+        assertTrue(json.getAsJsonObject("actions").getAsJsonObject("addTransaction").get("requests").getAsLong() > 0,
+                "Every action of the mix should be sent.");
+    }
+
+    @Test
+    void testClosedLoopReportsThroughputAndErrors() throws Exception {
+        LoadProfile profile = profile(LoadProfile.Mode.CLOSED, 0);
+        LoadReport report = new LoadGenerator(client, profile).run();
+
+        assertTrue(report.getRequests() > 0, "Back-to-back clients should complete requests.");
+        assertEquals(0, report.getErrors(), "No request should fail.");
+        JsonObject json = JsonParser.parseString(report.toJson(profile)).getAsJsonObject();
+        assertTrue(json.get("throughput").getAsDouble() > 0, "Throughput should be reported.");
+        assertTrue(json.getAsJsonObject("latency").get("max").getAsDouble()
+                        >= json.getAsJsonObject("serviceTime").get("p50").getAsDouble(),
+                "Latencies include the service time.");
+    }
+
+    @Test
+    void testFailedRequestsAreCounted() throws Exception {
+        LoadProfile profile = profile(LoadProfile.Mode.CLOSED, 50);
+        server.close();
+        LoadReport report = new LoadGenerator(client, profile).run();
+
+        assertEquals(report.getRequests(), report.getErrors(), "Every request should fail without a server.");
+        JsonObject json = JsonParser.parseString(report.toJson(profile)).getAsJsonObject();
+        assertEquals(1.0, json.get("errorRate").getAsDouble());
+        assertTrue(json.getAsJsonObject("errorMessages").has("ConnectException"), "Failures are grouped by cause.");
+    }
+
+    @Test
+    void testInvalidMixIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> LoadProfile.parseMix("mineEverything=5"));
+        assertThrows(IllegalArgumentException.class, () -> profile(LoadProfile.Mode.OPEN, 0), "Open loops need a rate.");
+    }
+}
@@ -0,0 +1,114 @@
+package com.cmu.network;
+
+import com.cmu.blockchain.core.BlockChain;
+import com.cmu.blockchain.mining.MiningPool;
+import com.cmu.blockchain.mining.MiningWorker;
+import com.cmu.blockchain.mining.NonceSearch;
+import com.cmu.blockchain.model.Block;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MiningPoolTest {
+
+    private MiningPool pool;
+    private final List<MiningWorker> workers = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        workers.forEach(MiningWorker::close);
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    private void startPool(long chunkSize) throws IOException {
+        pool = new MiningPool(new InetSocketAddress("localhost", 0), chunkSize);
+        pool.start();
+    }
+
+    private void startWorker(int threads) throws Exception {
+        int expected = pool.getWorkerCount() + 1;
+        MiningWorker worker = new MiningWorker("localhost", pool.getLocalPort(), threads);
+        worker.start();
+        workers.add(worker);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pool.getWorkerCount() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, pool.getWorkerCount(), "The worker should have joined the pool.");
+    }
+
+    @Test
+    void testNonceSearchMatchesProofOfWork() {
+        Timestamp timestamp = new Timestamp(System.currentTimeMillis());
+        for (int version : new int[]{Block.LEGACY_HASH_VERSION, Block.CURRENT_HASH_VERSION}) {
+            Block block = new Block(1, timestamp, "Transaction", Block.GENESIS_PREVIOUS_HASH, BigInteger.ZERO, 3, version);
+            long nonce = NonceSearch.search(block.getHashPrefix(), block.getHashSuffix(), version, 3, 0, Long.MAX_VALUE, () -> false);
+
+            Block mined = block.proofOfWork();
+            assertEquals(mined.getNonce().longValue(), nonce, "The search should find the same first nonce as proofOfWork.");
+            assertTrue(BlockChain.isMined(mined), "The nonce should meet the difficulty of a version " + version + " block.");
+        }
+    }
+
+    @Test
+    void testPoolMinesWithoutWorkers() throws Exception {
+        startPool(1 << 10);
+        BlockChain blockchain = new BlockChain();
+        blockchain.setMiner(pool);
+
+        blockchain.addTransaction("Mined by the pool alone", 3);
+        assertTrue(blockchain.isChainValid(), "Blocks mined by the pool should be valid.");
+    }
+
+    @Test
+    void testWorkersMineValidBlocks() throws Exception {
+        startPool(1 << 12);
+        startWorker(2);
+        startWorker(1);
+        BlockChain blockchain = new BlockChain();
+        blockchain.setMiner(pool);
+
+        for (int i = 0; i < 3; i++) {
+            blockchain.addTransaction("Transaction " + i, 4);
+        }
+        blockchain.corruptBlock(1, "Corrupted transaction");
+        blockchain.repairChain();
+
+        assertTrue(blockchain.isChainValid(), "Blocks mined and repaired by the workers should be valid.");
+        assertTrue(pool.getHashes() > 0);
+    }
+
+    @Test
+    void testInvalidNonceFromWorkerIsRejected() throws Exception {
+        startPool(1 << 12);
+        BlockChain blockchain = new BlockChain();
+        blockchain.setMiner(pool);
+        try (Socket socket = new Socket("localhost", pool.getLocalPort());
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true)) {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (pool.getWorkerCount() < 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            // A rogue worker claiming every job is solved by nonce 0
+            Thread rogue = Thread.ofVirtual().start(() -> {
+                for (long jobId = 1; jobId <= 3 && !Thread.currentThread().isInterrupted(); jobId++) {
+                    out.println("{\"jobId\":" + jobId + ",\"nonceStart\":0,\"nonceEnd\":1,\"nonce\":0,\"hashes\":1}");
+                }
+            });
+            blockchain.addTransaction("Not solved by the rogue worker", 3);
+            rogue.join();
+        }
+        assertTrue(blockchain.isChainValid(), "A false claim should not end the search.");
+    }
+}
@@ -0,0 +1,329 @@
+package com.cmu.network;
+
+import com.cmu.blockchain.core.BlockChain;
+import com.cmu.blockchain.message.RequestMessage;
+import com.cmu.blockchain.message.ResponseMessage;
+import com.cmu.blockchain.network.ClientTCP;
+import com.cmu.blockchain.network.CompressedLineReader;
+import com.cmu.blockchain.network.LineCompressor;
+import com.cmu.blockchain.network.NioServerTCP;
+import com.cmu.blockchain.network.RequestHandler;
+import com.cmu.blockchain.network.RequestScheduler;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NioServerTCPTest {
+
+    private final Gson gson = new Gson();
+    private RequestScheduler scheduler;
+    private NioServerTCP server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        RequestHandler handler = new RequestHandler(new BlockChain());
+        scheduler = RequestScheduler.fromSystemProperties(handler);
+        server = new NioServerTCP(new InetSocketAddress("localhost", 0), handler, 2, scheduler);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+        scheduler.close();
+    }
+
+    @Test
+    void testViewBlockchainStatus() throws Exception {
+        try (Socket socket = new Socket("localhost", server.getLocalPort());
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+            out.println(gson.toJson(new RequestMessage("viewBlockchainStatus", "", 0)));
+            ResponseMessage response = gson.fromJson(in.readLine(), ResponseMessage.class);
+
+            assertTrue(response.isSuccess());
+            assertEquals("viewBlockchainStatus", response.getAction());
+            assertEquals(1, response.getChainSize(), "A new server should only hold the genesis block.");
+        }
+    }
+
+    @Test
+    void testResponsesStayInOrderAcrossWorkerRequests() throws Exception {
+        try (Socket socket = new Socket("localhost", server.getLocalPort());
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+            // Send a mining request followed by cheap reads without waiting for the responses
+            out.println(gson.toJson(new RequestMessage("addTransaction", "Transaction 1", 2)));
+            out.println(gson.toJson(new RequestMessage("viewBlockchainStatus", "", 0)));
+            out.println(gson.toJson(new RequestMessage("verifyBlockchain", "", 0)));
+
+            ResponseMessage added = gson.fromJson(in.readLine(), ResponseMessage.class);
+            ResponseMessage status = gson.fromJson(in.readLine(), ResponseMessage.class);
+            ResponseMessage verified = gson.fromJson(in.readLine(), ResponseMessage.class);
+
+            assertEquals("addTransaction", added.getAction());
+            assertEquals("viewBlockchainStatus", status.getAction());
+            assertEquals(2, status.getChainSize(), "Reads after a mining request should observe the mined block.");
+            assertEquals("verifyBlockchain", verified.getAction());
+            assertTrue(verified.isSuccess());
+        }
+    }
+
+    @Test
+    void testBatchOfTransactionsInOneRequest() throws Exception {
+        try (Socket socket = new Socket("localhost", server.getLocalPort());
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+            List<String> transactions = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                transactions.add("Transaction " + i);
+            }
+            ResponseMessage response = ClientTCP.addTransactions(transactions, 1, out, in);
+
+            assertTrue(response.isSuccess());
+            assertEquals("addTransactions", response.getAction());
+            assertEquals(50, response.getResults().size(), "Every item should be reported.");
+            assertEquals(1, response.getResults().get(0).blockIndex());
+            assertEquals(50, response.getResults().get(49).blockIndex());
+            assertEquals(51, response.getChainSize(), "Items should be mined into consecutive blocks.");
+
+            out.println("{\"action\":\"addTransactions\",\"difficulty\":1,\"transactions\":[\"A\",null,\"B\"]}");
+            response = gson.fromJson(in.readLine(), ResponseMessage.class);
+            assertFalse(response.isSuccess(), "A rejected item should fail the batch as a whole.");
+            assertEquals("Missing transaction data.", response.getResults().get(1).error());
+            assertEquals(52, response.getResults().get(2).blockIndex(), "Valid items should still be mined.");
+        }
+    }
+
+    @Test
+    void testPipelinedReadOvertakesMining() throws Exception {
+        try (Socket socket = new Socket("localhost", server.getLocalPort());
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+            out.println(gson.toJson(new RequestMessage("addTransaction", "Slow transaction", 5, 1L)));
+            out.println(gson.toJson(new RequestMessage("viewBlockchainStatus", "", 0, 2L)));
+
+            ResponseMessage first = gson.fromJson(in.readLine(), ResponseMessage.class);
+            ResponseMessage second = gson.fromJson(in.readLine(), ResponseMessage.class);
+
+            assertEquals(2L, first.getRequestId(), "The status read should not wait for the mining request.");
+            assertEquals("viewBlockchainStatus", first.getAction());
+            assertEquals(1L, second.getRequestId());
+            assertEquals("addTransaction", second.getAction());
+            assertTrue(second.isSuccess());
+        }
+    }
+
+    @Test
+    void testLargeResponseSpanningBuffers() throws Exception {
+        try (Socket socket = new Socket("localhost", server.getLocalPort());
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+            String largeData = "x".repeat(40_000);
+            out.println(gson.toJson(new RequestMessage("addTransaction", largeData, 1)));
+            assertTrue(gson.fromJson(in.readLine(), ResponseMessage.class).isSuccess());
+
+            out.println(gson.toJson(new RequestMessage("viewBlockchain", "", 0)));
+            ResponseMessage response = gson.fromJson(in.readLine(), ResponseMessage.class);
+            assertTrue(response.getBlockchainData().contains(largeData));
+        }
+    }
+
+    @Test
+    void testNegotiatedCompressionShrinksLargeResponses() throws Exception {
+        try (Socket socket = new Socket("localhost", server.getLocalPort());
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+            for (int i = 0; i < 20; i++) {
+                out.println(gson.toJson(new RequestMessage("addTransaction", "Transaction " + i, 1)));
+                in.readLine();
+            }
+            out.println(gson.toJson(new RequestMessage("viewBlockchain", "", 0)));
+            String plain = in.readLine();
+
+            assertTrue(ClientTCP.negotiateCompression(out, in), "Server should accept deflate.");
+            out.println(gson.toJson(new RequestMessage("verifyBlockchain", "", 0)));
+            String status = in.readLine();
+            out.println(gson.toJson(new RequestMessage("viewBlockchain", "", 0)));
+            String first = in.readLine();
+            out.println(gson.toJson(new RequestMessage("viewBlockchain", "", 0)));
+            String second = in.readLine();
+
+            assertTrue(status.startsWith("{"), "Short responses should stay uncompressed.");
+            assertTrue(first.startsWith(LineCompressor.PREFIX), "Large responses should be compressed.");
+            assertTrue(first.length() * 2 < plain.length(), "Compression should at least halve the chain.");
+            assertTrue(second.length() < first.length(), "Repeated content should compress against earlier lines.");
+            try (BufferedReader decoder = new CompressedLineReader(new StringReader(status + "\n" + first + "\n" + second + "\n"))) {
+                String expected = gson.fromJson(plain, ResponseMessage.class).getBlockchainData();
+                assertTrue(gson.fromJson(decoder.readLine(), ResponseMessage.class).isSuccess());
+                assertEquals(expected, gson.fromJson(decoder.readLine(), ResponseMessage.class).getBlockchainData());
+                assertEquals(expected, gson.fromJson(decoder.readLine(), ResponseMessage.class).getBlockchainData());
+            }
+        }
+    }
+
+    @Test
+    void testUnsupportedCompressionIsRefused() throws Exception {
+        try (Socket socket = new Socket("localhost", server.getLocalPort());
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+            out.println(gson.toJson(new RequestMessage(LineCompressor.ACTION, "brotli", 0)));
+            assertFalse(gson.fromJson(in.readLine(), ResponseMessage.class).isSuccess());
+            out.println(gson.toJson(new RequestMessage("viewBlockchain", "", 0)));
+            assertTrue(in.readLine().startsWith("{"), "Responses should stay uncompressed.");
+        }
+    }
+
+    @Test
+    void testGetMetricsReportsActionLatencies() throws Exception {
+        try (Socket socket = new Socket("localhost", server.getLocalPort());
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+            out.println(gson.toJson(new RequestMessage("viewBlockchainStatus", "", 0)));
+            in.readLine();
+            out.println(gson.toJson(new RequestMessage("getMetrics", "", 0)));
+            ResponseMessage response = gson.fromJson(in.readLine(), ResponseMessage.class);
+
+            assertTrue(response.isSuccess());
+            JsonObject metrics = JsonParser.parseString(response.getBlockchainData()).getAsJsonObject();
+            JsonObject status = metrics.getAsJsonObject("actions").getAsJsonObject("viewBlockchainStatus");
+            assertEquals(1, status.get("count").getAsLong());
+            assertTrue(status.getAsJsonObject("total").has("p999"));
+            assertTrue(metrics.get("bytesIn").getAsLong() > 0);
+            assertEquals(1, metrics.get("inFlight").getAsLong(), "Only the metrics request itself should be in flight.");
+        }
+    }
+
+    @Test
+    void testInvalidRequestReturnsError() throws Exception {
+        try (Socket socket = new Socket("localhost", server.getLocalPort());
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+            out.println("not json");
+            ResponseMessage response = gson.fromJson(in.readLine(), ResponseMessage.class);
+            assertFalse(response.isSuccess());
+            assertTrue(response.getMessage().startsWith("Error processing request"));
+        }
+    }
+
+    @Test
+    void testFailingConnectionDoesNotStopEventLoop() throws Exception {
+        RequestHandler failing = new RequestHandler(new BlockChain()) {
+            @Override
+            public String processRequest(RequestMessage request, long receivedNanos) {
+                if ("explode".equals(request.action())) {
+                    throw new IllegalStateException("Simulated handler failure");
+                }
+                return super.processRequest(request, receivedNanos);
+            }
+        };
+        RequestScheduler failingScheduler = RequestScheduler.fromSystemProperties(failing);
+        NioServerTCP singleLoop = new NioServerTCP(new InetSocketAddress("localhost", 0), failing, 1, failingScheduler);
+        singleLoop.start();
+        try (Socket broken = new Socket("localhost", singleLoop.getLocalPort());
+             Socket healthy = new Socket("localhost", singleLoop.getLocalPort())) {
+            new PrintWriter(broken.getOutputStream(), true).println(gson.toJson(new RequestMessage("explode", "", 0)));
+            assertNull(new BufferedReader(new InputStreamReader(broken.getInputStream())).readLine(),
+                    "Only the failing connection should be closed.");
+
+            new PrintWriter(healthy.getOutputStream(), true).println(gson.toJson(new RequestMessage("verifyBlockchain", "", 0)));
+            BufferedReader in = new BufferedReader(new InputStreamReader(healthy.getInputStream()));
+            assertTrue(gson.fromJson(in.readLine(), ResponseMessage.class).isSuccess(), "The event loop should keep serving.");
+        } finally {
+            singleLoop.close();
+            failingScheduler.close();
+        }
+    }
+
+    @Test
+    void testClientThatDoesNotReadIsThrottled() throws Exception {
+        CountDownLatch mining = new CountDownLatch(1);
+        RequestHandler gated = new RequestHandler(new BlockChain()) {
+            @Override
+            public String processRequest(RequestMessage request, long receivedNanos) {
+                if ("addTransaction".equals(request.action())) {
+                    try {
+                        mining.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.processRequest(request, receivedNanos);
+            }
+        };
+        RequestScheduler gatedScheduler = RequestScheduler.fromSystemProperties(gated);
+        NioServerTCP gatedServer = new NioServerTCP(new InetSocketAddress("localhost", 0), gated, 1, gatedScheduler);
+        gatedServer.start();
+        try (SocketChannel channel = SocketChannel.open(new InetSocketAddress("localhost", gatedServer.getLocalPort()))) {
+            StringBuilder statuses = new StringBuilder();
+            while (statuses.length() < 1 << 16) {
+                statuses.append(gson.toJson(new RequestMessage("viewBlockchainStatus", "", 0))).append('\n');
+            }
+            ByteBuffer flood = ByteBuffer.wrap(statuses.toString().getBytes());
+            // Queue the reads right behind a mining request, without reading any response
+            channel.write(ByteBuffer.wrap((gson.toJson(new RequestMessage("addTransaction", "Slow", 1)) + "\n").getBytes()));
+            channel.configureBlocking(false);
+            long sent = 0;
+            long stalledSince = System.nanoTime();
+            while (sent < 32L << 20 && System.nanoTime() - stalledSince < 500_000_000L) {
+                int written = channel.write(flood);
+                if (written > 0) {
+                    sent += written;
+                    stalledSince = System.nanoTime();
+                } else {
+                    Thread.sleep(5);
+                }
+                if (!flood.hasRemaining()) {
+                    flood.rewind();
+                }
+            }
+            assertTrue(sent < 32L << 20, "The server should stop reading while requests queue up, but took " + sent + " bytes.");
+
+            mining.countDown();
+            channel.configureBlocking(true);
+            BufferedReader in = new BufferedReader(new InputStreamReader(channel.socket().getInputStream()));
+            assertEquals("addTransaction", gson.fromJson(in.readLine(), ResponseMessage.class).getAction());
+            assertEquals("viewBlockchainStatus", gson.fromJson(in.readLine(), ResponseMessage.class).getAction(),
+                    "Reading resumes once the queue drains.");
+        } finally {
+            mining.countDown();
+            gatedServer.close();
+            gatedScheduler.close();
+        }
+    }
+
+    @Test
+    void testManyConcurrentClients() throws Exception {
+        List<Socket> sockets = new ArrayList<>();
+        try {
+            for (int i = 0; i < 50; i++) {
+                sockets.add(new Socket("localhost", server.getLocalPort()));
+            }
+            for (Socket socket : sockets) {
+                new PrintWriter(socket.getOutputStream(), true).println(gson.toJson(new RequestMessage("verifyBlockchain", "", 0)));
+            }
+            for (Socket socket : sockets) {
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+                assertTrue(gson.fromJson(in.readLine(), ResponseMessage.class).isSuccess());
+            }
+        } finally {
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.cmu.network;
+
+import com.cmu.blockchain.core.BlockChain;
+import com.cmu.blockchain.message.BlockAnnouncement;
+import com.cmu.blockchain.network.NioServerTCP;
+import com.cmu.blockchain.network.PeerNode;
+import com.cmu.blockchain.network.RequestHandler;
+import com.cmu.blockchain.network.RequestScheduler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PeerNodeTest {
+
+    private final List<AutoCloseable> resources = new ArrayList<>();
+
+    /**
+     * A server with its own chain, replicating through a peer node.
+     */
+    private record Node(BlockChain blockchain, NioServerTCP server, RequestHandler handler, String address) {
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (AutoCloseable resource : resources.reversed()) {
+            resource.close();
+        }
+    }
+
+    private Node startServer(BlockChain blockchain) throws IOException {
+        RequestHandler handler = new RequestHandler(blockchain);
+        RequestScheduler scheduler = RequestScheduler.fromSystemProperties(handler);
+        NioServerTCP server = new NioServerTCP(new InetSocketAddress("localhost", 0), handler, 1, scheduler);
+        server.start();
+        resources.add(scheduler);
+        resources.add(server);
+        return new Node(blockchain, server, handler, "localhost:" + server.getLocalPort());
+    }
+
+    private PeerNode joinPeers(Node node, String... peers) {
+        PeerNode peerNode = new PeerNode(node.blockchain(), node.address(), List.of(peers));
+        node.handler().setPeerNode(peerNode);
+        peerNode.start();
+        resources.add(peerNode);
+        return peerNode;
+    }
+
+    private void awaitSameChain(BlockChain expected, BlockChain actual) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 15_000;
+        while (!expected.getChainHash().equals(actual.getChainHash()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(expected.getChainHash(), actual.getChainHash(), "Peers should converge on the same chain.");
+        assertEquals(expected.getChainSize(), actual.getChainSize());
+    }
+
+    @Test
+    void testBlocksAreGossipedToAllPeers() throws Exception {
+        Node a = startServer(new BlockChain());
+        Node b = startServer(BlockChain.createReplica());
+        Node c = startServer(BlockChain.createReplica());
+        joinPeers(a);
+        joinPeers(b, a.address());
+        joinPeers(c, b.address());
+        awaitSameChain(a.blockchain(), c.blockchain());
+
+        a.blockchain().addTransaction("Mined on A", 2);
+        awaitSameChain(a.blockchain(), b.blockchain());
+        awaitSameChain(a.blockchain(), c.blockchain());
+
+        c.blockchain().addTransaction("Mined on C", 2);
+        awaitSameChain(c.blockchain(), a.blockchain());
+        assertTrue(a.blockchain().isChainValid());
+    }
+
+    @Test
+    void testLaggingPeerCatchesUpInBatches() throws Exception {
+        Node a = startServer(new BlockChain());
+        for (int i = 0; i < 600; i++) {
+            a.blockchain().addTransaction("Transaction " + i, 1);
+        }
+        joinPeers(a);
+
+        Node late = startServer(BlockChain.createReplica());
+        joinPeers(late, a.address());
+        awaitSameChain(a.blockchain(), late.blockchain());
+        assertTrue(late.blockchain().isChainValid());
+    }
+
+    @Test
+    void testForkResolvesToMostCumulativeWork() throws Exception {
+        BlockChain shared = new BlockChain();
+        shared.addTransaction("Shared", 1);
+        BlockChain other = BlockChain.createReplica();
+        other.replaceFrom(0, shared.getBlocks(0, 10));
+
+        // Partitioned: one light block on one side, one heavier block on the other
+        shared.addTransaction("Light branch", 1);
+        other.addTransaction("Heavy branch", 3);
+        String heavyHead = other.getChainHash();
+
+        Node a = startServer(shared);
+        Node b = startServer(other);
+        joinPeers(a);
+        joinPeers(b, a.address());
+
+        awaitSameChain(b.blockchain(), a.blockchain());
+        assertEquals(heavyHead, a.blockchain().getChainHash(), "The branch with more work should win.");
+        assertEquals("Heavy branch", a.blockchain().getLatestBlock().getData());
+    }
+
+    @Test
+    void testAnnouncedPeersAreAddedOnlyAfterAHandshake() throws Exception {
+        Node a = startServer(new BlockChain());
+        Node plain = startServer(new BlockChain()); // Serves the chain, but does not replicate
+        PeerNode peerNode = joinPeers(a);
+
+        peerNode.receive(new BlockAnnouncement(plain.address(), List.of()));
+        Thread.sleep(500);
+        assertEquals(0, peerNode.getPeerCount(), "A server that refuses gossip is not a peer.");
+
+        Node b = startServer(BlockChain.createReplica());
+        joinPeers(b);
+        peerNode.receive(new BlockAnnouncement(b.address(), List.of()));
+        awaitSameChain(a.blockchain(), b.blockchain());
+        assertEquals(1, peerNode.getPeerCount(), "A replicating server is added after the handshake.");
+    }
+}
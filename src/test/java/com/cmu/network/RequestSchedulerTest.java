@@ -0,0 +1,75 @@
+package com.cmu.network;
+
+import com.cmu.blockchain.core.BlockChain;
+import com.cmu.blockchain.message.RequestMessage;
+import com.cmu.blockchain.message.ResponseMessage;
+import com.cmu.blockchain.network.RequestHandler;
+import com.cmu.blockchain.network.RequestScheduler;
+import com.google.gson.Gson;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestSchedulerTest {
+
+    private final Gson gson = new Gson();
+    private RequestHandler handler;
+    private RequestScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        handler = new RequestHandler(new BlockChain());
+        // One worker and room for one waiting request
+        scheduler = new RequestScheduler(handler, Map.of("addTransaction", 1), 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.close();
+    }
+
+    @Test
+    void testOnlyConfiguredActionsAreScheduled() {
+        assertTrue(scheduler.isScheduled("addTransaction"));
+        assertFalse(scheduler.isScheduled("viewBlockchainStatus"));
+        assertFalse(scheduler.isScheduled(null));
+    }
+
+    @Test
+    void testFullQueueRejectsWithRetryAfter() {
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(scheduler.submit(new RequestMessage("addTransaction", "Transaction " + i, 4, (long) i), System.nanoTime()));
+        }
+
+        // The third request finds the worker busy and the queue full
+        ResponseMessage rejected = gson.fromJson(futures.get(2).getNow(null), ResponseMessage.class);
+        assertNotNull(rejected, "A rejected request should be answered immediately.");
+        assertFalse(rejected.isSuccess());
+        assertEquals(2L, rejected.getRequestId());
+        assertNotNull(rejected.getRetryAfterMillis());
+        assertTrue(rejected.getMessage().startsWith("Server busy, retry after"));
+
+        // Admitted requests still complete
+        assertTrue(gson.fromJson(futures.get(0).join(), ResponseMessage.class).isSuccess());
+        assertTrue(gson.fromJson(futures.get(1).join(), ResponseMessage.class).isSuccess());
+    }
+
+    @Test
+    void testInvalidChainNameIsRefusedWithoutAQueue() {
+        String response = scheduler.submit(new RequestMessage("addTransaction", "Transaction", 1, 7L).withChain("../etc"),
+                System.nanoTime()).getNow(null);
+        assertNotNull(response, "An invalid chain name should be refused immediately.");
+        ResponseMessage refused = gson.fromJson(response, ResponseMessage.class);
+        assertFalse(refused.isSuccess());
+        assertEquals(7L, refused.getRequestId());
+        assertTrue(refused.getMessage().contains("Invalid chain name"));
+    }
+}